@@ -59,3 +59,63 @@ INSERT IGNORE INTO batches (item_code, expiry, qty_on_shelf, qty_in_store, qty_i
 UPDATE batches SET qty_on_shelf = 5, qty_in_store = 8, qty_in_main = 15 WHERE item_code = 'IC0001';
 UPDATE batches SET qty_on_shelf = 3, qty_in_store = 5, qty_in_main = 20 WHERE item_code = 'RC0001';
 UPDATE batches SET qty_on_shelf = 8, qty_in_store = 10, qty_in_main = 25 WHERE item_code = 'DS0001';
+
+-- Striped sellable stock for hot batches (optional, see stock.stripes in db.properties)
+CREATE TABLE IF NOT EXISTS batch_stock_buckets (
+    batch_id      BIGINT NOT NULL,
+    bucket_no     INT NOT NULL,
+    qty_on_shelf  INT NOT NULL DEFAULT 0,
+    qty_in_store  INT NOT NULL DEFAULT 0,
+    PRIMARY KEY (batch_id, bucket_no),
+    FOREIGN KEY (batch_id) REFERENCES batches(id) ON DELETE CASCADE
+) ENGINE=InnoDB;
+
+-- Sellable quantity = batch row + its buckets
+CREATE OR REPLACE VIEW batch_stock AS
+SELECT b.id, b.item_code, b.expiry,
+       b.qty_on_shelf + COALESCE((SELECT SUM(k.qty_on_shelf) FROM batch_stock_buckets k WHERE k.batch_id = b.id), 0) AS qty_on_shelf,
+       b.qty_in_store + COALESCE((SELECT SUM(k.qty_in_store) FROM batch_stock_buckets k WHERE k.batch_id = b.id), 0) AS qty_in_store,
+       b.qty_in_main
+FROM batches b;
+
+-- Append-only stock ledger: one row per stock change of a batch (sale, move, adjustment, new batch)
+CREATE TABLE IF NOT EXISTS stock_movements (
+    id             BIGINT AUTO_INCREMENT PRIMARY KEY,
+    batch_id       BIGINT NOT NULL,           -- no FK: history outlives deleted batches
+    item_code      VARCHAR(32) NOT NULL,
+    movement_type  VARCHAR(16) NOT NULL,      -- OPENING, RECEIPT, SALE, TRANSFER, ADJUSTMENT
+    delta_main     INT NOT NULL DEFAULT 0,
+    delta_store    INT NOT NULL DEFAULT 0,
+    delta_shelf    INT NOT NULL DEFAULT 0,
+    actor          VARCHAR(64),
+    recorded_at    DATETIME(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+    INDEX idx_movements_item_time (item_code, recorded_at),
+    INDEX idx_movements_batch (batch_id)
+) ENGINE=InnoDB;
+
+-- Periodic per-batch balances folded from the ledger (previous snapshot + movements up to upto_movement_id)
+CREATE TABLE IF NOT EXISTS stock_snapshots (
+    id                BIGINT AUTO_INCREMENT PRIMARY KEY,
+    taken_at          DATETIME(3) NOT NULL,
+    upto_movement_id  BIGINT NOT NULL,
+    INDEX idx_snapshots_taken (taken_at)
+) ENGINE=InnoDB;
+
+CREATE TABLE IF NOT EXISTS stock_snapshot_lines (
+    snapshot_id   BIGINT NOT NULL,
+    batch_id      BIGINT NOT NULL,
+    item_code     VARCHAR(32) NOT NULL,
+    qty_in_main   INT NOT NULL,
+    qty_in_store  INT NOT NULL,
+    qty_on_shelf  INT NOT NULL,
+    PRIMARY KEY (snapshot_id, batch_id),
+    INDEX idx_snapshot_lines_item (snapshot_id, item_code),
+    FOREIGN KEY (snapshot_id) REFERENCES stock_snapshots(id) ON DELETE CASCADE
+) ENGINE=InnoDB;
+
+-- Where the near-expiry markdown sweep stopped (single row): day of the last run, highest batch id seen
+CREATE TABLE IF NOT EXISTS markdown_sweep_state (
+    id             TINYINT PRIMARY KEY,
+    swept_on       DATE NOT NULL,
+    last_batch_id  BIGINT NOT NULL DEFAULT 0
+) ENGINE=InnoDB;
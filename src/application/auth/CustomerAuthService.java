@@ -3,7 +3,9 @@ package application.auth;
 import domain.auth.Customer;
 import ports.out.CustomerRepository;
 import domain.auth.PasswordHash;
+import domain.auth.Permission;
 
+import java.time.Duration;
 import java.util.Optional;
 import java.util.logging.Logger;
 import java.util.logging.Level;
@@ -19,10 +21,23 @@ public final class CustomerAuthService {
     );
     
     private final CustomerRepository repo;
+    private final SessionStore<Customer> sessions;
+    private final LoginRateLimiter limiter; // null: unlimited
+    private volatile SessionStore.Session<Customer> session = null;
     private Customer current = null;
 
     public CustomerAuthService(CustomerRepository repo) {
+        this(repo, new SessionStore<>(Duration.ofMinutes(30)));
+    }
+
+    public CustomerAuthService(CustomerRepository repo, SessionStore<Customer> sessions) {
+        this(repo, sessions, null);
+    }
+
+    public CustomerAuthService(CustomerRepository repo, SessionStore<Customer> sessions, LoginRateLimiter limiter) {
         this.repo = repo;
+        this.sessions = sessions;
+        this.limiter = limiter;
     }
 
     public boolean register(String username, String password, String email) throws AuthenticationException {
@@ -55,6 +70,41 @@ public final class CustomerAuthService {
     }
 
     public boolean login(String username, String password) throws AuthenticationException {
+        return login(username, password, "console");
+    }
+
+    /** {@code source} identifies where the attempt comes from (client address, terminal) for rate limiting. */
+    public boolean login(String username, String password, String source) throws AuthenticationException {
+        Customer customer = authenticate(username, password, source);
+        logout();
+        current = customer;
+        session = sessions.open(current, Permission.NONE);
+        logger.info("User logged in successfully: " + username);
+        return true;
+    }
+
+    /**
+     * Logs a customer in for a stateless client such as the HTTP storefront: the session is returned
+     * rather than kept as this service's current user, so any number of them can be open at once.
+     */
+    public SessionStore.Session<Customer> openSession(String username, String password, String source)
+            throws AuthenticationException {
+        Customer customer = authenticate(username, password, source);
+        var s = sessions.open(customer, Permission.NONE);
+        logger.info("Session opened for user: " + username);
+        return s;
+    }
+
+    /** The customer of a live session opened by {@link #openSession}; empty when unknown or expired. */
+    public Optional<Customer> customerFor(String token) {
+        return sessions.find(token).map(SessionStore.Session::principal);
+    }
+
+    public void closeSession(String token) {
+        if (token != null) sessions.close(token);
+    }
+
+    private Customer authenticate(String username, String password, String source) throws AuthenticationException {
         logger.info("Login attempt for username: " + username);
         
         // Validate username
@@ -63,8 +113,20 @@ public final class CustomerAuthService {
         // Validate password
         validatePassword(password);
 
+        // Throttled before the lookup and the hash, so a burst of guesses never reaches the database
+        if (limiter != null) {
+            long waitMillis = limiter.tryAcquire(username, source);
+            if (waitMillis > 0) {
+                logger.warning("Login throttled for user - " + username + " from " + source);
+                throw new AuthenticationException(
+                        "Too many login attempts, try again in " + ((waitMillis + 999) / 1000) + " s");
+            }
+        }
+
         try {
-            String stored = repo.loadPasswordHash(username);
+            // the customer row carries the hash, so one lookup serves both checks
+            Optional<Customer> found = repo.findByUsername(username);
+            String stored = found.map(Customer::passwordHash).orElse(null);
             if (stored == null) {
                 logger.warning("Login failed: User not found - " + username);
                 throw new AuthenticationException("Invalid username or password");
@@ -76,21 +138,11 @@ public final class CustomerAuthService {
                 throw new AuthenticationException("Invalid username or password");
             }
             
-            Optional<Customer> u = repo.findByUsername(username);
-            current = u.orElse(null);
-            
-            if (current == null) {
-                logger.warning("Login failed: User data not found - " + username);
-                throw new AuthenticationException("User account not found");
-            }
-            
-            if ("DISABLED".equalsIgnoreCase(current.status())) {
+            if ("DISABLED".equalsIgnoreCase(found.get().status())) {
                 logger.warning("Login failed: Account disabled - " + username);
                 throw new AuthenticationException("Account is disabled");
             }
-            
-            logger.info("User logged in successfully: " + username);
-            return true;
+            return found.get();
             
         } catch (AuthenticationException e) {
             throw e;
@@ -100,10 +152,31 @@ public final class CustomerAuthService {
         }
     }
 
-    public void logout() { current = null; }
+    public void logout() {
+        var s = session;
+        if (s != null) sessions.close(s.token());
+        session = null;
+        current = null;
+    }
     public boolean isLoggedIn() { return current != null; }
     public Customer currentUser() { return current; }
 
+    /** Opaque token of the current session, or null when logged out. */
+    public String sessionToken() {
+        var s = session;
+        return s == null ? null : s.token();
+    }
+
+    /** Continues a session from its token; false when it is unknown or has expired. */
+    public boolean resume(String token) {
+        var s = sessions.find(token);
+        s.ifPresent(found -> {
+            session = found;
+            current = found.principal();
+        });
+        return s.isPresent();
+    }
+
     private void validateUsername(String username) throws AuthenticationException {
         if (username == null) {
             logger.warning("Authentication failed: Username is null");
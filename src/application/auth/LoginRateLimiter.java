@@ -0,0 +1,136 @@
+package application.auth;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Token buckets for login attempts, one per account and one per source (IP, terminal), checked
+ * before any lookup or hashing. Each bucket is a single {@link AtomicLong} packing the time of its
+ * last refill and its remaining tokens, updated by compare-and-set, so concurrent attempts never
+ * block. A bucket that has refilled to full is indistinguishable from a missing one and is
+ * evicted by a sweep. Past {@code maxKeys} live buckets, unseen keys share a fixed set of overflow
+ * buckets, which keeps memory bounded however many distinct names an attack uses.
+ */
+public final class LoginRateLimiter {
+
+    /** {@code burst} attempts at once, then one more every {@code refillEvery}. */
+    public record Limit(int burst, Duration refillEvery) {
+        public Limit {
+            if (burst < 1 || burst > MAX_BURST) throw new IllegalArgumentException("burst must be 1.." + MAX_BURST);
+            if (refillEvery == null || refillEvery.toMillis() < 1) throw new IllegalArgumentException("refillEvery must be >= 1 ms");
+        }
+    }
+
+    public record Stats(long allowed, long rejected, int trackedKeys, long evicted, long overflowed) {}
+
+    private static final int TOKEN_BITS = 20;                 // milli-tokens; time gets the other 44 bits
+    private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+    static final int MAX_BURST = (int) (TOKEN_MASK / 1000);
+    private static final long FULL = TOKEN_MASK;               // time 0, more tokens than any burst
+    private static final int OVERFLOW_STRIPES = 1024;
+    private static final int SWEEP_EVERY = 4096;
+    private static final long MIN_SWEEP_INTERVAL_MILLIS = 1_000; // a full map must not sweep per attempt
+
+    private final Limit perAccount;
+    private final Limit perSource;
+    private final int maxKeys;
+    private final LongSupplier clockMillis;
+    private final long origin;
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AtomicInteger calls = new AtomicInteger();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+    private volatile long lastSweep = Long.MIN_VALUE / 2;
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+    private final LongAdder overflowed = new LongAdder();
+
+    public LoginRateLimiter(Limit perAccount, Limit perSource, int maxKeys) {
+        this(perAccount, perSource, maxKeys, System::currentTimeMillis);
+    }
+
+    LoginRateLimiter(Limit perAccount, Limit perSource, int maxKeys, LongSupplier clockMillis) {
+        if (maxKeys < 1) throw new IllegalArgumentException("maxKeys must be >= 1");
+        this.perAccount = perAccount;
+        this.perSource = perSource;
+        this.maxKeys = maxKeys;
+        this.clockMillis = clockMillis;
+        this.origin = clockMillis.getAsLong();
+    }
+
+    /**
+     * Takes one attempt from the source's bucket, then the account's. Returns 0 when allowed,
+     * otherwise how many milliseconds until the next attempt would be. A source token spent on an
+     * attempt the account bucket then rejects is not given back.
+     */
+    public long tryAcquire(String username, String source) {
+        long now = clockMillis.getAsLong() - origin;
+        if (calls.incrementAndGet() % SWEEP_EVERY == 0) sweep(now);
+        long wait = take(bucket("s:" + (source == null ? "-" : source)), perSource, now);
+        if (wait == 0) {
+            wait = take(bucket("u:" + (username == null ? "" : username.trim().toLowerCase(Locale.ROOT))), perAccount, now);
+        }
+        (wait == 0 ? allowed : rejected).increment();
+        return wait;
+    }
+
+    public Stats stats() {
+        return new Stats(allowed.sum(), rejected.sum(), buckets.size(), evicted.sum(), overflowed.sum());
+    }
+
+    private AtomicLong bucket(String key) {
+        AtomicLong b = buckets.get(key);
+        if (b != null) return b;
+        if (buckets.size() >= maxKeys) {
+            sweep(clockMillis.getAsLong() - origin);
+            if (buckets.size() >= maxKeys) {
+                overflowed.increment();
+                key = key.substring(0, 2) + "~" + (key.hashCode() & (OVERFLOW_STRIPES - 1));
+            }
+        }
+        return buckets.computeIfAbsent(key, k -> new AtomicLong(FULL));
+    }
+
+    private static long take(AtomicLong bucket, Limit limit, long now) {
+        long cap = limit.burst() * 1000L;
+        long refillMillis = limit.refillEvery().toMillis();
+        while (true) {
+            long s = bucket.get();
+            long tokens = Math.min(cap, refilled(s, cap, refillMillis, now));
+            if (tokens < 1000) return (1000 - tokens) * refillMillis / 1000 + 1;
+            long next = (Math.max(now, s >>> TOKEN_BITS) << TOKEN_BITS) | (tokens - 1000);
+            if (bucket.compareAndSet(s, next)) return 0;
+        }
+    }
+
+    private static long refilled(long state, long cap, long refillMillis, long now) {
+        long tokens = state & TOKEN_MASK;
+        long elapsed = now - (state >>> TOKEN_BITS);
+        if (elapsed <= 0 || tokens >= cap) return tokens;
+        return tokens + Math.min(cap, elapsed * 1000 / refillMillis);
+    }
+
+    // drops buckets that have refilled to full; an attempt racing the removal is simply not counted
+    private void sweep(long now) {
+        if (now - lastSweep < MIN_SWEEP_INTERVAL_MILLIS || !sweeping.compareAndSet(false, true)) return;
+        try {
+            lastSweep = now;
+            buckets.entrySet().removeIf(e -> {
+                Limit limit = e.getKey().startsWith("u:") ? perAccount : perSource;
+                long cap = limit.burst() * 1000L;
+                boolean full = refilled(e.getValue().get(), cap, limit.refillEvery().toMillis(), now) >= cap;
+                if (full) evicted.increment();
+                return full;
+            });
+        } finally {
+            sweeping.set(false);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package application.auth;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Logged-in sessions behind opaque random tokens. A session carries its principal and the
+ * permission bitset resolved at login, so permission checks are a mask test instead of role string
+ * comparisons. Sessions expire after {@code idleTimeout} without use; expired ones are dropped
+ * when looked up and by a sweep every few hundred logins.
+ */
+public final class SessionStore<P> {
+
+    private static final int SWEEP_EVERY = 256;
+
+    public record Session<P>(String token, P principal, long permissions, Instant expiresAt) {
+        public boolean has(long permissionBits) {
+            return (permissions & permissionBits) == permissionBits;
+        }
+    }
+
+    private final Map<String, Session<P>> sessions = new ConcurrentHashMap<>();
+    private final SecureRandom random = new SecureRandom();
+    private final AtomicInteger opened = new AtomicInteger();
+    private final Duration idleTimeout;
+    private final Supplier<Instant> clock;
+
+    public SessionStore(Duration idleTimeout) {
+        this(idleTimeout, Instant::now);
+    }
+
+    SessionStore(Duration idleTimeout, Supplier<Instant> clock) {
+        if (idleTimeout == null || idleTimeout.isNegative() || idleTimeout.isZero()) {
+            throw new IllegalArgumentException("idleTimeout must be > 0");
+        }
+        this.idleTimeout = idleTimeout;
+        this.clock = clock;
+    }
+
+    public Session<P> open(P principal, long permissions) {
+        if (opened.incrementAndGet() % SWEEP_EVERY == 0) sweep();
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        Session<P> s = new Session<>(token, principal, permissions, clock.get().plus(idleTimeout));
+        sessions.put(token, s);
+        return s;
+    }
+
+    /** The live session for {@code token}, with its expiry pushed out; empty when unknown or expired. */
+    public Optional<Session<P>> find(String token) {
+        if (token == null) return Optional.empty();
+        Instant now = clock.get();
+        Session<P> s = sessions.computeIfPresent(token, (t, old) -> old.expiresAt().isAfter(now)
+                ? new Session<>(t, old.principal(), old.permissions(), now.plus(idleTimeout))
+                : null);
+        return Optional.ofNullable(s);
+    }
+
+    public void close(String token) {
+        if (token != null) sessions.remove(token);
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    private void sweep() {
+        Instant now = clock.get();
+        sessions.values().removeIf(s -> !s.expiresAt().isAfter(now));
+    }
+}
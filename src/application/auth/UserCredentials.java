@@ -0,0 +1,23 @@
+package application.auth;
+
+import domain.auth.User;
+import ports.out.UserRepository;
+
+import java.util.Optional;
+
+/** Staff profile and stored password hash, read together so a login costs one round trip. */
+public interface UserCredentials {
+
+    record Credentials(User user, String passwordHash) {}
+
+    Optional<Credentials> loadCredentials(String username);
+
+    /** Two lookups on a plain repository; for repositories that cannot read both at once. */
+    static UserCredentials of(UserRepository users) {
+        return username -> {
+            String hash = users.loadPasswordHash(username);
+            if (hash == null) return Optional.empty();
+            return users.findByUsername(username).map(u -> new Credentials(u, hash));
+        };
+    }
+}
@@ -0,0 +1,143 @@
+package application.events;
+
+import application.events.events.RestockThresholdHit;
+import application.events.events.StockAboveThreshold;
+import application.events.events.StockDepleted;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Decorator that coalesces per-item stock alerts before they reach subscribers.
+ * For each item code it keeps the latest {@link RestockThresholdHit} and forwards at most one per
+ * {@code window}, unless the level dropped into a lower band (threshold split into {@code bands}
+ * equal steps) since the last forwarded alert. {@link StockDepleted} is forwarded once per depletion:
+ * repeats are dropped until a threshold hit shows stock back on hand, or the window has passed.
+ * A {@link StockAboveThreshold} (passed on as well) means the item was restocked past its threshold:
+ * the next alert for it is forwarded at once, whatever the window.
+ * Per-item state is an immutable snapshot swapped with CAS, so tills never block each other here.
+ * Every other event passes straight through.
+ */
+public final class CoalescingEventBus implements EventBus {
+
+    /**
+     * {@code band} is -1 after a depletion and {@code bands} once stock is above the threshold again;
+     * {@code latest} may be newer than what was forwarded.
+     */
+    private record ItemState(long forwardedAt, int band, boolean depleted, RestockThresholdHit latest) {}
+
+    public record Stats(long forwarded, long suppressed, int itemsTracked) {}
+
+    private final EventBus inner;
+    private final long windowMillis;
+    private final int bands;
+    private final LongSupplier clock;
+    private final ConcurrentHashMap<String, AtomicReference<ItemState>> items = new ConcurrentHashMap<>();
+    private final LongAdder forwarded = new LongAdder();
+    private final LongAdder suppressed = new LongAdder();
+
+    public CoalescingEventBus(EventBus inner, Duration window, int bands) {
+        this(inner, window, bands, System::currentTimeMillis);
+    }
+
+    CoalescingEventBus(EventBus inner, Duration window, int bands, LongSupplier clock) {
+        if (inner == null) throw new IllegalArgumentException("inner bus is required");
+        if (window == null || window.isNegative()) throw new IllegalArgumentException("window must be >= 0");
+        if (bands < 1) throw new IllegalArgumentException("bands must be >= 1");
+        this.inner = inner;
+        this.windowMillis = window.toMillis();
+        this.bands = bands;
+        this.clock = clock;
+    }
+
+    @Override
+    public void publish(Object event) {
+        boolean forward;
+        if (event instanceof RestockThresholdHit hit && hit.itemCode() != null) {
+            forward = onThresholdHit(hit);
+        } else if (event instanceof StockDepleted depleted && depleted.itemCode() != null) {
+            forward = onDepleted(depleted);
+        } else {
+            if (event instanceof StockAboveThreshold above && above.itemCode() != null) onAboveThreshold(above);
+            forward = true;
+        }
+        if (forward) {
+            forwarded.increment();
+            inner.publish(event);
+        } else {
+            suppressed.increment();
+        }
+    }
+
+    private boolean onThresholdHit(RestockThresholdHit hit) {
+        AtomicReference<ItemState> ref = stateOf(hit.itemCode());
+        int band = bandOf(hit.totalQtyLeft(), hit.threshold());
+        long now = clock.getAsLong();
+        while (true) {
+            ItemState cur = ref.get();
+            boolean forward = cur == null
+                    || now - cur.forwardedAt >= windowMillis
+                    || (!cur.depleted && band < cur.band);
+            // stock on hand again ends a depletion even when this hit itself is suppressed
+            boolean restocked = cur != null && cur.depleted && hit.totalQtyLeft() > 0;
+            ItemState next = forward ? new ItemState(now, band, false, hit)
+                    : restocked ? new ItemState(cur.forwardedAt, band, false, hit)
+                    : new ItemState(cur.forwardedAt, cur.band, cur.depleted, hit);
+            if (ref.compareAndSet(cur, next)) return forward;
+        }
+    }
+
+    private boolean onDepleted(StockDepleted event) {
+        AtomicReference<ItemState> ref = stateOf(event.itemCode());
+        long now = clock.getAsLong();
+        while (true) {
+            ItemState cur = ref.get();
+            if (cur != null && cur.depleted && now - cur.forwardedAt < windowMillis) return false;
+            RestockThresholdHit latest = cur == null ? null : cur.latest;
+            if (ref.compareAndSet(cur, new ItemState(now, -1, true, latest))) return true;
+        }
+    }
+
+    // Above every real band: the next hit is a band drop and goes out even inside the window
+    private void onAboveThreshold(StockAboveThreshold event) {
+        AtomicReference<ItemState> ref = items.get(event.itemCode());
+        if (ref == null) return; // never alerted, nothing to reset
+        while (true) {
+            ItemState cur = ref.get();
+            if (cur == null || (!cur.depleted && cur.band == bands)) return;
+            if (ref.compareAndSet(cur, new ItemState(cur.forwardedAt, bands, false, cur.latest))) return;
+        }
+    }
+
+    private AtomicReference<ItemState> stateOf(String itemCode) {
+        return items.computeIfAbsent(itemCode, k -> new AtomicReference<>());
+    }
+
+    // 0 = lowest band; a level at/above the threshold lands in the top band
+    private int bandOf(int left, int threshold) {
+        if (threshold <= 0) return bands - 1;
+        long b = (long) Math.max(0, left) * bands / threshold;
+        return (int) Math.min(bands - 1, b);
+    }
+
+    /** Latest alert seen for the item, forwarded or not. */
+    public Optional<RestockThresholdHit> latest(String itemCode) {
+        AtomicReference<ItemState> ref = items.get(itemCode);
+        ItemState s = ref == null ? null : ref.get();
+        return s == null ? Optional.empty() : Optional.ofNullable(s.latest);
+    }
+
+    public Stats stats() {
+        return new Stats(forwarded.sum(), suppressed.sum(), items.size());
+    }
+
+    @Override
+    public <T> void subscribe(Class<T> type, Consumer<T> handler) {
+        inner.subscribe(type, handler);
+    }
+}
@@ -2,4 +2,31 @@ package application.events.events;
 
 import domain.common.Money;
 
-public record BillPaid(String billNo, Money total, String channel, String user) {}
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Published once a bill is saved and its stock committed. {@code lines} carries what the sales
+ * aggregates need (code, name, quantity, line total); events built with the short constructor have no
+ * lines and no {@code paidAt}, which consumers read as "just now".
+ */
+public record BillPaid(String billNo, Money total, String channel, String user,
+                       Money discount, LocalDateTime paidAt, List<Line> lines) {
+
+    public record Line(String itemCode, String itemName, int qty, Money lineTotal) {}
+
+    public BillPaid {
+        discount = discount == null ? Money.ZERO : discount;
+        lines = lines == null ? List.of() : List.copyOf(lines);
+    }
+
+    public BillPaid(String billNo, Money total, String channel, String user) {
+        this(billNo, total, channel, user, Money.ZERO, null, List.of());
+    }
+
+    public long itemsSold() {
+        long n = 0;
+        for (Line l : lines) n += l.qty();
+        return n;
+    }
+}
@@ -0,0 +1,4 @@
+package application.events.events;
+
+/** A sale left the item above its restock threshold; lets alert coalescing start afresh. */
+public record StockAboveThreshold(String itemCode, int totalQtyLeft, int threshold) {}
@@ -0,0 +1,39 @@
+package application.inventory;
+
+import domain.common.Money;
+import domain.inventory.Batch;
+import domain.inventory.BatchDiscount;
+import domain.inventory.Item;
+import domain.inventory.StockLocation;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Loads everything needed to reserve and price a basket of lines with a fixed number of
+ * set-based queries, whatever the number of lines.
+ */
+public interface BasketLookupRepository {
+
+    /**
+     * Items, FEFO-ordered batches with stock at {@code source}, and the active discount of each of
+     * those batches, for every code in {@code itemCodes}. Unknown codes are simply absent from the maps.
+     */
+    BasketLookup loadBasket(Collection<String> itemCodes, StockLocation source);
+
+    record BasketLookup(Map<String, Item> items,
+                        Map<String, List<Batch>> batches,
+                        Map<Long, BatchDiscount> discounts) {
+
+        public List<Batch> batchesOf(String itemCode) {
+            return batches.getOrDefault(itemCode, List.of());
+        }
+
+        /** Batch price after its active discount, or the base price when it has none. */
+        public Money priceFor(Money basePrice, long batchId) {
+            BatchDiscount d = discounts.get(batchId);
+            return (d != null && d.isValidNow()) ? d.calculateDiscountedPrice(basePrice) : basePrice;
+        }
+    }
+}
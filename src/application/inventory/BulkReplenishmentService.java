@@ -0,0 +1,80 @@
+package application.inventory;
+
+import application.reporting.ReportRepository;
+import domain.inventory.StockMove;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Applies a whole restock report in one pass through {@link StockTransferRepository}
+ * instead of one moveMainToStoreFEFO/moveStoreToShelfFEFO transaction per item.
+ */
+public final class BulkReplenishmentService {
+    public static final int DEFAULT_CHUNK_SIZE = 500;
+
+    private final StockTransferRepository transfers;
+    private final int chunkSize;
+    private final StockSnapshotRepository snapshots; // optional, for catalog-wide planning
+    private final ReplenishmentPlanner planner;      // optional, for catalog-wide planning
+
+    public BulkReplenishmentService(StockTransferRepository transfers) {
+        this(transfers, DEFAULT_CHUNK_SIZE);
+    }
+
+    public BulkReplenishmentService(StockTransferRepository transfers, int chunkSize) {
+        this(transfers, chunkSize, null, null);
+    }
+
+    public BulkReplenishmentService(StockTransferRepository transfers, int chunkSize,
+                                    StockSnapshotRepository snapshots, ReplenishmentPlanner planner) {
+        if (transfers == null) throw new IllegalArgumentException("transfers is required");
+        if (chunkSize <= 0) throw new IllegalArgumentException("chunkSize must be > 0");
+        this.transfers = transfers;
+        this.chunkSize = chunkSize;
+        this.snapshots = snapshots;
+        this.planner = planner;
+    }
+
+    public boolean supportsCatalogPlanning() {
+        return snapshots != null && planner != null;
+    }
+
+    /** Plan the whole catalog from one consistent stock snapshot. */
+    public ReplenishmentPlanner.ReplenishmentPlan planCatalog(int shelfTarget) {
+        if (!supportsCatalogPlanning()) throw new IllegalStateException("Catalog planning is not configured");
+        return planner.plan(snapshots.loadStockSnapshot(), shelfTarget);
+    }
+
+    /**
+     * Turn restock rows into moves:
+     *  - STORE -> SHELF to bring the shelf up to {@code shelfTarget}
+     *  - MAIN -> STORE to bring the backroom back up to the item's threshold (max(50, restock level))
+     */
+    public List<StockMove> planFromRestockReport(List<ReportRepository.RestockRow> rows, int shelfTarget) {
+        if (shelfTarget <= 0) throw new IllegalArgumentException("shelfTarget must be > 0");
+        List<StockMove> moves = new ArrayList<>();
+        for (ReportRepository.RestockRow r : rows) {
+            int toShelf = Math.min(r.storeQty(), Math.max(0, shelfTarget - r.shelfQty()));
+            if (toShelf > 0) moves.add(StockMove.storeToShelf(r.itemCode(), toShelf));
+
+            int threshold = Math.max(50, r.restockLevel());
+            int storeAfter = r.storeQty() - toShelf;
+            int toStore = Math.min(r.mainQty(), Math.max(0, threshold - storeAfter));
+            if (toStore > 0) moves.add(StockMove.mainToStore(r.itemCode(), toStore));
+        }
+        return moves;
+    }
+
+    public StockTransferRepository.BulkTransferResult apply(List<StockMove> moves, String transferredBy) {
+        if (moves == null || moves.isEmpty()) {
+            return new StockTransferRepository.BulkTransferResult(List.of(), 0, 0);
+        }
+        return transfers.applyMoves(moves, transferredBy, chunkSize);
+    }
+
+    public StockTransferRepository.BulkTransferResult replenishFromReport(List<ReportRepository.RestockRow> rows,
+                                                                           int shelfTarget, String transferredBy) {
+        return apply(planFromRestockReport(rows, shelfTarget), transferredBy);
+    }
+}
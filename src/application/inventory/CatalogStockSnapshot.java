@@ -0,0 +1,80 @@
+package application.inventory;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Point-in-time stock totals for the whole catalog, one slot per item.
+ * Kept as parallel primitive arrays so 100k items cost a few MB and scan without boxing.
+ */
+public final class CatalogStockSnapshot {
+    private final String[] itemCodes;
+    private final int[] restockLevels;
+    private final int[] shelf;
+    private final int[] store;
+    private final int[] main;
+
+    public CatalogStockSnapshot(String[] itemCodes, int[] restockLevels, int[] shelf, int[] store, int[] main) {
+        int n = itemCodes.length;
+        if (restockLevels.length != n || shelf.length != n || store.length != n || main.length != n) {
+            throw new IllegalArgumentException("snapshot columns must have the same length");
+        }
+        this.itemCodes = itemCodes;
+        this.restockLevels = restockLevels;
+        this.shelf = shelf;
+        this.store = store;
+        this.main = main;
+    }
+
+    public int size() { return itemCodes.length; }
+    public String itemCode(int i) { return itemCodes[i]; }
+    public int restockLevel(int i) { return restockLevels[i]; }
+    public int shelfQty(int i) { return shelf[i]; }
+    public int storeQty(int i) { return store[i]; }
+    public int mainQty(int i) { return main[i]; }
+
+    /** Incremental builder used by repositories while streaming items and batches. */
+    public static final class Builder {
+        private String[] codes = new String[1024];
+        private int[] levels = new int[1024];
+        private int[] shelf = new int[1024];
+        private int[] store = new int[1024];
+        private int[] main = new int[1024];
+        private final Map<String, Integer> slot = new HashMap<>();
+        private int n = 0;
+
+        public Builder item(String itemCode, int restockLevel) {
+            if (slot.containsKey(itemCode)) return this;
+            if (n == codes.length) grow();
+            codes[n] = itemCode;
+            levels[n] = restockLevel;
+            slot.put(itemCode, n++);
+            return this;
+        }
+
+        /** Adds batch quantities to an item already registered; unknown items are ignored. */
+        public Builder batch(String itemCode, int qtyOnShelf, int qtyInStore, int qtyInMain) {
+            Integer i = slot.get(itemCode);
+            if (i == null) return this;
+            shelf[i] += qtyOnShelf;
+            store[i] += qtyInStore;
+            main[i] += qtyInMain;
+            return this;
+        }
+
+        public CatalogStockSnapshot build() {
+            return new CatalogStockSnapshot(Arrays.copyOf(codes, n), Arrays.copyOf(levels, n),
+                    Arrays.copyOf(shelf, n), Arrays.copyOf(store, n), Arrays.copyOf(main, n));
+        }
+
+        private void grow() {
+            int cap = codes.length * 2;
+            codes = Arrays.copyOf(codes, cap);
+            levels = Arrays.copyOf(levels, cap);
+            shelf = Arrays.copyOf(shelf, cap);
+            store = Arrays.copyOf(store, cap);
+            main = Arrays.copyOf(main, cap);
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package application.inventory;
+
+import domain.inventory.Item;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory n-gram index over item code and name.
+ * Replaces the LIKE '%q%' scan: every 1-, 2- and 3-gram of the code and name points to the
+ * items containing it, so a query only verifies the items sharing its rarest gram.
+ * Results are ranked (exact code, code prefix, name prefix, word prefix, substring) and limited.
+ */
+public final class ItemSearchIndex {
+    private static final int GRAM = 3;
+
+    // rank buckets, lower is better
+    private static final int EXACT_CODE = 0;
+    private static final int CODE_PREFIX = 1;
+    private static final int NAME_PREFIX = 2;
+    private static final int WORD_PREFIX = 3;
+    private static final int CODE_CONTAINS = 4;
+    private static final int NAME_CONTAINS = 5;
+    private static final int NO_MATCH = Integer.MAX_VALUE;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Postings> grams = new HashMap<>();
+    private final Map<String, Integer> docByCode = new HashMap<>();
+    private Doc[] docs = new Doc[1024];
+    private int nextDoc = 0;
+    private int live = 0;
+
+    /** Replace the whole index content (startup load). */
+    public void rebuild(Collection<Item> items) {
+        lock.writeLock().lock();
+        try {
+            reset(items);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Add or replace an item (create / rename / price change). */
+    public void put(Item item) {
+        if (item == null || item.code() == null) return;
+        lock.writeLock().lock();
+        try {
+            removeInternal(normalize(item.code()));
+            addInternal(item);
+            compactIfSparse();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String itemCode) {
+        if (itemCode == null) return;
+        lock.writeLock().lock();
+        try {
+            removeInternal(normalize(itemCode));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return live;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Substring match on code or name, best matches first. */
+    public List<Item> search(String query, int limit) {
+        return query(query, limit, NAME_CONTAINS);
+    }
+
+    /** Typeahead: only items whose code, name or a name word starts with the prefix. */
+    public List<Item> prefixSearch(String prefix, int limit) {
+        return query(prefix, limit, WORD_PREFIX);
+    }
+
+    private List<Item> query(String raw, int limit, int worstRank) {
+        if (limit <= 0) return List.of();
+        String q = normalize(raw);
+
+        lock.readLock().lock();
+        try {
+            if (q.isEmpty()) return allByCode(limit);
+
+            int[] candidates = candidatesFor(q);
+            if (candidates.length == 0) return List.of();
+
+            // keep the best `limit` hits: max-heap on (rank, code) so the worst is evicted first
+            Comparator<Hit> order = Comparator.<Hit>comparingInt(h -> h.rank).thenComparing(h -> h.doc.code);
+            PriorityQueue<Hit> top = new PriorityQueue<>(Math.min(limit, candidates.length) + 1, order.reversed());
+            for (int id : candidates) {
+                Doc d = docs[id];
+                if (d == null) continue;
+                int rank = rank(d, q);
+                if (rank > worstRank) continue;
+                top.add(new Hit(d, rank));
+                if (top.size() > limit) top.poll();
+            }
+
+            List<Hit> hits = new ArrayList<>(top);
+            hits.sort(order);
+            List<Item> out = new ArrayList<>(hits.size());
+            for (Hit h : hits) out.add(h.doc.item);
+            return out;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Item> allByCode(int limit) {
+        List<Doc> all = new ArrayList<>(live);
+        for (int i = 0; i < nextDoc; i++) if (docs[i] != null) all.add(docs[i]);
+        all.sort(Comparator.comparing(d -> d.code));
+        List<Item> out = new ArrayList<>(Math.min(limit, all.size()));
+        for (Doc d : all) {
+            if (out.size() >= limit) break;
+            out.add(d.item);
+        }
+        return out;
+    }
+
+    // Intersect the postings of the query grams, starting from the shortest list.
+    private int[] candidatesFor(String q) {
+        List<String> qGrams = new ArrayList<>();
+        if (q.length() <= GRAM) {
+            qGrams.add(q);
+        } else {
+            for (int i = 0; i + GRAM <= q.length(); i++) qGrams.add(q.substring(i, i + GRAM));
+        }
+
+        Postings[] lists = new Postings[qGrams.size()];
+        for (int i = 0; i < lists.length; i++) {
+            Postings p = grams.get(qGrams.get(i));
+            if (p == null || p.size == 0) return new int[0];
+            lists[i] = p;
+        }
+        Arrays.sort(lists, Comparator.comparingInt(p -> p.size));
+
+        int[] acc = Arrays.copyOf(lists[0].ids, lists[0].size);
+        for (int i = 1; i < lists.length && acc.length > 0; i++) acc = lists[i].retain(acc);
+        return acc;
+    }
+
+    private static int rank(Doc d, String q) {
+        if (d.code.equals(q)) return EXACT_CODE;
+        if (d.code.startsWith(q)) return CODE_PREFIX;
+        if (d.name.startsWith(q)) return NAME_PREFIX;
+        int at = d.name.indexOf(q);
+        if (at > 0) {
+            // a later occurrence may still sit on a word boundary
+            for (int i = at; i >= 0; i = d.name.indexOf(q, i + 1)) {
+                if (!Character.isLetterOrDigit(d.name.charAt(i - 1))) return WORD_PREFIX;
+            }
+        }
+        if (d.code.contains(q)) return CODE_CONTAINS;
+        if (at >= 0) return NAME_CONTAINS;
+        return NO_MATCH;
+    }
+
+    private void reset(Collection<Item> items) {
+        grams.clear();
+        docByCode.clear();
+        docs = new Doc[Math.max(1024, items.size() + 16)];
+        nextDoc = 0;
+        live = 0;
+        for (Item it : items) addInternal(it);
+    }
+
+    // Replaced docs leave holes behind; renumber once the holes outweigh the live docs.
+    private void compactIfSparse() {
+        if (nextDoc - live <= Math.max(1024, live)) return;
+        List<Item> items = new ArrayList<>(live);
+        for (int i = 0; i < nextDoc; i++) if (docs[i] != null) items.add(docs[i].item);
+        reset(items);
+    }
+
+    private void addInternal(Item item) {
+        if (nextDoc == docs.length) docs = Arrays.copyOf(docs, docs.length * 2);
+        int id = nextDoc++;
+        Doc d = new Doc(item);
+        docs[id] = d;
+        docByCode.put(d.code, id);
+        live++;
+        for (String g : gramsOf(d)) grams.computeIfAbsent(g, k -> new Postings()).append(id);
+    }
+
+    private void removeInternal(String code) {
+        Integer id = docByCode.remove(code);
+        if (id == null) return;
+        Doc d = docs[id];
+        docs[id] = null;
+        live--;
+        for (String g : gramsOf(d)) {
+            Postings p = grams.get(g);
+            if (p == null) continue;
+            p.remove(id);
+            if (p.size == 0) grams.remove(g);
+        }
+    }
+
+    private static Set<String> gramsOf(Doc d) {
+        Set<String> out = new HashSet<>();
+        addGrams(d.code, out);
+        addGrams(d.name, out);
+        return out;
+    }
+
+    private static void addGrams(String s, Set<String> out) {
+        for (int n = 1; n <= GRAM; n++) {
+            for (int i = 0; i + n <= s.length(); i++) out.add(s.substring(i, i + n));
+        }
+    }
+
+    private static String normalize(String s) {
+        return s == null ? "" : s.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Doc {
+        final Item item;
+        final String code;
+        final String name;
+
+        Doc(Item item) {
+            this.item = item;
+            this.code = normalize(item.code());
+            this.name = normalize(item.name());
+        }
+    }
+
+    private record Hit(Doc doc, int rank) {}
+
+    // Sorted doc ids; ids are handed out in increasing order so add is an append.
+    private static final class Postings {
+        int[] ids = new int[4];
+        int size = 0;
+
+        void append(int id) {
+            if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+            ids[size++] = id;
+        }
+
+        void remove(int id) {
+            int i = Arrays.binarySearch(ids, 0, size, id);
+            if (i < 0) return;
+            System.arraycopy(ids, i + 1, ids, i, size - i - 1);
+            size--;
+        }
+
+        int[] retain(int[] sortedIds) {
+            int[] out = new int[Math.min(size, sortedIds.length)];
+            int n = 0, a = 0, b = 0;
+            while (a < sortedIds.length && b < size) {
+                if (sortedIds[a] == ids[b]) { out[n++] = ids[b]; a++; b++; }
+                else if (sortedIds[a] < ids[b]) a++;
+                else b++;
+            }
+            return Arrays.copyOf(out, n);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package application.inventory;
+
+import domain.inventory.StockMove;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Catalog-wide replenishment planning over a {@link CatalogStockSnapshot}.
+ * Items are split into chunks evaluated in parallel on a fork/join pool; each item is judged
+ * with the {@link ThresholdReorderPolicy} against max(50, restock level), the same threshold
+ * the restock report and stock events use.
+ *
+ * Per item:
+ *  - SHELF at/below threshold  -> STORE -> SHELF up to {@code shelfTarget}
+ *  - STORE (after that) at/below threshold -> MAIN -> STORE back up to the threshold
+ */
+public final class ReplenishmentPlanner {
+    private static final int MIN_THRESHOLD = 50;
+    private static final int LEAF_SIZE = 4096;
+
+    private final ThresholdReorderPolicy policy;
+    private final ForkJoinPool pool;
+
+    public ReplenishmentPlanner(ThresholdReorderPolicy policy) {
+        this(policy, ForkJoinPool.commonPool());
+    }
+
+    public ReplenishmentPlanner(ThresholdReorderPolicy policy, ForkJoinPool pool) {
+        if (policy == null) throw new IllegalArgumentException("policy is required");
+        this.policy = policy;
+        this.pool = pool;
+    }
+
+    public ReplenishmentPlan plan(CatalogStockSnapshot snapshot, int shelfTarget) {
+        if (shelfTarget <= 0) throw new IllegalArgumentException("shelfTarget must be > 0");
+        long started = System.nanoTime();
+        Partial p = pool.invoke(new PlanTask(snapshot, shelfTarget, 0, snapshot.size()));
+        return new ReplenishmentPlan(p.moves, snapshot.size(), p.itemsToRestock, p.storeToShelf,
+                p.mainToStore, p.shortItems, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /** Result of a planning run; {@link #moves()} feeds {@link BulkReplenishmentService#apply}. */
+    public record ReplenishmentPlan(List<StockMove> moves, int itemsEvaluated, int itemsToRestock,
+                                    long totalStoreToShelf, long totalMainToStore, int itemsShort,
+                                    long elapsedMillis) {}
+
+    private final class PlanTask extends RecursiveTask<Partial> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient CatalogStockSnapshot s; // tasks never leave the pool
+        private final int shelfTarget, from, to;
+
+        PlanTask(CatalogStockSnapshot s, int shelfTarget, int from, int to) {
+            this.s = s; this.shelfTarget = shelfTarget; this.from = from; this.to = to;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (to - from <= LEAF_SIZE) return planRange();
+            int mid = (from + to) >>> 1;
+            PlanTask left = new PlanTask(s, shelfTarget, from, mid);
+            left.fork();
+            Partial right = new PlanTask(s, shelfTarget, mid, to).compute();
+            return left.join().append(right); // keep catalog order
+        }
+
+        private Partial planRange() {
+            Partial p = new Partial();
+            for (int i = from; i < to; i++) {
+                String code = s.itemCode(i);
+                int threshold = Math.max(MIN_THRESHOLD, s.restockLevel(i));
+                int shelf = s.shelfQty(i), store = s.storeQty(i), main = s.mainQty(i);
+
+                int toShelf = 0;
+                if (policy.needsRestock(shelf, threshold)) {
+                    toShelf = Math.max(0, policy.quantityToMove(store, Math.max(0, shelfTarget - shelf)));
+                }
+                int storeAfter = store - toShelf;
+                int toStore = 0;
+                boolean isShort = false;
+                if (policy.needsRestock(storeAfter, threshold)) {
+                    int want = Math.max(0, threshold - storeAfter);
+                    toStore = Math.max(0, policy.quantityToMove(main, want));
+                    isShort = toStore < want;
+                }
+
+                if (toShelf > 0) p.moves.add(StockMove.storeToShelf(code, toShelf));
+                if (toStore > 0) p.moves.add(StockMove.mainToStore(code, toStore));
+                if (toShelf > 0 || toStore > 0) p.itemsToRestock++;
+                if (isShort) p.shortItems++;
+                p.storeToShelf += toShelf;
+                p.mainToStore += toStore;
+            }
+            return p;
+        }
+    }
+
+    private static final class Partial {
+        final List<StockMove> moves = new ArrayList<>();
+        int itemsToRestock, shortItems;
+        long storeToShelf, mainToStore;
+
+        Partial append(Partial o) {
+            moves.addAll(o.moves);
+            itemsToRestock += o.itemsToRestock;
+            shortItems += o.shortItems;
+            storeToShelf += o.storeToShelf;
+            mainToStore += o.mainToStore;
+            return this;
+        }
+    }
+}
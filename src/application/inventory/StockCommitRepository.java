@@ -0,0 +1,24 @@
+package application.inventory;
+
+import domain.inventory.InventoryReservation;
+
+import java.util.Map;
+
+/**
+ * Commits reservations like {@code commitReservations}/{@code commitStoreReservations} and reports
+ * the balance of every item touched, read inside the same transaction, so callers do not have to
+ * re-query stock after the sale.
+ */
+public interface StockCommitRepository {
+
+    Map<String, ItemStockLevel> commitShelfWithLevels(Iterable<InventoryReservation> reservations);
+
+    Map<String, ItemStockLevel> commitStoreWithLevels(Iterable<InventoryReservation> reservations);
+
+    record ItemStockLevel(String itemCode, int shelf, int store, int restockLevel) {
+        public int totalLeft() { return shelf + store; }
+
+        /** Same floor as the POS stock check: never alert below 50 units. */
+        public int threshold() { return Math.max(50, restockLevel); }
+    }
+}
@@ -0,0 +1,43 @@
+package application.inventory;
+
+import domain.inventory.StockMovement;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Read side of the append-only stock ledger ({@code stock_movements}) and its periodic
+ * balance snapshots. Movements are written by the inventory repository in the same
+ * transaction as the stock change they describe.
+ */
+public interface StockLedgerRepository {
+
+    /** Movements of one item in [from, to], oldest first. */
+    List<StockMovement> movements(String itemCode, LocalDateTime from, LocalDateTime to);
+
+    /** Item balance as of {@code at}: latest snapshot taken at/before it plus the movements since. */
+    StockBalance balanceAsOf(String itemCode, LocalDateTime at);
+
+    /** Folds movements since the previous snapshot into a new one; empty when nothing new settled. */
+    Optional<SnapshotInfo> takeSnapshot();
+
+    /**
+     * Records an OPENING movement for every batch without one whose movements do not add up to its
+     * stock (pre-ledger stock, even if it has moved since).
+     */
+    int seedOpeningBalances();
+
+    /** Replays the ledger per batch and reports every batch whose balance differs from the live row. */
+    List<LedgerDiscrepancy> verifyAgainstBatches();
+
+    record StockBalance(String itemCode, LocalDateTime asOf, int main, int store, int shelf) {
+        public int sellable() { return store + shelf; }
+    }
+
+    record SnapshotInfo(long id, LocalDateTime takenAt, long uptoMovementId, int lines) {}
+
+    record LedgerDiscrepancy(long batchId, String itemCode,
+                             int ledgerMain, int ledgerStore, int ledgerShelf,
+                             int actualMain, int actualStore, int actualShelf) {}
+}
@@ -0,0 +1,58 @@
+package application.inventory;
+
+import domain.inventory.StockMovement;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/** Stock history, "as of" balances, audit replay and periodic snapshots over the stock ledger. */
+public final class StockLedgerService {
+    private final StockLedgerRepository ledger;
+
+    public StockLedgerService(StockLedgerRepository ledger) {
+        if (ledger == null) throw new IllegalArgumentException("ledger is required");
+        this.ledger = ledger;
+    }
+
+    public List<StockMovement> history(String itemCode, LocalDateTime from, LocalDateTime to) {
+        requireCode(itemCode);
+        if (from == null || to == null || to.isBefore(from)) throw new IllegalArgumentException("invalid time range");
+        return ledger.movements(itemCode.trim(), from, to);
+    }
+
+    public StockLedgerRepository.StockBalance balanceAsOf(String itemCode, LocalDateTime at) {
+        requireCode(itemCode);
+        if (at == null) throw new IllegalArgumentException("at is required");
+        return ledger.balanceAsOf(itemCode.trim(), at);
+    }
+
+    public Optional<StockLedgerRepository.SnapshotInfo> snapshotNow() {
+        return ledger.takeSnapshot();
+    }
+
+    public List<StockLedgerRepository.LedgerDiscrepancy> audit() {
+        return ledger.verifyAgainstBatches();
+    }
+
+    /** Seeds pre-ledger batches once, then snapshots every {@code period}; a failed run is retried next tick. */
+    public ScheduledFuture<?> scheduleSnapshots(ScheduledExecutorService scheduler, Duration period) {
+        if (period == null || period.isZero() || period.isNegative()) throw new IllegalArgumentException("period must be > 0");
+        return scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                ledger.seedOpeningBalances();
+                ledger.takeSnapshot();
+            } catch (RuntimeException e) {
+                System.err.println("[stock-ledger] snapshot failed: " + e.getMessage());
+            }
+        }, 0, period.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private static void requireCode(String itemCode) {
+        if (itemCode == null || itemCode.isBlank()) throw new IllegalArgumentException("itemCode is required");
+    }
+}
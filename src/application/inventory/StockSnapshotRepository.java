@@ -0,0 +1,6 @@
+package application.inventory;
+
+/** Loads per-item shelf/store/main totals for every item from one consistent read. */
+public interface StockSnapshotRepository {
+    CatalogStockSnapshot loadStockSnapshot();
+}
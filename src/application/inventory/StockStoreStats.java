@@ -0,0 +1,23 @@
+package application.inventory;
+
+import java.util.Map;
+import java.util.Optional;
+
+/** Runtime counters of the stock store, for the manager's health view. */
+public interface StockStoreStats {
+
+    /**
+     * Stock transactions since startup and how often they had to be retried after a deadlock or
+     * lock-wait timeout; {@code retriesByOperation} shows where the contention is.
+     */
+    record Retries(long transactions, long retries, long deadlocks, long lockWaitTimeouts,
+                   long exhausted, long backoffMillis, Map<String, Long> retriesByOperation) {}
+
+    /** FEFO batch-list cache counters; {@code rejectedLoads} raced a write and were not cached. */
+    record CacheStats(long hits, long misses, long invalidations, long rejectedLoads, int cachedLists) {}
+
+    Retries retries();
+
+    /** Empty when the store runs without a batch cache. */
+    Optional<CacheStats> batchCache();
+}
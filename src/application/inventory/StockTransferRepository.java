@@ -0,0 +1,33 @@
+package application.inventory;
+
+import domain.inventory.StockMove;
+
+import java.util.List;
+
+/**
+ * Set-based stock transfers: many FEFO moves applied with one batch lock pass
+ * and batched UPDATE/INSERT statements per chunk instead of one transaction per move.
+ */
+public interface StockTransferRepository {
+
+    /**
+     * Apply the moves in list order, committing every {@code chunkSize} distinct items.
+     * A move takes what is available at its source (possibly 0); it never fails the chunk for lack of stock.
+     */
+    BulkTransferResult applyMoves(List<StockMove> moves, String transferredBy, int chunkSize);
+
+    record MoveResult(StockMove move, int moved) {
+        public boolean complete() { return moved == move.qty(); }
+    }
+
+    record BulkTransferResult(List<MoveResult> results, int chunksCommitted, long elapsedMillis) {
+        public int totalMoved() {
+            int sum = 0;
+            for (MoveResult r : results) sum += r.moved();
+            return sum;
+        }
+        public List<MoveResult> shortfalls() {
+            return results.stream().filter(r -> !r.complete()).toList();
+        }
+    }
+}
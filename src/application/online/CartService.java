@@ -0,0 +1,420 @@
+package application.online;
+
+import application.online.CartSnapshotStore.CartSnapshot;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Open online carts, many at once. Each cart is locked on its own monitor, so shoppers never wait
+ * on each other. A cart idle for {@code idleTtl} is gone. Expiry is lazy: a hashed timer wheel of
+ * {@value #SLOTS} slots spanning the TTL is advanced by whichever request finds a tick has passed,
+ * and a touch only stamps the cart. A cart found due is checked again and moved to its real slot
+ * if it was used meanwhile. Past {@code maxCarts} the idlest carts are evicted to make room.
+ *
+ * <p>A cart holds only its lines, as parallel arrays of shared code strings and quantities; one
+ * with a couple of lines is roughly 200 bytes with its map entry, so 100k open carts fit in a few
+ * tens of megabytes. An emptied cart is dropped. With a {@link CartSnapshotStore}, changed carts
+ * are marked dirty and written in batches by {@link #flush()}.
+ */
+public final class CartService {
+
+    static final int SLOTS = 128; // power of two
+    private static final int MASK = SLOTS - 1;
+    public static final int MAX_LINES = 100;
+
+    /** A cart's lines at one moment; {@code version} changes with every change to the cart. */
+    public record Contents(Map<String, Integer> lines, int version) {}
+
+    public record Stats(int open, long created, long expired, long evicted, int dirty) {}
+
+    private static final String[] NO_CODES = new String[0];
+    private static final int[] NO_QTYS = new int[0];
+
+    private static final class Cart {
+        final String id;
+        String[] codes = NO_CODES;
+        int[] qtys = NO_QTYS;
+        int lines;
+        int version;
+        boolean removed;
+        volatile long touchedAt;
+
+        Cart(String id, long now) {
+            this.id = id;
+            this.touchedAt = now;
+        }
+
+        int indexOf(String code) {
+            for (int i = 0; i < lines; i++) if (codes[i].equals(code)) return i;
+            return -1;
+        }
+
+        Map<String, Integer> lines() {
+            Map<String, Integer> out = new LinkedHashMap<>();
+            for (int i = 0; i < lines; i++) out.put(codes[i], qtys[i]);
+            return out;
+        }
+    }
+
+    private final int maxCarts;
+    private final long ttlMillis;
+    private final long tickMillis;
+    private final CartSnapshotStore snapshots; // null: memory only
+    private final LongSupplier clockMillis;
+    private final Map<String, Cart> carts = new ConcurrentHashMap<>();
+    private final Map<String, String> codes = new ConcurrentHashMap<>(); // one String per item code
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+
+    private final ReentrantLock wheelLock = new ReentrantLock(); // taken before any cart monitor
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private final List<Cart>[] slots = new List[SLOTS];
+    private volatile long cursor; // next tick to process
+
+    private final LongAdder created = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+
+    public CartService(int maxCarts, Duration idleTtl, CartSnapshotStore snapshots) {
+        this(maxCarts, idleTtl, snapshots, System::currentTimeMillis);
+    }
+
+    CartService(int maxCarts, Duration idleTtl, CartSnapshotStore snapshots, LongSupplier clockMillis) {
+        if (maxCarts < 1) throw new IllegalArgumentException("maxCarts must be >= 1");
+        if (idleTtl == null || idleTtl.toMillis() < 1) throw new IllegalArgumentException("idleTtl must be >= 1 ms");
+        this.maxCarts = maxCarts;
+        this.ttlMillis = idleTtl.toMillis();
+        this.tickMillis = Math.max(1, ttlMillis / SLOTS);
+        this.snapshots = snapshots;
+        this.clockMillis = clockMillis;
+        for (int i = 0; i < SLOTS; i++) slots[i] = new ArrayList<>();
+        this.cursor = clockMillis.getAsLong() / tickMillis;
+    }
+
+    /**
+     * Adds {@code qty} of {@code code}, unless the line would then exceed {@code maxQty}; returns
+     * false, changing nothing, in that case. Creates the cart on its first line.
+     */
+    public boolean add(String cartId, String code, int qty, int maxQty) {
+        if (qty <= 0) throw new IllegalArgumentException("Quantity must be positive");
+        long now = clockMillis.getAsLong();
+        expireDue(now);
+        String shared = codes.computeIfAbsent(code, c -> c);
+        while (true) {
+            Cart cart = carts.get(cartId);
+            if (cart == null) {
+                makeRoom(now);
+                Cart fresh = new Cart(cartId, now);
+                cart = carts.putIfAbsent(cartId, fresh);
+                if (cart == null) {
+                    cart = fresh;
+                    created.increment();
+                    schedule(fresh);
+                }
+            }
+            synchronized (cart) {
+                if (gone(cart, now)) continue;
+                int i = cart.indexOf(shared);
+                int current = i < 0 ? 0 : cart.qtys[i];
+                boolean added = (long) current + qty <= maxQty;
+                if (added) {
+                    if (i < 0) {
+                        if (cart.lines == MAX_LINES) {
+                            throw new IllegalArgumentException("A cart holds at most " + MAX_LINES + " different items");
+                        }
+                        if (cart.lines == cart.codes.length) grow(cart);
+                        i = cart.lines++;
+                        cart.codes[i] = shared;
+                    }
+                    cart.qtys[i] = current + qty;
+                    changed(cart, now);
+                } else if (cart.lines == 0) {
+                    drop(cart, now, false); // created just for this line
+                }
+                return added;
+            }
+        }
+    }
+
+    /** Takes {@code qty} of {@code code} out; zero or less removes the line. An emptied cart is dropped. */
+    public void remove(String cartId, String code, int qty) {
+        long now = clockMillis.getAsLong();
+        expireDue(now);
+        Cart cart = carts.get(cartId);
+        if (cart == null) return;
+        synchronized (cart) {
+            if (gone(cart, now)) return;
+            int i = cart.indexOf(code);
+            if (i < 0) return;
+            if (qty > 0 && qty < cart.qtys[i]) {
+                cart.qtys[i] -= qty;
+            } else {
+                int tail = cart.lines - i - 1;
+                System.arraycopy(cart.codes, i + 1, cart.codes, i, tail);
+                System.arraycopy(cart.qtys, i + 1, cart.qtys, i, tail);
+                cart.codes[--cart.lines] = null;
+            }
+            changed(cart, now);
+            if (cart.lines == 0) drop(cart, now, false);
+        }
+    }
+
+    /** Quantity of {@code code} in the cart, 0 when there is none. */
+    public int quantity(String cartId, String code) {
+        return get(cartId).map(c -> c.lines().getOrDefault(code, 0)).orElse(0);
+    }
+
+    /** The cart's lines, which also counts as use; empty when there is no open cart. */
+    public Optional<Contents> get(String cartId) {
+        long now = clockMillis.getAsLong();
+        expireDue(now);
+        Cart cart = carts.get(cartId);
+        if (cart == null) return Optional.empty();
+        synchronized (cart) {
+            if (gone(cart, now)) return Optional.empty();
+            cart.touchedAt = now;
+            return Optional.of(new Contents(cart.lines(), cart.version));
+        }
+    }
+
+    /** Drops the cart if it is still at {@code version}; false when it changed since (or is gone). */
+    public boolean clear(String cartId, int version) {
+        Cart cart = carts.get(cartId);
+        if (cart == null) return false;
+        synchronized (cart) {
+            if (cart.removed || cart.version != version) return false;
+            drop(cart, clockMillis.getAsLong(), false);
+            return true;
+        }
+    }
+
+    public void discard(String cartId) {
+        Cart cart = carts.get(cartId);
+        if (cart == null) return;
+        synchronized (cart) {
+            drop(cart, clockMillis.getAsLong(), false);
+        }
+    }
+
+    public int size() {
+        return carts.size();
+    }
+
+    public Stats stats() {
+        return new Stats(carts.size(), created.sum(), expired.sum(), evicted.sum(), dirty.size());
+    }
+
+    /** Advances the wheel now instead of on the next request; for a scheduler or a quiet shop. */
+    public void expireIdle() {
+        long now = clockMillis.getAsLong();
+        wheelLock.lock();
+        try {
+            advance(now);
+        } finally {
+            wheelLock.unlock();
+        }
+    }
+
+    /**
+     * Writes every cart changed since the last flush, and deletes the snapshots of carts that are
+     * gone. Returns how many snapshots were written or deleted; 0 without a store.
+     */
+    public int flush() {
+        if (snapshots == null) return 0;
+        int n = 0;
+        for (String id : dirty) {
+            dirty.remove(id); // before the copy, so a change racing it marks the cart again
+            Cart cart = carts.get(id);
+            CartSnapshot snap = null;
+            if (cart != null) {
+                synchronized (cart) {
+                    if (!cart.removed) snap = new CartSnapshot(id, cart.touchedAt, cart.lines());
+                }
+            }
+            try {
+                if (snap != null) snapshots.save(snap);
+                else snapshots.delete(id);
+                n++;
+            } catch (RuntimeException e) {
+                dirty.add(id);
+                throw e;
+            }
+        }
+        return n;
+    }
+
+    /** Reopens the stored carts that have not idled out; run once before serving. Returns how many. */
+    public int restore() {
+        if (snapshots == null) return 0;
+        long now = clockMillis.getAsLong();
+        List<String> stale = new ArrayList<>();
+        int[] restored = {0};
+        snapshots.loadAll(s -> {
+            if (now - s.touchedAtMillis() >= ttlMillis || s.lines().isEmpty()) {
+                stale.add(s.cartId());
+                return;
+            }
+            if (carts.size() >= maxCarts) return; // kept on disk, in case the limit is raised
+            Cart cart = new Cart(s.cartId(), s.touchedAtMillis());
+            int n = Math.min(MAX_LINES, s.lines().size());
+            cart.codes = new String[n];
+            cart.qtys = new int[n];
+            for (var e : s.lines().entrySet()) {
+                if (cart.lines == n || e.getValue() == null || e.getValue() <= 0) continue;
+                cart.codes[cart.lines] = codes.computeIfAbsent(e.getKey(), c -> c);
+                cart.qtys[cart.lines++] = e.getValue();
+            }
+            if (cart.lines > 0 && carts.putIfAbsent(cart.id, cart) == null) {
+                schedule(cart);
+                restored[0]++;
+            }
+        });
+        stale.forEach(snapshots::delete);
+        return restored[0];
+    }
+
+    // ---- internals -------------------------------------------------------------------------
+
+    private boolean isIdle(Cart cart, long now) {
+        return now - cart.touchedAt >= ttlMillis;
+    }
+
+    // a cart past its TTL is expired on sight, whether or not the wheel got to it; caller holds its monitor
+    private boolean gone(Cart cart, long now) {
+        if (cart.removed) return true;
+        if (!isIdle(cart, now)) return false;
+        drop(cart, now, false);
+        expired.increment();
+        return true;
+    }
+
+    // caller holds the cart's monitor
+    private void changed(Cart cart, long now) {
+        cart.touchedAt = now;
+        cart.version++;
+        if (snapshots != null) dirty.add(cart.id);
+    }
+
+    private static void grow(Cart cart) {
+        int cap = cart.codes.length == 0 ? 2 : Math.min(MAX_LINES, cart.codes.length * 2);
+        cart.codes = Arrays.copyOf(cart.codes, cap);
+        cart.qtys = Arrays.copyOf(cart.qtys, cap);
+    }
+
+    /**
+     * Removes the cart unless {@code onlyIfIdle} and it was used since; caller holds its monitor.
+     * The wheel keeps a reference until its slot comes round, which costs one array entry.
+     */
+    private boolean drop(Cart cart, long now, boolean onlyIfIdle) {
+        if (cart.removed) return true;
+        if (onlyIfIdle && !isIdle(cart, now)) return false;
+        cart.removed = true;
+        carts.remove(cart.id, cart);
+        if (snapshots != null) dirty.add(cart.id);
+        return true;
+    }
+
+    private long dueTick(Cart cart) {
+        return (cart.touchedAt + ttlMillis) / tickMillis + 1;
+    }
+
+    private void schedule(Cart cart) {
+        wheelLock.lock();
+        try {
+            place(cart, dueTick(cart));
+        } finally {
+            wheelLock.unlock();
+        }
+    }
+
+    // caller holds wheelLock; a tick already passed goes in the next slot still to be processed
+    private void place(Cart cart, long tick) {
+        slots[(int) (Math.max(tick, cursor) & MASK)].add(cart);
+    }
+
+    // the request that notices a tick has passed does the expiry; the others carry on
+    private void expireDue(long now) {
+        if (now / tickMillis < cursor || !wheelLock.tryLock()) return;
+        try {
+            advance(now);
+        } finally {
+            wheelLock.unlock();
+        }
+    }
+
+    // caller holds wheelLock
+    private void advance(long now) {
+        long nowTick = now / tickMillis;
+        if (nowTick < cursor) return;
+        long steps = Math.min(nowTick - cursor + 1, SLOTS);
+        long first = cursor;
+        cursor = nowTick + 1;
+        for (long t = first; t < first + steps; t++) {
+            int s = (int) (t & MASK);
+            List<Cart> due = slots[s];
+            slots[s] = new ArrayList<>();
+            for (Cart cart : due) {
+                if (cart.removed) continue;
+                boolean gone;
+                synchronized (cart) {
+                    gone = drop(cart, now, true);
+                }
+                if (gone) expired.increment();
+                else place(cart, dueTick(cart));
+            }
+        }
+    }
+
+    /**
+     * Frees room for one more cart: expired carts first, then the idlest. Slots are walked from
+     * the cursor, moving carts used since they were placed, so the first cart found due in the
+     * slot being walked is among the longest idle.
+     */
+    private void makeRoom(long now) {
+        if (carts.size() < maxCarts) return;
+        wheelLock.lock();
+        try {
+            advance(now);
+            for (int pass = 0; pass < 2 && carts.size() >= maxCarts; pass++) {
+                for (int i = 0; i < SLOTS && carts.size() >= maxCarts; i++) {
+                    long tick = cursor + i;
+                    int s = (int) (tick & MASK);
+                    for (Iterator<Cart> it = slots[s].iterator(); it.hasNext() && carts.size() >= maxCarts; ) {
+                        Cart cart = it.next();
+                        if (cart.removed) {
+                            it.remove();
+                            continue;
+                        }
+                        long due = dueTick(cart);
+                        if (pass == 0 && due > tick) {
+                            int later = (int) (due & MASK);
+                            if (later != s) {
+                                it.remove();
+                                slots[later].add(cart);
+                            }
+                            continue;
+                        }
+                        synchronized (cart) {
+                            drop(cart, now, false);
+                        }
+                        it.remove();
+                        evicted.increment();
+                    }
+                }
+            }
+        } finally {
+            wheelLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package application.online;
+
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Durable copies of open carts, so shoppers find them again after a restart. A snapshot replaces
+ * the previous one of its cart; writes come in batches from {@link CartService#flush()}, never from
+ * a shopper's request.
+ */
+public interface CartSnapshotStore {
+
+    /** {@code lines} maps item code to quantity in the order the items were added. */
+    record CartSnapshot(String cartId, long touchedAtMillis, Map<String, Integer> lines) {}
+
+    void save(CartSnapshot snapshot);
+
+    void delete(String cartId);
+
+    /** Hands every stored snapshot to {@code sink}, in no particular order. */
+    void loadAll(Consumer<CartSnapshot> sink);
+}
@@ -0,0 +1,48 @@
+package application.online;
+
+import application.inventory.StockCommitRepository.ItemStockLevel;
+import domain.billing.Bill;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stores many paid orders in one transaction: each bill with its lines, and the shelf stock its
+ * lines reserved. An order whose stock is no longer there is refused on its own; the rest of the
+ * group still commits.
+ */
+public interface OrderBatchRepository {
+
+    /**
+     * What happened to one order: {@code refusal} is null when it committed, and {@code levels}
+     * then holds the stock left of its items; a refused order took nothing and stored nothing.
+     */
+    record Outcome(String refusal, Map<String, ItemStockLevel> levels) {
+        public static Outcome committed(Map<String, ItemStockLevel> levels) {
+            return new Outcome(null, levels);
+        }
+
+        public static Outcome refused(String reason) {
+            return new Outcome(reason, Map.of());
+        }
+
+        public boolean isCommitted() {
+            return refusal == null;
+        }
+    }
+
+    /**
+     * Whether {@link #commitOrders} can be used with this store's current layout; when it cannot,
+     * orders must be committed one by one through the usual checkout.
+     */
+    default boolean supportsGroupCommit() {
+        return true;
+    }
+
+    /**
+     * One outcome per bill, in the order given. Throws when the group as a whole could not be
+     * written; then nothing of it was committed. Throws {@link IllegalStateException} when
+     * {@link #supportsGroupCommit()} is false.
+     */
+    List<Outcome> commitOrders(List<Bill> bills);
+}
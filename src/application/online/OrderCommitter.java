@@ -0,0 +1,225 @@
+package application.online;
+
+import application.inventory.StockCommitRepository.ItemStockLevel;
+import application.online.OrderBatchRepository.Outcome;
+import application.online.StorefrontService.StorefrontException;
+import domain.billing.Bill;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Group commit for online orders. Paid bills queue up here and one committer thread writes them in
+ * groups: it takes the first waiting order, collects whatever else arrives within {@code window}
+ * (up to {@code maxGroup}), and stores the lot with one {@link OrderBatchRepository#commitOrders}
+ * call. A burst of orders then costs a few transactions instead of one each, and orders that arrive
+ * while a group is being written simply form the next group.
+ * <p>
+ * Every order gets its own future: the stock levels of its items once committed, or a
+ * {@link StorefrontException} when its stock was gone. If a whole group fails, its orders are
+ * retried one by one so a single bad order cannot take the others down with it. Futures complete on
+ * the committer thread; callers should do their follow-up work after {@code join()}, not in
+ * attached stages. {@link #commit(Bill, Duration)} gives up on an order only while it is still
+ * queued; once its group is being written the caller always learns how it ended.
+ */
+public final class OrderCommitter implements AutoCloseable {
+
+    public record Stats(long orders, long groups, long refused, int largestGroup) {}
+
+    private static final int QUEUED = 0, CLAIMED = 1, ABANDONED = 2;
+
+    private record Pending(Bill bill, CompletableFuture<Map<String, ItemStockLevel>> result, AtomicInteger state) {
+        Pending(Bill bill) {
+            this(bill, new CompletableFuture<>(), new AtomicInteger(QUEUED));
+        }
+    }
+
+    private final OrderBatchRepository orders;
+    private final long windowNanos;
+    private final int maxGroup;
+    private final BlockingQueue<Pending> queue;
+    private final Thread worker;
+    private volatile boolean closed;
+
+    // written by the committer thread only
+    private volatile long committed, groups, refused;
+    private volatile int largestGroup;
+
+    /** {@code maxQueued} orders may wait at once; past that, submissions are refused straight away. */
+    public OrderCommitter(OrderBatchRepository orders, Duration window, int maxGroup, int maxQueued) {
+        if (maxGroup < 1 || maxQueued < 1) throw new IllegalArgumentException("Group and queue sizes must be positive");
+        this.orders = orders;
+        this.windowNanos = Math.max(0, window.toNanos());
+        this.maxGroup = maxGroup;
+        this.queue = new ArrayBlockingQueue<>(maxQueued);
+        this.worker = new Thread(this::run, "order-commit");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /** Queues a paid bill, with its channel, user and shelf reservations set, for the next group. */
+    public CompletableFuture<Map<String, ItemStockLevel>> submit(Bill bill) {
+        return enqueue(bill).result();
+    }
+
+    /**
+     * Queues the bill and waits for its outcome. If the order is still queued after
+     * {@code queueTimeout} it is withdrawn and nothing is written; once its group has been picked up
+     * this waits for that group, so a slow write never leaves an order committed behind a failure.
+     */
+    public Map<String, ItemStockLevel> commit(Bill bill, Duration queueTimeout) {
+        Pending p = enqueue(bill);
+        try {
+            return p.result().get(queueTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            if (p.state().compareAndSet(QUEUED, ABANDONED)) {
+                throw new StorefrontException("The shop is busy; the order was not placed, please try again");
+            }
+            return join(p.result());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (p.state().compareAndSet(QUEUED, ABANDONED)) {
+                throw new StorefrontException("The order was not placed");
+            }
+            return join(p.result());
+        } catch (ExecutionException e) {
+            throw rethrow(e.getCause());
+        }
+    }
+
+    private static Map<String, ItemStockLevel> join(CompletableFuture<Map<String, ItemStockLevel>> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            throw rethrow(e.getCause());
+        }
+    }
+
+    private static RuntimeException rethrow(Throwable cause) {
+        if (cause instanceof RuntimeException r) return r;
+        if (cause instanceof Error err) throw err;
+        return new IllegalStateException(cause);
+    }
+
+    private Pending enqueue(Bill bill) {
+        Pending p = new Pending(bill);
+        if (closed) {
+            p.result().completeExceptionally(new StorefrontException("The shop is not taking orders right now"));
+        } else if (!queue.offer(p)) {
+            p.result().completeExceptionally(new StorefrontException("Too many orders at once, please try again"));
+        }
+        return p;
+    }
+
+    /** False when the store cannot write orders in groups; callers then commit each order themselves. */
+    public boolean isSupported() {
+        return orders.supportsGroupCommit();
+    }
+
+    public Stats stats() {
+        return new Stats(committed, groups, refused, largestGroup);
+    }
+
+    /** Stops taking orders, commits those already queued and waits up to five seconds for that. */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            worker.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // anything that slipped in after the committer's last look, or outlived the wait
+        List<Pending> stranded = new ArrayList<>();
+        queue.drainTo(stranded);
+        for (Pending p : stranded) {
+            p.result().completeExceptionally(new StorefrontException("The shop is not taking orders right now"));
+        }
+    }
+
+    private void run() {
+        List<Pending> group = new ArrayList<>(maxGroup);
+        while (true) {
+            Pending first;
+            try {
+                first = queue.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (first == null) {
+                if (closed) return;
+                continue;
+            }
+            group.add(first);
+            try {
+                collect(group);
+                // claimed orders are written and awaited; one whose caller withdrew it is dropped
+                group.removeIf(p -> !p.state().compareAndSet(QUEUED, CLAIMED) || p.result().isDone());
+                if (!group.isEmpty()) commit(group);
+            } catch (Throwable t) {
+                // the only committer must survive: whatever went wrong fails this group, not later ones
+                for (Pending p : group) p.result().completeExceptionally(t);
+            } finally {
+                group.clear();
+            }
+        }
+    }
+
+    // Whatever is already waiting joins at once; then up to the window for more, unless the group fills
+    private void collect(List<Pending> group) {
+        long deadline = System.nanoTime() + windowNanos;
+        while (group.size() < maxGroup) {
+            if (queue.drainTo(group, maxGroup - group.size()) > 0) continue;
+            long left = deadline - System.nanoTime();
+            if (left <= 0 || closed) return;
+            Pending next;
+            try {
+                next = queue.poll(left, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (next == null) return;
+            group.add(next);
+        }
+    }
+
+    private void commit(List<Pending> group) {
+        List<Outcome> outcomes;
+        try {
+            outcomes = orders.commitOrders(group.stream().map(Pending::bill).toList());
+            if (outcomes.size() != group.size()) {
+                throw new IllegalStateException("Expected " + group.size() + " outcomes, got " + outcomes.size());
+            }
+        } catch (Throwable e) {
+            if (group.size() == 1) {
+                group.get(0).result().completeExceptionally(e);
+                return;
+            }
+            for (Pending p : group) commit(List.of(p));
+            return;
+        }
+        groups++;
+        largestGroup = Math.max(largestGroup, group.size());
+        for (int i = 0; i < group.size(); i++) {
+            Outcome o = outcomes.get(i);
+            if (o.isCommitted()) {
+                committed++;
+                group.get(i).result().complete(o.levels());
+            } else {
+                refused++;
+                group.get(i).result().completeExceptionally(new StorefrontException(o.refusal()));
+            }
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package application.online;
+
+import application.inventory.StockCommitRepository.ItemStockLevel;
+import application.pos.controllers.CheckoutService;
+import application.pos.controllers.InventoryManager;
+import application.pos.controllers.LineRequest;
+import application.pos.controllers.PaymentProcessor;
+import application.pricing.PricingService;
+import domain.billing.Bill;
+import domain.billing.BillLine;
+import domain.billing.BillNumberGenerator;
+import domain.common.Money;
+import domain.inventory.InventoryReservation;
+import domain.inventory.Item;
+import ports.in.InventoryService;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The online shop without a terminal: catalog, carts and card checkout on the WEB channel, safe to
+ * call from many request threads at once. Nothing is reserved while a cart fills; stock is planned
+ * from the shelf and committed only at checkout, through the same {@link InventoryManager} and
+ * {@link CheckoutService} the POS uses, so an order either goes through whole or not at all. Carts
+ * are kept by a {@link CartService}. With an {@link OrderCommitter} whose store supports it, paid
+ * orders are stored in groups rather than one transaction each.
+ */
+public final class StorefrontService {
+
+    public static final String CHANNEL = "WEB";
+
+    /** How long a checkout waits for its order to be picked up by a group commit. */
+    static final Duration ORDER_COMMIT_TIMEOUT = Duration.ofSeconds(30);
+
+    /** {@code price} is what one unit costs online, tax included; WEB sales get no batch discounts. */
+    public record ItemView(String code, String name, Money unitPrice, Money price, int available) {}
+
+    public record CartLine(String code, String name, int qty, Money unitPrice, Money lineTotal) {}
+
+    public record CartView(List<CartLine> lines, Money subtotal, Money tax, Money total) {}
+
+    public record Order(String billNo, Money total, String cardLast4, List<CartLine> lines) {}
+
+    private final InventoryService inventory;
+    private final InventoryManager stock;
+    private final PricingService pricing;
+    private final PaymentProcessor payments;
+    private final CheckoutService checkout;
+    private final BillNumberGenerator billNos;
+    private final CartService carts;
+    private final OrderCommitter orders; // null = each order commits on its own
+
+    public StorefrontService(InventoryService inventory, InventoryManager stock, PricingService pricing,
+                             CheckoutService checkout, BillNumberGenerator billNos) {
+        this(inventory, stock, pricing, checkout, billNos, new CartService(10_000, Duration.ofMinutes(30), null));
+    }
+
+    public StorefrontService(InventoryService inventory, InventoryManager stock, PricingService pricing,
+                             CheckoutService checkout, BillNumberGenerator billNos, CartService carts) {
+        this(inventory, stock, pricing, checkout, billNos, carts, null);
+    }
+
+    public StorefrontService(InventoryService inventory, InventoryManager stock, PricingService pricing,
+                             CheckoutService checkout, BillNumberGenerator billNos, CartService carts,
+                             OrderCommitter orders) {
+        this.inventory = inventory;
+        this.stock = stock;
+        this.pricing = pricing;
+        this.payments = new PaymentProcessor(pricing);
+        this.checkout = checkout;
+        this.billNos = billNos;
+        this.carts = carts;
+        this.orders = orders != null && orders.isSupported() ? orders : null;
+    }
+
+    public List<ItemView> search(String query, int limit) {
+        List<ItemView> out = new ArrayList<>();
+        for (Item it : inventory.searchItems(query == null ? "" : query.trim(), Math.max(0, limit))) {
+            out.add(view(it.code(), it.name(), inventory.priceOf(it.code())));
+        }
+        return out;
+    }
+
+    /** Throws {@link java.util.NoSuchElementException} for an unknown code. */
+    public ItemView item(String code) {
+        requireCode(code);
+        return view(code, inventory.itemName(code), inventory.priceOf(code));
+    }
+
+    /**
+     * Adds {@code qty} of an item to the cart. Stock is checked against the shelf so a shopper
+     * hears early that it ran out, but only checkout takes it.
+     */
+    public CartView addToCart(String cartId, String code, int qty) {
+        requireCart(cartId);
+        requireCode(code);
+        if (qty <= 0) throw new IllegalArgumentException("Quantity must be positive");
+        String name = inventory.itemName(code);
+        int available = inventory.shelfQty(code);
+        if (!carts.add(cartId, code, qty, available)) {
+            throw new StorefrontException("Not enough stock for " + name + ". Requested: "
+                    + ((long) carts.quantity(cartId, code) + qty) + ", Available: " + available);
+        }
+        return cart(cartId);
+    }
+
+    /** Takes {@code qty} of an item out of the cart; zero or less removes the whole line. */
+    public CartView removeFromCart(String cartId, String code, int qty) {
+        requireCart(cartId);
+        requireCode(code);
+        carts.remove(cartId, code, qty);
+        return cart(cartId);
+    }
+
+    /** The cart priced as it would be charged now. */
+    public CartView cart(String cartId) {
+        requireCart(cartId);
+        Map<String, Integer> lines = carts.get(cartId).map(CartService.Contents::lines).orElse(Map.of());
+        Bill quote = new Bill("QUOTE");
+        for (var e : lines.entrySet()) {
+            String code = e.getKey();
+            quote.addLine(new BillLine(code, inventory.itemName(code), inventory.priceOf(code), e.getValue(), List.of()));
+        }
+        pricing.finalizePricing(quote, null);
+        return new CartView(cartLines(quote), quote.subtotal(), quote.tax(), quote.total());
+    }
+
+    public void discardCart(String cartId) {
+        if (cartId != null) carts.discard(cartId);
+    }
+
+    /**
+     * Plans every line from the shelf, charges the card and completes the bill for {@code customer}.
+     * Nothing is taken when a line is short or the card is refused, and the cart stays as it was.
+     * A cart changed while its checkout runs keeps the later changes.
+     */
+    public Order checkout(String cartId, String customer, String cardLast4) {
+        requireCart(cartId);
+        CartService.Contents contents = carts.get(cartId).orElse(null);
+        if (contents == null || contents.lines().isEmpty()) throw new StorefrontException("Cart is empty");
+
+        List<LineRequest> requests = new ArrayList<>(contents.lines().size());
+        contents.lines().forEach((code, qty) -> requests.add(new LineRequest(code, qty)));
+        Bill bill = new Bill(billNos.next());
+        bill.setChannel(CHANNEL);
+        bill.setUserName(customer);
+        List<InventoryReservation> shelf = new ArrayList<>();
+        try {
+            for (BillLine l : stock.planLines(requests, CHANNEL)) {
+                bill.addLine(l);
+                shelf.addAll(l.reservations());
+            }
+            bill.setPayment(payments.processCardPayment(bill, cardLast4, null));
+            if (orders == null) {
+                checkout.completeCheckout(bill, shelf, List.of(), customer, CHANNEL);
+            } else {
+                checkout.completeCommitted(bill, awaitCommit(bill));
+            }
+        } catch (StorefrontException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            if (!isRefusal(e)) throw e;
+            throw new StorefrontException(e.getMessage(), e);
+        }
+        carts.clear(cartId, contents.version());
+        return new Order(bill.number(), bill.total(), bill.cardLast4(), cartLines(bill));
+    }
+
+    // Blocks this request's thread (a virtual one under the HTTP server) until the bill's group is
+    // written. An order still queued at the timeout is withdrawn; one being written is always awaited.
+    private Map<String, ItemStockLevel> awaitCommit(Bill bill) {
+        return orders.commit(bill, ORDER_COMMIT_TIMEOUT);
+    }
+
+    // Short stock and declined cards arrive as POS exceptions: bare ones from planning, or wrapping the
+    // IllegalStateException of a stock commit that found the shelf emptied or the
+    // IllegalArgumentException of a refused card. Anything else is the system failing, not the shop refusing.
+    private static boolean isRefusal(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof StorefrontException || t instanceof IllegalStateException
+                    || t instanceof IllegalArgumentException) return true;
+            if (t.getCause() == null) return t instanceof InventoryManager.POSOperationException;
+        }
+        return false;
+    }
+
+    /** Open carts, for monitoring. */
+    public int openCarts() {
+        return carts.size();
+    }
+
+    private ItemView view(String code, String name, Money unitPrice) {
+        Bill quote = new Bill("QUOTE");
+        quote.addLine(new BillLine(code, name, unitPrice, 1, List.of()));
+        pricing.finalizePricing(quote, null);
+        return new ItemView(code, name, unitPrice, quote.total(), inventory.shelfQty(code));
+    }
+
+    private static List<CartLine> cartLines(Bill bill) {
+        return bill.lines().stream()
+                .map(l -> new CartLine(l.itemCode(), l.itemName(), l.quantity(), l.unitPrice(), l.lineTotal()))
+                .toList();
+    }
+
+    private static void requireCart(String cartId) {
+        if (cartId == null || cartId.isBlank()) throw new IllegalArgumentException("Cart id is required");
+    }
+
+    private static void requireCode(String code) {
+        if (code == null || code.isBlank()) throw new IllegalArgumentException("Item code is required");
+    }
+
+    /** An order or cart change the shop refused: short stock, a declined card, an empty cart. */
+    public static class StorefrontException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public StorefrontException(String message) {
+            super(message);
+        }
+
+        public StorefrontException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
@@ -8,12 +8,14 @@ import ports.out.BillRepository;
 import application.events.EventBus;
 import application.events.events.BillPaid;
 import application.events.events.RestockThresholdHit;
+import application.events.events.StockAboveThreshold;
 import application.events.events.StockDepleted;
+import application.inventory.StockCommitRepository.ItemStockLevel;
 
-
-
+import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -47,13 +49,13 @@ public final class CheckoutService {
             writeBillReceipt(bill);
 
             // Inventory commitment operations
-            commitInventoryReservations(shelfReservations, storeReservations);
+            Map<String, ItemStockLevel> levels = commitInventoryReservations(shelfReservations, storeReservations);
 
             // Event publication with error handling
             publishBillPaidEvent(bill, currentChannel, currentUser);
 
             // Stock level event processing
-            publishStockLevelEvents(bill);
+            publishStockLevelEvents(bill, levels);
 
         } catch (POSOperationException e) {
             throw e; // Re-throw our specific exceptions
@@ -62,6 +64,20 @@ public final class CheckoutService {
         }
     }
 
+    /**
+     * Finish a bill whose row and stock were already committed elsewhere (e.g. by a group commit):
+     * receipt and events only. Nothing here throws, since the sale has already happened.
+     */
+    public void completeCommitted(Bill bill, Map<String, ItemStockLevel> levels) {
+        try {
+            writer.write(bill);
+        } catch (Exception e) {
+            System.err.println("Warning: Failed to write bill receipt for " + bill.number() + ": " + e.getMessage());
+        }
+        publishBillPaidEvent(bill, bill.channel(), bill.userName());
+        publishStockLevelEvents(bill, levels);
+    }
+
     /**
      * Save bill to database
      */
@@ -85,12 +101,13 @@ public final class CheckoutService {
     }
 
     /**
-     * Commit inventory reservations
+     * Commit inventory reservations; returns per-item stock levels read by the commits (store last, so newest wins)
      */
-    private void commitInventoryReservations(List<InventoryReservation> shelfReservations,
-                                           List<InventoryReservation> storeReservations) {
-        inventoryManager.commitShelfReservations(shelfReservations);
-        inventoryManager.commitStoreReservations(storeReservations);
+    private Map<String, ItemStockLevel> commitInventoryReservations(List<InventoryReservation> shelfReservations,
+                                                                   List<InventoryReservation> storeReservations) {
+        Map<String, ItemStockLevel> levels = new HashMap<>(inventoryManager.commitShelfReservations(shelfReservations));
+        levels.putAll(inventoryManager.commitStoreReservations(storeReservations));
+        return levels;
     }
 
     /**
@@ -98,7 +115,12 @@ public final class CheckoutService {
      */
     private void publishBillPaidEvent(Bill bill, String channel, String user) {
         try {
-            events.publish(new BillPaid(bill.number(), bill.total(), channel, user));
+            List<BillPaid.Line> lines = bill.lines().stream()
+                    .map(l -> new BillPaid.Line(l.itemCode(), l.itemName(), l.quantity(), l.lineTotal()))
+                    .toList();
+            // createdAt is what the bills table stores, so live aggregates and a rebuild agree on the bucket
+            events.publish(new BillPaid(bill.number(), bill.total(), channel, user,
+                    bill.discount(), bill.createdAt(), lines));
         } catch (Exception e) {
             // Log the error but don't fail the checkout - bill is already saved
             System.err.println("Warning: Failed to publish BillPaid event: " + e.getMessage());
@@ -106,23 +128,35 @@ public final class CheckoutService {
     }
 
     /**
-     * Publish stock level events for restock notifications
+     * Publish stock level events for restock notifications. Levels reported by the commit are used
+     * as-is; only items without one are re-queried. Items still above their threshold get a
+     * StockAboveThreshold, so alert coalescing knows a restock happened in between.
      */
-    private void publishStockLevelEvents(Bill bill) {
+    private void publishStockLevelEvents(Bill bill, Map<String, ItemStockLevel> committedLevels) {
         try {
             Set<String> codes = new LinkedHashSet<>();
             for (BillLine l : bill.lines()) codes.add(l.itemCode());
 
             for (String code : codes) {
                 try {
-                    InventoryManager.StockInfo stockInfo = inventoryManager.getStockInfo(code);
-                    int totalLeft = stockInfo.shelf() + stockInfo.store();
-                    int threshold = stockInfo.threshold();
+                    int totalLeft;
+                    int threshold;
+                    ItemStockLevel level = committedLevels.get(code);
+                    if (level != null) {
+                        totalLeft = level.totalLeft();
+                        threshold = level.threshold();
+                    } else {
+                        InventoryManager.StockInfo stockInfo = inventoryManager.getStockInfo(code);
+                        totalLeft = stockInfo.shelf() + stockInfo.store();
+                        threshold = stockInfo.threshold();
+                    }
 
                     if (totalLeft == 0) {
                         events.publish(new StockDepleted(code));
                     } else if (totalLeft <= threshold) {
                         events.publish(new RestockThresholdHit(code, totalLeft, threshold));
+                    } else {
+                        events.publish(new StockAboveThreshold(code, totalLeft, threshold));
                     }
                 } catch (Exception e) {
                     // Log individual item stock check failures but continue with others
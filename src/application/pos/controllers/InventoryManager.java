@@ -2,15 +2,24 @@ package application.pos.controllers;
 
 import domain.billing.BillLine;
 import domain.common.Money;
+import domain.inventory.Batch;
 import domain.inventory.InventoryReservation;
 import domain.inventory.BatchDiscount;
+import domain.inventory.Item;
+import domain.inventory.StockLocation;
 import ports.in.InventoryService;
+import application.inventory.BasketLookupRepository;
 import application.inventory.InventoryAdminService;
+import application.inventory.StockCommitRepository;
+import application.inventory.StockCommitRepository.ItemStockLevel;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.concurrent.CompletionException;
 
 /**
  * Handles all inventory-related operations for the POS system
@@ -18,10 +27,24 @@ import java.util.Optional;
 public final class InventoryManager {
     private final InventoryService inventory;
     private final InventoryAdminService inventoryAdmin;
+    private final BasketLookupRepository basketLookup; // optional, null = plan multi-line baskets line by line
+    private final StockCommitRepository stockCommits;  // optional, null = commit without reporting stock levels
 
     public InventoryManager(InventoryService inventory, InventoryAdminService inventoryAdmin) {
+        this(inventory, inventoryAdmin, null);
+    }
+
+    public InventoryManager(InventoryService inventory, InventoryAdminService inventoryAdmin,
+                            BasketLookupRepository basketLookup) {
+        this(inventory, inventoryAdmin, basketLookup, null);
+    }
+
+    public InventoryManager(InventoryService inventory, InventoryAdminService inventoryAdmin,
+                            BasketLookupRepository basketLookup, StockCommitRepository stockCommits) {
         this.inventory = inventory;
         this.inventoryAdmin = inventoryAdmin;
+        this.basketLookup = basketLookup;
+        this.stockCommits = stockCommits;
     }
 
     /**
@@ -44,6 +67,103 @@ public final class InventoryManager {
         }
     }
 
+    /**
+     * Plan reservations and prices for a whole basket of lines without touching the bill.
+     * With a basket lookup the items, FEFO batches and batch discounts of every line are loaded
+     * with a fixed number of queries and planned in memory; lines of the same item draw down the
+     * same batches. Either every line is planned or a POSOperationException is thrown.
+     */
+    public List<BillLine> planLines(List<LineRequest> lines, String channel) {
+        if (lines == null) {
+            throw new POSOperationException("Line list cannot be null");
+        }
+        for (LineRequest line : lines) {
+            if (line == null) throw new POSOperationException("Line cannot be null");
+            validateItemCode(line.code());
+            validateQuantity(line.qty());
+        }
+        if (lines.isEmpty()) {
+            return List.of();
+        }
+        if (basketLookup == null) {
+            return planLinesOneByOne(lines, channel);
+        }
+
+        boolean fromStore = "POS".equalsIgnoreCase(channel);
+        BasketLookupRepository.BasketLookup basket;
+        try {
+            basket = basketLookup.loadBasket(lines.stream().map(LineRequest::code).toList(),
+                    fromStore ? StockLocation.STORE : StockLocation.SHELF);
+        } catch (RuntimeException e) {
+            throw new POSOperationException("Failed to load basket: " + e.getMessage(), e);
+        }
+
+        Map<Long, Integer> left = new HashMap<>(); // batch stock still unplanned across lines
+        List<BillLine> planned = new ArrayList<>(lines.size());
+        for (LineRequest line : lines) {
+            String code = line.code();
+            Item item = basket.items().get(code);
+            if (item == null) {
+                throw new POSOperationException("Item " + code + " does not exist in inventory");
+            }
+
+            List<InventoryReservation> reservations = new ArrayList<>();
+            int remaining = line.qty();
+            for (Batch b : basket.batchesOf(code)) {
+                if (remaining == 0) break;
+                int available = left.computeIfAbsent(b.id(), id -> fromStore ? b.qtyInStore() : b.qtyOnShelf());
+                int take = Math.min(available, remaining);
+                if (take > 0) {
+                    reservations.add(new InventoryReservation(b.id(), code, take));
+                    left.put(b.id(), available - take);
+                    remaining -= take;
+                }
+            }
+            if (remaining > 0) {
+                throw new POSOperationException("Not enough stock available for item " + code +
+                        ". Requested: " + line.qty() + ", Available: " + (line.qty() - remaining));
+            }
+
+            // Same rule as calculateBestPrice: batch discounts only for in-store POS sales
+            Money price = item.unitPrice();
+            if (fromStore) {
+                for (InventoryReservation r : reservations) {
+                    Money batchPrice = basket.priceFor(item.unitPrice(), r.batchId);
+                    if (batchPrice.compareTo(price) < 0) price = batchPrice;
+                }
+            }
+            planned.add(new BillLine(code, item.name(), price, line.qty(), reservations));
+        }
+        return planned;
+    }
+
+    // Fallback without a basket lookup: the per-line queries of addItem, still all-or-nothing
+    // Without a basket lookup: every item is reserved at once, then the lines are priced one by one
+    private List<BillLine> planLinesOneByOne(List<LineRequest> lines, String channel) {
+        List<List<InventoryReservation>> reserved;
+        try {
+            reserved = inventory.reserveAllByChannelAsync(lines.stream().map(LineRequest::code).toList(),
+                    lines.stream().map(LineRequest::qty).toList(), channel).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() == null ? e : e.getCause();
+            if (cause instanceof NoSuchElementException) {
+                throw new POSOperationException(cause.getMessage(), cause);
+            }
+            if (cause instanceof IllegalStateException) {
+                throw new POSOperationException("Insufficient stock: " + cause.getMessage(), cause);
+            }
+            throw new POSOperationException("Failed to reserve basket: " + cause.getMessage(), cause);
+        }
+        List<BillLine> planned = new ArrayList<>(lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            LineRequest line = lines.get(i);
+            var res = reserved.get(i);
+            Money price = calculateBestPrice(line.code(), res, channel);
+            planned.add(new BillLine(line.code(), getItemName(line.code()), price, line.qty(), res));
+        }
+        return planned;
+    }
+
     /**
      * Smart reserve items with cross-channel logic
      */
@@ -207,22 +327,28 @@ public final class InventoryManager {
     }
 
     /**
-     * Commit shelf reservations
+     * Commit shelf reservations; returns the committed items' stock levels when the repository reports them
      */
-    public void commitShelfReservations(List<InventoryReservation> reservations) {
+    public Map<String, ItemStockLevel> commitShelfReservations(List<InventoryReservation> reservations) {
         try {
-            if (!reservations.isEmpty()) inventory.commitReservation(reservations);
+            if (reservations.isEmpty()) return Map.of();
+            if (stockCommits != null) return stockCommits.commitShelfWithLevels(reservations);
+            inventory.commitReservation(reservations);
+            return Map.of();
         } catch (Exception e) {
             throw new POSOperationException("Failed to commit shelf reservations: " + e.getMessage(), e);
         }
     }
 
     /**
-     * Commit store reservations
+     * Commit store reservations; returns the committed items' stock levels when the repository reports them
      */
-    public void commitStoreReservations(List<InventoryReservation> reservations) {
+    public Map<String, ItemStockLevel> commitStoreReservations(List<InventoryReservation> reservations) {
         try {
-            if (!reservations.isEmpty()) inventory.commitStoreReservation(reservations);
+            if (reservations.isEmpty()) return Map.of();
+            if (stockCommits != null) return stockCommits.commitStoreWithLevels(reservations);
+            inventory.commitStoreReservation(reservations);
+            return Map.of();
         } catch (Exception e) {
             throw new POSOperationException("Failed to commit store reservations: " + e.getMessage(), e);
         }
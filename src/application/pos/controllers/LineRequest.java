@@ -0,0 +1,6 @@
+package application.pos.controllers;
+
+/**
+ * One scanned or ordered line for {@link POSController#addItems}: an item code and a quantity
+ */
+public record LineRequest(String code, int qty) {}
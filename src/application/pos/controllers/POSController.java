@@ -8,7 +8,9 @@ import domain.billing.state.BillState;
 import domain.common.Money;
 import domain.inventory.InventoryReservation;
 import ports.in.InventoryService;
+import application.inventory.BasketLookupRepository;
 import application.inventory.InventoryAdminService;
+import application.inventory.StockCommitRepository;
 import domain.pricing.DiscountPolicy;
 import application.pricing.PricingService;
 import application.pricing.AutoDiscountService;
@@ -44,9 +46,19 @@ public final class POSController {
     }
 
     public POSController(InventoryService inv, InventoryAdminService invAdmin, PricingService pr, BillNumberGenerator gen, BillRepository br, BillWriter bw, EventBus events) {
+        this(inv, invAdmin, pr, gen, br, bw, events, null);
+    }
+
+    public POSController(InventoryService inv, InventoryAdminService invAdmin, PricingService pr, BillNumberGenerator gen, BillRepository br, BillWriter bw, EventBus events,
+                         BasketLookupRepository basketLookup) {
+        this(inv, invAdmin, pr, gen, br, bw, events, basketLookup, null);
+    }
+
+    public POSController(InventoryService inv, InventoryAdminService invAdmin, PricingService pr, BillNumberGenerator gen, BillRepository br, BillWriter bw, EventBus events,
+                         BasketLookupRepository basketLookup, StockCommitRepository stockCommits) {
         // Initialize component managers
         this.billManager = new BillManager(gen);
-        this.inventoryManager = new InventoryManager(inv, invAdmin);
+        this.inventoryManager = new InventoryManager(inv, invAdmin, basketLookup, stockCommits);
         this.discountManager = new DiscountManager(pr, new AutoDiscountService(invAdmin), inventoryManager);
         this.stateManager = new BillStateManager();
         this.compositeBuilder = new BillCompositeBuilder();
@@ -95,6 +107,33 @@ public final class POSController {
         }
     }
 
+    /**
+     * Add a whole basket of lines (a scanned basket, an online order, a recalled parked bill).
+     * All lines are reserved and priced first; the bill only changes once every line has been
+     * planned, so a failing line leaves the bill untouched.
+     */
+    public void addItems(List<LineRequest> lines) {
+        ensureActiveBill();
+
+        try {
+            String channel = billManager.getCurrentChannel();
+            List<BillLine> planned = inventoryManager.planLines(lines, channel);
+            if (planned.isEmpty()) return;
+
+            boolean isStore = "POS".equalsIgnoreCase(channel);
+            for (BillLine line : planned) {
+                billManager.addReservations(line.reservations(), isStore);
+                billManager.addLine(line);
+            }
+
+            // Auto-apply discount once for the whole basket
+            discountManager.autoApplyBestDiscount(billManager.getActiveBill());
+        } catch (Exception e) {
+            throw new POSOperationException("Failed to add " + (lines == null ? 0 : lines.size()) +
+                    " lines to bill: " + e.getMessage(), e);
+        }
+    }
+
     public InventoryService.SmartPick addItemSmart(String code, int qty,
                                                    boolean approveUseOtherSide,
                                                    boolean managerApprovedBackfill) {
@@ -0,0 +1,35 @@
+package application.pricing;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/** Storage side of the near-expiry markdown sweep; every lookup is an index range, never a full batches scan. */
+public interface MarkdownRepository {
+
+    /** When the sweep last ran. */
+    record SweepState(LocalDate sweptOn) {}
+
+    record ExpiringBatch(long batchId, String itemCode, LocalDate expiry) {}
+
+    record Markdown(long batchId, int percentOff, LocalDate expiry, String reason) {}
+
+    /** A live markdown and the batch expiry it was priced for (null when it has no end). */
+    record ActiveMarkdown(long batchId, int percentOff, LocalDate markedExpiry) {}
+
+    /** Batches with sellable stock and {@code afterExclusive < expiry <= toInclusive} (expiry index range). */
+    List<ExpiringBatch> expiringBetween(LocalDate afterExclusive, LocalDate toInclusive);
+
+    /** Active markdowns created by {@code createdBy}. */
+    List<ActiveMarkdown> activeMarkdowns(String createdBy);
+
+    /**
+     * In one transaction: deactivates earlier {@code createdBy} markdowns of the same batches,
+     * inserts the new ones (skipping batches that carry an active manual discount) and saves
+     * {@code state}. Returns how many markdowns were created.
+     */
+    int applyMarkdowns(List<Markdown> markdowns, String createdBy, SweepState state);
+
+    /** Deactivates the {@code createdBy} markdowns of these batches; returns how many. */
+    int deactivate(Collection<Long> batchIds, String createdBy);
+}
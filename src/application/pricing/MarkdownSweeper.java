@@ -0,0 +1,97 @@
+package application.pricing;
+
+import domain.pricing.MarkdownRule;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Background near-expiry markdowns. Each run reads the sellable batches whose stored expiry falls in
+ * the widest rule's window, one range on the expiry index, and compares them with the sweeper's
+ * active markdowns: a batch gets a new markdown when it has none or its tier or expiry changed, the
+ * deepest matching tier winning. Active markdowns whose batch is no longer in the window (expired,
+ * sold out, or its expiry pushed out) are deactivated on the same tick. Nothing depends on what an
+ * earlier run saw, so late receipts and expiry edits are picked up by the next run.
+ */
+public final class MarkdownSweeper {
+    public static final String CREATED_BY = "markdown-sweeper";
+
+    public record SweepResult(int candidates, int created, int deactivated) {}
+
+    private final MarkdownRepository repo;
+    private final List<MarkdownRule> rules; // widest window first
+    private final Supplier<LocalDate> today;
+
+    public MarkdownSweeper(MarkdownRepository repo, List<MarkdownRule> rules) {
+        this(repo, rules, LocalDate::now);
+    }
+
+    public MarkdownSweeper(MarkdownRepository repo, List<MarkdownRule> rules, Supplier<LocalDate> today) {
+        if (repo == null) throw new IllegalArgumentException("repo is required");
+        if (rules == null || rules.isEmpty()) throw new IllegalArgumentException("at least one markdown rule is required");
+        this.repo = repo;
+        this.rules = rules.stream()
+                .sorted((a, b) -> Integer.compare(b.daysBeforeExpiry(), a.daysBeforeExpiry()))
+                .toList();
+        this.today = today;
+    }
+
+    public SweepResult sweep() {
+        LocalDate day = today.get();
+        Map<Long, MarkdownRepository.ActiveMarkdown> active = new HashMap<>();
+        for (var a : repo.activeMarkdowns(CREATED_BY)) active.put(a.batchId(), a);
+        // nothing before today is sellable
+        var candidates = repo.expiringBetween(day.minusDays(1), day.plusDays(rules.get(0).daysBeforeExpiry()));
+
+        List<MarkdownRepository.Markdown> markdowns = new ArrayList<>();
+        for (var b : candidates) {
+            MarkdownRule tier = tierFor(ChronoUnit.DAYS.between(day, b.expiry()));
+            if (tier == null) continue;
+            var current = active.remove(b.batchId());
+            if (current != null && current.percentOff() == tier.percentOff() && b.expiry().equals(current.markedExpiry())) {
+                continue;
+            }
+            markdowns.add(new MarkdownRepository.Markdown(b.batchId(), tier.percentOff(), b.expiry(),
+                    "Near expiry: " + tier.percentOff() + "% off within " + tier.daysBeforeExpiry() + " day(s)"));
+        }
+
+        int created = repo.applyMarkdowns(markdowns, CREATED_BY, new MarkdownRepository.SweepState(day));
+        // whatever is left was not in the window with sellable stock
+        int deactivated = active.isEmpty() ? 0 : repo.deactivate(active.keySet(), CREATED_BY);
+        return new SweepResult(candidates.size(), created, deactivated);
+    }
+
+    // Deepest discount among the rules whose window covers the batch
+    private MarkdownRule tierFor(long daysLeft) {
+        MarkdownRule best = null;
+        for (MarkdownRule r : rules) {
+            if (daysLeft < 0 || daysLeft > r.daysBeforeExpiry()) continue;
+            if (best == null || r.percentOff() > best.percentOff()) best = r;
+        }
+        return best;
+    }
+
+    /** Sweeps every {@code period}, starting now; a failed run is retried next tick. */
+    public ScheduledFuture<?> schedule(ScheduledExecutorService scheduler, Duration period) {
+        if (period == null || period.isZero() || period.isNegative()) throw new IllegalArgumentException("period must be > 0");
+        return scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                SweepResult r = sweep();
+                if (r.created() > 0 || r.deactivated() > 0) {
+                    System.out.println("[markdowns] created=" + r.created() + " deactivated=" + r.deactivated());
+                }
+            } catch (RuntimeException e) {
+                System.err.println("[markdowns] sweep failed: " + e.getMessage());
+            }
+        }, 0, period.toMillis(), TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,278 @@
+package application.reporting;
+
+import application.events.EventBus;
+import application.events.events.BillPaid;
+
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Which items are bought together: the number of bills containing each item and each pair of items,
+ * updated from the lines of every {@link BillPaid}. Each item keeps its own primitive
+ * {@link LongCountMap} of companions, so looking up one item touches only its neighbours and never
+ * the whole table. Past {@code maxPairs} the index does lossy counting: the floor goes up by one and
+ * every pair whose count plus slack is at most the floor is dropped. A pair first seen while the
+ * floor is {@code f} gets slack {@code f}, which covers whatever was dropped of it before, so a kept
+ * count is low by at most its {@link Association#maxUndercount()}, never more than
+ * {@link Stats#maxUndercount()}. The drop is swept a few items per bill rather than all at once, so
+ * no checkout pays for the whole table; while a sweep runs the index may hold a little more than
+ * {@code maxPairs}. Item counts and the basket total are always exact.
+ */
+public final class BasketIndex {
+
+    /** Bills with more distinct items than this count as baskets but add no pairs (bulk orders). */
+    static final int MAX_BASKET_ITEMS = 64;
+    private static final int BATCH = 2048;
+    /** Companion entries a bill looks at, at most, while a prune sweep is under way. */
+    private static final int SWEEP_STEP = 512;
+
+    /**
+     * How {@code withCode} relates to {@code itemCode}. {@code support} is the share of all baskets
+     * holding both, {@code confidence} the share of baskets with {@code itemCode} that also hold
+     * {@code withCode}, and {@code lift} how much likelier that is than for a random basket (1 =
+     * independent). {@code together} may be short of the truth by up to {@code maxUndercount}.
+     */
+    public record Association(String itemCode, String itemName, String withCode, String withName,
+                              long together, double support, double confidence, double lift,
+                              long maxUndercount) {}
+
+    /** {@code maxUndercount} bounds how low any kept pair count may be; 0 until something is pruned. */
+    public record Stats(long baskets, int items, int pairs, long maxUndercount) {}
+
+    private final int maxPairs;
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> codes = new ArrayList<>();
+    private final List<String> names = new ArrayList<>();
+    private long[] basketsWith = new long[64];
+    // companions per item id, keyed by the other id + 1; each pair is held by both of its items
+    private LongCountMap[] companions = new LongCountMap[64];
+    private int pairs;
+    private long baskets;
+    private long pruneFloor; // pairs whose count plus slack is at most this may have been dropped
+    private int sweepAt = -1; // next item id the running prune sweep visits; -1 when none runs
+
+    public BasketIndex(int maxPairs) {
+        if (maxPairs < 1) throw new IllegalArgumentException("maxPairs must be >= 1");
+        this.maxPairs = maxPairs;
+    }
+
+    public BasketIndex attach(EventBus bus) {
+        bus.subscribe(BillPaid.class, this::onBillPaid);
+        return this;
+    }
+
+    public void onBillPaid(BillPaid e) {
+        if (e == null || e.lines().isEmpty()) return;
+        synchronized (this) {
+            int[] basket = basketOf(e);
+            countItems(basket);
+            if (basket.length <= MAX_BASKET_ITEMS) {
+                for (int i = 0; i < basket.length; i++) {
+                    for (int j = i + 1; j < basket.length; j++) addPair(basket[i], basket[j], 1);
+                }
+            }
+            sweep(SWEEP_STEP);
+        }
+    }
+
+    /**
+     * Replaces the index with the bills paid since {@code since}. The cursor is read on the calling
+     * thread; pairs are counted per batch of bills on {@code pool} and merged as batches finish.
+     * Run it before {@link #attach}.
+     */
+    public long rebuild(PaidBillFeed feed, LocalDate since, Executor pool) {
+        synchronized (this) {
+            ids.clear();
+            codes.clear();
+            names.clear();
+            basketsWith = new long[64];
+            companions = new LongCountMap[64];
+            pairs = 0;
+            baskets = 0;
+            pruneFloor = 0;
+            sweepAt = -1;
+        }
+        int inFlightLimit = Math.max(2, ForkJoinPool.getCommonPoolParallelism() * 2);
+        ArrayDeque<CompletableFuture<Void>> inFlight = new ArrayDeque<>();
+        List<int[]> batch = new ArrayList<>(BATCH);
+        long n = feed.replayPaidBills(since.atStartOfDay(), e -> {
+            if (e.lines().isEmpty()) return;
+            synchronized (this) {
+                int[] basket = basketOf(e);
+                countItems(basket);
+                if (basket.length > 1 && basket.length <= MAX_BASKET_ITEMS) batch.add(basket);
+            }
+            if (batch.size() == BATCH) {
+                List<int[]> full = List.copyOf(batch);
+                batch.clear();
+                inFlight.add(CompletableFuture.runAsync(() -> merge(countPairs(full)), pool));
+                if (inFlight.size() >= inFlightLimit) inFlight.poll().join();
+            }
+        });
+        if (!batch.isEmpty()) merge(countPairs(batch));
+        inFlight.forEach(CompletableFuture::join);
+        return n;
+    }
+
+    public long rebuild(PaidBillFeed feed, LocalDate since) {
+        return rebuild(feed, since, ForkJoinPool.commonPool());
+    }
+
+    /** Items most often bought with {@code itemCode}, by number of shared baskets, then lift. */
+    public synchronized List<Association> companions(String itemCode, int limit) {
+        Integer id = ids.get(itemCode);
+        if (id == null || limit <= 0 || companions[id] == null) return List.of();
+        int x = id;
+        List<Association> out = new ArrayList<>(companions[x].size());
+        companions[x].forEachEntry((other, together, slack) -> out.add(association(x, (int) other - 1, together, slack)));
+        out.sort(Comparator.comparingLong(Association::together).reversed()
+                .thenComparing(Comparator.comparingDouble(Association::lift).reversed())
+                .thenComparing(Association::withCode));
+        return out.size() > limit ? List.copyOf(out.subList(0, limit)) : out;
+    }
+
+    /** Support, confidence and lift of {@code itemCode -> withCode}; empty when either is unknown. */
+    public synchronized Optional<Association> association(String itemCode, String withCode) {
+        Integer a = ids.get(itemCode), b = ids.get(withCode);
+        if (a == null || b == null || a.equals(b)) return Optional.empty();
+        LongCountMap m = companions[a];
+        if (m == null) return Optional.of(association(a, b, 0, pruneFloor));
+        long together = m.get(b + 1);
+        // a pair not held at all may still have been dropped with up to the floor
+        return Optional.of(association(a, b, together, together == 0 ? pruneFloor : m.slack(b + 1)));
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(baskets, codes.size(), pairs, pruneFloor);
+    }
+
+    private Association association(int x, int y, long together, long maxUndercount) {
+        double nx = basketsWith[x], ny = basketsWith[y];
+        double support = baskets == 0 ? 0 : (double) together / baskets;
+        double confidence = nx == 0 ? 0 : together / nx;
+        double lift = ny == 0 || baskets == 0 ? 0 : confidence / (ny / baskets);
+        return new Association(codes.get(x), names.get(x), codes.get(y), names.get(y),
+                together, support, confidence, lift, maxUndercount);
+    }
+
+    // distinct item ids of the bill, ascending; caller holds the lock
+    private int[] basketOf(BillPaid e) {
+        int[] basket = new int[e.lines().size()];
+        int n = 0;
+        for (BillPaid.Line l : e.lines()) basket[n++] = idOf(l.itemCode(), l.itemName());
+        Arrays.sort(basket);
+        int distinct = 0;
+        for (int i = 0; i < n; i++) {
+            if (distinct == 0 || basket[distinct - 1] != basket[i]) basket[distinct++] = basket[i];
+        }
+        return distinct == n ? basket : Arrays.copyOf(basket, distinct);
+    }
+
+    private int idOf(String code, String name) {
+        Integer id = ids.get(code);
+        if (id != null) {
+            if (name != null) names.set(id, name);
+            return id;
+        }
+        int next = codes.size();
+        ids.put(code, next);
+        codes.add(code);
+        names.add(name == null ? code : name);
+        if (next == basketsWith.length) {
+            basketsWith = Arrays.copyOf(basketsWith, next * 2);
+            companions = Arrays.copyOf(companions, next * 2);
+        }
+        return next;
+    }
+
+    private void countItems(int[] basket) {
+        baskets++;
+        for (int id : basket) basketsWith[id]++;
+    }
+
+    private static LongCountMap countPairs(List<int[]> batch) {
+        LongCountMap local = new LongCountMap(batch.size() * 4);
+        for (int[] basket : batch) {
+            for (int i = 0; i < basket.length; i++) {
+                for (int j = i + 1; j < basket.length; j++) local.add(key(basket[i], basket[j]), 1);
+            }
+        }
+        return local;
+    }
+
+    private synchronized void merge(LongCountMap local) {
+        local.forEach((k, together) -> addPair((int) (k >>> 32), (int) k, together));
+        // a backfill is not on anyone's checkout, so it finishes each sweep it starts
+        sweep(Integer.MAX_VALUE);
+    }
+
+    // a pair new to the index takes the current floor as slack: it may have been dropped that often
+    private void addPair(int a, int b, long n) {
+        LongCountMap ma = companions[a];
+        if (ma == null) ma = companions[a] = new LongCountMap(4);
+        int before = ma.size();
+        ma.add(b + 1, n, pruneFloor);
+        if (ma.size() > before) pairs++;
+        LongCountMap mb = companions[b];
+        if (mb == null) mb = companions[b] = new LongCountMap(4);
+        mb.add(a + 1, n, pruneFloor);
+    }
+
+    /**
+     * Advances the prune sweep by about {@code step} companion entries, starting one when the index
+     * is over budget. A finished sweep starts the next straight away while more than three quarters
+     * of the room is used, so pruning stays rare once it has caught up.
+     */
+    private void sweep(int step) {
+        if (sweepAt < 0) {
+            if (pairs <= maxPairs) return;
+            pruneFloor++;
+            sweepAt = 0;
+        }
+        long seen = 0;
+        while (seen < step) {
+            if (sweepAt >= codes.size()) {
+                if (pairs <= maxPairs * 3L / 4) {
+                    sweepAt = -1;
+                    return;
+                }
+                pruneFloor++;
+                sweepAt = 0;
+            }
+            LongCountMap m = companions[sweepAt];
+            if (m != null) {
+                seen += m.size();
+                prune(sweepAt, m);
+            }
+            sweepAt++;
+        }
+    }
+
+    private void prune(int x, LongCountMap m) {
+        long floor = pruneFloor;
+        List<Long> dropped = new ArrayList<>();
+        m.forEachEntry((other, together, slack) -> {
+            if (together + slack <= floor) dropped.add(other);
+        });
+        for (long other : dropped) {
+            m.remove(other);
+            companions[(int) other - 1].remove(x + 1);
+            pairs--;
+        }
+    }
+
+    // smaller id in the high half, so each unordered pair has one key; never 0 as the larger id is >= 1
+    private static long key(int a, int b) {
+        return a < b ? ((long) a << 32) | b : ((long) b << 32) | a;
+    }
+}
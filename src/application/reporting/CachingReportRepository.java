@@ -0,0 +1,340 @@
+package application.reporting;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Report results split by day: closed days (older than today by more than {@code grace}, so
+ * late-stamped bills have landed) are computed once, kept in memory and persisted through a
+ * {@link ReportResultStore}; the open tail of a range is always read from the delegate. Missing
+ * closed days of a range are fetched with one delegate call spanning them, then every day in that
+ * span is remembered, including empty ones. Bill lists grow with trade rather than with days, so
+ * their closed days live in the store only and never in memory; without a store they are not cached.
+ * Stock reports change constantly and pass straight through.
+ */
+public final class CachingReportRepository implements ReportRepository {
+
+    /** Part of every stored report name; bump it when an encoding below changes. */
+    static final String FORMAT = "v1";
+
+    public record Stats(long cachedDays, long loadedDays, long delegateCalls, long storeErrors) {}
+
+    private interface Codec<R> {
+        String encode(R row);
+        R decode(String line);
+    }
+
+    private static final Codec<DailySalesRow> DAILY = new Codec<>() {
+        public String encode(DailySalesRow r) {
+            return join(r.day().toString(), Long.toString(r.bills()), r.revenue(), r.discounts(), Long.toString(r.items()));
+        }
+        public DailySalesRow decode(String line) {
+            String[] f = split(line);
+            return new DailySalesRow(LocalDate.parse(f[0]), Long.parseLong(f[1]), f[2], f[3], Long.parseLong(f[4]));
+        }
+    };
+
+    private static final Codec<RevenueRow> REVENUE = new Codec<>() {
+        public String encode(RevenueRow r) { return join(r.day().toString(), r.revenue()); }
+        public RevenueRow decode(String line) {
+            String[] f = split(line);
+            return new RevenueRow(LocalDate.parse(f[0]), f[1]);
+        }
+    };
+
+    private static final Codec<ItemDayRow> ITEMS = new Codec<>() {
+        public String encode(ItemDayRow r) {
+            return join(r.day().toString(), r.itemCode(), r.name(), Long.toString(r.qtySold()), r.revenue());
+        }
+        public ItemDayRow decode(String line) {
+            String[] f = split(line);
+            return new ItemDayRow(LocalDate.parse(f[0]), f[1], f[2], Long.parseLong(f[3]), f[4]);
+        }
+    };
+
+    private static final Codec<BillRow> BILLS = new Codec<>() {
+        public String encode(BillRow r) {
+            return join(r.billNo(), r.createdAt().toString(), r.userName(), r.channel(), r.paymentMethod(),
+                    r.subtotal(), r.discount(), r.tax(), r.total());
+        }
+        public BillRow decode(String line) {
+            String[] f = split(line);
+            return new BillRow(f[0], LocalDateTime.parse(f[1]), f[2], f[3], f[4], f[5], f[6], f[7], f[8]);
+        }
+    };
+
+    private final ReportRepository delegate;
+    private final ReportResultStore store; // null: memory only
+    private final Duration grace;
+    private final Supplier<LocalDateTime> clock;
+    private final Map<String, List<?>> memory;
+
+    private final LongAdder cachedDays = new LongAdder();
+    private final LongAdder loadedDays = new LongAdder();
+    private final LongAdder delegateCalls = new LongAdder();
+    private final LongAdder storeErrors = new LongAdder();
+
+    public CachingReportRepository(ReportRepository delegate, ReportResultStore store, Duration grace, int maxDaysInMemory) {
+        this(delegate, store, grace, maxDaysInMemory, LocalDateTime::now);
+    }
+
+    CachingReportRepository(ReportRepository delegate, ReportResultStore store, Duration grace, int maxDaysInMemory,
+                            Supplier<LocalDateTime> clock) {
+        if (delegate == null) throw new IllegalArgumentException("delegate is required");
+        if (grace == null || grace.isNegative()) throw new IllegalArgumentException("grace must be >= 0");
+        if (maxDaysInMemory < 1) throw new IllegalArgumentException("maxDaysInMemory must be >= 1");
+        this.delegate = delegate;
+        this.store = store;
+        this.grace = grace;
+        this.clock = clock;
+        this.memory = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, List<?>> eldest) {
+                return size() > maxDaysInMemory;
+            }
+        });
+    }
+
+    /** Latest day whose results can no longer change. */
+    LocalDate lastClosedDay() {
+        return clock.get().minus(grace).toLocalDate().minusDays(1);
+    }
+
+    public Stats stats() {
+        return new Stats(cachedDays.sum(), loadedDays.sum(), delegateCalls.sum(), storeErrors.sum());
+    }
+
+    @Override
+    public DailySalesRow dailySales(LocalDate day) {
+        if (day == null || day.isAfter(lastClosedDay())) return delegate.dailySales(day);
+        return closedDays("dailySales", day, day, DAILY,
+                (from, to) -> List.of(delegate.dailySales(from)), DailySalesRow::day, true).get(day).get(0);
+    }
+
+    @Override
+    public List<RevenueRow> revenueByDay(LocalDate from, LocalDate to) {
+        if (!splittable(from, to)) return delegate.revenueByDay(from, to);
+        LocalDate last = lastClosedDay();
+        List<RevenueRow> out = new ArrayList<>();
+        if (!from.isAfter(last)) {
+            closedDays("revenueByDay", from, min(to, last), REVENUE, delegate::revenueByDay, RevenueRow::day, true)
+                    .values().forEach(out::addAll);
+        }
+        if (to.isAfter(last)) out.addAll(delegate.revenueByDay(max(from, last.plusDays(1)), to));
+        return out;
+    }
+
+    @Override
+    public List<BillRow> billsBetween(LocalDate from, LocalDate to) {
+        if (store == null || !splittable(from, to)) return delegate.billsBetween(from, to);
+        LocalDate last = lastClosedDay();
+        // newest first, like the delegate: the open tail, then closed days in reverse
+        List<BillRow> out = new ArrayList<>();
+        if (to.isAfter(last)) out.addAll(delegate.billsBetween(max(from, last.plusDays(1)), to));
+        if (!from.isAfter(last)) {
+            closedDays("billsBetween", from, min(to, last), BILLS, delegate::billsBetween, r -> r.createdAt().toLocalDate(), false)
+                    .descendingMap().values().forEach(out::addAll);
+        }
+        return out;
+    }
+
+    @Override
+    public List<BestSellerRow> bestSellers(LocalDate from, LocalDate to, int limit) {
+        if (!splittable(from, to)) return delegate.bestSellers(from, to, limit);
+        List<BestSellerRow> sums = sumByItem(itemSalesByDay(from, to));
+        return sums.subList(0, Math.min(Math.max(limit, 0), sums.size()));
+    }
+
+    @Override
+    public List<ItemDayRow> itemSalesByDay(LocalDate from, LocalDate to) {
+        if (!splittable(from, to)) return delegate.itemSalesByDay(from, to);
+        LocalDate last = lastClosedDay();
+        List<ItemDayRow> out = new ArrayList<>();
+        if (!from.isAfter(last)) {
+            closedDays("itemSalesByDay", from, min(to, last), ITEMS, delegate::itemSalesByDay, ItemDayRow::day, true)
+                    .values().forEach(out::addAll);
+        }
+        if (to.isAfter(last)) out.addAll(delegate.itemSalesByDay(max(from, last.plusDays(1)), to));
+        return out;
+    }
+
+    // exports are one-off full scans; caching them would only copy the range into memory
+    @Override
+    public long streamBills(LocalDate from, LocalDate to, Consumer<BillRow> sink) {
+        return delegate.streamBills(from, to, sink);
+    }
+
+    @Override
+    public List<ReshelvingRow> reshelvingSuggestions(int shelfTarget) {
+        return delegate.reshelvingSuggestions(shelfTarget);
+    }
+
+    @Override
+    public List<ReorderRow> reorderBelow(int threshold) {
+        return delegate.reorderBelow(threshold);
+    }
+
+    @Override
+    public List<StockBatchRow> stockByBatch(String itemCodeOrNull) {
+        return delegate.stockByBatch(itemCodeOrNull);
+    }
+
+    @Override
+    public List<RestockRow> restockAtOrBelowLevel() {
+        return delegate.restockAtOrBelowLevel();
+    }
+
+    // same ordering as the SQL report: quantity, then revenue, descending
+    private static List<BestSellerRow> sumByItem(List<ItemDayRow> rows) {
+        Map<String, BestSellerRow> byItem = new HashMap<>();
+        for (ItemDayRow r : rows) {
+            byItem.merge(r.itemCode(), new BestSellerRow(r.itemCode(), r.name(), r.qtySold(), r.revenue()),
+                    (a, b) -> new BestSellerRow(a.itemCode(), a.name(), a.qtySold() + b.qtySold(),
+                            new BigDecimal(a.revenue()).add(new BigDecimal(b.revenue())).toPlainString()));
+        }
+        List<BestSellerRow> out = new ArrayList<>(byItem.values());
+        out.sort(Comparator.comparingLong(BestSellerRow::qtySold)
+                .thenComparing(r -> new BigDecimal(r.revenue()))
+                .reversed()
+                .thenComparing(BestSellerRow::itemCode));
+        return out;
+    }
+
+    private <R> TreeMap<LocalDate, List<R>> closedDays(String report, LocalDate from, LocalDate to, Codec<R> codec,
+                                                       BiFunction<LocalDate, LocalDate, List<R>> load,
+                                                       Function<R, LocalDate> dayOf, boolean inMemory) {
+        String name = report + "." + FORMAT;
+        TreeMap<LocalDate, List<R>> out = new TreeMap<>();
+        LocalDate firstMissing = null, lastMissing = null;
+        for (LocalDate d = from; !d.isAfter(to); d = d.plusDays(1)) {
+            List<R> rows = cached(name, d, codec, inMemory);
+            if (rows != null) {
+                cachedDays.increment();
+                out.put(d, rows);
+            } else {
+                if (firstMissing == null) firstMissing = d;
+                lastMissing = d;
+            }
+        }
+        if (firstMissing == null) return out;
+
+        delegateCalls.increment();
+        Map<LocalDate, List<R>> loaded = new HashMap<>();
+        for (R row : load.apply(firstMissing, lastMissing)) {
+            loaded.computeIfAbsent(dayOf.apply(row), k -> new ArrayList<>()).add(row);
+        }
+        for (LocalDate d = firstMissing; !d.isAfter(lastMissing); d = d.plusDays(1)) {
+            if (out.containsKey(d)) continue;
+            List<R> rows = List.copyOf(loaded.getOrDefault(d, List.of()));
+            remember(name, d, rows, codec, inMemory);
+            loadedDays.increment();
+            out.put(d, rows);
+        }
+        return out;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <R> List<R> cached(String name, LocalDate day, Codec<R> codec, boolean inMemory) {
+        String key = name + "|" + day;
+        List<?> hit = inMemory ? memory.get(key) : null;
+        if (hit != null) return (List<R>) hit;
+        if (store == null) return null;
+        try {
+            Optional<List<String>> lines = store.load(name, day);
+            if (lines.isEmpty()) return null;
+            List<R> rows = new ArrayList<>(lines.get().size());
+            for (String line : lines.get()) rows.add(codec.decode(line));
+            rows = List.copyOf(rows);
+            if (inMemory) memory.put(key, rows);
+            return rows;
+        } catch (RuntimeException e) {
+            // unreadable entry: recompute it and overwrite
+            storeErrors.increment();
+            return null;
+        }
+    }
+
+    private <R> void remember(String name, LocalDate day, List<R> rows, Codec<R> codec, boolean inMemory) {
+        if (inMemory) memory.put(name + "|" + day, rows);
+        if (store == null) return;
+        try {
+            List<String> lines = new ArrayList<>(rows.size());
+            for (R r : rows) lines.add(codec.encode(r));
+            store.save(name, day, lines);
+        } catch (RuntimeException e) {
+            storeErrors.increment();
+            System.err.println("Warning: could not persist " + name + " for " + day + ": " + e.getMessage());
+        }
+    }
+
+    private static boolean splittable(LocalDate from, LocalDate to) {
+        return from != null && to != null && !from.isAfter(to);
+    }
+
+    private static LocalDate min(LocalDate a, LocalDate b) { return a.isBefore(b) ? a : b; }
+    private static LocalDate max(LocalDate a, LocalDate b) { return a.isAfter(b) ? a : b; }
+
+    // Tab-separated fields; backslash escapes tab, newline, CR and itself, "\N" is null
+    static String join(String... fields) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) sb.append('\t');
+            String f = fields[i];
+            if (f == null) { sb.append("\\N"); continue; }
+            for (int j = 0; j < f.length(); j++) {
+                char c = f.charAt(j);
+                switch (c) {
+                    case '\\' -> sb.append("\\\\");
+                    case '\t' -> sb.append("\\t");
+                    case '\n' -> sb.append("\\n");
+                    case '\r' -> sb.append("\\r");
+                    default -> sb.append(c);
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    static String[] split(String line) {
+        List<String> out = new ArrayList<>();
+        StringBuilder cur = new StringBuilder();
+        boolean isNull = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '\t') {
+                out.add(isNull ? null : cur.toString());
+                cur.setLength(0);
+                isNull = false;
+            } else if (c == '\\' && i + 1 < line.length()) {
+                char n = line.charAt(++i);
+                switch (n) {
+                    case 't' -> cur.append('\t');
+                    case 'n' -> cur.append('\n');
+                    case 'r' -> cur.append('\r');
+                    case 'N' -> isNull = true;
+                    default -> cur.append(n);
+                }
+            } else {
+                cur.append(c);
+            }
+        }
+        out.add(isNull ? null : cur.toString());
+        return out.toArray(new String[0]);
+    }
+}
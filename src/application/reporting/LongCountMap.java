@@ -0,0 +1,160 @@
+package application.reporting;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing map from non-zero {@code long} keys to {@code long} counts, about 24 bytes per
+ * entry instead of the ~80 of a boxed {@code HashMap<Long, Long>}. Key 0 marks an empty slot.
+ * Each entry also carries a slack, fixed when the entry is created: how much the count may be
+ * short of the truth because earlier occurrences were dropped (0 unless the caller says so).
+ * Not thread-safe.
+ */
+final class LongCountMap {
+
+    interface EntryConsumer {
+        void accept(long key, long count);
+    }
+
+    interface SlackEntryConsumer {
+        void accept(long key, long count, long slack);
+    }
+
+    private long[] keys;
+    private long[] counts;
+    private long[] slacks;
+    private int size;
+
+    LongCountMap() {
+        this(16);
+    }
+
+    LongCountMap(int expected) {
+        int cap = Integer.highestOneBit(Math.max(4, expected * 2 - 1)) << 1;
+        keys = new long[cap];
+        counts = new long[cap];
+        slacks = new long[cap];
+    }
+
+    int size() {
+        return size;
+    }
+
+    long get(long key) {
+        int i = slot(keys, key);
+        return keys[i] == key ? counts[i] : 0;
+    }
+
+    long slack(long key) {
+        int i = slot(keys, key);
+        return keys[i] == key ? slacks[i] : 0;
+    }
+
+    void add(long key, long delta) {
+        add(key, delta, 0);
+    }
+
+    /** Adds {@code delta}; a new entry starts with {@code slackIfNew}, an existing one keeps its own. */
+    void add(long key, long delta, long slackIfNew) {
+        if (key == 0) throw new IllegalArgumentException("key 0 is reserved");
+        int i = slot(keys, key);
+        if (keys[i] == 0) {
+            keys[i] = key;
+            slacks[i] = slackIfNew;
+            size++;
+        }
+        counts[i] += delta;
+        if (size * 4 >= keys.length * 3) resize(keys.length * 2);
+    }
+
+    /** Removes {@code key}; returns whether it was there. */
+    boolean remove(long key) {
+        int mask = keys.length - 1;
+        int i = slot(keys, key);
+        if (keys[i] != key) return false;
+        // backward-shift deletion: pull later entries of the probe run into the hole
+        int hole = i;
+        for (int j = (i + 1) & mask; keys[j] != 0; j = (j + 1) & mask) {
+            int home = home(keys[j], mask);
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                keys[hole] = keys[j];
+                counts[hole] = counts[j];
+                slacks[hole] = slacks[j];
+                hole = j;
+            }
+        }
+        keys[hole] = 0;
+        counts[hole] = 0;
+        slacks[hole] = 0;
+        size--;
+        return true;
+    }
+
+    void forEach(EntryConsumer action) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) action.accept(keys[i], counts[i]);
+        }
+    }
+
+    void forEachEntry(SlackEntryConsumer action) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) action.accept(keys[i], counts[i], slacks[i]);
+        }
+    }
+
+    void addAll(LongCountMap other) {
+        other.forEach(this::add);
+    }
+
+    /** Drops every entry whose count plus slack is {@code floor} or less; returns how many were dropped. */
+    int removeAtMost(long floor) {
+        long[] oldKeys = keys, oldCounts = counts, oldSlacks = slacks;
+        int before = size;
+        keys = new long[oldKeys.length];
+        counts = new long[oldKeys.length];
+        slacks = new long[oldKeys.length];
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0 && oldCounts[i] + oldSlacks[i] > floor) put(oldKeys[i], oldCounts[i], oldSlacks[i]);
+        }
+        return before - size;
+    }
+
+    void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(counts, 0);
+        Arrays.fill(slacks, 0);
+        size = 0;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys, oldCounts = counts, oldSlacks = slacks;
+        keys = new long[capacity];
+        counts = new long[capacity];
+        slacks = new long[capacity];
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) put(oldKeys[i], oldCounts[i], oldSlacks[i]);
+        }
+    }
+
+    private void put(long key, long count, long slack) {
+        int i = slot(keys, key);
+        keys[i] = key;
+        counts[i] = count;
+        slacks[i] = slack;
+        size++;
+    }
+
+    private static int home(long key, int mask) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    // linear probing from a mixed hash; the table is never full
+    private static int slot(long[] keys, long key) {
+        int mask = keys.length - 1;
+        int i = home(key, mask);
+        while (keys[i] != 0 && keys[i] != key) i = (i + 1) & mask;
+        return i;
+    }
+}
@@ -0,0 +1,13 @@
+package application.reporting;
+
+import application.events.events.BillPaid;
+
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
+
+/** Replays stored bills as {@link BillPaid} events, oldest first, so live aggregates can be rebuilt. */
+public interface PaidBillFeed {
+
+    /** Streams every bill created at or after {@code since}; returns how many were replayed. */
+    long replayPaidBills(LocalDateTime since, Consumer<BillPaid> sink);
+}
@@ -0,0 +1,11 @@
+package application.reporting;
+
+import java.nio.file.Path;
+
+/** Opens streaming report printers on files, e.g. for the accounting export of bills. */
+public interface ReportExports {
+
+    enum Format { CSV, JSONL }
+
+    StreamingReportPrinter open(Path file, Format format, boolean gzip);
+}
@@ -31,4 +31,27 @@ public interface ReportPrinter {
     void printReorder(List<ReorderRow> rows, int threshold);
     void printStock(List<StockBatchRow> rows, String itemCodeOrNull);
     void printBills(List<BillRow> rows, LocalDate from, LocalDate to);
+
+    /** One row per scope ("All", "POS", "cashier alice", ...) of the live sales aggregates. */
+    record LiveSalesRow(String scope, long bills, String revenue, String averageBasket, long itemsSold) {}
+    void printLiveSales(String window, List<LiveSalesRow> rows);
+
+    /**
+     * Approximate live ranking: {@code qty} may be high by up to {@code maxOvercount}, and
+     * {@code errorBound} caps the overcount of every row of the period.
+     */
+    record TopSellerRow(String itemCode, String itemName, long qty, long maxOvercount, String revenue) {}
+    void printTopSellers(String period, LocalDate from, long errorBound, List<TopSellerRow> rows);
+
+    /** Grouped sums of sold lines from an ad-hoc query. */
+    record BreakdownRow(String key, String label, long lines, long qty, String revenue) {}
+    void printBreakdown(String title, List<BreakdownRow> rows);
+
+    /** An item bought together with the reported one; ratios as fractions, lift 1 = independent. */
+    record CompanionRow(String itemCode, String itemName, long together, double support, double confidence, double lift,
+                        long maxUndercount) {}
+    void printCompanions(String itemCode, String itemName, List<CompanionRow> rows);
+
+    /** A section of a composite report that could not be produced (failed or timed out). */
+    void printUnavailable(String section, String reason);
 }
@@ -1,7 +1,9 @@
 package application.reporting;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface ReportRepository {
 
@@ -17,10 +19,32 @@ public interface ReportRepository {
 
     List<BillRow> billsBetween(LocalDate from, LocalDate to);
 
+    /**
+     * Hands the rows of {@link #billsBetween} to {@code sink} one at a time and returns how many there
+     * were. Implementations backed by a cursor should not collect the range first.
+     */
+    default long streamBills(LocalDate from, LocalDate to, Consumer<BillRow> sink) {
+        List<BillRow> rows = billsBetween(from, to);
+        rows.forEach(sink);
+        return rows.size();
+    }
+
     List<RestockRow> restockAtOrBelowLevel();
 
+    /** Quantity and revenue per item and day; the day-by-day form of {@link #bestSellers}. */
+    default List<ItemDayRow> itemSalesByDay(LocalDate from, LocalDate to) {
+        List<ItemDayRow> out = new ArrayList<>();
+        for (LocalDate d = from; !d.isAfter(to); d = d.plusDays(1)) {
+            for (BestSellerRow r : bestSellers(d, d, Integer.MAX_VALUE)) {
+                out.add(new ItemDayRow(d, r.itemCode(), r.name(), r.qtySold(), r.revenue()));
+            }
+        }
+        return out;
+    }
+
     record DailySalesRow(LocalDate day, long bills, String revenue, String discounts, long items) {}
     record BestSellerRow(String itemCode, String name, long qtySold, String revenue) {}
+    record ItemDayRow(LocalDate day, String itemCode, String name, long qtySold, String revenue) {}
     record RevenueRow(LocalDate day, String revenue) {}
     record RestockRow(String itemCode, String itemName, int shelfQty, int storeQty, int mainQty, int restockLevel) {}
 
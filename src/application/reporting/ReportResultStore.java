@@ -0,0 +1,16 @@
+package application.reporting;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Durable home for report results of closed days, one encoded line per row. Closed days never
+ * change, so entries are written once and never expire.
+ */
+public interface ReportResultStore {
+
+    Optional<List<String>> load(String report, LocalDate day);
+
+    void save(String report, LocalDate day, List<String> lines);
+}
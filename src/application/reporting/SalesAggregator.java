@@ -0,0 +1,228 @@
+package application.reporting;
+
+import application.events.EventBus;
+import application.events.events.BillPaid;
+import domain.common.Money;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Live sales totals fed by {@link BillPaid}: bills, revenue, discounts and items sold per minute,
+ * hour and day, overall, per channel and, for till sales, per cashier. Online bills carry the
+ * customer's name as user, so they get no cashier scope and the scopes stay one per till user.
+ * Each scope keeps one fixed ring of buckets per window; a bucket is a set of {@link LongAdder}s
+ * (money in cents), so concurrent tills never contend on one counter and a lookup is a single
+ * array read. A slot whose bucket has rolled past
+ * is swapped for a fresh one with CAS. Buckets follow the wall clock bills are stamped with, so a
+ * {@link #rebuild} from the bills table lands every bill where the live event did.
+ */
+public final class SalesAggregator {
+
+    public enum Window {
+        MINUTE(60), HOUR(3600), DAY(86400);
+
+        final long seconds;
+
+        Window(long seconds) { this.seconds = seconds; }
+    }
+
+    public record Totals(long bills, Money revenue, Money discounts, long itemsSold) {
+        public static final Totals EMPTY = new Totals(0, Money.ZERO, Money.ZERO, 0);
+
+        public Money averageBasket() {
+            return bills == 0 ? Money.ZERO : new Money(revenue.asBigDecimal().divide(
+                    BigDecimal.valueOf(bills), 2, java.math.RoundingMode.HALF_UP));
+        }
+    }
+
+    private static final String ALL = "*";
+    private static final String CHANNEL = "channel:";
+    private static final String CASHIER = "cashier:";
+
+    private final int minuteSlots, hourSlots, daySlots;
+    private final Supplier<LocalDateTime> clock;
+    private final ConcurrentHashMap<String, Scope> scopes = new ConcurrentHashMap<>();
+
+    /** Two hours of minutes, two days of hours and five weeks of days. */
+    public SalesAggregator() {
+        this(120, 48, 35, LocalDateTime::now);
+    }
+
+    SalesAggregator(int minuteSlots, int hourSlots, int daySlots, Supplier<LocalDateTime> clock) {
+        if (minuteSlots < 1 || hourSlots < 1 || daySlots < 1) throw new IllegalArgumentException("ring sizes must be >= 1");
+        this.minuteSlots = minuteSlots;
+        this.hourSlots = hourSlots;
+        this.daySlots = daySlots;
+        this.clock = clock;
+    }
+
+    public SalesAggregator attach(EventBus bus) {
+        bus.subscribe(BillPaid.class, this::onBillPaid);
+        return this;
+    }
+
+    public void onBillPaid(BillPaid e) {
+        if (e == null || e.total() == null) return;
+        LocalDateTime at = e.paidAt() == null ? clock.get() : e.paidAt();
+        long second = at.toEpochSecond(ZoneOffset.UTC);
+        long revenue = cents(e.total());
+        long discount = cents(e.discount());
+        long items = e.itemsSold();
+        add(ALL, second, revenue, discount, items);
+        if (e.channel() != null) add(CHANNEL + e.channel(), second, revenue, discount, items);
+        if (e.user() != null && "POS".equalsIgnoreCase(e.channel())) add(CASHIER + e.user(), second, revenue, discount, items);
+    }
+
+    /**
+     * Drops everything and replays the bills still covered by the day ring. Run it before
+     * {@link #attach} so no live event is counted twice.
+     */
+    public long rebuild(PaidBillFeed feed) {
+        scopes.clear();
+        LocalDateTime since = clock.get().toLocalDate().minusDays(daySlots - 1L).atStartOfDay();
+        return feed.replayPaidBills(since, this::onBillPaid);
+    }
+
+    /** Totals of the bucket that is current now, e.g. today for {@link Window#DAY}. */
+    public Totals current(Window w) {
+        return total(w, clock.get());
+    }
+
+    public Totals total(Window w, LocalDateTime at) {
+        return read(ALL, w, at);
+    }
+
+    public Totals byChannel(String channel, Window w, LocalDateTime at) {
+        return read(CHANNEL + channel, w, at);
+    }
+
+    public Totals byCashier(String user, Window w, LocalDateTime at) {
+        return read(CASHIER + user, w, at);
+    }
+
+    /** Sum of the last {@code buckets} buckets up to and including the current one. */
+    public Totals last(Window w, int buckets) {
+        Scope s = scopes.get(ALL);
+        if (s == null || buckets < 1) return Totals.EMPTY;
+        Ring ring = s.ring(w);
+        long now = bucketOf(clock.get(), w);
+        long bills = 0, revenue = 0, discounts = 0, items = 0;
+        for (long b = now - Math.min(buckets, ring.slots.length()) + 1; b <= now; b++) {
+            Slot slot = ring.peek(b);
+            if (slot == null) continue;
+            bills += slot.bills.sum();
+            revenue += slot.revenue.sum();
+            discounts += slot.discounts.sum();
+            items += slot.items.sum();
+        }
+        return totals(bills, revenue, discounts, items);
+    }
+
+    public Map<String, Totals> channels(Window w, LocalDateTime at) {
+        return breakdown(CHANNEL, w, at);
+    }
+
+    public Map<String, Totals> cashiers(Window w, LocalDateTime at) {
+        return breakdown(CASHIER, w, at);
+    }
+
+    private Map<String, Totals> breakdown(String prefix, Window w, LocalDateTime at) {
+        Map<String, Totals> out = new TreeMap<>();
+        for (String key : scopes.keySet()) {
+            if (!key.startsWith(prefix)) continue;
+            Totals t = read(key, w, at);
+            if (t.bills() > 0) out.put(key.substring(prefix.length()), t);
+        }
+        return out;
+    }
+
+    private void add(String key, long second, long revenue, long discount, long items) {
+        Scope s = scopes.computeIfAbsent(key, k -> new Scope(minuteSlots, hourSlots, daySlots));
+        for (Window w : Window.values()) {
+            Slot slot = s.ring(w).slotFor(Math.floorDiv(second, w.seconds));
+            if (slot == null) continue; // older than the ring keeps
+            slot.bills.increment();
+            slot.revenue.add(revenue);
+            slot.discounts.add(discount);
+            slot.items.add(items);
+        }
+    }
+
+    private Totals read(String key, Window w, LocalDateTime at) {
+        Scope s = scopes.get(key);
+        Slot slot = s == null ? null : s.ring(w).peek(bucketOf(at, w));
+        return slot == null ? Totals.EMPTY
+                : totals(slot.bills.sum(), slot.revenue.sum(), slot.discounts.sum(), slot.items.sum());
+    }
+
+    private static long bucketOf(LocalDateTime t, Window w) {
+        return Math.floorDiv(t.toEpochSecond(ZoneOffset.UTC), w.seconds);
+    }
+
+    private static long cents(Money m) {
+        return m == null ? 0 : m.asBigDecimal().movePointRight(2).longValue();
+    }
+
+    private static Totals totals(long bills, long revenue, long discounts, long items) {
+        return new Totals(bills, new Money(BigDecimal.valueOf(revenue, 2)), new Money(BigDecimal.valueOf(discounts, 2)), items);
+    }
+
+    private static final class Scope {
+        final Ring minutes, hours, days;
+
+        Scope(int minuteSlots, int hourSlots, int daySlots) {
+            minutes = new Ring(minuteSlots);
+            hours = new Ring(hourSlots);
+            days = new Ring(daySlots);
+        }
+
+        Ring ring(Window w) {
+            return switch (w) {
+                case MINUTE -> minutes;
+                case HOUR -> hours;
+                case DAY -> days;
+            };
+        }
+    }
+
+    private static final class Slot {
+        final long bucket;
+        final LongAdder bills = new LongAdder();
+        final LongAdder revenue = new LongAdder();
+        final LongAdder discounts = new LongAdder();
+        final LongAdder items = new LongAdder();
+
+        Slot(long bucket) { this.bucket = bucket; }
+    }
+
+    private static final class Ring {
+        final AtomicReferenceArray<Slot> slots;
+
+        Ring(int size) { slots = new AtomicReferenceArray<>(size); }
+
+        /** Slot for writing {@code bucket}, or null when a newer bucket already owns its position. */
+        Slot slotFor(long bucket) {
+            int i = (int) Math.floorMod(bucket, (long) slots.length());
+            while (true) {
+                Slot cur = slots.get(i);
+                if (cur != null && cur.bucket == bucket) return cur;
+                if (cur != null && cur.bucket > bucket) return null;
+                Slot fresh = new Slot(bucket);
+                if (slots.compareAndSet(i, cur, fresh)) return fresh;
+            }
+        }
+
+        Slot peek(long bucket) {
+            Slot cur = slots.get((int) Math.floorMod(bucket, (long) slots.length()));
+            return cur != null && cur.bucket == bucket ? cur : null;
+        }
+    }
+}
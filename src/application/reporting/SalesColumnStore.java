@@ -0,0 +1,289 @@
+package application.reporting;
+
+import application.events.EventBus;
+import application.events.events.BillPaid;
+import domain.common.Money;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Sold lines held column by column in fixed-size chunks of primitive arrays: epoch day, item,
+ * channel and cashier (dictionary-encoded ints), quantity and line total in cents. Lines are appended
+ * from {@link BillPaid}; a query scans all chunks in parallel, skipping chunks whose day range misses
+ * the filter, and merges per-chunk partial sums. Appends are serialised; a chunk publishes its row
+ * count after the values are written, so scans never see half-written rows and never block tills.
+ * <p>
+ * With a retention of N days, each time a chunk fills up the chunks holding only lines older than
+ * N days are dropped, and {@link #covers} stops claiming those days.
+ */
+public final class SalesColumnStore {
+
+    public enum GroupBy { NONE, DAY, MONTH, ITEM, CHANNEL, CASHIER }
+
+    /** Null filters match everything; {@code from}/{@code to} are inclusive. */
+    public record Query(LocalDate from, LocalDate to, String itemCode, String channel, String cashier, GroupBy groupBy) {
+        public Query {
+            groupBy = groupBy == null ? GroupBy.NONE : groupBy;
+        }
+    }
+
+    /** {@code label} is the item name for {@link GroupBy#ITEM}, otherwise the key again. */
+    public record Group(String key, String label, long lines, long qty, Money revenue) {}
+
+    static final int DEFAULT_CHUNK_ROWS = 1 << 16;
+
+    private final int chunkRows;
+    private final int retentionDays; // 0: keep everything
+    private final Supplier<LocalDate> clock;
+    private final Dictionary items = new Dictionary();
+    private final Dictionary channels = new Dictionary();
+    private final Dictionary cashiers = new Dictionary();
+    private final Map<Integer, String> itemNames = new ConcurrentHashMap<>();
+
+    private volatile Chunk[] chunks = new Chunk[0];
+    private volatile LocalDate loadedSince; // null: holds only what was appended live
+    private volatile LocalDate prunedBefore; // null: nothing dropped since the last rebuild
+
+    public SalesColumnStore() {
+        this(DEFAULT_CHUNK_ROWS);
+    }
+
+    /** Keeps the last {@code days} days of lines (counting today); 0 keeps everything. */
+    public static SalesColumnStore keepingDays(int days) {
+        return new SalesColumnStore(DEFAULT_CHUNK_ROWS, days, LocalDate::now);
+    }
+
+    SalesColumnStore(int chunkRows) {
+        this(chunkRows, 0, LocalDate::now);
+    }
+
+    SalesColumnStore(int chunkRows, int retentionDays, Supplier<LocalDate> clock) {
+        if (chunkRows < 1) throw new IllegalArgumentException("chunkRows must be >= 1");
+        if (retentionDays < 0) throw new IllegalArgumentException("retentionDays must be >= 0");
+        this.chunkRows = chunkRows;
+        this.retentionDays = retentionDays;
+        this.clock = clock;
+    }
+
+    public SalesColumnStore attach(EventBus bus) {
+        bus.subscribe(BillPaid.class, this::onBillPaid);
+        return this;
+    }
+
+    public void onBillPaid(BillPaid e) {
+        if (e == null || e.lines().isEmpty()) return;
+        int day = (int) (e.paidAt() == null ? LocalDate.now() : e.paidAt().toLocalDate()).toEpochDay();
+        int channel = channels.idOf(e.channel());
+        int cashier = cashiers.idOf(e.user());
+        synchronized (this) {
+            for (BillPaid.Line l : e.lines()) {
+                if (l.itemCode() == null) continue;
+                int item = items.idOf(l.itemCode());
+                if (l.itemName() != null) itemNames.put(item, l.itemName());
+                long cents = l.lineTotal() == null ? 0 : l.lineTotal().asBigDecimal().movePointRight(2).longValue();
+                writable().append(day, item, channel, cashier, l.qty(), cents);
+            }
+        }
+    }
+
+    /** Replaces the contents with every bill since {@code since}. Run it before {@link #attach}. */
+    public long rebuild(PaidBillFeed feed, LocalDate since) {
+        synchronized (this) {
+            chunks = new Chunk[0];
+            prunedBefore = null;
+        }
+        long n = feed.replayPaidBills(since.atStartOfDay(), this::onBillPaid);
+        loadedSince = since;
+        return n;
+    }
+
+    /** True when every sale in {@code from..} is held here, so the query needs no database. */
+    public boolean covers(LocalDate from) {
+        LocalDate since = loadedSince;
+        LocalDate pruned = prunedBefore;
+        if (since != null && pruned != null && pruned.isAfter(since)) since = pruned;
+        return since != null && from != null && !from.isBefore(since);
+    }
+
+    public long rows() {
+        long n = 0;
+        for (Chunk c : chunks) n += c.size;
+        return n;
+    }
+
+    public List<Group> query(Query q) {
+        int fromDay = q.from() == null ? Integer.MIN_VALUE : (int) q.from().toEpochDay();
+        int toDay = q.to() == null ? Integer.MAX_VALUE : (int) q.to().toEpochDay();
+        // an unknown code/channel/cashier cannot match any row
+        int item = q.itemCode() == null ? -1 : items.find(q.itemCode());
+        int channel = q.channel() == null ? -1 : channels.find(q.channel());
+        int cashier = q.cashier() == null ? -1 : cashiers.find(q.cashier());
+        if (item == -2 || channel == -2 || cashier == -2) return List.of();
+
+        Chunk[] snapshot = chunks;
+        Map<Integer, long[]> merged = IntStream.range(0, snapshot.length).parallel()
+                .mapToObj(i -> snapshot[i].scan(fromDay, toDay, item, channel, cashier, q.groupBy()))
+                .collect(HashMap::new, SalesColumnStore::mergeInto, SalesColumnStore::mergeInto);
+
+        List<Group> out = new ArrayList<>(merged.size());
+        for (Map.Entry<Integer, long[]> e : merged.entrySet()) {
+            String key = keyOf(q.groupBy(), e.getKey());
+            String label = q.groupBy() == GroupBy.ITEM ? itemNames.getOrDefault(e.getKey(), key) : key;
+            long[] s = e.getValue();
+            out.add(new Group(key, label, s[0], s[1], new Money(BigDecimal.valueOf(s[2], 2))));
+        }
+        out.sort(Comparator.comparing(Group::key));
+        return out;
+    }
+
+    /** Exact best sellers for {@code from..to}: quantity, then revenue, descending. */
+    public List<Group> bestSellers(LocalDate from, LocalDate to, int limit) {
+        return query(new Query(from, to, null, null, null, GroupBy.ITEM)).stream()
+                .sorted(Comparator.comparingLong(Group::qty).thenComparing(Group::revenue).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    // partial sums are per-scan arrays, so adding into them in place is safe
+    private static void mergeInto(Map<Integer, long[]> into, Map<Integer, long[]> from) {
+        for (Map.Entry<Integer, long[]> e : from.entrySet()) {
+            into.merge(e.getKey(), e.getValue(), (x, y) -> {
+                x[0] += y[0];
+                x[1] += y[1];
+                x[2] += y[2];
+                return x;
+            });
+        }
+    }
+
+    private String keyOf(GroupBy g, int id) {
+        return switch (g) {
+            case NONE -> "all";
+            case DAY -> LocalDate.ofEpochDay(id).toString();
+            case MONTH -> YearMonth.of(id / 12, id % 12 + 1).toString();
+            case ITEM -> items.valueOf(id);
+            case CHANNEL -> channels.valueOf(id);
+            case CASHIER -> cashiers.valueOf(id);
+        };
+    }
+
+    // caller holds the lock
+    private Chunk writable() {
+        Chunk[] cur = chunks;
+        if (cur.length > 0 && cur[cur.length - 1].size < chunkRows) return cur[cur.length - 1];
+        // the last chunk is sealed: start a new one and drop sealed chunks that are past retention
+        Chunk fresh = new Chunk(chunkRows);
+        Chunk[] kept = expire(cur);
+        Chunk[] next = Arrays.copyOf(kept, kept.length + 1);
+        next[kept.length] = fresh;
+        chunks = next;
+        return fresh;
+    }
+
+    // Only whole chunks go; lines older than the cutoff in a chunk still kept are harmless
+    private Chunk[] expire(Chunk[] cur) {
+        if (retentionDays == 0) return cur;
+        LocalDate cutoff = clock.get().minusDays(retentionDays);
+        int cutoffDay = (int) cutoff.toEpochDay();
+        Chunk[] kept = Arrays.stream(cur).filter(c -> c.maxDay >= cutoffDay).toArray(Chunk[]::new);
+        if (kept.length < cur.length) prunedBefore = cutoff;
+        return kept;
+    }
+
+    private static final class Chunk {
+        final int[] day, item, channel, cashier, qty;
+        final long[] cents;
+        volatile int size;
+        int minDay = Integer.MAX_VALUE, maxDay = Integer.MIN_VALUE;
+
+        Chunk(int rows) {
+            day = new int[rows];
+            item = new int[rows];
+            channel = new int[rows];
+            cashier = new int[rows];
+            qty = new int[rows];
+            cents = new long[rows];
+        }
+
+        void append(int d, int it, int ch, int ca, int q, long c) {
+            int i = size;
+            day[i] = d; item[i] = it; channel[i] = ch; cashier[i] = ca; qty[i] = q; cents[i] = c;
+            if (d < minDay) minDay = d;
+            if (d > maxDay) maxDay = d;
+            size = i + 1; // publish
+        }
+
+        Map<Integer, long[]> scan(int fromDay, int toDay, int itemId, int channelId, int cashierId, GroupBy g) {
+            int n = size;
+            Map<Integer, long[]> sums = new HashMap<>();
+            // min/max are written before the publishing size store, so they cover rows [0, n)
+            if (n == 0 || maxDay < fromDay || minDay > toDay) return sums;
+            for (int i = 0; i < n; i++) {
+                int d = day[i];
+                if (d < fromDay || d > toDay) continue;
+                if (itemId >= 0 && item[i] != itemId) continue;
+                if (channelId >= 0 && channel[i] != channelId) continue;
+                if (cashierId >= 0 && cashier[i] != cashierId) continue;
+                int key = switch (g) {
+                    case NONE -> 0;
+                    case DAY -> d;
+                    case MONTH -> {
+                        LocalDate date = LocalDate.ofEpochDay(d);
+                        yield date.getYear() * 12 + date.getMonthValue() - 1;
+                    }
+                    case ITEM -> item[i];
+                    case CHANNEL -> channel[i];
+                    case CASHIER -> cashier[i];
+                };
+                long[] s = sums.computeIfAbsent(key, k -> new long[3]);
+                s[0]++;
+                s[1] += qty[i];
+                s[2] += cents[i];
+            }
+            return sums;
+        }
+    }
+
+    /** String to dense int id; ids are never reused. Null gets its own id and reads back as "-". */
+    private static final class Dictionary {
+        private static final String NULL = "\u0000";
+        private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int idOf(String value) {
+            String v = value == null ? NULL : value;
+            Integer id = ids.get(v);
+            if (id != null) return id;
+            synchronized (values) {
+                return ids.computeIfAbsent(v, k -> {
+                    values.add(k);
+                    return values.size() - 1;
+                });
+            }
+        }
+
+        /** Id, or -2 when the value was never seen. */
+        int find(String value) {
+            Integer id = ids.get(value);
+            return id == null ? -2 : id;
+        }
+
+        String valueOf(int id) {
+            synchronized (values) {
+                String v = values.get(id);
+                return NULL.equals(v) ? "-" : v;
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package application.reporting;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Weighted Space-Saving summary over at most {@code capacity} item codes. When a new code arrives
+ * and the summary is full, the smallest counter is taken over: the newcomer starts at that count
+ * and records it as its {@code error}. Each reported count overestimates the true quantity by at
+ * most its error, and every code sold more than {@code total / capacity} times is guaranteed to be
+ * present. Not thread-safe; {@link TopSellersTracker} guards each instance.
+ */
+final class SpaceSavingSketch {
+
+    /** {@code revenue} only covers sales seen while the code was tracked, so it never overestimates. */
+    record Entry(String itemCode, String itemName, long count, long error, BigDecimal revenue) {
+        long guaranteed() { return count - error; }
+    }
+
+    private static final class Counter {
+        final String itemCode;
+        String itemName;
+        long count, error;
+        BigDecimal revenue = BigDecimal.ZERO;
+
+        Counter(String itemCode) { this.itemCode = itemCode; }
+    }
+
+    private static final Comparator<Counter> BY_COUNT =
+            Comparator.<Counter>comparingLong(c -> c.count).thenComparing(c -> c.itemCode);
+
+    private final int capacity;
+    private final Map<String, Counter> counters = new HashMap<>();
+    private final TreeSet<Counter> byCount = new TreeSet<>(BY_COUNT);
+    private long total;
+
+    SpaceSavingSketch(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be >= 1");
+        this.capacity = capacity;
+    }
+
+    void add(String itemCode, String itemName, long qty, BigDecimal lineTotal) {
+        if (itemCode == null || qty <= 0) return;
+        total += qty;
+        Counter c = counters.get(itemCode);
+        if (c == null) {
+            if (counters.size() < capacity) {
+                c = new Counter(itemCode);
+            } else {
+                Counter min = byCount.pollFirst();
+                counters.remove(min.itemCode);
+                c = new Counter(itemCode);
+                c.count = min.count;
+                c.error = min.count;
+            }
+            counters.put(itemCode, c);
+        } else {
+            byCount.remove(c);
+        }
+        c.count += qty;
+        if (itemName != null) c.itemName = itemName;
+        if (lineTotal != null) c.revenue = c.revenue.add(lineTotal);
+        byCount.add(c);
+    }
+
+    /** Highest counts first; at most {@code limit} entries. */
+    List<Entry> top(int limit) {
+        List<Entry> out = new ArrayList<>(Math.min(limit, counters.size()));
+        for (Counter c : byCount.descendingSet()) {
+            if (out.size() >= limit) break;
+            out.add(new Entry(c.itemCode, c.itemName, c.count, c.error, c.revenue));
+        }
+        return out;
+    }
+
+    /** Quantity of every add so far; any count may be off by at most {@code total / capacity}. */
+    long total() {
+        return total;
+    }
+
+    int capacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,28 @@
+package application.reporting;
+
+import java.time.LocalDate;
+import java.util.function.Consumer;
+
+/**
+ * A {@link ReportPrinter} that writes to a file or stream instead of the console. Besides the list
+ * based reports it accepts bill rows one at a time, so an export can be written while the rows are
+ * still being read from the database cursor.
+ */
+public interface StreamingReportPrinter extends ReportPrinter, AutoCloseable {
+
+    /** {@code bytes} counts what reached the underlying stream, i.e. after compression. */
+    record ExportStats(long rows, long bytes, long elapsedMillis) {
+        public long rowsPerSecond() {
+            return elapsedMillis == 0 ? rows * 1000 : rows * 1000 / elapsedMillis;
+        }
+    }
+
+    /** Starts a bills section; every accepted row is written immediately. */
+    Consumer<BillRow> beginBills(LocalDate from, LocalDate to);
+
+    ExportStats stats();
+
+    /** Flushes and closes the underlying stream. */
+    @Override
+    void close();
+}
@@ -0,0 +1,135 @@
+package application.reporting;
+
+import application.events.EventBus;
+import application.events.events.BillPaid;
+import domain.common.Money;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Best sellers of the current day, week (Monday start) and month, kept as {@link SpaceSavingSketch}es
+ * updated from every sold line on {@link BillPaid}. A period's sketch starts over when the first sale
+ * of the next period arrives. Reads cost O(capacity) regardless of how many lines were sold, so the
+ * open periods never hit {@code bill_lines}; closed ranges stay on the exact SQL report.
+ */
+public final class TopSellersTracker {
+
+    public enum Period {
+        DAY, WEEK, MONTH;
+
+        public LocalDate startOf(LocalDate day) {
+            return switch (this) {
+                case DAY -> day;
+                case WEEK -> day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                case MONTH -> day.withDayOfMonth(1);
+            };
+        }
+    }
+
+    /** {@code qty} may overcount by up to {@code maxOvercount}; {@code qty - maxOvercount} is certain. */
+    public record TopSeller(String itemCode, String itemName, long qty, long maxOvercount, Money revenue) {}
+
+    /** {@code errorBound} caps the overcount of any entry: units sold in the period / capacity. */
+    public record Snapshot(Period period, LocalDate from, long unitsSold, long errorBound, List<TopSeller> top) {}
+
+    private static final class Window {
+        LocalDate start;
+        SpaceSavingSketch sketch;
+    }
+
+    private final int capacity;
+    private final Supplier<LocalDate> clock;
+    private final Map<Period, Window> windows = new EnumMap<>(Period.class);
+
+    public TopSellersTracker(int capacity) {
+        this(capacity, LocalDate::now);
+    }
+
+    TopSellersTracker(int capacity, Supplier<LocalDate> clock) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be >= 1");
+        this.capacity = capacity;
+        this.clock = clock;
+        for (Period p : Period.values()) {
+            Window w = new Window();
+            w.start = p.startOf(clock.get());
+            w.sketch = new SpaceSavingSketch(capacity);
+            windows.put(p, w);
+        }
+    }
+
+    public TopSellersTracker attach(EventBus bus) {
+        bus.subscribe(BillPaid.class, this::onBillPaid);
+        return this;
+    }
+
+    public void onBillPaid(BillPaid e) {
+        if (e == null || e.lines().isEmpty()) return;
+        LocalDate day = e.paidAt() == null ? clock.get() : e.paidAt().toLocalDate();
+        for (Period p : Period.values()) {
+            LocalDate start = p.startOf(day);
+            Window w = windows.get(p);
+            synchronized (w) {
+                if (start.isBefore(w.start)) continue; // late event for a period already closed
+                if (start.isAfter(w.start)) {
+                    w.start = start;
+                    w.sketch = new SpaceSavingSketch(capacity);
+                }
+                for (BillPaid.Line l : e.lines()) {
+                    w.sketch.add(l.itemCode(), l.itemName(), l.qty(),
+                            l.lineTotal() == null ? null : l.lineTotal().asBigDecimal());
+                }
+            }
+        }
+    }
+
+    /** Replays the open week and month (whichever starts earlier). Run it before {@link #attach}. */
+    public long rebuild(PaidBillFeed feed) {
+        LocalDate today = clock.get();
+        for (Period p : Period.values()) {
+            Window w = windows.get(p);
+            synchronized (w) {
+                w.start = p.startOf(today);
+                w.sketch = new SpaceSavingSketch(capacity);
+            }
+        }
+        LocalDate week = Period.WEEK.startOf(today), month = Period.MONTH.startOf(today);
+        LocalDate since = week.isBefore(month) ? week : month;
+        return feed.replayPaidBills(since.atStartOfDay(), this::onBillPaid);
+    }
+
+    public Snapshot top(Period period, int limit) {
+        LocalDate current = period.startOf(clock.get());
+        Window w = windows.get(period);
+        List<SpaceSavingSketch.Entry> entries;
+        long units;
+        synchronized (w) {
+            if (!w.start.equals(current)) return new Snapshot(period, current, 0, 0, List.of());
+            entries = w.sketch.top(limit);
+            units = w.sketch.total();
+        }
+        List<TopSeller> top = entries.stream()
+                .map(en -> new TopSeller(en.itemCode(), en.itemName(), en.count(), en.error(), new Money(en.revenue())))
+                .toList();
+        return new Snapshot(period, current, units, units / capacity, top);
+    }
+
+    /**
+     * The open period that {@code from..to} covers exactly (starting at the period start and
+     * running through today), or empty when the range needs the SQL report.
+     */
+    public Optional<Snapshot> covering(LocalDate from, LocalDate to, int limit) {
+        LocalDate today = clock.get();
+        if (from == null || to == null || to.isBefore(today) || limit > capacity) return Optional.empty();
+        for (Period p : Period.values()) {
+            if (from.equals(p.startOf(today))) return Optional.of(top(p, limit));
+        }
+        return Optional.empty();
+    }
+}
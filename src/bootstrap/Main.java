@@ -1,55 +1,102 @@
 package bootstrap;
 
+import application.inventory.BulkReplenishmentService;
 import application.inventory.FefoBatchSelector;
 import application.inventory.InventoryAdminService;
+import application.inventory.ItemSearchIndex;
 import ports.in.InventoryService;
+import application.inventory.ReplenishmentPlanner;
 import application.inventory.RestockService;
+import application.inventory.SimpleThresholdReorderPolicy;
+import application.inventory.StockLedgerService;
+import application.reporting.BasketIndex;
+import application.reporting.CachingReportRepository;
 import application.reporting.ReportPrinter;
 import application.reporting.ReportRepository;
+import application.reporting.SalesAggregator;
+import application.reporting.SalesColumnStore;
+import application.reporting.TopSellersTracker;
 import ports.in.ReportingService;
 import ports.in.AuthService;
 import application.auth.CustomerAuthService;
+import application.auth.LoginRateLimiter;
+import application.auth.SessionStore;
+import application.online.CartService;
+import application.online.OrderCommitter;
+import application.online.StorefrontService;
+import application.pos.controllers.CheckoutService;
+import application.pos.controllers.InventoryManager;
 import application.pos.controllers.POSController;
 import application.pricing.PricingService;
+import application.pricing.MarkdownSweeper;
+import application.events.CoalescingEventBus;
 import application.events.EventBus;
 import application.events.SimpleEventBus;
 import application.events.events.BillPaid;
 import application.events.events.RestockThresholdHit;
 import application.events.events.StockDepleted;
 import domain.billing.BillNumberGenerator;
+import domain.pricing.MarkdownRule;
 import infrastructure.console.ConsoleReportPrinter;
+import infrastructure.files.FileCartSnapshotStore;
+import infrastructure.files.FileReportExports;
+import infrastructure.files.FileReportResultStore;
 import infrastructure.files.TxtBillWriter;
+import infrastructure.jdbc.Db;
 import infrastructure.jdbc.JdbcBillNumberGenerator;
 import infrastructure.jdbc.JdbcInventoryRepository;
+import infrastructure.jdbc.JdbcMarkdownRepository;
 import infrastructure.jdbc.JdbcReportRepository;
+import infrastructure.jdbc.JdbcStockLedgerRepository;
 import infrastructure.jdbc.JdbcCustomerRepository;
 import infrastructure.jdbc.JdbcUserRepository;
+import infrastructure.jdbc.StockBucketRebalancer;
 import infrastructure.security.PermissionCheckedInventoryRepository; // <-- Proxy
+import infrastructure.security.PermissionCheckedStockTransferRepository;
+import infrastructure.search.IndexedInventoryRepository;
 import infrastructure.jdbc.JdbcBillRepository;
+import infrastructure.web.StorefrontHttpServer;
 import ports.out.BillRepository;
 import ports.out.CustomerRepository;
-import ports.out.UserRepository;
 import ports.out.InventoryRepository;
 import java.nio.file.Path;
 
 public class Main {
     public static void main(String[] args) {
 
-        UserRepository userRepo = new JdbcUserRepository();
-        AuthService auth = new AuthService(userRepo);
+        var userRepo = new JdbcUserRepository();
+        // one query per login; the session keeps the role's permission bits for every guarded call
+        AuthService auth = new AuthService(userRepo,
+                new SessionStore<>(java.time.Duration.ofMinutes(Db.intSetting("auth.session.idleMinutes", 480))));
 
-        InventoryRepository rawInvRepo = new JdbcInventoryRepository();
+        // Item search is served from an in-memory n-gram index loaded here at startup
+        var searchIndex = new ItemSearchIndex();
+        // Optional striped stock for hot items (stock.stripes = bucket count, 0 = off)
+        int stripes = Db.intSetting("stock.stripes", 0);
+        // FEFO batch lists are cached per item (versioned, bumped on every stock change); 0 = off
+        var jdbcInvRepo = new JdbcInventoryRepository(stripes > 1, Db.intSetting("stock.batchCache.maxAgeMillis", 5000));
+        if (stripes > 1) {
+            var hotItems = java.util.Arrays.stream(Db.setting("stock.stripes.items", "").split(","))
+                    .map(String::trim).filter(s -> !s.isEmpty()).toList();
+            new StockBucketRebalancer(jdbcInvRepo, hotItems, stripes)
+                    .start(Db.intSetting("stock.stripes.rebalanceSeconds", 30));
+        }
+        InventoryRepository rawInvRepo = new IndexedInventoryRepository(jdbcInvRepo, searchIndex);
         InventoryRepository invRepo = new PermissionCheckedInventoryRepository(rawInvRepo, auth);
 
         var selector  = new FefoBatchSelector();
-        var inventory = new InventoryService(invRepo, selector);
+        var inventory = new InventoryService(invRepo, selector, searchIndex);
 
         var pricing   = new PricingService(0.0, inventory); // tax % configurable, now with inventory service
         BillRepository billRepo      = new JdbcBillRepository();
         BillNumberGenerator billNos  = new JdbcBillNumberGenerator();
         var writer    = new TxtBillWriter(Path.of("bills"));
 
-        EventBus bus = new SimpleEventBus();
+        // Restock alerts are coalesced per item: one per window unless the level drops a band, runs out,
+        // or was seen back above the threshold since
+        EventBus bus = new CoalescingEventBus(new SimpleEventBus(),
+                java.time.Duration.ofSeconds(Db.intSetting("events.restock.windowSeconds", 900)),
+                Db.intSetting("events.restock.bands", 5));
 
         bus.subscribe(BillPaid.class, e ->
                 System.out.println("[EVENT] BillPaid " + e.billNo() + " total=" + e.total() + " by " + e.user() + " via " + e.channel()));
@@ -60,16 +107,175 @@ public class Main {
 
         var restock   = new RestockService(invRepo);
         var admin     = new InventoryAdminService(invRepo);
+        var bulkRestock = new BulkReplenishmentService(
+                new PermissionCheckedStockTransferRepository(jdbcInvRepo, auth),
+                BulkReplenishmentService.DEFAULT_CHUNK_SIZE,
+                jdbcInvRepo,
+                new ReplenishmentPlanner(new SimpleThresholdReorderPolicy()));
 
         // Update POSController to include InventoryAdminService for batch discount functionality
-        var pos       = new POSController(inventory, admin, pricing, billNos, billRepo, writer, bus);
+        var pos       = new POSController(inventory, admin, pricing, billNos, billRepo, writer, bus, jdbcInvRepo, jdbcInvRepo);
+
+        // Stock ledger: pre-ledger batches get an OPENING entry, then balances are snapshotted periodically
+        var stockLedger = new StockLedgerService(new JdbcStockLedgerRepository(stripes > 1));
+        var ledgerScheduler = java.util.concurrent.Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "stock-ledger-snapshots");
+            t.setDaemon(true);
+            return t;
+        });
+        stockLedger.scheduleSnapshots(ledgerScheduler,
+                java.time.Duration.ofMinutes(Db.intSetting("stock.ledger.snapshotMinutes", 15)));
+
+        // Near-expiry markdowns: tiered rules "days:percent" swept in the background
+        var markdownRules = MarkdownRule.parse(Db.setting("markdown.rules", "3:30,1:50"));
+        int markdownMinutes = Db.intSetting("markdown.sweepMinutes", 60);
+        if (!markdownRules.isEmpty() && markdownMinutes > 0) {
+            var markdownScheduler = java.util.concurrent.Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "markdown-sweeper");
+                t.setDaemon(true);
+                return t;
+            });
+            new MarkdownSweeper(new JdbcMarkdownRepository(stripes > 1), markdownRules)
+                    .schedule(markdownScheduler, java.time.Duration.ofMinutes(markdownMinutes));
+        }
 
-        ReportRepository reportRepo = new JdbcReportRepository();
+        // Summary queries that outlive this are given up on by the report and cancelled by the server
+        var reportQueryTimeout = java.time.Duration.ofSeconds(Db.intSetting("reports.fanout.timeoutSeconds", 10));
+        var jdbcReportRepo = new JdbcReportRepository(stripes > 1, reportQueryTimeout);
+        // Results for closed days are computed once and kept on disk; only today's part is re-queried
+        String reportCacheDir = Db.setting("reports.cache.dir", "report-cache");
+        ReportRepository reportRepo = reportCacheDir.isBlank() ? jdbcReportRepo
+                : new CachingReportRepository(jdbcReportRepo, new FileReportResultStore(Path.of(reportCacheDir)),
+                        java.time.Duration.ofMinutes(Db.intSetting("reports.cache.graceMinutes", 60)),
+                        Db.intSetting("reports.cache.maxDaysInMemory", 2000));
         ReportPrinter printer       = new ConsoleReportPrinter();
-        var reports   = new ReportingService(reportRepo, printer);
+
+        // Live sales aggregates: rebuilt from recent bills first, then kept current from BillPaid
+        SalesAggregator liveSales = null;
+        if (Boolean.parseBoolean(Db.setting("reports.liveSales", "true"))) {
+            liveSales = new SalesAggregator();
+            try {
+                long replayed = liveSales.rebuild(jdbcReportRepo);
+                System.out.println("Live sales rebuilt from " + replayed + " bills");
+            } catch (RuntimeException e) {
+                System.err.println("Live sales rebuild failed, starting empty: " + e.getMessage());
+            }
+            liveSales.attach(bus);
+        }
+        // Top sellers of the open day/week/month from a Space-Saving sketch; closed ranges use SQL
+        TopSellersTracker topSellers = null;
+        int topCapacity = Db.intSetting("reports.topSellers.capacity", 200);
+        if (topCapacity > 0) {
+            topSellers = new TopSellersTracker(topCapacity);
+            try {
+                topSellers.rebuild(jdbcReportRepo);
+            } catch (RuntimeException e) {
+                System.err.println("Top sellers rebuild failed, starting empty: " + e.getMessage());
+            }
+            topSellers.attach(bus);
+        }
+        // Columnar copy of the last N days of sold lines for ad-hoc queries (~30 bytes per line); older chunks age out
+        SalesColumnStore salesLines = null;
+        int columnDays = Db.intSetting("reports.columnStore.days", 365);
+        if (columnDays > 0) {
+            salesLines = SalesColumnStore.keepingDays(columnDays);
+            try {
+                salesLines.rebuild(jdbcReportRepo, java.time.LocalDate.now().minusDays(columnDays));
+                System.out.println("Sales line store loaded " + salesLines.rows() + " lines");
+            } catch (RuntimeException e) {
+                System.err.println("Sales line store load failed, starting empty: " + e.getMessage());
+            }
+            salesLines.attach(bus);
+        }
+        // Item pair counts for "bought together" reports, backfilled from recent bills in parallel batches
+        BasketIndex baskets = null;
+        int basketDays = Db.intSetting("reports.baskets.days", 90);
+        if (basketDays > 0) {
+            baskets = new BasketIndex(Math.max(1, Db.intSetting("reports.baskets.maxPairs", 500_000)));
+            try {
+                baskets.rebuild(jdbcReportRepo, java.time.LocalDate.now().minusDays(basketDays));
+                System.out.println("Basket index loaded " + baskets.stats().baskets() + " bills");
+            } catch (RuntimeException e) {
+                System.err.println("Basket index load failed, starting empty: " + e.getMessage());
+            }
+            baskets.attach(bus);
+        }
+        // Composite reports run their queries side by side; threads bounded to spare the connection pool
+        int fanOutThreads = Math.max(1, Db.intSetting("reports.fanout.threads", 4));
+        var reportFanOut = new java.util.concurrent.ThreadPoolExecutor(fanOutThreads, fanOutThreads,
+                0, java.util.concurrent.TimeUnit.MILLISECONDS, new java.util.concurrent.ArrayBlockingQueue<>(32),
+                Thread.ofPlatform().daemon().name("report-fanout-", 0).factory());
+        var reports   = new ReportingService(reportRepo, printer, liveSales, topSellers, salesLines, reportFanOut,
+                reportQueryTimeout, baskets);
 
         CustomerRepository custRepo = new JdbcCustomerRepository();
-        var customerAuth            = new CustomerAuthService(custRepo);
+        // Online logins: per-account and per-source token buckets in front of the lookup and hash
+        var loginLimiter = new LoginRateLimiter(
+                new LoginRateLimiter.Limit(Db.intSetting("auth.rateLimit.account.burst", 5),
+                        java.time.Duration.ofSeconds(Db.intSetting("auth.rateLimit.account.refillSeconds", 12))),
+                new LoginRateLimiter.Limit(Db.intSetting("auth.rateLimit.source.burst", 20),
+                        java.time.Duration.ofSeconds(Db.intSetting("auth.rateLimit.source.refillSeconds", 1))),
+                Db.intSetting("auth.rateLimit.maxKeys", 100_000));
+        var customerAuth            = new CustomerAuthService(custRepo,
+                new SessionStore<>(java.time.Duration.ofMinutes(Db.intSetting("auth.customerSession.idleMinutes", 30))),
+                loginLimiter);
+
+        // Online storefront over HTTP (web.port, 0 = off): WEB channel orders, one virtual thread per request
+        StorefrontHttpServer web = null;
+        CartService webCarts = null;
+        OrderCommitter webOrders = null;
+        int webPort = Db.intSetting("web.port", 0);
+        if (webPort > 0) {
+            // Carts per customer, bounded by count and idle time; optionally snapshotted to disk in the background
+            String cartDir = Db.setting("web.carts.snapshotDir", "");
+            var carts = new CartService(Db.intSetting("web.carts.max", 100_000),
+                    java.time.Duration.ofMinutes(Db.intSetting("web.carts.idleMinutes", 120)),
+                    cartDir.isBlank() ? null : new FileCartSnapshotStore(Path.of(cartDir)));
+            try {
+                System.out.println("Restored " + carts.restore() + " open carts");
+            } catch (RuntimeException e) {
+                System.err.println("Cart restore failed, starting empty: " + e.getMessage());
+            }
+            var cartScheduler = java.util.concurrent.Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "cart-housekeeping");
+                t.setDaemon(true);
+                return t;
+            });
+            int flushSeconds = Math.max(1, Db.intSetting("web.carts.flushSeconds", 5));
+            cartScheduler.scheduleWithFixedDelay(() -> {
+                try {
+                    carts.expireIdle();
+                    carts.flush();
+                } catch (RuntimeException e) {
+                    System.err.println("Cart housekeeping failed: " + e.getMessage());
+                }
+            }, flushSeconds, flushSeconds, java.util.concurrent.TimeUnit.SECONDS);
+            webCarts = carts;
+
+            // Group commit: orders arriving within web.groupCommit.windowMillis share one transaction
+            // (0 = one transaction per order; striped stock always commits orders one by one)
+            int groupWindow = Db.intSetting("web.groupCommit.windowMillis", 3);
+            if (groupWindow > 0 && jdbcInvRepo.supportsGroupCommit()) {
+                webOrders = new OrderCommitter(jdbcInvRepo, java.time.Duration.ofMillis(groupWindow),
+                        Db.intSetting("web.groupCommit.maxOrders", 200),
+                        Db.intSetting("web.groupCommit.maxQueued", 5000));
+            }
+
+            var webStock = new InventoryManager(inventory, admin, jdbcInvRepo, jdbcInvRepo);
+            var storefront = new StorefrontService(inventory, webStock, pricing,
+                    new CheckoutService(billRepo, writer, bus, webStock),
+                    new JdbcBillNumberGenerator(StorefrontService.CHANNEL, true), carts, webOrders);
+            try {
+                web = new StorefrontHttpServer(storefront, customerAuth,
+                        new java.net.InetSocketAddress(Db.setting("web.host", "127.0.0.1"), webPort),
+                        Db.intSetting("web.maxInFlight", 64),
+                        java.time.Duration.ofMillis(Db.intSetting("web.queueWaitMillis", 2000)));
+                web.start();
+                System.out.println("Storefront API on http://" + Db.setting("web.host", "127.0.0.1") + ":" + webPort + "/api/");
+            } catch (java.io.IOException e) {
+                System.err.println("Storefront API not started: " + e.getMessage());
+            }
+        }
 
         var console = new presentation.cli.POSConsole(
                 pos,
@@ -78,7 +284,10 @@ public class Main {
                 auth,
                 customerAuth,
                 admin,
-                inventory
+                inventory,
+                bulkRestock,
+                new FileReportExports(),
+                jdbcInvRepo
         );
 
         java.util.Scanner sc = new java.util.Scanner(System.in);
@@ -93,5 +302,14 @@ public class Main {
         } else {
             console.run();
         }
+        if (web != null) web.stop(java.time.Duration.ofSeconds(2));
+        if (webOrders != null) webOrders.close();
+        if (webCarts != null) {
+            try {
+                webCarts.flush();
+            } catch (RuntimeException e) {
+                System.err.println("Final cart snapshot failed: " + e.getMessage());
+            }
+        }
     }
 }
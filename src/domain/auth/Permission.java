@@ -0,0 +1,25 @@
+package domain.auth;
+
+import java.util.Locale;
+
+/** Guarded staff actions; a role's grants are a bitset over these, one bit per constant. */
+public enum Permission {
+    MOVE_FROM_MAIN,
+    MANAGE_DISCOUNTS;
+
+    public long bit() {
+        return 1L << ordinal();
+    }
+
+    public static final long NONE = 0L;
+    public static final long ALL = (1L << values().length) - 1;
+
+    /** ADMIN and INVENTORY_MANAGER may do everything; any other role (CASHIER, ...) nothing guarded. */
+    public static long grantedTo(String role) {
+        if (role == null) return NONE;
+        return switch (role.toUpperCase(Locale.ROOT)) {
+            case "ADMIN", "INVENTORY_MANAGER" -> ALL;
+            default -> NONE;
+        };
+    }
+}
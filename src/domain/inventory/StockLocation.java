@@ -0,0 +1,8 @@
+package domain.inventory;
+
+/** Where a batch quantity sits: MAIN warehouse, STORE backroom or the SHELF. */
+public enum StockLocation {
+    MAIN,
+    STORE,
+    SHELF
+}
@@ -0,0 +1,20 @@
+package domain.inventory;
+
+/**
+ * A FEFO transfer request for one item between two stock locations.
+ * Only the routes the repository supports are allowed: MAIN->STORE, MAIN->SHELF, STORE->SHELF.
+ */
+public record StockMove(String itemCode, int qty, StockLocation from, StockLocation to) {
+    public StockMove {
+        if (itemCode == null || itemCode.isBlank()) throw new IllegalArgumentException("itemCode is required");
+        if (qty <= 0) throw new IllegalArgumentException("qty must be > 0");
+        if (from == null || to == null) throw new IllegalArgumentException("from/to are required");
+        boolean supported = (from == StockLocation.MAIN && to != StockLocation.MAIN)
+                || (from == StockLocation.STORE && to == StockLocation.SHELF);
+        if (!supported) throw new IllegalArgumentException("Unsupported move " + from + " -> " + to);
+    }
+
+    public static StockMove mainToStore(String itemCode, int qty) { return new StockMove(itemCode, qty, StockLocation.MAIN, StockLocation.STORE); }
+    public static StockMove mainToShelf(String itemCode, int qty) { return new StockMove(itemCode, qty, StockLocation.MAIN, StockLocation.SHELF); }
+    public static StockMove storeToShelf(String itemCode, int qty) { return new StockMove(itemCode, qty, StockLocation.STORE, StockLocation.SHELF); }
+}
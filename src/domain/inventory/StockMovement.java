@@ -0,0 +1,29 @@
+package domain.inventory;
+
+import java.time.LocalDateTime;
+
+/**
+ * One immutable entry of the stock ledger: the signed change a single event made to one batch.
+ * Summing a batch's movements (from a snapshot onwards) gives its MAIN/STORE/SHELF balance.
+ */
+public record StockMovement(long id, long batchId, String itemCode, Type type,
+                            int deltaMain, int deltaStore, int deltaShelf,
+                            String actor, LocalDateTime recordedAt) {
+
+    public enum Type {
+        OPENING,     // balance of a batch that existed before the ledger
+        RECEIPT,     // new batch
+        SALE,        // committed reservation
+        TRANSFER,    // MAIN/STORE/SHELF move, net zero per batch
+        ADJUSTMENT   // manual edit or batch delete
+    }
+
+    public StockMovement {
+        if (itemCode == null || itemCode.isBlank()) throw new IllegalArgumentException("itemCode is required");
+        if (type == null) throw new IllegalArgumentException("type is required");
+    }
+
+    public int netChange() {
+        return deltaMain + deltaStore + deltaShelf;
+    }
+}
@@ -0,0 +1,33 @@
+package domain.pricing;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/** Near-expiry markdown tier: a batch expiring within {@code daysBeforeExpiry} days gets {@code percentOff}. */
+public record MarkdownRule(int daysBeforeExpiry, int percentOff) {
+
+    public MarkdownRule {
+        if (daysBeforeExpiry < 0) throw new IllegalArgumentException("daysBeforeExpiry must be >= 0");
+        if (percentOff <= 0 || percentOff > 100) throw new IllegalArgumentException("percentOff must be 1..100");
+    }
+
+    /** Parses {@code "3:30,1:50"} (days:percent pairs) into rules ordered widest window first. */
+    public static List<MarkdownRule> parse(String spec) {
+        List<MarkdownRule> rules = new ArrayList<>();
+        if (spec == null || spec.isBlank()) return rules;
+        for (String part : spec.split(",")) {
+            String p = part.trim();
+            if (p.isEmpty()) continue;
+            String[] kv = p.split(":");
+            if (kv.length != 2) throw new IllegalArgumentException("Invalid markdown rule: " + p);
+            try {
+                rules.add(new MarkdownRule(Integer.parseInt(kv[0].trim()), Integer.parseInt(kv[1].trim())));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid markdown rule: " + p, e);
+            }
+        }
+        rules.sort(Comparator.comparingInt(MarkdownRule::daysBeforeExpiry).reversed());
+        return rules;
+    }
+}
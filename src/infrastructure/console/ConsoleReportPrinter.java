@@ -97,4 +97,57 @@ public final class ConsoleReportPrinter implements ReportPrinter {
         System.out.println();
     }
 
+
+    @Override
+    public void printLiveSales(String window, List<LiveSalesRow> rows) {
+        System.out.println("=== Live Sales: " + window + " ===");
+        System.out.printf("%-24s %8s %12s %12s %8s%n", "Scope", "Bills", "Revenue", "Avg basket", "Items");
+        for (LiveSalesRow r : rows) {
+            System.out.printf("%-24s %8d %12s %12s %8d%n",
+                    r.scope(), r.bills(), r.revenue(), r.averageBasket(), r.itemsSold());
+        }
+        System.out.println();
+    }
+
+    @Override
+    public void printTopSellers(String period, LocalDate from, long errorBound, List<TopSellerRow> rows) {
+        System.out.println("=== Top Sellers this " + period + " (since " + from + ", approximate) ===");
+        System.out.printf("%-10s %-24s %8s %9s %12s%n", "Code", "Name", "Qty", "Overcount", "Revenue");
+        for (TopSellerRow r : rows) {
+            System.out.printf("%-10s %-24s %8d %9s %12s%n",
+                    r.itemCode(), r.itemName(), r.qty(), "<= " + r.maxOvercount(), r.revenue());
+        }
+        System.out.println("Counts may be high by at most " + errorBound + " units.");
+        System.out.println();
+    }
+
+    @Override
+    public void printBreakdown(String title, List<BreakdownRow> rows) {
+        System.out.println("=== " + title + " ===");
+        System.out.printf("%-12s %-24s %8s %8s %12s%n", "Key", "Label", "Lines", "Qty", "Revenue");
+        for (BreakdownRow r : rows) {
+            System.out.printf("%-12s %-24s %8d %8d %12s%n", r.key(), r.label(), r.lines(), r.qty(), r.revenue());
+        }
+        System.out.println();
+    }
+
+    @Override
+    public void printCompanions(String itemCode, String itemName, List<CompanionRow> rows) {
+        System.out.println("=== Bought with " + itemCode + " (" + itemName + ") ===");
+        System.out.printf("%-12s %-24s %8s %9s %11s %6s%n", "Item", "Name", "Baskets", "Support", "Confidence", "Lift");
+        for (CompanionRow r : rows) {
+            System.out.printf("%-12s %-24s %8d %8.2f%% %10.1f%% %6.2f%n", r.itemCode(), r.itemName(), r.together(),
+                    r.support() * 100, r.confidence() * 100, r.lift());
+        }
+        long missed = rows.stream().mapToLong(CompanionRow::maxUndercount).max().orElse(0);
+        if (missed > 0) System.out.println("Basket counts may be low by at most " + missed + ".");
+        System.out.println();
+    }
+
+    @Override
+    public void printUnavailable(String section, String reason) {
+        System.out.println("=== " + section + " ===");
+        System.out.println("Unavailable: " + reason);
+        System.out.println();
+    }
 }
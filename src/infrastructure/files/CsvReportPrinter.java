@@ -0,0 +1,60 @@
+package infrastructure.files;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
+/**
+ * RFC 4180 CSV: a header row per report, a blank line between reports, CRLF line endings. Fields
+ * containing a comma, quote or line break are quoted; nulls are empty fields.
+ */
+public final class CsvReportPrinter extends ExportReportPrinter {
+    private boolean first = true;
+
+    public CsvReportPrinter(OutputStream target) {
+        this(target, false);
+    }
+
+    public CsvReportPrinter(OutputStream target, boolean gzip) {
+        super(target, gzip);
+    }
+
+    @Override
+    protected void writeHeader(Writer out, String report, String[] columns) throws IOException {
+        if (!first) out.write("\r\n");
+        first = false;
+        writeRecord(out, columns);
+    }
+
+    @Override
+    protected void writeRow(Writer out, String report, String[] columns, Object[] values) throws IOException {
+        writeRecord(out, values);
+    }
+
+    private static void writeRecord(Writer out, Object[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) out.write(',');
+            if (values[i] != null) writeField(out, values[i].toString());
+        }
+        out.write("\r\n");
+    }
+
+    static void writeField(Writer out, String s) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < s.length() && !quote; i++) {
+            char ch = s.charAt(i);
+            quote = ch == ',' || ch == '"' || ch == '\n' || ch == '\r';
+        }
+        if (!quote) {
+            out.write(s);
+            return;
+        }
+        out.write('"');
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            if (ch == '"') out.write('"');
+            out.write(ch);
+        }
+        out.write('"');
+    }
+}
@@ -0,0 +1,196 @@
+package infrastructure.files;
+
+import application.reporting.StreamingReportPrinter;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Base of the file export printers: every report becomes a section of rows written straight to a
+ * buffered writer, so nothing but the current row is held in memory. Subclasses only decide how a
+ * section header and a row are encoded.
+ */
+public abstract class ExportReportPrinter implements StreamingReportPrinter {
+
+    static final int BUFFER_BYTES = 1 << 16;
+
+    private static final String[] BILL_COLUMNS = {
+            "billNo", "createdAt", "userName", "channel", "paymentMethod", "subtotal", "discount", "tax", "total"};
+
+    private final CountingOutputStream counted;
+    private final Writer out;
+    private final long startedAt = System.nanoTime();
+    private long rows;
+    private boolean closed;
+
+    /** With {@code gzip} the rows are compressed on the way out; byte counts are taken after compression. */
+    protected ExportReportPrinter(OutputStream target, boolean gzip) {
+        this.counted = new CountingOutputStream(target);
+        try {
+            OutputStream encoded = gzip ? new GZIPOutputStream(counted, BUFFER_BYTES) : counted;
+            this.out = new BufferedWriter(new OutputStreamWriter(encoded, StandardCharsets.UTF_8), BUFFER_BYTES);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Called once per report before its rows; {@code columns} name the values of every row. */
+    protected abstract void writeHeader(Writer out, String report, String[] columns) throws IOException;
+
+    protected abstract void writeRow(Writer out, String report, String[] columns, Object[] values) throws IOException;
+
+    private void section(String report, String[] columns) {
+        try {
+            writeHeader(out, report, columns);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void row(String report, String[] columns, Object... values) {
+        try {
+            writeRow(out, report, columns, values);
+            rows++;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public Consumer<BillRow> beginBills(LocalDate from, LocalDate to) {
+        section("bills", BILL_COLUMNS);
+        return r -> row("bills", BILL_COLUMNS, r.billNo(), r.createdAt(), r.userName(), r.channel(),
+                r.paymentMethod(), r.subtotal(), r.discount(), r.tax(), r.total());
+    }
+
+    @Override
+    public void printBills(List<BillRow> rows, LocalDate from, LocalDate to) {
+        rows.forEach(beginBills(from, to));
+    }
+
+    @Override
+    public void printDailySales(DailySales s) {
+        String[] cols = {"day", "bills", "revenue", "discounts", "itemsSold"};
+        section("dailySales", cols);
+        row("dailySales", cols, s.day(), s.bills(), s.revenue(), s.discounts(), s.itemsSold());
+    }
+
+    @Override
+    public void printBestSellers(LocalDate from, LocalDate to, List<BestSeller> list) {
+        String[] cols = {"itemCode", "itemName", "qtySold", "revenue"};
+        section("bestSellers", cols);
+        for (BestSeller b : list) row("bestSellers", cols, b.itemCode(), b.itemName(), b.qtySold(), b.revenue());
+    }
+
+    @Override
+    public void printRevenueSeries(LocalDate from, LocalDate to, List<RevenuePoint> series) {
+        String[] cols = {"day", "revenue"};
+        section("revenueByDay", cols);
+        for (RevenuePoint p : series) row("revenueByDay", cols, p.day(), p.revenue());
+    }
+
+    @Override
+    public void printRestock(List<RestockRow> rows) {
+        String[] cols = {"itemCode", "itemName", "shelfQty", "storeQty", "mainQty", "restockLevel"};
+        section("restock", cols);
+        for (RestockRow r : rows) {
+            row("restock", cols, r.itemCode(), r.itemName(), r.shelfQty(), r.storeQty(), r.mainQty(), r.restockLevel());
+        }
+    }
+
+    @Override
+    public void printReshelving(List<ReshelvingRow> rows, int shelfTarget) {
+        String[] cols = {"itemCode", "itemName", "shelfQty", "storeQty", "suggestedMove"};
+        section("reshelving", cols);
+        for (ReshelvingRow r : rows) {
+            row("reshelving", cols, r.itemCode(), r.itemName(), r.shelfQty(), r.storeQty(), r.suggestedMove());
+        }
+    }
+
+    @Override
+    public void printReorder(List<ReorderRow> rows, int threshold) {
+        String[] cols = {"itemCode", "itemName", "totalQty"};
+        section("reorder", cols);
+        for (ReorderRow r : rows) row("reorder", cols, r.itemCode(), r.itemName(), r.totalQty());
+    }
+
+    @Override
+    public void printStock(List<StockBatchRow> rows, String itemCodeOrNull) {
+        String[] cols = {"batchId", "itemCode", "itemName", "expiry", "qtyOnShelf", "qtyInStore"};
+        section("stockByBatch", cols);
+        for (StockBatchRow r : rows) {
+            row("stockByBatch", cols, r.batchId(), r.itemCode(), r.itemName(), r.expiry(), r.qtyOnShelf(), r.qtyInStore());
+        }
+    }
+
+    @Override
+    public void printLiveSales(String window, List<LiveSalesRow> rows) {
+        String[] cols = {"window", "scope", "bills", "revenue", "averageBasket", "itemsSold"};
+        section("liveSales", cols);
+        for (LiveSalesRow r : rows) {
+            row("liveSales", cols, window, r.scope(), r.bills(), r.revenue(), r.averageBasket(), r.itemsSold());
+        }
+    }
+
+    @Override
+    public void printTopSellers(String period, LocalDate from, long errorBound, List<TopSellerRow> rows) {
+        String[] cols = {"period", "from", "itemCode", "itemName", "qty", "maxOvercount", "errorBound", "revenue"};
+        section("topSellers", cols);
+        for (TopSellerRow r : rows) {
+            row("topSellers", cols, period, from, r.itemCode(), r.itemName(), r.qty(), r.maxOvercount(), errorBound, r.revenue());
+        }
+    }
+
+    @Override
+    public void printBreakdown(String title, List<BreakdownRow> rows) {
+        String[] cols = {"key", "label", "lines", "qty", "revenue"};
+        section("breakdown", cols);
+        for (BreakdownRow r : rows) row("breakdown", cols, r.key(), r.label(), r.lines(), r.qty(), r.revenue());
+    }
+
+    @Override
+    public void printCompanions(String itemCode, String itemName, List<CompanionRow> rows) {
+        String[] cols = {"forItemCode", "itemCode", "itemName", "together", "support", "confidence", "lift", "maxUndercount"};
+        section("companions", cols);
+        for (CompanionRow r : rows) {
+            row("companions", cols, itemCode, r.itemCode(), r.itemName(), r.together(), r.support(), r.confidence(), r.lift(),
+                    r.maxUndercount());
+        }
+    }
+
+    @Override
+    public void printUnavailable(String section, String reason) {
+        String[] cols = {"section", "reason"};
+        section("unavailable", cols);
+        row("unavailable", cols, section, reason);
+    }
+
+    @Override
+    public ExportStats stats() {
+        return new ExportStats(rows, counted.count, (System.nanoTime() - startedAt) / 1_000_000);
+    }
+
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        try {
+            out.close(); // also finishes a gzip trailer
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+        long count;
+
+        CountingOutputStream(OutputStream out) { super(out); }
+
+        @Override public void write(int b) throws IOException { out.write(b); count++; }
+        @Override public void write(byte[] b, int off, int len) throws IOException { out.write(b, off, len); count += len; }
+    }
+}
@@ -0,0 +1,94 @@
+package infrastructure.files;
+
+import application.online.CartSnapshotStore;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * One small file per open cart under {@code dir/<base64url of cart id>.cart}: the last-touched time
+ * on the first line, then {@code code<TAB>qty} per line. Files are written to a temp name and moved
+ * into place, so a crash leaves either the old snapshot or the new one.
+ */
+public final class FileCartSnapshotStore implements CartSnapshotStore {
+    private static final Logger logger = Logger.getLogger(FileCartSnapshotStore.class.getName());
+    private static final String SUFFIX = ".cart";
+
+    private final Path dir;
+
+    public FileCartSnapshotStore(Path dir) {
+        this.dir = dir;
+        try { Files.createDirectories(dir); } catch (IOException ignored) {}
+    }
+
+    @Override
+    public void save(CartSnapshot snapshot) {
+        List<String> lines = new ArrayList<>(snapshot.lines().size() + 1);
+        lines.add(Long.toString(snapshot.touchedAtMillis()));
+        snapshot.lines().forEach((code, qty) -> lines.add(code + "\t" + qty));
+        Path p = fileOf(snapshot.cartId());
+        try {
+            Path tmp = Files.createTempFile(dir, "cart", ".tmp");
+            Files.write(tmp, lines, StandardCharsets.UTF_8);
+            Files.move(tmp, p, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void delete(String cartId) {
+        try {
+            Files.deleteIfExists(fileOf(cartId));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void loadAll(Consumer<CartSnapshot> sink) {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*" + SUFFIX)) {
+            for (Path p : files) {
+                CartSnapshot s = read(p);
+                if (s != null) sink.accept(s);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // a file that does not parse is skipped, not fatal: it is one shopper's cart
+    private static CartSnapshot read(Path p) throws IOException {
+        String name = p.getFileName().toString();
+        try {
+            String id = new String(Base64.getUrlDecoder().decode(name.substring(0, name.length() - SUFFIX.length())),
+                    StandardCharsets.UTF_8);
+            List<String> lines = Files.readAllLines(p, StandardCharsets.UTF_8);
+            if (lines.isEmpty()) return null;
+            long touchedAt = Long.parseLong(lines.get(0).trim());
+            Map<String, Integer> cart = new LinkedHashMap<>();
+            for (String line : lines.subList(1, lines.size())) {
+                int tab = line.lastIndexOf('\t');
+                if (tab > 0) cart.merge(line.substring(0, tab), Integer.parseInt(line.substring(tab + 1)), Integer::sum);
+            }
+            return new CartSnapshot(id, touchedAt, cart);
+        } catch (IllegalArgumentException e) {
+            logger.warning("Skipping unreadable cart snapshot " + p + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private Path fileOf(String cartId) {
+        String name = Base64.getUrlEncoder().withoutPadding().encodeToString(cartId.getBytes(StandardCharsets.UTF_8));
+        return dir.resolve(name + SUFFIX);
+    }
+}
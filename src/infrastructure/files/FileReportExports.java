@@ -0,0 +1,28 @@
+package infrastructure.files;
+
+import application.reporting.ReportExports;
+import application.reporting.StreamingReportPrinter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/** Export printers on files; the parent directories are created as needed. */
+public final class FileReportExports implements ReportExports {
+
+    @Override
+    public StreamingReportPrinter open(Path file, Format format, boolean gzip) {
+        try {
+            if (file.getParent() != null) Files.createDirectories(file.getParent());
+            OutputStream out = Files.newOutputStream(file);
+            return switch (format) {
+                case CSV -> new CsvReportPrinter(out, gzip);
+                case JSONL -> new JsonLinesReportPrinter(out, gzip);
+            };
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package infrastructure.files;
+
+import application.reporting.ReportResultStore;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * One file per report and day under {@code dir/<report>/<yyyy-MM-dd>.tsv}. Files are written to a
+ * temp name and moved into place, so a crash never leaves a half-written day behind.
+ */
+public final class FileReportResultStore implements ReportResultStore {
+    private final Path dir;
+
+    public FileReportResultStore(Path dir) {
+        this.dir = dir;
+        try { Files.createDirectories(dir); } catch (IOException ignored) {}
+    }
+
+    @Override
+    public Optional<List<String>> load(String report, LocalDate day) {
+        Path p = fileOf(report, day);
+        if (!Files.isRegularFile(p)) return Optional.empty();
+        try {
+            return Optional.of(Files.readAllLines(p, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void save(String report, LocalDate day, List<String> lines) {
+        Path p = fileOf(report, day);
+        try {
+            Files.createDirectories(p.getParent());
+            Path tmp = Files.createTempFile(p.getParent(), day.toString(), ".tmp");
+            Files.write(tmp, lines, StandardCharsets.UTF_8);
+            Files.move(tmp, p, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Path fileOf(String report, LocalDate day) {
+        return dir.resolve(report).resolve(day + ".tsv");
+    }
+}
@@ -0,0 +1,60 @@
+package infrastructure.files;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
+/**
+ * JSON Lines: one object per row, tagged with the report it belongs to. Counts are JSON numbers;
+ * amounts stay strings so their two decimals survive parsers that read numbers as doubles.
+ */
+public final class JsonLinesReportPrinter extends ExportReportPrinter {
+
+    public JsonLinesReportPrinter(OutputStream target) {
+        this(target, false);
+    }
+
+    public JsonLinesReportPrinter(OutputStream target, boolean gzip) {
+        super(target, gzip);
+    }
+
+    @Override
+    protected void writeHeader(Writer out, String report, String[] columns) {
+        // every line names its fields
+    }
+
+    @Override
+    protected void writeRow(Writer out, String report, String[] columns, Object[] values) throws IOException {
+        out.write("{\"report\":");
+        writeString(out, report);
+        for (int i = 0; i < columns.length; i++) {
+            out.write(',');
+            writeString(out, columns[i]);
+            out.write(':');
+            Object v = values[i];
+            if (v == null) out.write("null");
+            else if (v instanceof Number) out.write(v.toString());
+            else writeString(out, v.toString());
+        }
+        out.write("}\n");
+    }
+
+    static void writeString(Writer out, String s) throws IOException {
+        out.write('"');
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            switch (ch) {
+                case '"' -> out.write("\\\"");
+                case '\\' -> out.write("\\\\");
+                case '\n' -> out.write("\\n");
+                case '\r' -> out.write("\\r");
+                case '\t' -> out.write("\\t");
+                default -> {
+                    if (ch < 0x20) out.write(String.format("\\u%04x", (int) ch));
+                    else out.write(ch);
+                }
+            }
+        }
+        out.write('"');
+    }
+}
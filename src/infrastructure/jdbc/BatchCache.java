@@ -0,0 +1,103 @@
+package infrastructure.jdbc;
+
+import domain.inventory.Batch;
+import domain.inventory.StockLocation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * FEFO-ordered shelf/store batch lists per item, guarded by a per-item version number.
+ * Every stock mutation of an item bumps its version; a cached list is only served while its
+ * version is current, and a load only installs its result if no bump happened while the query
+ * ran, so a slow read can never shadow a newer write. Lists older than {@code maxAgeMillis} are
+ * reloaded to pick up writes from other processes. Planning from a cached list is optimistic:
+ * the guarded UPDATE at commit is the revalidation, and a failed commit bumps the item too.
+ */
+public final class BatchCache {
+
+    @FunctionalInterface
+    interface Loader { List<Batch> load(String itemCode); }
+
+    /** Counters since startup; {@code rejectedLoads} are loads that raced a write and were not cached. */
+    public record Stats(long hits, long misses, long invalidations, long rejectedLoads, int cachedLists) {}
+
+    private record Key(String itemCode, StockLocation location) {}
+    private record Entry(long version, long loadedAt, List<Batch> batches) {}
+
+    private final long maxAgeMillis;
+    private final LongSupplier clock;
+    private final ConcurrentHashMap<String, AtomicLong> versions = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Key, Entry> entries = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder rejectedLoads = new LongAdder();
+
+    public BatchCache(long maxAgeMillis) {
+        this(maxAgeMillis, System::currentTimeMillis);
+    }
+
+    BatchCache(long maxAgeMillis, LongSupplier clock) {
+        if (maxAgeMillis <= 0) throw new IllegalArgumentException("maxAgeMillis must be > 0");
+        this.maxAgeMillis = maxAgeMillis;
+        this.clock = clock;
+    }
+
+    /** Batches of the item holding stock at {@code location}; the caller owns the returned copies. */
+    List<Batch> get(String itemCode, StockLocation location, Loader loader) {
+        Key key = new Key(itemCode, location);
+        long version = version(itemCode);
+        long now = clock.getAsLong();
+        Entry e = entries.get(key);
+        if (e != null && e.version == version && now - e.loadedAt < maxAgeMillis) {
+            hits.increment();
+            return copy(e.batches);
+        }
+
+        misses.increment();
+        List<Batch> loaded = loader.load(itemCode);
+        if (version(itemCode) == version) {
+            entries.put(key, new Entry(version, now, copy(loaded)));
+        } else {
+            rejectedLoads.increment();
+        }
+        return loaded;
+    }
+
+    /** Called after any change (or failed change) to the item's batches. */
+    void bump(String itemCode) {
+        if (itemCode == null) return;
+        // version first: an entry put back by a racing load still carries the old version
+        versions.computeIfAbsent(itemCode, k -> new AtomicLong()).incrementAndGet();
+        for (StockLocation loc : StockLocation.values()) entries.remove(new Key(itemCode, loc));
+        invalidations.increment();
+    }
+
+    void bumpAll(Iterable<String> itemCodes) {
+        for (String code : itemCodes) bump(code);
+    }
+
+    long version(String itemCode) {
+        AtomicLong v = versions.get(itemCode);
+        return v == null ? 0 : v.get();
+    }
+
+    Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), invalidations.sum(), rejectedLoads.sum(), entries.size());
+    }
+
+    // Batch is mutable (takeFromShelf/takeFromStore), so neither the cache nor callers share instances
+    private static List<Batch> copy(List<Batch> batches) {
+        List<Batch> out = new ArrayList<>(batches.size());
+        for (Batch b : batches) {
+            out.add(new Batch(b.id(), b.itemCode(), b.expiryDate(), b.qtyOnShelf(), b.qtyInStore(), b.qtyInMain()));
+        }
+        return out;
+    }
+}
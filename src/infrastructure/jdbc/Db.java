@@ -11,6 +11,8 @@ public final class Db {
     private static final String url;
     private static final String user;
     private static final String pass;
+    private static final Properties settings = new Properties();
+    private static final ReadWriteRouter router;
 
     static {
         String tmpUrl = null, tmpUser = null, tmpPass = null;
@@ -26,6 +28,7 @@ public final class Db {
                     "jdbc:mysql://localhost:3306/posdb?useSSL=false&allowPublicKeyRetrieval=true&serverTimezone=UTC");
             tmpUser = p.getProperty("db.user", "root");
             tmpPass = p.getProperty("db.password", "");
+            settings.putAll(p);
 
             // Load MySQL driver (safe even if already registered)
             Class.forName("com.mysql.cj.jdbc.Driver");
@@ -35,11 +38,52 @@ public final class Db {
         url = tmpUrl;
         user = tmpUser;
         pass = tmpPass;
+        router = buildRouter();
     }
 
     private Db() {}
 
+    /** Primary connection; every write (and any read that must see its own writes) uses this. */
     public static Connection get() throws SQLException {
-        return DriverManager.getConnection(url, user, pass);
+        return router.write();
+    }
+
+    /**
+     * Connection for read-only report/catalog queries: the replica from {@code db.replica.url} when it
+     * is up and within {@code db.replica.maxLagSeconds}, otherwise the primary.
+     */
+    public static Connection read() throws SQLException {
+        return router.read();
+    }
+
+    /** Replica health and read routing counters. */
+    public static ReadWriteRouter.Status readRoutingStatus() {
+        return router.status();
+    }
+
+    private static ReadWriteRouter buildRouter() {
+        String replicaUrl = setting("db.replica.url", "").trim();
+        ReadWriteRouter.ConnectionSource replica = replicaUrl.isEmpty() ? null : () -> DriverManager.getConnection(
+                replicaUrl, setting("db.replica.user", user), setting("db.replica.password", pass));
+        return new ReadWriteRouter(
+                () -> DriverManager.getConnection(url, user, pass),
+                replica,
+                ReadWriteRouter::mysqlReplicaLag,
+                intSetting("db.replica.maxLagSeconds", 5),
+                intSetting("db.replica.checkIntervalMillis", 1000),
+                System::currentTimeMillis);
+    }
+
+    /** Optional tuning keys from db.properties (falls back to a system property, then the default). */
+    public static String setting(String key, String def) {
+        return settings.getProperty(key, System.getProperty(key, def));
+    }
+
+    public static int intSetting(String key, int def) {
+        try {
+            return Integer.parseInt(setting(key, String.valueOf(def)).trim());
+        } catch (NumberFormatException e) {
+            return def;
+        }
     }
 }
@@ -11,12 +11,44 @@ import domain.billing.BillNumberGenerator;
 import infrastructure.jdbc.Db;
 
 public final class JdbcBillNumberGenerator implements BillNumberGenerator {
+    private final String channelPrefix;
+    private final boolean counted;
+    private String countedDate; // guarded by this
+    private int lastSeq;
+
+    public JdbcBillNumberGenerator() {
+        this("POS", false);
+    }
+
+    /**
+     * With {@code counted} the last number of the day is read once and then counted up in memory,
+     * so concurrent checkouts never get the same number before either bill is saved. The prefix
+     * must then belong to this process alone.
+     */
+    public JdbcBillNumberGenerator(String channelPrefix, boolean counted) {
+        this.channelPrefix = channelPrefix;
+        this.counted = counted;
+    }
+
     @Override
     public String next() {
         String date = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyyMMdd"));
-        String prefix = "POS-" + date + "-";
-        int nextSeq = 1;
-        String sql = "SELECT bill_no FROM bills WHERE bill_no LIKE ? ORDER BY bill_no DESC LIMIT 1";
+        if (!counted) return channelPrefix + "-" + date + "-" + String.format("%04d", lastStored(date) + 1);
+        synchronized (this) {
+            if (!date.equals(countedDate)) {
+                lastSeq = lastStored(date);
+                countedDate = date;
+            }
+            return channelPrefix + "-" + date + "-" + String.format("%04d", ++lastSeq);
+        }
+    }
+
+    private int lastStored(String date) {
+        String prefix = channelPrefix + "-" + date + "-";
+        int seq = 0;
+        // Sequences are zero-padded to four digits but grow past 9999 on a busy day, so text order
+        // alone would put -9999 after -10000: the longer suffix is the larger number
+        String sql = "SELECT bill_no FROM bills WHERE bill_no LIKE ? ORDER BY LENGTH(bill_no) DESC, bill_no DESC LIMIT 1";
         try (Connection c = Db.get();
              PreparedStatement ps = c.prepareStatement(sql)) {
             ps.setString(1, prefix + "%");
@@ -26,7 +58,7 @@ public final class JdbcBillNumberGenerator implements BillNumberGenerator {
                     String[] parts = lastBillNo.split("-");
                     if (parts.length == 3) {
                         try {
-                            nextSeq = Integer.parseInt(parts[2]) + 1;
+                            seq = Integer.parseInt(parts[2]);
                         } catch (NumberFormatException ignored) {}
                     }
                 }
@@ -34,7 +66,7 @@ public final class JdbcBillNumberGenerator implements BillNumberGenerator {
         } catch (SQLException e) {
             throw new RuntimeException("Failed to generate bill number", e);
         }
-        return prefix + String.format("%04d", nextSeq);
+        return seq;
     }
 }
 
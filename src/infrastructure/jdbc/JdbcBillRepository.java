@@ -8,11 +8,24 @@ import infrastructure.jdbc.Db;
 
 import java.sql.*;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public final class JdbcBillRepository implements BillRepository {
 
+    private static final String BILL_COLUMNS = """
+            INSERT INTO bills (
+                bill_no, created_at, subtotal, discount, tax, total,
+                payment_method, paid_amount, change_amount, card_last4,
+                channel, user_name
+            )""";
+
+    private static final String LINE_COLUMNS = "INSERT INTO bill_lines (bill_id, item_code, qty, unit_price, line_total)";
+
     @Override
     public String createBill() {
         // This could generate a new bill number or return a placeholder
@@ -22,37 +35,14 @@ public final class JdbcBillRepository implements BillRepository {
 
     @Override
     public void saveBill(Bill bill) {
-        String insBill = """
-            INSERT INTO bills (
-                bill_no, created_at, subtotal, discount, tax, total,
-                payment_method, paid_amount, change_amount, card_last4,
-                channel, user_name
-            )
-            VALUES (?,?,?,?,?,?,?,?,?,?,?,?)
-            """;
-
-        String insLine = """
-            INSERT INTO bill_lines (bill_id, item_code, qty, unit_price, line_total)
-            VALUES (?,?,?,?,?)
-            """;
+        String insBill = BILL_COLUMNS + " VALUES (?,?,?,?,?,?,?,?,?,?,?,?)";
+        String insLine = LINE_COLUMNS + " VALUES (?,?,?,?,?)";
 
         try (Connection c = Db.get()) {
             c.setAutoCommit(false);
 
             try (PreparedStatement pb = c.prepareStatement(insBill, Statement.RETURN_GENERATED_KEYS)) {
-                pb.setString(1, bill.number());
-                pb.setTimestamp(2, Timestamp.valueOf(bill.createdAt()));
-                pb.setBigDecimal(3, bill.subtotal().asBigDecimal());
-                pb.setBigDecimal(4, bill.discount().asBigDecimal());
-                pb.setBigDecimal(5, bill.tax().asBigDecimal());
-                pb.setBigDecimal(6, bill.total().asBigDecimal());
-
-                pb.setString(7, bill.paymentMethod());
-                pb.setBigDecimal(8, bill.paidAmount().asBigDecimal());
-                pb.setBigDecimal(9, bill.changeAmount().asBigDecimal());
-                pb.setString(10, bill.cardLast4());
-                pb.setString(11, bill.channel());
-                pb.setString(12, bill.userName());
+                bindBill(pb, 1, bill);
 
                 pb.executeUpdate();
 
@@ -64,11 +54,7 @@ public final class JdbcBillRepository implements BillRepository {
 
                 try (PreparedStatement pl = c.prepareStatement(insLine)) {
                     for (BillLine l : bill.lines()) {
-                        pl.setLong(1, billId);
-                        pl.setString(2, l.itemCode());
-                        pl.setInt(3, l.quantity());
-                        pl.setBigDecimal(4, l.unitPrice().asBigDecimal());
-                        pl.setBigDecimal(5, l.lineTotal().asBigDecimal());
+                        bindLine(pl, 1, billId, l);
                         pl.addBatch();
                     }
                     pl.executeBatch();
@@ -87,6 +73,59 @@ public final class JdbcBillRepository implements BillRepository {
         }
     }
 
+    /**
+     * Inserts many bills and their lines on the caller's transaction: one multi-row statement for the
+     * bills, one lookup of their ids by bill number, one multi-row statement for the lines.
+     */
+    static void insertBills(Connection c, List<Bill> bills) throws SQLException {
+        if (bills.isEmpty()) return;
+        MultiRowInsert.insert(c, BILL_COLUMNS, 12, bills, JdbcBillRepository::bindBill);
+
+        Map<String, Long> ids = new HashMap<>();
+        String sql = "SELECT id, bill_no FROM bills WHERE bill_no IN ("
+                + String.join(",", Collections.nCopies(bills.size(), "?")) + ") ORDER BY id";
+        try (PreparedStatement ps = c.prepareStatement(sql)) {
+            for (int i = 0; i < bills.size(); i++) ps.setString(i + 1, bills.get(i).number());
+            try (ResultSet rs = ps.executeQuery()) {
+                // a reused number keeps the newest row, the one just inserted
+                while (rs.next()) ids.put(rs.getString(2), rs.getLong(1));
+            }
+        }
+
+        record Line(long billId, BillLine line) {}
+        List<Line> lines = new ArrayList<>();
+        for (Bill b : bills) {
+            Long id = ids.get(b.number());
+            if (id == null) throw new SQLException("Bill ID not found for " + b.number());
+            for (BillLine l : b.lines()) lines.add(new Line(id, l));
+        }
+        MultiRowInsert.insert(c, LINE_COLUMNS, 5, lines, (ps, at, l) -> bindLine(ps, at, l.billId(), l.line()));
+    }
+
+    private static void bindBill(PreparedStatement ps, int at, Bill bill) throws SQLException {
+        ps.setString(at, bill.number());
+        ps.setTimestamp(at + 1, Timestamp.valueOf(bill.createdAt()));
+        ps.setBigDecimal(at + 2, bill.subtotal().asBigDecimal());
+        ps.setBigDecimal(at + 3, bill.discount().asBigDecimal());
+        ps.setBigDecimal(at + 4, bill.tax().asBigDecimal());
+        ps.setBigDecimal(at + 5, bill.total().asBigDecimal());
+
+        ps.setString(at + 6, bill.paymentMethod());
+        ps.setBigDecimal(at + 7, bill.paidAmount().asBigDecimal());
+        ps.setBigDecimal(at + 8, bill.changeAmount().asBigDecimal());
+        ps.setString(at + 9, bill.cardLast4());
+        ps.setString(at + 10, bill.channel());
+        ps.setString(at + 11, bill.userName());
+    }
+
+    private static void bindLine(PreparedStatement ps, int at, long billId, BillLine l) throws SQLException {
+        ps.setLong(at, billId);
+        ps.setString(at + 1, l.itemCode());
+        ps.setInt(at + 2, l.quantity());
+        ps.setBigDecimal(at + 3, l.unitPrice().asBigDecimal());
+        ps.setBigDecimal(at + 4, l.lineTotal().asBigDecimal());
+    }
+
     @Override
     public Optional<Bill> findBill(String billId) {
         // Implementation to find a bill by ID
@@ -1,19 +1,70 @@
 package infrastructure.jdbc;
 
+import application.inventory.BasketLookupRepository;
+import application.inventory.CatalogStockSnapshot;
+import application.inventory.StockCommitRepository;
+import application.inventory.StockSnapshotRepository;
+import application.inventory.StockStoreStats;
+import application.inventory.StockTransferRepository;
+import application.online.OrderBatchRepository;
+import domain.billing.Bill;
+import domain.billing.BillLine;
 import domain.common.Money;
 import domain.inventory.Batch;
 import domain.inventory.BatchDiscount;
 import domain.inventory.InventoryReservation;
 import domain.inventory.Item;
+import domain.inventory.StockLocation;
+import domain.inventory.StockMove;
+import domain.inventory.StockMovement;
 import ports.out.InventoryRepository;
 
 import java.sql.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 
-public final class JdbcInventoryRepository implements InventoryRepository {
+public final class JdbcInventoryRepository implements InventoryRepository, StockTransferRepository, StockSnapshotRepository,
+                                                      BasketLookupRepository, StockCommitRepository,
+                                                      OrderBatchRepository, StockStoreStats {
+
+    // Striped stock is opt-in; when off, nothing touches batch_stock_buckets and reads stay on batches
+    private final StockBuckets buckets;
+    private final String stockTable;
+    private final TransactionRetry retry = new TransactionRetry();
+    private final BatchCache batchCache; // null = every batch lookup queries the database
+
+    public JdbcInventoryRepository() {
+        this(false);
+    }
+
+    public JdbcInventoryRepository(boolean stripedStock) {
+        this(stripedStock, 0);
+    }
+
+    /** {@code batchCacheMaxAgeMillis} > 0 serves FEFO batch lists from a versioned per-item cache. */
+    public JdbcInventoryRepository(boolean stripedStock, long batchCacheMaxAgeMillis) {
+        this.batchCache = batchCacheMaxAgeMillis > 0 ? new BatchCache(batchCacheMaxAgeMillis) : null;
+        this.buckets = stripedStock ? new StockBuckets() : null;
+        this.stockTable = stripedStock ? "batch_stock" : "batches";
+        if (stripedStock) {
+            try (Connection c = Db.get()) {
+                buckets.refresh(c);
+            } catch (SQLException e) {
+                throw new RuntimeException("loading stock buckets failed", e);
+            }
+        }
+    }
 
     @Override
     public Optional<Item> findItemByCode(String itemCode) {
@@ -58,12 +109,44 @@ public final class JdbcInventoryRepository implements InventoryRepository {
 
     @Override
     public List<Batch> findBatchesOnShelf(String itemCode) {
+        return findBatches(itemCode, StockLocation.SHELF);
+    }
+
+    private static final String COMMIT_SHELF_SQL =
+            "UPDATE batches SET qty_on_shelf = qty_on_shelf - ? WHERE id=? AND item_code=? AND qty_on_shelf>=?";
+    private static final String COMMIT_STORE_SQL =
+            "UPDATE batches SET qty_in_store = qty_in_store - ? WHERE id=? AND item_code=? AND qty_in_store>=?";
+
+    @Override
+    public void commitReservations(Iterable<InventoryReservation> reservations) {
+        commit("commitReservations", reservations, COMMIT_SHELF_SQL, StockBuckets.Column.SHELF,
+                "Concurrent/insufficient batch ", false);
+    }
+
+    @Override
+    public Map<String, ItemStockLevel> commitShelfWithLevels(Iterable<InventoryReservation> reservations) {
+        return commit("commitReservations", reservations, COMMIT_SHELF_SQL, StockBuckets.Column.SHELF,
+                "Concurrent/insufficient batch ", true);
+    }
+
+    @Override
+    public List<Batch> findBatchesInStore(String itemCode) {
+        return findBatches(itemCode, StockLocation.STORE);
+    }
+
+    private List<Batch> findBatches(String itemCode, StockLocation location) {
+        if (batchCache == null) return queryBatches(itemCode, location);
+        return batchCache.get(itemCode, location, code -> queryBatches(code, location));
+    }
+
+    private List<Batch> queryBatches(String itemCode, StockLocation location) {
+        String qtyCol = location == StockLocation.SHELF ? "qty_on_shelf" : "qty_in_store";
         String sql = """
             SELECT id, item_code, expiry, qty_on_shelf, qty_in_store, qty_in_main
-            FROM batches
-            WHERE item_code=? AND qty_on_shelf > 0
+            FROM %s
+            WHERE item_code=? AND %s > 0
             ORDER BY (expiry IS NULL), expiry ASC, id ASC
-            """;
+            """.formatted(stockTable, qtyCol);
         List<Batch> list = new ArrayList<>();
         try (Connection c = Db.get();
              PreparedStatement ps = c.prepareStatement(sql)) {
@@ -83,100 +166,237 @@ public final class JdbcInventoryRepository implements InventoryRepository {
             }
             return list;
         } catch (SQLException e) {
-            throw new RuntimeException("findBatchesOnShelf failed", e);
+            String op = location == StockLocation.SHELF ? "findBatchesOnShelf" : "findBatchesInStore";
+            throw new RuntimeException(op + " failed", e);
         }
     }
 
     @Override
-    public void commitReservations(Iterable<InventoryReservation> reservations) {
-        String sql = "UPDATE batches SET qty_on_shelf = qty_on_shelf - ? WHERE id=? AND item_code=? AND qty_on_shelf>=?";
-        try (Connection c = Db.get()) {
-            c.setAutoCommit(false);
-            try (PreparedStatement ps = c.prepareStatement(sql)) {
-                for (InventoryReservation r : reservations) {
-                    ps.setInt(1, r.quantity);
-                    ps.setLong(2, r.batchId);
-                    ps.setString(3, r.itemCode);
-                    ps.setInt(4, r.quantity);
-                    if (ps.executeUpdate() == 0) {
+    public void commitStoreReservations(Iterable<InventoryReservation> reservations) {
+        commit("commitStoreReservations", reservations, COMMIT_STORE_SQL, StockBuckets.Column.STORE,
+                "Concurrent/insufficient store batch ", false);
+    }
+
+    @Override
+    public Map<String, ItemStockLevel> commitStoreWithLevels(Iterable<InventoryReservation> reservations) {
+        return commit("commitStoreReservations", reservations, COMMIT_STORE_SQL, StockBuckets.Column.STORE,
+                "Concurrent/insufficient store batch ", true);
+    }
+
+    // Rows are locked in batch id order so concurrent multi-item bills cannot deadlock each other;
+    // a deadlock/lock timeout that still happens (e.g. against a transfer) re-runs the whole transaction.
+    // With readLevels the touched items' balances are read before the commit, inside the same transaction.
+    private Map<String, ItemStockLevel> commit(String op, Iterable<InventoryReservation> reservations, String sql,
+                                               StockBuckets.Column col, String insufficient, boolean readLevels) {
+        List<InventoryReservation> ordered = new ArrayList<>();
+        for (InventoryReservation r : reservations) ordered.add(r);
+        ordered.sort(Comparator.comparingLong((InventoryReservation r) -> r.batchId));
+        try {
+            return retry.run(op, () -> {
+                try (Connection c = Db.get()) {
+                    c.setAutoCommit(false);
+                    try (PreparedStatement ps = c.prepareStatement(sql);
+                         StockLedger ledger = new StockLedger(c)) {
+                        for (InventoryReservation r : ordered) {
+                            ledger.record(r.batchId, r.itemCode, StockMovement.Type.SALE, 0,
+                                    col == StockBuckets.Column.STORE ? -r.quantity : 0,
+                                    col == StockBuckets.Column.SHELF ? -r.quantity : 0, null);
+                            if (takeFromBucket(c, r, col)) continue;
+                            ps.setInt(1, r.quantity);
+                            ps.setLong(2, r.batchId);
+                            ps.setString(3, r.itemCode);
+                            ps.setInt(4, r.quantity);
+                            if (ps.executeUpdate() == 0 && !spillAcrossBuckets(c, r, col)) {
+                                c.rollback();
+                                throw new IllegalStateException(insufficient + r.batchId);
+                            }
+                        }
+                        ledger.flush();
+                        Map<String, ItemStockLevel> levels = readLevels ? stockLevels(c, ordered) : Map.of();
+                        c.commit();
+                        return levels;
+                    } catch (Exception ex) {
                         c.rollback();
-                        throw new IllegalStateException("Concurrent/insufficient batch " + r.batchId);
+                        throw ex;
+                    } finally {
+                        c.setAutoCommit(true);
                     }
                 }
-                c.commit();
-            } catch (Exception ex) {
-                c.rollback();
-                throw ex;
-            } finally {
-                c.setAutoCommit(true);
-            }
+            });
         } catch (SQLException e) {
-            throw new RuntimeException("commitReservations failed", e);
+            throw new RuntimeException(op + " failed", e);
+        } finally {
+            for (InventoryReservation r : ordered) batchesChanged(r.itemCode);
         }
     }
 
+    /**
+     * Group commit for online orders. One transaction locks every batch row the group needs, in id
+     * order, then decides order by order in memory whether its reservations still fit; the accepted
+     * orders' shelf decrements, ledger rows, bills and lines go out as a handful of multi-row
+     * statements. An order that no longer fits is refused on its own and leaves nothing behind.
+     * Striped stock spreads a batch over bucket rows, so it reports no group commit support.
+     */
     @Override
-    public List<Batch> findBatchesInStore(String itemCode) {
-        String sql = """
-            SELECT id, item_code, expiry, qty_on_shelf, qty_in_store, qty_in_main
-            FROM batches
-            WHERE item_code=? AND qty_in_store > 0
-            ORDER BY (expiry IS NULL), expiry ASC, id ASC
-            """;
-        List<Batch> list = new ArrayList<>();
-        try (Connection c = Db.get();
-             PreparedStatement ps = c.prepareStatement(sql)) {
-            ps.setString(1, itemCode);
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    Date d = rs.getDate("expiry");
-                    list.add(new Batch(
-                            rs.getLong("id"),
-                            rs.getString("item_code"),
-                            d == null ? null : d.toLocalDate(),
-                            rs.getInt("qty_on_shelf"),
-                            rs.getInt("qty_in_store"),
-                            getSafeInt(rs, "qty_in_main")
-                    ));
+    public List<Outcome> commitOrders(List<Bill> bills) {
+        if (!supportsGroupCommit()) throw new IllegalStateException("Group commit needs unstriped stock");
+        List<List<InventoryReservation>> perBill = new ArrayList<>(bills.size());
+        Set<Long> batchIds = new TreeSet<>();
+        for (Bill b : bills) {
+            List<InventoryReservation> rs = new ArrayList<>();
+            for (BillLine l : b.lines()) rs.addAll(l.reservations());
+            for (InventoryReservation r : rs) batchIds.add(r.batchId);
+            perBill.add(rs);
+        }
+        try {
+            return retry.run("commitOrders", () -> {
+                try (Connection c = Db.get()) {
+                    c.setAutoCommit(false);
+                    try {
+                        Map<Long, ShelfRow> shelf = lockShelf(c, batchIds);
+                        Map<Long, Integer> taken = new TreeMap<>();
+                        List<String> refusals = new ArrayList<>(bills.size());
+                        List<Bill> accepted = new ArrayList<>();
+                        List<InventoryReservation> sold = new ArrayList<>();
+                        for (int i = 0; i < bills.size(); i++) {
+                            String refusal = takeOrder(perBill.get(i), shelf, taken);
+                            refusals.add(refusal);
+                            if (refusal != null) continue;
+                            accepted.add(bills.get(i));
+                            sold.addAll(perBill.get(i));
+                        }
+                        decrementShelf(c, taken);
+                        StockLedger.recordShelfSales(c, sold);
+                        JdbcBillRepository.insertBills(c, accepted);
+                        Map<String, ItemStockLevel> levels = stockLevels(c, sold);
+                        c.commit();
+
+                        List<Outcome> outcomes = new ArrayList<>(bills.size());
+                        for (int i = 0; i < bills.size(); i++) {
+                            if (refusals.get(i) != null) {
+                                outcomes.add(Outcome.refused(refusals.get(i)));
+                                continue;
+                            }
+                            Map<String, ItemStockLevel> own = new LinkedHashMap<>();
+                            for (InventoryReservation r : perBill.get(i)) {
+                                ItemStockLevel level = levels.get(r.itemCode);
+                                if (level != null) own.put(r.itemCode, level);
+                            }
+                            outcomes.add(Outcome.committed(own));
+                        }
+                        return outcomes;
+                    } catch (Exception ex) {
+                        c.rollback();
+                        throw ex;
+                    } finally {
+                        c.setAutoCommit(true);
+                    }
                 }
-            }
-            return list;
+            });
         } catch (SQLException e) {
-            throw new RuntimeException("findBatchesInStore failed", e);
+            throw new RuntimeException("commitOrders failed", e);
+        } finally {
+            perBill.stream().flatMap(List::stream).map(r -> r.itemCode).distinct().forEach(this::batchesChanged);
         }
     }
 
     @Override
-    public void commitStoreReservations(Iterable<InventoryReservation> reservations) {
-        String sql = "UPDATE batches SET qty_in_store = qty_in_store - ? WHERE id=? AND item_code=? AND qty_in_store>=?";
-        try (Connection c = Db.get()) {
-            c.setAutoCommit(false);
-            try (PreparedStatement ps = c.prepareStatement(sql)) {
-                for (InventoryReservation r : reservations) {
-                    ps.setInt(1, r.quantity);
-                    ps.setLong(2, r.batchId);
-                    ps.setString(3, r.itemCode);
-                    ps.setInt(4, r.quantity);
-                    if (ps.executeUpdate() == 0) {
-                        c.rollback();
-                        throw new IllegalStateException("Concurrent/insufficient store batch " + r.batchId);
-                    }
+    public boolean supportsGroupCommit() {
+        return buckets == null;
+    }
+
+    record ShelfRow(String itemCode, int qty) {}
+
+    private static Map<Long, ShelfRow> lockShelf(Connection c, Set<Long> batchIds) throws SQLException {
+        Map<Long, ShelfRow> rows = new HashMap<>();
+        if (batchIds.isEmpty()) return rows;
+        String sql = "SELECT id, item_code, qty_on_shelf FROM batches WHERE id IN ("
+                + placeholders(batchIds.size()) + ") ORDER BY id FOR UPDATE";
+        try (PreparedStatement ps = c.prepareStatement(sql)) {
+            int i = 1;
+            for (long id : batchIds) ps.setLong(i++, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) rows.put(rs.getLong(1), new ShelfRow(rs.getString(2), rs.getInt(3)));
+            }
+        }
+        return rows;
+    }
+
+    // All of an order's reservations come off the locked counts, or none; returns why not, or null
+    static String takeOrder(List<InventoryReservation> reservations, Map<Long, ShelfRow> shelf,
+                            Map<Long, Integer> taken) {
+        Map<Long, Integer> need = new HashMap<>();
+        for (InventoryReservation r : reservations) need.merge(r.batchId, r.quantity, Integer::sum);
+        for (InventoryReservation r : reservations) {
+            ShelfRow row = shelf.get(r.batchId);
+            if (row == null || !row.itemCode().equals(r.itemCode)
+                    || row.qty() - taken.getOrDefault(r.batchId, 0) < need.get(r.batchId)) {
+                return "Not enough stock left for " + r.itemCode;
+            }
+        }
+        need.forEach((id, qty) -> taken.merge(id, qty, Integer::sum));
+        return null;
+    }
+
+    // One UPDATE for the whole group; every row is locked and was checked above
+    static void decrementShelf(Connection c, Map<Long, Integer> taken) throws SQLException {
+        if (taken.isEmpty()) return;
+        String sql = "UPDATE batches SET qty_on_shelf = qty_on_shelf - CASE id "
+                + String.join(" ", Collections.nCopies(taken.size(), "WHEN ? THEN ?"))
+                + " END WHERE id IN (" + placeholders(taken.size()) + ")";
+        try (PreparedStatement ps = c.prepareStatement(sql)) {
+            int i = 1;
+            for (var e : taken.entrySet()) {
+                ps.setLong(i++, e.getKey());
+                ps.setInt(i++, e.getValue());
+            }
+            for (long id : taken.keySet()) ps.setLong(i++, id);
+            ps.executeUpdate();
+        }
+    }
+
+    // One aggregate over the items just sold; their batch rows are already locked by this transaction
+    private Map<String, ItemStockLevel> stockLevels(Connection c, List<InventoryReservation> sold) throws SQLException {
+        List<String> codes = sold.stream().map(r -> r.itemCode).distinct().toList();
+        Map<String, ItemStockLevel> levels = new LinkedHashMap<>();
+        if (codes.isEmpty()) return levels;
+        String sql = """
+            SELECT i.item_code, COALESCE(SUM(b.qty_on_shelf),0), COALESCE(SUM(b.qty_in_store),0), i.restock_level
+            FROM items i
+            LEFT JOIN %s b ON b.item_code = i.item_code
+            WHERE i.item_code IN (%s)
+            GROUP BY i.item_code, i.restock_level
+            """.formatted(stockTable, placeholders(codes.size()));
+        try (PreparedStatement ps = c.prepareStatement(sql)) {
+            for (int i = 0; i < codes.size(); i++) ps.setString(i + 1, codes.get(i));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    int restock = rs.getInt(4);
+                    if (rs.wasNull()) restock = 50;
+                    levels.put(rs.getString(1), new ItemStockLevel(rs.getString(1), rs.getInt(2), rs.getInt(3), restock));
                 }
-                c.commit();
-            } catch (Exception ex) {
-                c.rollback();
-                throw ex;
-            } finally {
-                c.setAutoCommit(true);
             }
-        } catch (SQLException e) {
-            throw new RuntimeException("commitStoreReservations failed", e);
         }
+        return levels;
+    }
+
+    // Any change to an item's batches, or a failed attempt at one, invalidates its cached FEFO lists
+    private void batchesChanged(String itemCode) {
+        if (batchCache != null) batchCache.bump(itemCode);
+    }
+
+    // Striped batches: one random bucket first, then the batch row, then a locked spill across all of them
+    private boolean takeFromBucket(Connection c, InventoryReservation r, StockBuckets.Column col) throws SQLException {
+        return buckets != null && buckets.take(c, r.batchId, col, r.quantity);
+    }
+
+    private boolean spillAcrossBuckets(Connection c, InventoryReservation r, StockBuckets.Column col) throws SQLException {
+        return buckets != null && buckets.spill(c, r.batchId, col, r.quantity);
     }
 
     @Override
     public int shelfQty(String itemCode) {
-        String sql = "SELECT COALESCE(SUM(qty_on_shelf),0) FROM batches WHERE item_code=?";
+        String sql = "SELECT COALESCE(SUM(qty_on_shelf),0) FROM " + stockTable + " WHERE item_code=?";
         try (Connection c = Db.get(); PreparedStatement ps = c.prepareStatement(sql)) {
             ps.setString(1, itemCode);
             try (ResultSet rs = ps.executeQuery()) { rs.next(); return rs.getInt(1); }
@@ -187,7 +407,7 @@ public final class JdbcInventoryRepository implements InventoryRepository {
 
     @Override
     public int storeQty(String itemCode) {
-        String sql = "SELECT COALESCE(SUM(qty_in_store),0) FROM batches WHERE item_code=?";
+        String sql = "SELECT COALESCE(SUM(qty_in_store),0) FROM " + stockTable + " WHERE item_code=?";
         try (Connection c = Db.get(); PreparedStatement ps = c.prepareStatement(sql)) {
             ps.setString(1, itemCode);
             try (ResultSet rs = ps.executeQuery()) { rs.next(); return rs.getInt(1); }
@@ -209,59 +429,8 @@ public final class JdbcInventoryRepository implements InventoryRepository {
 
     @Override
     public void moveStoreToShelfFEFO(String itemCode, int qty) {
-        if (qty <= 0) return;
-
-        String select = """
-            SELECT id, qty_in_store
-            FROM batches
-            WHERE item_code=? AND qty_in_store > 0
-            ORDER BY (expiry IS NULL), expiry ASC, id ASC
-            FOR UPDATE
-            """;
-        String update = "UPDATE batches SET qty_on_shelf = qty_on_shelf + ?, qty_in_store = qty_in_store - ? WHERE id=?";
-
-        try (Connection c = Db.get()) {
-            c.setAutoCommit(false);
-            try (PreparedStatement psSel = c.prepareStatement(select);
-                 PreparedStatement psUpd = c.prepareStatement(update)) {
-
-                psSel.setString(1, itemCode);
-                int remaining = qty;
-                int moved = 0;
-
-                try (ResultSet rs = psSel.executeQuery()) {
-                    while (rs.next() && remaining > 0) {
-                        long id = rs.getLong("id");
-                        int inStore = rs.getInt("qty_in_store");
-                        if (inStore <= 0) continue;
-
-                        int move = Math.min(inStore, remaining);
-                        psUpd.setInt(1, move);
-                        psUpd.setInt(2, move);
-                        psUpd.setLong(3, id);
-                        psUpd.addBatch();
-
-                        remaining -= move;
-                        moved += move;
-                    }
-                }
-
-                if (moved == 0) {
-                    c.rollback();
-                    throw new IllegalStateException("No stock in store to move for " + itemCode);
-                }
-
-                psUpd.executeBatch();
-                c.commit();
-            } catch (Exception ex) {
-                c.rollback();
-                throw ex;
-            } finally {
-                c.setAutoCommit(true);
-            }
-        } catch (SQLException e) {
-            throw new RuntimeException("moveStoreToShelfFEFO failed", e);
-        }
+        moveFEFO("moveStoreToShelfFEFO", itemCode, qty, StockLocation.STORE, StockLocation.SHELF, null,
+                "No stock in store to move for " + itemCode);
     }
 
     @Override
@@ -309,6 +478,8 @@ public final class JdbcInventoryRepository implements InventoryRepository {
             if (ps.executeUpdate() == 0) throw new IllegalStateException("Item not found: " + itemCode);
         } catch (SQLException e) {
             throw new RuntimeException("deleteItem failed (referenced by batches/bill_lines?)", e);
+        } finally {
+            batchesChanged(itemCode);
         }
     }
 
@@ -332,7 +503,9 @@ public final class JdbcInventoryRepository implements InventoryRepository {
                     }
                 }
             }
-            try (PreparedStatement ps = c.prepareStatement(insertSql)) {
+            c.setAutoCommit(false);
+            try (PreparedStatement ps = c.prepareStatement(insertSql, Statement.RETURN_GENERATED_KEYS);
+                 StockLedger ledger = new StockLedger(c)) {
                 ps.setString(1, itemCode.trim());
                 if (expiry == null) {
                     ps.setNull(2, Types.DATE);
@@ -343,46 +516,135 @@ public final class JdbcInventoryRepository implements InventoryRepository {
                 ps.setInt(4, qtyInStore);
                 int affected = ps.executeUpdate();
                 if (affected != 1) throw new IllegalStateException("Insert batch failed (affected=" + affected + ")");
+                long batchId;
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    keys.next();
+                    batchId = keys.getLong(1);
+                }
+                // qty_in_main comes from the column default, so read back what was stored
+                BatchBalance stored = lockBalance(c, batchId);
+                ledger.record(batchId, stored.itemCode, StockMovement.Type.RECEIPT,
+                        stored.main, stored.store, stored.shelf, null);
+                ledger.flush();
+                c.commit();
+            } catch (Exception ex) {
+                c.rollback();
+                throw ex;
+            } finally {
+                c.setAutoCommit(true);
             }
         } catch (SQLException e) {
             throw new RuntimeException("addBatch failed for " + itemCode, e);
+        } finally {
+            batchesChanged(itemCode.trim());
         }
     }
 
     @Override
     public void editBatchQuantities(long batchId, int qtyOnShelf, int qtyInStore) {
         String sql = "UPDATE batches SET qty_on_shelf=?, qty_in_store=? WHERE id=?";
+        String touched = null;
         try (Connection c = Db.get(); PreparedStatement ps = c.prepareStatement(sql)) {
-            ps.setInt(1, qtyOnShelf);
-            ps.setInt(2, qtyInStore);
-            ps.setLong(3, batchId);
-            if (ps.executeUpdate() == 0) throw new IllegalStateException("Batch not found: " + batchId);
+            c.setAutoCommit(false);
+            try (StockLedger ledger = new StockLedger(c)) {
+                BatchBalance before = lockBalance(c, batchId);
+                if (before == null) throw new IllegalStateException("Batch not found: " + batchId);
+                touched = before.itemCode;
+                // Absolute quantities replace whatever sits in the batch's buckets
+                if (buckets != null) buckets.clear(c, batchId);
+                ps.setInt(1, qtyOnShelf);
+                ps.setInt(2, qtyInStore);
+                ps.setLong(3, batchId);
+                ps.executeUpdate();
+                ledger.record(batchId, before.itemCode, StockMovement.Type.ADJUSTMENT, 0,
+                        qtyInStore - before.store, qtyOnShelf - before.shelf, null);
+                ledger.flush();
+                c.commit();
+            } catch (Exception ex) {
+                c.rollback();
+                throw ex;
+            } finally {
+                c.setAutoCommit(true);
+            }
         } catch (SQLException e) {
             throw new RuntimeException("editBatchQuantities failed", e);
+        } finally {
+            batchesChanged(touched);
         }
     }
 
     @Override
     public void updateBatchExpiry(long batchId, LocalDate newExpiry) {
         String sql = "UPDATE batches SET expiry=? WHERE id=?";
+        String touched = null;
         try (Connection c = Db.get(); PreparedStatement ps = c.prepareStatement(sql)) {
+            // the new expiry changes the item's FEFO order, so its cached lists must go
+            if (batchCache != null) touched = itemCodeOfBatch(c, batchId);
             if (newExpiry == null) ps.setNull(1, Types.DATE); else ps.setDate(1, Date.valueOf(newExpiry));
             ps.setLong(2, batchId);
             if (ps.executeUpdate() == 0) throw new IllegalStateException("Batch not found: " + batchId);
         } catch (SQLException e) {
             throw new RuntimeException("updateBatchExpiry failed", e);
+        } finally {
+            batchesChanged(touched);
+        }
+    }
+
+    private static String itemCodeOfBatch(Connection c, long batchId) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement("SELECT item_code FROM batches WHERE id=?")) {
+            ps.setLong(1, batchId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getString(1) : null;
+            }
         }
     }
 
     @Override
     public void deleteBatch(long batchId) {
         String sql = "DELETE FROM batches WHERE id=?";
+        String touched = null;
         try (Connection c = Db.get(); PreparedStatement ps = c.prepareStatement(sql)) {
-            ps.setLong(1, batchId);
-            if (ps.executeUpdate() == 0) throw new IllegalStateException("Batch not found: " + batchId);
+            c.setAutoCommit(false);
+            try (StockLedger ledger = new StockLedger(c)) {
+                BatchBalance before = lockBalance(c, batchId);
+                if (before == null) throw new IllegalStateException("Batch not found: " + batchId);
+                touched = before.itemCode;
+                ps.setLong(1, batchId);
+                ps.executeUpdate();
+                // The ledger keeps the history; closing the batch's balance to zero
+                ledger.record(batchId, before.itemCode, StockMovement.Type.ADJUSTMENT,
+                        -before.main, -before.store, -before.shelf, null);
+                ledger.flush();
+                c.commit();
+            } catch (Exception ex) {
+                c.rollback();
+                throw ex;
+            } finally {
+                c.setAutoCommit(true);
+            }
         } catch (SQLException e) {
             throw new RuntimeException("deleteBatch failed", e);
+        } finally {
+            batchesChanged(touched);
+        }
+    }
+
+    private record BatchBalance(String itemCode, int main, int store, int shelf) {}
+
+    // Locks the batch row and returns its full balance (buckets included), or null if it does not exist
+    private BatchBalance lockBalance(Connection c, long batchId) throws SQLException {
+        String sql = "SELECT item_code, qty_in_main, qty_in_store, qty_on_shelf FROM batches WHERE id=? FOR UPDATE";
+        BatchBalance row;
+        try (PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setLong(1, batchId);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) return null;
+                row = new BatchBalance(rs.getString(1), rs.getInt(2), rs.getInt(3), rs.getInt(4));
+            }
         }
+        if (buckets == null || !buckets.isStriped(batchId)) return row;
+        int[] inBuckets = buckets.sums(c, batchId);
+        return new BatchBalance(row.itemCode, row.main, row.store + inBuckets[1], row.shelf + inBuckets[0]);
     }
 
     @Override
@@ -407,111 +669,443 @@ public final class JdbcInventoryRepository implements InventoryRepository {
     }
 
     public void moveMainToStoreFEFO(String itemCode, int qty, String transferredBy) {
+        moveFEFO("moveMainToStoreFEFO", itemCode, qty, StockLocation.MAIN, StockLocation.STORE,
+                transferredBy == null ? "system" : transferredBy,
+                "No stock in MAIN to move (to STORE) for " + itemCode);
+    }
+
+    @Override
+    public void moveMainToShelfFEFO(String itemCode, int qty) {
+        moveFEFO("moveMainToShelfFEFO", itemCode, qty, StockLocation.MAIN, StockLocation.SHELF, null,
+                "No stock in MAIN to move (to SHELF) for " + itemCode);
+    }
+
+    /**
+     * FEFO move of one item between locations. The item's batches are locked in id order (the same
+     * order every other mutation uses), FEFO is applied in memory, and updates go out in id order.
+     * {@code logBy} != null writes a transfers row per batch touched.
+     */
+    private void moveFEFO(String op, String itemCode, int qty, StockLocation from, StockLocation to,
+                          String logBy, String emptyMessage) {
         if (qty <= 0) return;
 
-        String select = "SELECT id, qty_in_main FROM batches " +
-                        "WHERE item_code=? AND qty_in_main > 0 " +
-                        "ORDER BY (expiry IS NULL), expiry ASC, id ASC FOR UPDATE";
-        String update = "UPDATE batches SET qty_in_main = qty_in_main - ?, qty_in_store = qty_in_store + ? WHERE id=?";
+        String update = "UPDATE batches SET qty_in_main = qty_in_main + ?, qty_in_store = qty_in_store + ?, " +
+                        "qty_on_shelf = qty_on_shelf + ? WHERE id=?";
         String logTransfer = "INSERT INTO transfers (item_code, batch_id, qty, transferred_by) VALUES (?,?,?,?)";
 
-        try (Connection c = Db.get()) {
-            c.setAutoCommit(false);
-            try (PreparedStatement psSel = c.prepareStatement(select);
-                 PreparedStatement psUpd = c.prepareStatement(update);
-                 PreparedStatement psLog = c.prepareStatement(logTransfer)) {
+        try {
+            retry.run(op, () -> {
+                try (Connection c = Db.get()) {
+                    c.setAutoCommit(false);
+                    try (PreparedStatement psUpd = c.prepareStatement(update);
+                         PreparedStatement psLog = c.prepareStatement(logTransfer);
+                         StockLedger ledger = new StockLedger(c)) {
 
-                psSel.setString(1, itemCode);
-                int remaining = qty;
-                int moved = 0;
+                        List<BatchQty> batches = readBatches(c, itemCode, true);
+                        if (buckets != null && from != StockLocation.MAIN) {
+                            // rows are locked now; fold buckets in and re-read the source quantities
+                            buckets.fold(c, List.of(itemCode));
+                            batches = readBatches(c, itemCode, false);
+                        }
 
-                try (ResultSet rs = psSel.executeQuery()) {
-                    while (rs.next() && remaining > 0) {
-                        long id = rs.getLong("id");
-                        int inMain = rs.getInt("qty_in_main");
-                        if (inMain <= 0) continue;
-
-                        int move = Math.min(inMain, remaining);
-                        psUpd.setInt(1, move);
-                        psUpd.setInt(2, move);
-                        psUpd.setLong(3, id);
-                        psUpd.addBatch();
-
-                        psLog.setString(1, itemCode);
-                        psLog.setLong(2, id);
-                        psLog.setInt(3, move);
-                        psLog.setString(4, transferredBy == null ? "system" : transferredBy);
-                        psLog.addBatch();
-
-                        remaining -= move;
-                        moved += move;
+                        List<BatchQty> fefo = new ArrayList<>(batches);
+                        fefo.sort(BatchQty.FEFO);
+                        Map<Long, Integer> taken = new TreeMap<>();
+                        int remaining = qty;
+                        for (BatchQty b : fefo) {
+                            if (remaining == 0) break;
+                            int move = Math.min(b.available(from), remaining);
+                            if (move <= 0) continue;
+                            b.shift(from, to, move);
+                            taken.put(b.id, move);
+                            remaining -= move;
+                        }
+
+                        if (taken.isEmpty()) {
+                            c.rollback();
+                            throw new IllegalStateException(emptyMessage);
+                        }
+
+                        for (BatchQty b : batches) {
+                            Integer move = taken.get(b.id);
+                            if (move == null) continue;
+                            psUpd.setInt(1, b.deltaMain);
+                            psUpd.setInt(2, b.deltaStore);
+                            psUpd.setInt(3, b.deltaShelf);
+                            psUpd.setLong(4, b.id);
+                            psUpd.addBatch();
+                            ledger.record(b.id, itemCode, StockMovement.Type.TRANSFER,
+                                    b.deltaMain, b.deltaStore, b.deltaShelf, logBy);
+                            if (logBy != null) {
+                                psLog.setString(1, itemCode);
+                                psLog.setLong(2, b.id);
+                                psLog.setInt(3, move);
+                                psLog.setString(4, logBy);
+                                psLog.addBatch();
+                            }
+                        }
+                        psUpd.executeBatch();
+                        if (logBy != null) psLog.executeBatch();
+                        ledger.flush();
+                        c.commit();
+                    } catch (Exception ex) {
+                        c.rollback();
+                        throw ex;
+                    } finally {
+                        c.setAutoCommit(true);
                     }
                 }
+                return null;
+            });
+        } catch (SQLException e) {
+            throw new RuntimeException(op + " failed", e);
+        } finally {
+            batchesChanged(itemCode);
+        }
+    }
 
-                if (moved == 0) {
-                    c.rollback();
-                    throw new IllegalStateException("No stock in MAIN to move (to STORE) for " + itemCode);
+    private static List<BatchQty> readBatches(Connection c, String itemCode, boolean forUpdate) throws SQLException {
+        List<BatchQty> out = new ArrayList<>();
+        try (PreparedStatement ps = c.prepareStatement(
+                "SELECT id, expiry, qty_in_main, qty_in_store, qty_on_shelf FROM batches WHERE item_code=? ORDER BY id" +
+                (forUpdate ? " FOR UPDATE" : ""))) {
+            ps.setString(1, itemCode);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Date d = rs.getDate("expiry");
+                    out.add(new BatchQty(rs.getLong("id"), d == null ? null : d.toLocalDate(),
+                            rs.getInt("qty_in_main"), rs.getInt("qty_in_store"), rs.getInt("qty_on_shelf")));
                 }
+            }
+        }
+        return out;
+    }
 
-                psUpd.executeBatch();
-                psLog.executeBatch();
+
+    // ===== Catalog snapshot =====
+    @Override
+    public CatalogStockSnapshot loadStockSnapshot() {
+        String items = "SELECT item_code, restock_level FROM items";
+        String batches = "SELECT item_code, qty_on_shelf, qty_in_store, qty_in_main FROM " + stockTable;
+        var builder = new CatalogStockSnapshot.Builder();
+
+        // Both reads share one REPEATABLE READ transaction, so they see the same snapshot
+        try (Connection c = Db.get()) {
+            c.setAutoCommit(false);
+            c.setReadOnly(true);
+            c.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            try {
+                try (PreparedStatement ps = streaming(c, items); ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) builder.item(rs.getString(1), safeGetInt(rs, "restock_level", 50));
+                }
+                try (PreparedStatement ps = streaming(c, batches); ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) builder.batch(rs.getString(1), rs.getInt(2), rs.getInt(3), rs.getInt(4));
+                }
                 c.commit();
             } catch (Exception ex) {
                 c.rollback();
                 throw ex;
             } finally {
+                c.setReadOnly(false);
                 c.setAutoCommit(true);
             }
+            return builder.build();
         } catch (SQLException e) {
-            throw new RuntimeException("moveMainToStoreFEFO failed", e);
+            throw new RuntimeException("loadStockSnapshot failed", e);
         }
     }
 
+    // ===== Basket lookup =====
     @Override
-    public void moveMainToShelfFEFO(String itemCode, int qty) {
-        if (qty <= 0) return;
+    public BasketLookup loadBasket(Collection<String> itemCodes, StockLocation source) {
+        List<String> codes = itemCodes.stream().distinct().toList();
+        if (codes.isEmpty()) return new BasketLookup(Map.of(), Map.of(), Map.of());
+        String qtyCol = switch (source) {
+            case MAIN -> "qty_in_main";
+            case STORE -> "qty_in_store";
+            case SHELF -> "qty_on_shelf";
+        };
+        String items = "SELECT id, item_code, name, unit_price, restock_level FROM items WHERE item_code IN (" +
+                       placeholders(codes.size()) + ")";
+        String batches = """
+            SELECT id, item_code, expiry, qty_on_shelf, qty_in_store, qty_in_main
+            FROM %s
+            WHERE item_code IN (%s) AND %s > 0
+            ORDER BY item_code, (expiry IS NULL), expiry ASC, id ASC
+            """.formatted(stockTable, placeholders(codes.size()), qtyCol);
 
-        String select = """
-            SELECT id, qty_in_main
-            FROM batches
-            WHERE item_code=? AND qty_in_main > 0
-            ORDER BY (expiry IS NULL), expiry ASC, id ASC
-            FOR UPDATE
-            """;
-        String update = "UPDATE batches SET qty_in_main = qty_in_main - ?, qty_on_shelf = qty_on_shelf + ? WHERE id=?";
+        Map<String, Item> itemMap = new HashMap<>();
+        Map<String, List<Batch>> batchMap = new HashMap<>();
+        Map<Long, BatchDiscount> discountMap = new HashMap<>();
+        try (Connection c = Db.get()) {
+            try (PreparedStatement ps = c.prepareStatement(items)) {
+                for (int i = 0; i < codes.size(); i++) ps.setString(i + 1, codes.get(i));
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        itemMap.put(rs.getString("item_code"), new Item(
+                                rs.getLong("id"),
+                                rs.getString("item_code"),
+                                rs.getString("name"),
+                                new Money(rs.getBigDecimal("unit_price")),
+                                safeGetInt(rs, "restock_level", 50)));
+                    }
+                }
+            }
+            List<Long> batchIds = new ArrayList<>();
+            try (PreparedStatement ps = c.prepareStatement(batches)) {
+                for (int i = 0; i < codes.size(); i++) ps.setString(i + 1, codes.get(i));
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        Date d = rs.getDate("expiry");
+                        Batch b = new Batch(
+                                rs.getLong("id"),
+                                rs.getString("item_code"),
+                                d == null ? null : d.toLocalDate(),
+                                rs.getInt("qty_on_shelf"),
+                                rs.getInt("qty_in_store"),
+                                getSafeInt(rs, "qty_in_main"));
+                        batchMap.computeIfAbsent(b.itemCode(), k -> new ArrayList<>()).add(b);
+                        batchIds.add(b.id());
+                    }
+                }
+            }
+            if (!batchIds.isEmpty()) {
+                // Newest active discount per batch, same pick as findActiveBatchDiscount
+                String discounts = """
+                    SELECT id, batch_id, discount_type, discount_value, reason,
+                           valid_from, valid_until, created_by, created_at, is_active
+                    FROM batch_discounts
+                    WHERE batch_id IN (%s) AND is_active = TRUE
+                    ORDER BY batch_id, created_at DESC
+                    """.formatted(placeholders(batchIds.size()));
+                try (PreparedStatement ps = c.prepareStatement(discounts)) {
+                    for (int i = 0; i < batchIds.size(); i++) ps.setLong(i + 1, batchIds.get(i));
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            BatchDiscount d = mapBatchDiscount(rs);
+                            discountMap.putIfAbsent(d.batchId(), d);
+                        }
+                    }
+                }
+            }
+            return new BasketLookup(itemMap, batchMap, discountMap);
+        } catch (SQLException e) {
+            throw new RuntimeException("loadBasket failed", e);
+        }
+    }
+
+    // Row-by-row streaming (MySQL Connector/J convention) instead of buffering the full result
+    private static PreparedStatement streaming(Connection c, String sql) throws SQLException {
+        PreparedStatement ps = c.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        ps.setFetchSize(Integer.MIN_VALUE);
+        return ps;
+    }
+
+    /** Deadlock / lock-timeout retry counters for the stock mutations of this repository. */
+    public TransactionRetry.RetryStats retryStats() {
+        return retry.stats();
+    }
+
+    @Override
+    public Retries retries() {
+        TransactionRetry.RetryStats r = retryStats();
+        return new Retries(r.transactions(), r.retries(), r.deadlocks(), r.lockWaitTimeouts(),
+                r.exhausted(), r.backoffMillis(), r.retriesByOperation());
+    }
+
+    /** FEFO batch cache counters, or empty when the cache is off. */
+    public Optional<BatchCache.Stats> batchCacheStats() {
+        return batchCache == null ? Optional.empty() : Optional.of(batchCache.stats());
+    }
+
+    @Override
+    public Optional<StockStoreStats.CacheStats> batchCache() {
+        return batchCacheStats().map(b -> new StockStoreStats.CacheStats(b.hits(), b.misses(), b.invalidations(),
+                b.rejectedLoads(), b.cachedLists()));
+    }
+
+    // ===== Striped stock (hot batches) =====
+    public boolean stripedStockEnabled() {
+        return buckets != null;
+    }
+
+    /** Stripes every batch of the given items that still has sellable stock; returns how many were newly striped. */
+    public int stripeItems(Collection<String> itemCodes, int bucketCount) {
+        if (buckets == null || itemCodes.isEmpty()) return 0;
+        String select = "SELECT id FROM batches WHERE item_code IN (" + placeholders(itemCodes.size()) + ") " +
+                        "AND (qty_on_shelf > 0 OR qty_in_store > 0) ORDER BY id";
+        List<Long> ids = new ArrayList<>();
+        try (Connection c = Db.get(); PreparedStatement ps = c.prepareStatement(select)) {
+            int i = 1;
+            for (String code : itemCodes) ps.setString(i++, code);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) ids.add(rs.getLong(1));
+            }
+            int striped = 0;
+            for (long id : ids) {
+                if (buckets.isStriped(id)) continue;
+                inTransaction(c, () -> buckets.stripe(c, id, bucketCount));
+                striped++;
+            }
+            return striped;
+        } catch (SQLException e) {
+            throw new RuntimeException("stripeItems failed", e);
+        }
+    }
+
+    public void unstripeBatch(long batchId) {
+        if (buckets == null) return;
+        try (Connection c = Db.get()) {
+            inTransaction(c, () -> buckets.unstripe(c, batchId));
+        } catch (SQLException e) {
+            throw new RuntimeException("unstripeBatch failed", e);
+        }
+    }
+
+    /** Evens out every striped batch, one short transaction per batch; returns how many were rebalanced. */
+    public int rebalanceStockBuckets() {
+        if (buckets == null) return 0;
+        try (Connection c = Db.get()) {
+            buckets.refresh(c);
+            int done = 0;
+            for (long id : buckets.stripedBatchIds()) {
+                boolean[] ok = new boolean[1];
+                inTransaction(c, () -> ok[0] = buckets.rebalance(c, id));
+                if (ok[0]) done++;
+            }
+            return done;
+        } catch (SQLException e) {
+            throw new RuntimeException("rebalanceStockBuckets failed", e);
+        }
+    }
+
+    private interface SqlWork { void run() throws SQLException; }
+
+    private static void inTransaction(Connection c, SqlWork work) throws SQLException {
+        c.setAutoCommit(false);
+        try {
+            work.run();
+            c.commit();
+        } catch (Exception ex) {
+            c.rollback();
+            throw ex;
+        } finally {
+            c.setAutoCommit(true);
+        }
+    }
+
+    // ===== Bulk transfers =====
+    @Override
+    public BulkTransferResult applyMoves(List<StockMove> moves, String transferredBy, int chunkSize) {
+        if (chunkSize <= 0) throw new IllegalArgumentException("chunkSize must be > 0");
+        long started = System.currentTimeMillis();
+        String by = transferredBy == null ? "system" : transferredBy;
+
+        // Keep every move of one item in the same chunk so FEFO sees its own earlier moves
+        Map<String, List<Integer>> byItem = new LinkedHashMap<>();
+        for (int i = 0; i < moves.size(); i++) {
+            byItem.computeIfAbsent(moves.get(i).itemCode(), k -> new ArrayList<>()).add(i);
+        }
+
+        int[] moved = new int[moves.size()];
+        int chunks = 0;
+        List<String> codes = new ArrayList<>(byItem.keySet());
+        for (int from = 0; from < codes.size(); from += chunkSize) {
+            List<String> chunkCodes = codes.subList(from, Math.min(codes.size(), from + chunkSize));
+            List<Integer> chunkMoves = new ArrayList<>();
+            for (String code : chunkCodes) chunkMoves.addAll(byItem.get(code));
+            chunkMoves.sort(Comparator.naturalOrder()); // caller order within the chunk
+            try {
+                retry.run("applyMoves", () -> {
+                    applyChunk(moves, chunkMoves, chunkCodes, by, moved);
+                    return null;
+                });
+            } catch (SQLException e) {
+                throw new RuntimeException("applyMoves failed after " + chunks + " committed chunk(s)", e);
+            } finally {
+                if (batchCache != null) batchCache.bumpAll(chunkCodes);
+            }
+            chunks++;
+        }
+
+        List<MoveResult> results = new ArrayList<>(moves.size());
+        for (int i = 0; i < moves.size(); i++) results.add(new MoveResult(moves.get(i), moved[i]));
+        return new BulkTransferResult(results, chunks, System.currentTimeMillis() - started);
+    }
+
+    private void applyChunk(List<StockMove> moves, List<Integer> chunkMoves, List<String> chunkCodes,
+                            String by, int[] moved) throws SQLException {
+        String select = "SELECT id, item_code, expiry, qty_on_shelf, qty_in_store, qty_in_main FROM batches " +
+                        "WHERE item_code IN (" + placeholders(chunkCodes.size()) + ") ORDER BY id FOR UPDATE";
+        String update = "UPDATE batches SET qty_in_main = qty_in_main + ?, qty_in_store = qty_in_store + ?, " +
+                        "qty_on_shelf = qty_on_shelf + ? WHERE id=?";
+        String logTransfer = "INSERT INTO transfers (item_code, batch_id, qty, transferred_by) VALUES (?,?,?,?)";
 
         try (Connection c = Db.get()) {
             c.setAutoCommit(false);
             try (PreparedStatement psSel = c.prepareStatement(select);
-                 PreparedStatement psUpd = c.prepareStatement(update)) {
-
-                psSel.setString(1, itemCode);
-                int remaining = qty;
-                int moved = 0;
+                 PreparedStatement psUpd = c.prepareStatement(update);
+                 PreparedStatement psLog = c.prepareStatement(logTransfer);
+                 StockLedger ledger = new StockLedger(c)) {
 
+                // One locking read for the whole chunk, in primary key order
+                List<String> sortedCodes = new ArrayList<>(chunkCodes);
+                sortedCodes.sort(Comparator.naturalOrder());
+                for (int i = 0; i < sortedCodes.size(); i++) psSel.setString(i + 1, sortedCodes.get(i));
+                if (buckets != null) {
+                    psSel.execute(); // take the row locks first, in id order
+                    buckets.fold(c, sortedCodes);
+                }
+                Map<String, List<BatchQty>> batchesByItem = new LinkedHashMap<>();
                 try (ResultSet rs = psSel.executeQuery()) {
-                    while (rs.next() && remaining > 0) {
-                        long id = rs.getLong("id");
-                        int inMain = rs.getInt("qty_in_main");
-                        if (inMain <= 0) continue;
-
-                        int move = Math.min(inMain, remaining);
-                        psUpd.setInt(1, move);
-                        psUpd.setInt(2, move);
-                        psUpd.setLong(3, id);
-                        psUpd.addBatch();
-
-                        remaining -= move;
-                        moved += move;
+                    while (rs.next()) {
+                        Date d = rs.getDate("expiry");
+                        batchesByItem.computeIfAbsent(rs.getString("item_code"), k -> new ArrayList<>())
+                                .add(new BatchQty(rs.getLong("id"), d == null ? null : d.toLocalDate(),
+                                        rs.getInt("qty_in_main"), rs.getInt("qty_in_store"), rs.getInt("qty_on_shelf")));
                     }
                 }
+                for (List<BatchQty> list : batchesByItem.values()) list.sort(BatchQty.FEFO);
+
+                // Plan in memory; deltas per batch id keep the UPDATE batch in id order
+                Map<Long, BatchQty> touched = new TreeMap<>();
+                Map<Long, String> itemOf = new HashMap<>();
+                for (int idx : chunkMoves) {
+                    StockMove m = moves.get(idx);
+                    int remaining = m.qty();
+                    for (BatchQty b : batchesByItem.getOrDefault(m.itemCode(), List.of())) {
+                        if (remaining == 0) break;
+                        int take = Math.min(b.available(m.from()), remaining);
+                        if (take <= 0) continue;
+                        b.shift(m.from(), m.to(), take);
+                        touched.put(b.id, b);
+                        itemOf.put(b.id, m.itemCode());
+                        remaining -= take;
 
-                if (moved == 0) {
-                    c.rollback();
-                    throw new IllegalStateException("No stock in MAIN to move (to SHELF) for " + itemCode);
+                        // Same audit rule as moveMainToStoreFEFO: MAIN -> STORE transfers are logged
+                        if (m.from() == StockLocation.MAIN && m.to() == StockLocation.STORE) {
+                            psLog.setString(1, m.itemCode());
+                            psLog.setLong(2, b.id);
+                            psLog.setInt(3, take);
+                            psLog.setString(4, by);
+                            psLog.addBatch();
+                        }
+                    }
+                    moved[idx] = m.qty() - remaining;
                 }
 
+                for (BatchQty b : touched.values()) {
+                    psUpd.setInt(1, b.deltaMain);
+                    psUpd.setInt(2, b.deltaStore);
+                    psUpd.setInt(3, b.deltaShelf);
+                    psUpd.setLong(4, b.id);
+                    psUpd.addBatch();
+                    ledger.record(b.id, itemOf.get(b.id), StockMovement.Type.TRANSFER,
+                            b.deltaMain, b.deltaStore, b.deltaShelf, by);
+                }
                 psUpd.executeBatch();
+                psLog.executeBatch();
+                ledger.flush();
                 c.commit();
             } catch (Exception ex) {
                 c.rollback();
@@ -519,8 +1113,44 @@ public final class JdbcInventoryRepository implements InventoryRepository {
             } finally {
                 c.setAutoCommit(true);
             }
-        } catch (SQLException e) {
-            throw new RuntimeException("moveMainToShelfFEFO failed", e);
+        }
+    }
+
+    private static String placeholders(int n) {
+        return String.join(",", Collections.nCopies(n, "?"));
+    }
+
+    // Locked batch row plus the net change planned for it in this chunk
+    private static final class BatchQty {
+        static final Comparator<BatchQty> FEFO = Comparator
+                .comparing((BatchQty b) -> b.expiry == null)
+                .thenComparing(b -> b.expiry, Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparingLong(b -> b.id);
+
+        final long id;
+        final LocalDate expiry;
+        int main, store, shelf;
+        int deltaMain, deltaStore, deltaShelf;
+
+        BatchQty(long id, LocalDate expiry, int main, int store, int shelf) {
+            this.id = id; this.expiry = expiry; this.main = main; this.store = store; this.shelf = shelf;
+        }
+
+        int available(StockLocation loc) {
+            return switch (loc) { case MAIN -> main; case STORE -> store; case SHELF -> shelf; };
+        }
+
+        void shift(StockLocation from, StockLocation to, int qty) {
+            add(from, -qty);
+            add(to, qty);
+        }
+
+        private void add(StockLocation loc, int qty) {
+            switch (loc) {
+                case MAIN -> { main += qty; deltaMain += qty; }
+                case STORE -> { store += qty; deltaStore += qty; }
+                case SHELF -> { shelf += qty; deltaShelf += qty; }
+            }
         }
     }
 
@@ -528,7 +1158,7 @@ public final class JdbcInventoryRepository implements InventoryRepository {
     public List<Item> listAllItems() {
         String sql = "SELECT id, item_code, name, unit_price, restock_level FROM items ORDER BY item_code ASC";
         List<Item> list = new ArrayList<>();
-        try (Connection c = Db.get();
+        try (Connection c = Db.read(); // catalog reads tolerate replica lag
              PreparedStatement ps = c.prepareStatement(sql);
              ResultSet rs = ps.executeQuery()) {
             while (rs.next()) {
@@ -557,7 +1187,7 @@ public final class JdbcInventoryRepository implements InventoryRepository {
             """;
         List<Item> list = new ArrayList<>();
         String like = "%" + (query == null ? "" : query.trim()) + "%";
-        try (Connection c = Db.get();
+        try (Connection c = Db.read();
              PreparedStatement ps = c.prepareStatement(sql)) {
             ps.setString(1, like);
             ps.setString(2, like);
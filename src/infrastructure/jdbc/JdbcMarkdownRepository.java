@@ -0,0 +1,147 @@
+package infrastructure.jdbc;
+
+import application.pricing.MarkdownRepository;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Markdown sweep storage. Candidates are a range scan on {@code idx_batches_expiry} and the
+ * sweeper's own markdowns come from the active discounts, so no query walks the whole batches table.
+ */
+public final class JdbcMarkdownRepository implements MarkdownRepository {
+
+    private final String stockTable;
+
+    public JdbcMarkdownRepository() {
+        this(false);
+    }
+
+    public JdbcMarkdownRepository(boolean stripedStock) {
+        this.stockTable = stripedStock ? "batch_stock" : "batches";
+    }
+
+    @Override
+    public List<ExpiringBatch> expiringBetween(LocalDate afterExclusive, LocalDate toInclusive) {
+        String sql = """
+            SELECT id, item_code, expiry
+            FROM %s
+            WHERE expiry > ? AND expiry <= ? AND (qty_on_shelf > 0 OR qty_in_store > 0)
+            ORDER BY expiry, id
+            """.formatted(stockTable);
+        try (Connection c = Db.get(); PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setDate(1, Date.valueOf(afterExclusive));
+            ps.setDate(2, Date.valueOf(toInclusive));
+            return readBatches(ps);
+        } catch (SQLException e) {
+            throw new RuntimeException("expiringBetween failed", e);
+        }
+    }
+
+    @Override
+    public List<ActiveMarkdown> activeMarkdowns(String createdBy) {
+        String sql = "SELECT batch_id, discount_value, valid_until FROM batch_discounts WHERE is_active = TRUE AND created_by = ?";
+        List<ActiveMarkdown> out = new ArrayList<>();
+        try (Connection c = Db.get(); PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setString(1, createdBy);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Timestamp until = rs.getTimestamp(3);
+                    // valid_until is the start of the day after the expiry it was priced for
+                    out.add(new ActiveMarkdown(rs.getLong(1), rs.getBigDecimal(2).intValue(),
+                            until == null ? null : until.toLocalDateTime().toLocalDate().minusDays(1)));
+                }
+            }
+            return out;
+        } catch (SQLException e) {
+            throw new RuntimeException("activeMarkdowns failed", e);
+        }
+    }
+
+    private static List<ExpiringBatch> readBatches(PreparedStatement ps) throws SQLException {
+        List<ExpiringBatch> out = new ArrayList<>();
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                out.add(new ExpiringBatch(rs.getLong(1), rs.getString(2), rs.getDate(3).toLocalDate()));
+            }
+        }
+        return out;
+    }
+
+    @Override
+    public int applyMarkdowns(List<Markdown> markdowns, String createdBy, SweepState state) {
+        // A manager's own discount on the batch wins over the sweeper
+        String insert = """
+            INSERT INTO batch_discounts (batch_id, discount_type, discount_value, reason, valid_from, valid_until, created_by)
+            SELECT ?, 'PERCENTAGE', ?, ?, NOW(), ?, ?
+            FROM DUAL
+            WHERE NOT EXISTS (SELECT 1 FROM batch_discounts d WHERE d.batch_id = ? AND d.is_active = TRUE AND d.created_by <> ?)
+            """;
+        String saveState = "INSERT INTO markdown_sweep_state (id, swept_on) VALUES (1, ?) " +
+                           "ON DUPLICATE KEY UPDATE swept_on = VALUES(swept_on)";
+        try (Connection c = Db.get()) {
+            c.setAutoCommit(false);
+            try {
+                int created = 0;
+                if (!markdowns.isEmpty()) {
+                    String retire = "UPDATE batch_discounts SET is_active = FALSE " +
+                                    "WHERE created_by = ? AND is_active = TRUE AND batch_id IN (" +
+                                    String.join(",", Collections.nCopies(markdowns.size(), "?")) + ")";
+                    try (PreparedStatement ps = c.prepareStatement(retire)) {
+                        ps.setString(1, createdBy);
+                        for (int i = 0; i < markdowns.size(); i++) ps.setLong(i + 2, markdowns.get(i).batchId());
+                        ps.executeUpdate();
+                    }
+                    try (PreparedStatement ps = c.prepareStatement(insert)) {
+                        for (Markdown m : markdowns) {
+                            ps.setLong(1, m.batchId());
+                            ps.setInt(2, m.percentOff());
+                            ps.setString(3, m.reason());
+                            // valid through the end of the expiry day
+                            ps.setTimestamp(4, Timestamp.valueOf(m.expiry().plusDays(1).atStartOfDay()));
+                            ps.setString(5, createdBy);
+                            ps.setLong(6, m.batchId());
+                            ps.setString(7, createdBy);
+                            ps.addBatch();
+                        }
+                        for (int n : ps.executeBatch()) {
+                            if (n > 0 || n == Statement.SUCCESS_NO_INFO) created++;
+                        }
+                    }
+                }
+                try (PreparedStatement ps = c.prepareStatement(saveState)) {
+                    ps.setDate(1, Date.valueOf(state.sweptOn()));
+                    ps.executeUpdate();
+                }
+                c.commit();
+                return created;
+            } catch (Exception ex) {
+                c.rollback();
+                throw ex;
+            } finally {
+                c.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("applyMarkdowns failed", e);
+        }
+    }
+
+    @Override
+    public int deactivate(Collection<Long> batchIds, String createdBy) {
+        if (batchIds.isEmpty()) return 0;
+        String sql = "UPDATE batch_discounts SET is_active = FALSE WHERE created_by = ? AND is_active = TRUE AND batch_id IN (" +
+                     String.join(",", Collections.nCopies(batchIds.size(), "?")) + ")";
+        try (Connection c = Db.get(); PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setString(1, createdBy);
+            int i = 2;
+            for (long id : batchIds) ps.setLong(i++, id);
+            return ps.executeUpdate();
+        } catch (SQLException e) {
+            throw new RuntimeException("deactivate failed", e);
+        }
+    }
+}
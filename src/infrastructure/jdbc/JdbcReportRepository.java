@@ -1,50 +1,77 @@
 package infrastructure.jdbc;
 
+import application.events.events.BillPaid;
+import application.reporting.PaidBillFeed;
 import application.reporting.ReportRepository;
+import domain.common.Money;
 
 import java.sql.*;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
-public final class JdbcReportRepository implements ReportRepository {
+public final class JdbcReportRepository implements ReportRepository, PaidBillFeed {
+
+    // All report queries go through Db.read(), i.e. the read replica when one is configured and fresh.
+    // "batch_stock" when striped stock is on, so bucket quantities are included in stock reports
+    private final String stockTable;
+    private final int queryTimeoutSeconds; // 0: no limit
+
+    public JdbcReportRepository() {
+        this(false);
+    }
+
+    public JdbcReportRepository(boolean stripedStock) {
+        this(stripedStock, Duration.ZERO);
+    }
+
+    /**
+     * {@code queryTimeout} bounds the aggregate queries a management summary runs side by side (daily
+     * sales, best sellers and the per-day item totals behind them, revenue, restock): the server
+     * cancels them once it passes, so a summary that gave up on one does not leave it holding a
+     * connection. Bill listings, exports and replays are never cut short.
+     */
+    public JdbcReportRepository(boolean stripedStock, Duration queryTimeout) {
+        this.stockTable = stripedStock ? "batch_stock" : "batches";
+        this.queryTimeoutSeconds = (int) Math.min(Integer.MAX_VALUE, (queryTimeout.toMillis() + 999) / 1000);
+    }
+
+    private PreparedStatement timed(Connection c, String sql) throws SQLException {
+        PreparedStatement ps = c.prepareStatement(sql);
+        if (queryTimeoutSeconds > 0) ps.setQueryTimeout(queryTimeoutSeconds);
+        return ps;
+    }
 
     @Override
     public DailySalesRow dailySales(LocalDate day) {
-        String q1 = """
-            SELECT DATE(created_at) AS d,
-                   COUNT(*) AS bills,
+        // one round trip; half-open created_at ranges instead of DATE(created_at) so the index is usable
+        String sql = """
+            SELECT COUNT(*) AS bills,
                    COALESCE(SUM(total),0) AS revenue,
-                   COALESCE(SUM(discount),0) AS discounts
+                   COALESCE(SUM(discount),0) AS discounts,
+                   (SELECT COALESCE(SUM(bl.qty),0)
+                    FROM bill_lines bl
+                    JOIN bills b2 ON bl.bill_id=b2.id
+                    WHERE b2.created_at >= ? AND b2.created_at < DATE_ADD(?, INTERVAL 1 DAY)) AS items
             FROM bills
-            WHERE DATE(created_at)=?
-            """;
-        String q2 = """
-            SELECT COALESCE(SUM(bl.qty),0) AS items
-            FROM bill_lines bl
-            JOIN bills b ON bl.bill_id=b.id
-            WHERE DATE(b.created_at)=?
+            WHERE created_at >= ? AND created_at < DATE_ADD(?, INTERVAL 1 DAY)
             """;
-        try (Connection c = Db.get()) {
-            long bills; String revenue; String discounts;
-            try (PreparedStatement ps = c.prepareStatement(q1)) {
-                ps.setDate(1, Date.valueOf(day));
-                try (ResultSet rs = ps.executeQuery()) {
-                    if (rs.next()) {
-                        bills = rs.getLong("bills");
-                        revenue = rs.getBigDecimal("revenue").setScale(2, java.math.RoundingMode.HALF_UP).toPlainString();
-                        discounts = rs.getBigDecimal("discounts").setScale(2, java.math.RoundingMode.HALF_UP).toPlainString();
-                    } else {
-                        bills = 0; revenue = "0.00"; discounts="0.00";
-                    }
-                }
-            }
-            long items;
-            try (PreparedStatement ps = c.prepareStatement(q2)) {
-                ps.setDate(1, Date.valueOf(day));
-                try (ResultSet rs = ps.executeQuery()) { rs.next(); items = rs.getLong(1); }
+        try (Connection c = Db.read(); PreparedStatement ps = timed(c, sql)) {
+            Date d = Date.valueOf(day);
+            for (int i = 1; i <= 4; i++) ps.setDate(i, d);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) return new DailySalesRow(day, 0, "0.00", "0.00", 0);
+                return new DailySalesRow(
+                        day,
+                        rs.getLong("bills"),
+                        rs.getBigDecimal("revenue").setScale(2, java.math.RoundingMode.HALF_UP).toPlainString(),
+                        rs.getBigDecimal("discounts").setScale(2, java.math.RoundingMode.HALF_UP).toPlainString(),
+                        rs.getLong("items")
+                );
             }
-            return new DailySalesRow(day, bills, revenue, discounts, items);
         } catch (Exception e) {
             throw new RuntimeException("dailySales failed", e);
         }
@@ -63,7 +90,7 @@ public final class JdbcReportRepository implements ReportRepository {
             LIMIT ?
             """;
         List<BestSellerRow> list = new ArrayList<>();
-        try (Connection c = Db.get(); PreparedStatement ps = c.prepareStatement(sql)) {
+        try (Connection c = Db.read(); PreparedStatement ps = timed(c, sql)) {
             ps.setDate(1, Date.valueOf(from));
             ps.setDate(2, Date.valueOf(to));
             ps.setInt(3, limit);
@@ -83,6 +110,38 @@ public final class JdbcReportRepository implements ReportRepository {
         }
     }
 
+    @Override
+    public List<ItemDayRow> itemSalesByDay(LocalDate from, LocalDate to) {
+        String sql = """
+            SELECT DATE(b.created_at) AS d, i.item_code, i.name, SUM(bl.qty) AS qty_sold, SUM(bl.line_total) AS revenue
+            FROM bill_lines bl
+            JOIN bills b ON bl.bill_id=b.id
+            JOIN items i ON bl.item_code=i.item_code
+            WHERE b.created_at >= ? AND b.created_at < DATE_ADD(?, INTERVAL 1 DAY)
+            GROUP BY DATE(b.created_at), i.item_code, i.name
+            ORDER BY d, i.item_code
+            """;
+        List<ItemDayRow> list = new ArrayList<>();
+        try (Connection c = Db.read(); PreparedStatement ps = timed(c, sql)) {
+            ps.setDate(1, Date.valueOf(from));
+            ps.setDate(2, Date.valueOf(to));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    list.add(new ItemDayRow(
+                            rs.getDate("d").toLocalDate(),
+                            rs.getString("item_code"),
+                            rs.getString("name"),
+                            rs.getLong("qty_sold"),
+                            rs.getBigDecimal("revenue").setScale(2, java.math.RoundingMode.HALF_UP).toPlainString()
+                    ));
+                }
+            }
+            return list;
+        } catch (Exception e) {
+            throw new RuntimeException("itemSalesByDay failed", e);
+        }
+    }
+
     @Override
     public List<RevenueRow> revenueByDay(LocalDate from, LocalDate to) {
         String sql = """
@@ -93,7 +152,7 @@ public final class JdbcReportRepository implements ReportRepository {
             ORDER BY d
             """;
         List<RevenueRow> list = new ArrayList<>();
-        try (Connection c = Db.get(); PreparedStatement ps = c.prepareStatement(sql)) {
+        try (Connection c = Db.read(); PreparedStatement ps = timed(c, sql)) {
             ps.setDate(1, Date.valueOf(from));
             ps.setDate(2, Date.valueOf(to));
             try (ResultSet rs = ps.executeQuery()) {
@@ -119,13 +178,13 @@ public final class JdbcReportRepository implements ReportRepository {
                    COALESCE(SUM(b.qty_on_shelf),0) AS shelf_qty,
                    COALESCE(SUM(b.qty_in_store),0) AS store_qty
             FROM items i
-            LEFT JOIN batches b ON b.item_code=i.item_code
+            LEFT JOIN %s b ON b.item_code=i.item_code
             GROUP BY i.item_code, i.name
             HAVING shelf_qty < ? AND store_qty > 0
             ORDER BY i.item_code
-            """;
+            """.formatted(stockTable);
         List<ReshelvingRow> list = new ArrayList<>();
-        try (Connection c = Db.get(); PreparedStatement ps = c.prepareStatement(sql)) {
+        try (Connection c = Db.read(); PreparedStatement ps = c.prepareStatement(sql)) {
             ps.setInt(1, shelfTarget);
             try (ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) {
@@ -153,13 +212,13 @@ public final class JdbcReportRepository implements ReportRepository {
             SELECT i.item_code, i.name,
                    COALESCE(SUM(b.qty_on_shelf + b.qty_in_store),0) AS total_qty
             FROM items i
-            LEFT JOIN batches b ON b.item_code=i.item_code
+            LEFT JOIN %s b ON b.item_code=i.item_code
             GROUP BY i.item_code, i.name
             HAVING total_qty < ?
             ORDER BY total_qty ASC, i.item_code
-            """;
+            """.formatted(stockTable);
         List<ReorderRow> list = new ArrayList<>();
-        try (Connection c = Db.get(); PreparedStatement ps = c.prepareStatement(sql)) {
+        try (Connection c = Db.read(); PreparedStatement ps = c.prepareStatement(sql)) {
             ps.setInt(1, threshold);
             try (ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) {
@@ -180,9 +239,9 @@ public final class JdbcReportRepository implements ReportRepository {
     public List<StockBatchRow> stockByBatch(String itemCodeOrNull) {
         String base = """
             SELECT b.id, b.item_code, i.name, b.expiry, b.qty_on_shelf, b.qty_in_store
-            FROM batches b
+            FROM %s b
             JOIN items i ON i.item_code=b.item_code
-            """;
+            """.formatted(stockTable);
         String where = (itemCodeOrNull == null || itemCodeOrNull.isBlank())
                 ? ""
                 : " WHERE b.item_code=?";
@@ -190,7 +249,7 @@ public final class JdbcReportRepository implements ReportRepository {
         String sql = base + where + order;
 
         List<StockBatchRow> list = new ArrayList<>();
-        try (Connection c = Db.get(); PreparedStatement ps = c.prepareStatement(sql)) {
+        try (Connection c = Db.read(); PreparedStatement ps = c.prepareStatement(sql)) {
             if (where.length() > 0) ps.setString(1, itemCodeOrNull);
             try (ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) {
@@ -213,31 +272,12 @@ public final class JdbcReportRepository implements ReportRepository {
 
     @Override
     public List<BillRow> billsBetween(LocalDate from, LocalDate to) {
-        String sql = """
-            SELECT bill_no, created_at, user_name, channel, payment_method,
-                   subtotal, discount, tax, total
-            FROM bills
-            WHERE created_at >= ? AND created_at < DATE_ADD(?, INTERVAL 1 DAY)
-            ORDER BY created_at DESC, bill_no DESC
-            """;
         List<BillRow> list = new ArrayList<>();
-        try (Connection c = Db.get(); PreparedStatement ps = c.prepareStatement(sql)) {
+        try (Connection c = Db.read(); PreparedStatement ps = c.prepareStatement(BILLS_BETWEEN_SQL)) {
             ps.setDate(1, Date.valueOf(from));
             ps.setDate(2, Date.valueOf(to));
             try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    list.add(new BillRow(
-                            rs.getString("bill_no"),
-                            rs.getTimestamp("created_at").toLocalDateTime(),
-                            rs.getString("user_name"),
-                            rs.getString("channel"),
-                            rs.getString("payment_method"),
-                            rs.getBigDecimal("subtotal").setScale(2, java.math.RoundingMode.HALF_UP).toPlainString(),
-                            rs.getBigDecimal("discount").setScale(2, java.math.RoundingMode.HALF_UP).toPlainString(),
-                            rs.getBigDecimal("tax").setScale(2, java.math.RoundingMode.HALF_UP).toPlainString(),
-                            rs.getBigDecimal("total").setScale(2, java.math.RoundingMode.HALF_UP).toPlainString()
-                    ));
-                }
+                while (rs.next()) list.add(billRow(rs));
             }
             return list;
         } catch (SQLException e) {
@@ -245,6 +285,49 @@ public final class JdbcReportRepository implements ReportRepository {
         }
     }
 
+    /** Same rows as {@link #billsBetween}, read through a streaming cursor so exports stay flat in memory. */
+    @Override
+    public long streamBills(LocalDate from, LocalDate to, Consumer<BillRow> sink) {
+        long rows = 0;
+        try (Connection c = Db.read();
+             PreparedStatement ps = c.prepareStatement(BILLS_BETWEEN_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            ps.setFetchSize(Integer.MIN_VALUE);
+            ps.setDate(1, Date.valueOf(from));
+            ps.setDate(2, Date.valueOf(to));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    sink.accept(billRow(rs));
+                    rows++;
+                }
+            }
+            return rows;
+        } catch (SQLException e) {
+            throw new RuntimeException("streamBills failed", e);
+        }
+    }
+
+    private static final String BILLS_BETWEEN_SQL = """
+            SELECT bill_no, created_at, user_name, channel, payment_method,
+                   subtotal, discount, tax, total
+            FROM bills
+            WHERE created_at >= ? AND created_at < DATE_ADD(?, INTERVAL 1 DAY)
+            ORDER BY created_at DESC, bill_no DESC
+            """;
+
+    private static BillRow billRow(ResultSet rs) throws SQLException {
+        return new BillRow(
+                rs.getString("bill_no"),
+                rs.getTimestamp("created_at").toLocalDateTime(),
+                rs.getString("user_name"),
+                rs.getString("channel"),
+                rs.getString("payment_method"),
+                rs.getBigDecimal("subtotal").setScale(2, java.math.RoundingMode.HALF_UP).toPlainString(),
+                rs.getBigDecimal("discount").setScale(2, java.math.RoundingMode.HALF_UP).toPlainString(),
+                rs.getBigDecimal("tax").setScale(2, java.math.RoundingMode.HALF_UP).toPlainString(),
+                rs.getBigDecimal("total").setScale(2, java.math.RoundingMode.HALF_UP).toPlainString()
+        );
+    }
+
     @Override
     public List<RestockRow> restockAtOrBelowLevel() {
         String sql = """
@@ -254,16 +337,16 @@ public final class JdbcReportRepository implements ReportRepository {
                    COALESCE(SUM(b.qty_in_main),0) AS main_qty,
                    COALESCE(i.restock_level, 50) AS restock_level
             FROM items i
-            LEFT JOIN batches b ON b.item_code=i.item_code
+            LEFT JOIN %s b ON b.item_code=i.item_code
             GROUP BY i.item_code, i.name, i.restock_level
             HAVING (COALESCE(SUM(b.qty_on_shelf),0) + COALESCE(SUM(b.qty_in_store),0)) <= 
                    CASE WHEN COALESCE(i.restock_level, 50) > 50 
                         THEN COALESCE(i.restock_level, 50) 
                         ELSE 50 END
             ORDER BY (COALESCE(SUM(b.qty_on_shelf),0) + COALESCE(SUM(b.qty_in_store),0)) ASC, i.item_code
-            """;
+            """.formatted(stockTable);
         List<RestockRow> list = new ArrayList<>();
-        try (Connection c = Db.get(); PreparedStatement ps = c.prepareStatement(sql)) {
+        try (Connection c = Db.read(); PreparedStatement ps = timed(c, sql)) {
             try (ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) {
                     list.add(new RestockRow(
@@ -281,4 +364,55 @@ public final class JdbcReportRepository implements ReportRepository {
             throw new RuntimeException("restockAtOrBelowLevel failed: " + e.getMessage(), e);
         }
     }
+
+    @Override
+    public long replayPaidBills(LocalDateTime since, Consumer<BillPaid> sink) {
+        // one pass over bills joined with their lines, streamed and folded per bill id
+        String sql = """
+            SELECT b.id, b.bill_no, b.created_at, b.total, b.discount, b.channel, b.user_name,
+                   bl.item_code, i.name AS item_name, bl.qty, bl.line_total
+            FROM bills b
+            LEFT JOIN bill_lines bl ON bl.bill_id=b.id
+            LEFT JOIN items i ON i.item_code=bl.item_code
+            WHERE b.created_at >= ?
+            ORDER BY b.id
+            """;
+        long replayed = 0;
+        try (Connection c = Db.read();
+             PreparedStatement ps = c.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            ps.setFetchSize(Integer.MIN_VALUE);
+            ps.setTimestamp(1, Timestamp.valueOf(since));
+            try (ResultSet rs = ps.executeQuery()) {
+                long currentId = -1;
+                BillPaid head = null;
+                List<BillPaid.Line> lines = new ArrayList<>();
+                while (rs.next()) {
+                    long id = rs.getLong("id");
+                    if (id != currentId) {
+                        if (head != null) { sink.accept(withLines(head, lines)); replayed++; }
+                        currentId = id;
+                        lines = new ArrayList<>();
+                        head = new BillPaid(rs.getString("bill_no"), new Money(rs.getBigDecimal("total")),
+                                rs.getString("channel"), rs.getString("user_name"),
+                                new Money(rs.getBigDecimal("discount")),
+                                rs.getTimestamp("created_at").toLocalDateTime(), List.of());
+                    }
+                    String code = rs.getString("item_code");
+                    if (code != null) {
+                        lines.add(new BillPaid.Line(code, rs.getString("item_name"), rs.getInt("qty"),
+                                new Money(rs.getBigDecimal("line_total"))));
+                    }
+                }
+                if (head != null) { sink.accept(withLines(head, lines)); replayed++; }
+            }
+            return replayed;
+        } catch (SQLException e) {
+            throw new RuntimeException("replayPaidBills failed", e);
+        }
+    }
+
+    private static BillPaid withLines(BillPaid head, List<BillPaid.Line> lines) {
+        return new BillPaid(head.billNo(), head.total(), head.channel(), head.user(),
+                head.discount(), head.paidAt(), lines);
+    }
 }
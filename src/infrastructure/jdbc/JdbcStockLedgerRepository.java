@@ -0,0 +1,269 @@
+package infrastructure.jdbc;
+
+import application.inventory.StockLedgerRepository;
+import domain.inventory.StockMovement;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Ledger queries over {@code stock_movements} plus snapshots in {@code stock_snapshots} /
+ * {@code stock_snapshot_lines}. A snapshot is the previous snapshot plus every movement up to a
+ * settled id, so balances never have to replay the full history.
+ */
+public final class JdbcStockLedgerRepository implements StockLedgerRepository {
+    private final String stockTable;
+
+    public JdbcStockLedgerRepository() {
+        this(false);
+    }
+
+    public JdbcStockLedgerRepository(boolean stripedStock) {
+        this.stockTable = stripedStock ? "batch_stock" : "batches";
+    }
+
+    @Override
+    public List<StockMovement> movements(String itemCode, LocalDateTime from, LocalDateTime to) {
+        String sql = """
+            SELECT id, batch_id, item_code, movement_type, delta_main, delta_store, delta_shelf, actor, recorded_at
+            FROM stock_movements
+            WHERE item_code=? AND recorded_at BETWEEN ? AND ?
+            ORDER BY id
+            """;
+        List<StockMovement> list = new ArrayList<>();
+        try (Connection c = Db.get(); PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setString(1, itemCode);
+            ps.setTimestamp(2, Timestamp.valueOf(from));
+            ps.setTimestamp(3, Timestamp.valueOf(to));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    list.add(new StockMovement(
+                            rs.getLong("id"),
+                            rs.getLong("batch_id"),
+                            rs.getString("item_code"),
+                            StockMovement.Type.valueOf(rs.getString("movement_type")),
+                            rs.getInt("delta_main"),
+                            rs.getInt("delta_store"),
+                            rs.getInt("delta_shelf"),
+                            rs.getString("actor"),
+                            rs.getTimestamp("recorded_at").toLocalDateTime()
+                    ));
+                }
+            }
+            return list;
+        } catch (SQLException e) {
+            throw new RuntimeException("movements failed", e);
+        }
+    }
+
+    @Override
+    public StockBalance balanceAsOf(String itemCode, LocalDateTime at) {
+        String sql = """
+            SELECT COALESCE(SUM(x.m),0), COALESCE(SUM(x.s),0), COALESCE(SUM(x.sh),0)
+            FROM (
+                SELECT qty_in_main AS m, qty_in_store AS s, qty_on_shelf AS sh
+                FROM stock_snapshot_lines WHERE snapshot_id=? AND item_code=?
+                UNION ALL
+                SELECT delta_main, delta_store, delta_shelf
+                FROM stock_movements WHERE item_code=? AND id > ? AND recorded_at <= ?
+            ) x
+            """;
+        try (Connection c = Db.get()) {
+            long[] base = latestSnapshot(c, at);
+            try (PreparedStatement ps = c.prepareStatement(sql)) {
+                ps.setLong(1, base[0]);
+                ps.setString(2, itemCode);
+                ps.setString(3, itemCode);
+                ps.setLong(4, base[1]);
+                ps.setTimestamp(5, Timestamp.valueOf(at));
+                try (ResultSet rs = ps.executeQuery()) {
+                    rs.next();
+                    return new StockBalance(itemCode, at, rs.getInt(1), rs.getInt(2), rs.getInt(3));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("balanceAsOf failed", e);
+        }
+    }
+
+    @Override
+    public Optional<SnapshotInfo> takeSnapshot() {
+        // A locking read waits for every transaction still writing movements past the previous
+        // snapshot, so no id at or below the answer can commit later and be skipped
+        String settled = "SELECT COALESCE(MAX(id),?) FROM stock_movements WHERE id > ? FOR SHARE";
+        String header = "INSERT INTO stock_snapshots (taken_at, upto_movement_id) VALUES (NOW(3), ?)";
+        String lines = """
+            INSERT INTO stock_snapshot_lines (snapshot_id, batch_id, item_code, qty_in_main, qty_in_store, qty_on_shelf)
+            SELECT ?, x.batch_id, x.item_code, SUM(x.m), SUM(x.s), SUM(x.sh)
+            FROM (
+                SELECT batch_id, item_code, qty_in_main AS m, qty_in_store AS s, qty_on_shelf AS sh
+                FROM stock_snapshot_lines WHERE snapshot_id=?
+                UNION ALL
+                SELECT batch_id, item_code, delta_main, delta_store, delta_shelf
+                FROM stock_movements WHERE id > ? AND id <= ?
+            ) x
+            GROUP BY x.batch_id, x.item_code
+            HAVING SUM(x.m) <> 0 OR SUM(x.s) <> 0 OR SUM(x.sh) <> 0
+            """;
+        try (Connection c = Db.get()) {
+            c.setAutoCommit(false);
+            try {
+                long[] prev = latestSnapshot(c, null);
+                long upto;
+                try (PreparedStatement ps = c.prepareStatement(settled)) {
+                    ps.setLong(1, prev[1]);
+                    ps.setLong(2, prev[1]);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        rs.next();
+                        upto = rs.getLong(1);
+                    }
+                }
+                // let checkouts write movements again before the lines are summed
+                c.commit();
+                if (upto <= prev[1]) return Optional.empty();
+
+                long snapshotId;
+                try (PreparedStatement ps = c.prepareStatement(header, Statement.RETURN_GENERATED_KEYS)) {
+                    ps.setLong(1, upto);
+                    ps.executeUpdate();
+                    try (ResultSet keys = ps.getGeneratedKeys()) {
+                        keys.next();
+                        snapshotId = keys.getLong(1);
+                    }
+                }
+                int written;
+                try (PreparedStatement ps = c.prepareStatement(lines)) {
+                    ps.setLong(1, snapshotId);
+                    ps.setLong(2, prev[0]);
+                    ps.setLong(3, prev[1]);
+                    ps.setLong(4, upto);
+                    written = ps.executeUpdate();
+                }
+                LocalDateTime takenAt;
+                try (PreparedStatement ps = c.prepareStatement("SELECT taken_at FROM stock_snapshots WHERE id=?")) {
+                    ps.setLong(1, snapshotId);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        rs.next();
+                        takenAt = rs.getTimestamp(1).toLocalDateTime();
+                    }
+                }
+                c.commit();
+                return Optional.of(new SnapshotInfo(snapshotId, takenAt, upto, written));
+            } catch (Exception ex) {
+                c.rollback();
+                throw ex;
+            } finally {
+                c.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("takeSnapshot failed", e);
+        }
+    }
+
+    @Override
+    public int seedOpeningBalances() {
+        // Per batch, the opening is whatever its recorded movements do not explain; a batch that
+        // predates the ledger but already moved since still gets one. Batches created under the
+        // ledger add up to zero and get none.
+        String sql = """
+            INSERT INTO stock_movements (batch_id, item_code, movement_type, delta_main, delta_store, delta_shelf, actor)
+            SELECT b.id, b.item_code, 'OPENING',
+                   b.qty_in_main - COALESCE(SUM(m.delta_main),0),
+                   b.qty_in_store - COALESCE(SUM(m.delta_store),0),
+                   b.qty_on_shelf - COALESCE(SUM(m.delta_shelf),0),
+                   'system'
+            FROM %s b
+            LEFT JOIN stock_movements m ON m.batch_id = b.id
+            WHERE NOT EXISTS (SELECT 1 FROM stock_movements o WHERE o.batch_id = b.id AND o.movement_type = 'OPENING')
+            GROUP BY b.id, b.item_code, b.qty_in_main, b.qty_in_store, b.qty_on_shelf
+            HAVING b.qty_in_main - COALESCE(SUM(m.delta_main),0) <> 0
+                OR b.qty_in_store - COALESCE(SUM(m.delta_store),0) <> 0
+                OR b.qty_on_shelf - COALESCE(SUM(m.delta_shelf),0) <> 0
+            """.formatted(stockTable);
+        try (Connection c = Db.get(); PreparedStatement ps = c.prepareStatement(sql)) {
+            return ps.executeUpdate();
+        } catch (SQLException e) {
+            throw new RuntimeException("seedOpeningBalances failed", e);
+        }
+    }
+
+    @Override
+    public List<LedgerDiscrepancy> verifyAgainstBatches() {
+        // Replay per batch from the latest snapshot, then compare with the live rows (both directions)
+        String sql = """
+            SELECT COALESCE(l.batch_id, b.id) AS batch_id, COALESCE(l.item_code, b.item_code) AS item_code,
+                   COALESCE(l.m,0) AS lm, COALESCE(l.s,0) AS ls, COALESCE(l.sh,0) AS lsh,
+                   COALESCE(b.qty_in_main,0) AS bm, COALESCE(b.qty_in_store,0) AS bs, COALESCE(b.qty_on_shelf,0) AS bsh
+            FROM (
+                SELECT x.batch_id, MIN(x.item_code) AS item_code, SUM(x.m) AS m, SUM(x.s) AS s, SUM(x.sh) AS sh
+                FROM (
+                    SELECT batch_id, item_code, qty_in_main AS m, qty_in_store AS s, qty_on_shelf AS sh
+                    FROM stock_snapshot_lines WHERE snapshot_id=?
+                    UNION ALL
+                    SELECT batch_id, item_code, delta_main, delta_store, delta_shelf
+                    FROM stock_movements WHERE id > ?
+                ) x
+                GROUP BY x.batch_id
+            ) l
+            %s
+            """;
+        // MySQL has no FULL OUTER JOIN: ledger-side rows, then live batches missing from the replay
+        String body = sql.formatted("LEFT JOIN " + stockTable + " b ON b.id = l.batch_id") +
+                "WHERE COALESCE(l.m,0) <> COALESCE(b.qty_in_main,0) OR COALESCE(l.s,0) <> COALESCE(b.qty_in_store,0) " +
+                "OR COALESCE(l.sh,0) <> COALESCE(b.qty_on_shelf,0) " +
+                "UNION ALL " +
+                "SELECT b.id, b.item_code, 0, 0, 0, b.qty_in_main, b.qty_in_store, b.qty_on_shelf FROM " + stockTable + " b " +
+                "WHERE NOT EXISTS (SELECT 1 FROM stock_movements m WHERE m.batch_id = b.id AND m.id > ?) " +
+                "AND NOT EXISTS (SELECT 1 FROM stock_snapshot_lines sl WHERE sl.snapshot_id = ? AND sl.batch_id = b.id) " +
+                "AND (b.qty_in_main <> 0 OR b.qty_in_store <> 0 OR b.qty_on_shelf <> 0) " +
+                "ORDER BY 1";
+        List<LedgerDiscrepancy> list = new ArrayList<>();
+        try (Connection c = Db.get()) {
+            c.setAutoCommit(false);
+            c.setReadOnly(true);
+            c.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            try {
+                long[] base = latestSnapshot(c, null);
+                try (PreparedStatement ps = c.prepareStatement(body)) {
+                    ps.setLong(1, base[0]);
+                    ps.setLong(2, base[1]);
+                    ps.setLong(3, base[1]);
+                    ps.setLong(4, base[0]);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            list.add(new LedgerDiscrepancy(rs.getLong(1), rs.getString(2),
+                                    rs.getInt(3), rs.getInt(4), rs.getInt(5),
+                                    rs.getInt(6), rs.getInt(7), rs.getInt(8)));
+                        }
+                    }
+                }
+                c.commit();
+            } catch (Exception ex) {
+                c.rollback();
+                throw ex;
+            } finally {
+                c.setReadOnly(false);
+                c.setAutoCommit(true);
+            }
+            return list;
+        } catch (SQLException e) {
+            throw new RuntimeException("verifyAgainstBatches failed", e);
+        }
+    }
+
+    // {snapshot id, upto movement id} of the newest snapshot taken at/before {@code at} (any time if null); {0, 0} if none
+    private static long[] latestSnapshot(Connection c, LocalDateTime at) throws SQLException {
+        String sql = "SELECT id, upto_movement_id FROM stock_snapshots" +
+                     (at == null ? "" : " WHERE taken_at <= ?") +
+                     " ORDER BY taken_at DESC, id DESC LIMIT 1";
+        try (PreparedStatement ps = c.prepareStatement(sql)) {
+            if (at != null) ps.setTimestamp(1, Timestamp.valueOf(at));
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? new long[]{rs.getLong(1), rs.getLong(2)} : new long[]{0, 0};
+            }
+        }
+    }
+}
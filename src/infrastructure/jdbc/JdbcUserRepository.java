@@ -1,12 +1,13 @@
 package infrastructure.jdbc;
 
+import application.auth.UserCredentials;
 import domain.auth.User;
 import ports.out.UserRepository;
 
 import java.sql.*;
 import java.util.Optional;
 
-public final class JdbcUserRepository implements UserRepository {
+public final class JdbcUserRepository implements UserRepository, UserCredentials {
 
     @Override
     public Optional<User> findByUsername(String username) {
@@ -42,4 +43,25 @@ public final class JdbcUserRepository implements UserRepository {
             throw new RuntimeException("loadPasswordHash failed", e);
         }
     }
+
+    @Override
+    public Optional<Credentials> loadCredentials(String username) {
+        String sql = "SELECT UserID, Username, Role, Email, Status, PasswordHash FROM users WHERE Username=?";
+        try (Connection c = Db.get();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setString(1, username);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) return Optional.empty();
+                return Optional.of(new Credentials(new User(
+                        rs.getLong("UserID"),
+                        rs.getString("Username"),
+                        rs.getString("Role"),
+                        rs.getString("Email"),
+                        rs.getString("Status")
+                ), rs.getString("PasswordHash")));
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("loadCredentials failed", e);
+        }
+    }
 }
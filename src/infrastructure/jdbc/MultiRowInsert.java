@@ -0,0 +1,37 @@
+package infrastructure.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Writes many rows with {@code INSERT ... VALUES (...),(...)} on the caller's connection: one round
+ * trip per chunk instead of one per row. Chunks stay well under the server's placeholder limit.
+ */
+final class MultiRowInsert {
+    private static final int MAX_ROWS = 500;
+    private static final int MAX_PARAMS = 30_000;
+
+    /** Binds one row's values starting at parameter {@code at}. */
+    interface Row<T> {
+        void bind(PreparedStatement ps, int at, T row) throws SQLException;
+    }
+
+    private MultiRowInsert() {}
+
+    /** {@code head} is everything before {@code VALUES}, e.g. {@code INSERT INTO t (a, b)}. */
+    static <T> void insert(Connection c, String head, int columns, List<T> rows, Row<T> binder) throws SQLException {
+        int perChunk = Math.max(1, Math.min(MAX_ROWS, MAX_PARAMS / columns));
+        String tuple = "(" + String.join(",", Collections.nCopies(columns, "?")) + ")";
+        for (int from = 0; from < rows.size(); from += perChunk) {
+            List<T> chunk = rows.subList(from, Math.min(rows.size(), from + perChunk));
+            String sql = head + " VALUES " + String.join(",", Collections.nCopies(chunk.size(), tuple));
+            try (PreparedStatement ps = c.prepareStatement(sql)) {
+                for (int i = 0; i < chunk.size(); i++) binder.bind(ps, i * columns + 1, chunk.get(i));
+                ps.executeUpdate();
+            }
+        }
+    }
+}
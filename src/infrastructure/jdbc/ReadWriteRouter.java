@@ -0,0 +1,116 @@
+package infrastructure.jdbc;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.OptionalLong;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Chooses the connection for a statement: writes always go to the primary, reads go to the
+ * replica while it is reachable and no further behind than {@code maxLagSeconds}.
+ * Replica health is probed at most once per {@code checkIntervalMillis}; a failed connect or a
+ * stale/stopped replica sends reads to the primary until the next probe says otherwise.
+ */
+public final class ReadWriteRouter {
+
+    @FunctionalInterface
+    interface ConnectionSource { Connection open() throws SQLException; }
+
+    /** Seconds the replica is behind its source; empty when replication is not running. */
+    @FunctionalInterface
+    interface LagProbe { OptionalLong secondsBehind(Connection replica) throws SQLException; }
+
+    public record Status(boolean replicaConfigured, boolean replicaHealthy, long lastLagSeconds,
+                  long readsOnReplica, long readsOnPrimary, long fallbacks) {}
+
+    private final ConnectionSource primary;
+    private final ConnectionSource replica;      // null = no replica configured
+    private final LagProbe probe;
+    private final long maxLagSeconds;            // < 0 = do not check lag (plain stand-in instance)
+    private final long checkIntervalMillis;
+    private final LongSupplier clock;
+
+    private volatile boolean healthy = true;
+    private volatile long lastLag = -1;
+    private final AtomicLong nextCheckAt = new AtomicLong(Long.MIN_VALUE);
+    private final LongAdder readsOnReplica = new LongAdder();
+    private final LongAdder readsOnPrimary = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+
+    ReadWriteRouter(ConnectionSource primary, ConnectionSource replica, LagProbe probe,
+                    long maxLagSeconds, long checkIntervalMillis, LongSupplier clock) {
+        this.primary = primary;
+        this.replica = replica;
+        this.probe = probe;
+        this.maxLagSeconds = maxLagSeconds;
+        this.checkIntervalMillis = checkIntervalMillis;
+        this.clock = clock;
+    }
+
+    Connection write() throws SQLException {
+        return primary.open();
+    }
+
+    Connection read() throws SQLException {
+        if (replica != null) {
+            long now = clock.getAsLong();
+            long due = nextCheckAt.get();
+            boolean probeNow = now >= due && nextCheckAt.compareAndSet(due, now + checkIntervalMillis);
+            if (healthy || probeNow) {
+                Connection c = null;
+                try {
+                    c = replica.open();
+                    if (probeNow) healthy = fresh(c);
+                    if (healthy) {
+                        readsOnReplica.increment();
+                        return c;
+                    }
+                } catch (SQLException e) {
+                    healthy = false;
+                    nextCheckAt.set(now + checkIntervalMillis);
+                }
+                if (c != null) closeQuietly(c);
+            }
+            fallbacks.increment();
+        }
+        readsOnPrimary.increment();
+        return primary.open();
+    }
+
+    private boolean fresh(Connection c) throws SQLException {
+        if (maxLagSeconds < 0) return true;
+        OptionalLong lag = probe.secondsBehind(c);
+        lastLag = lag.orElse(-1);
+        return lag.isPresent() && lag.getAsLong() <= maxLagSeconds;
+    }
+
+    Status status() {
+        return new Status(replica != null, replica != null && healthy, lastLag,
+                readsOnReplica.sum(), readsOnPrimary.sum(), fallbacks.sum());
+    }
+
+    /** MySQL 8.0.22+ SHOW REPLICA STATUS, falling back to SHOW SLAVE STATUS on older servers. */
+    static OptionalLong mysqlReplicaLag(Connection c) throws SQLException {
+        try (Statement st = c.createStatement(); ResultSet rs = st.executeQuery("SHOW REPLICA STATUS")) {
+            return lag(rs, "Seconds_Behind_Source");
+        } catch (SQLException e) {
+            try (Statement st = c.createStatement(); ResultSet rs = st.executeQuery("SHOW SLAVE STATUS")) {
+                return lag(rs, "Seconds_Behind_Master");
+            }
+        }
+    }
+
+    private static OptionalLong lag(ResultSet rs, String column) throws SQLException {
+        if (!rs.next()) return OptionalLong.empty(); // not a replica
+        long v = rs.getLong(column);
+        return rs.wasNull() ? OptionalLong.empty() : OptionalLong.of(v); // NULL = SQL thread stopped
+    }
+
+    private static void closeQuietly(Connection c) {
+        try { c.close(); } catch (SQLException ignore) { }
+    }
+}
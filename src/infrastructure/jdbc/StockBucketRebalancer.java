@@ -0,0 +1,53 @@
+package infrastructure.jdbc;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background job for striped stock: stripes the configured hot items' batches (new batches
+ * included) and evens out bucket quantities so random picks keep finding a non-empty bucket.
+ */
+public final class StockBucketRebalancer implements AutoCloseable {
+    private final JdbcInventoryRepository repo;
+    private final List<String> hotItems;
+    private final int bucketCount;
+    private final ScheduledExecutorService scheduler;
+
+    public StockBucketRebalancer(JdbcInventoryRepository repo, List<String> hotItems, int bucketCount) {
+        if (!repo.stripedStockEnabled()) throw new IllegalArgumentException("repository has striped stock disabled");
+        if (bucketCount < 2) throw new IllegalArgumentException("bucketCount must be >= 2");
+        this.repo = repo;
+        this.hotItems = List.copyOf(hotItems);
+        this.bucketCount = bucketCount;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "stock-bucket-rebalancer");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public void start(long periodSeconds) {
+        scheduler.scheduleWithFixedDelay(this::runSafely, 0, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    public void runOnce() {
+        repo.stripeItems(hotItems, bucketCount);
+        repo.rebalanceStockBuckets();
+    }
+
+    private void runSafely() {
+        try {
+            runOnce();
+        } catch (RuntimeException e) {
+            // keep the schedule alive; the next run retries
+            System.err.println("[stock-buckets] rebalance failed: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,275 @@
+package infrastructure.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Striped sellable stock for hot batches.
+ *
+ * A striped batch keeps its SHELF/STORE quantity split across K rows of {@code batch_stock_buckets};
+ * the sellable quantity is the batch row plus the sum of its buckets (the {@code batch_stock} view).
+ * Sales decrement one bucket picked at random, so concurrent tills lock different rows instead of
+ * queueing on the single batch row. {@link #rebalance} folds everything back and re-spreads it evenly.
+ */
+final class StockBuckets {
+
+    enum Column {
+        SHELF("qty_on_shelf"), STORE("qty_in_store");
+
+        final String sql;
+        Column(String sql) { this.sql = sql; }
+    }
+
+    /** Known striped batches: batch id -> bucket count. */
+    private final Map<Long, Integer> stripes = new ConcurrentHashMap<>();
+
+    boolean isStriped(long batchId) { return stripes.containsKey(batchId); }
+
+    List<Long> stripedBatchIds() { return new ArrayList<>(stripes.keySet()); }
+
+    /** Reloads which batches are striped (other processes may have striped or dropped some). */
+    void refresh(Connection c) throws SQLException {
+        Map<Long, Integer> fresh = new ConcurrentHashMap<>();
+        try (PreparedStatement ps = c.prepareStatement(
+                "SELECT batch_id, COUNT(*) FROM batch_stock_buckets GROUP BY batch_id");
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) fresh.put(rs.getLong(1), rs.getInt(2));
+        }
+        stripes.keySet().retainAll(fresh.keySet());
+        stripes.putAll(fresh);
+    }
+
+    /**
+     * Takes {@code qty} from a single bucket, probing from a random start so tills spread out.
+     * Returns false when the batch is not striped or no single bucket holds enough.
+     */
+    boolean take(Connection c, long batchId, Column col, int qty) throws SQLException {
+        Integer k = stripes.get(batchId);
+        if (k == null) return false;
+        String sql = "UPDATE batch_stock_buckets SET " + col.sql + " = " + col.sql + " - ? " +
+                     "WHERE batch_id=? AND bucket_no=? AND " + col.sql + " >= ?";
+        try (PreparedStatement ps = c.prepareStatement(sql)) {
+            for (int bucket : probeOrder(ThreadLocalRandom.current().nextInt(k), k)) {
+                ps.setInt(1, qty);
+                ps.setLong(2, batchId);
+                ps.setInt(3, bucket);
+                ps.setInt(4, qty);
+                if (ps.executeUpdate() == 1) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Slow path when no single row holds {@code qty}: locks the batch row and all its buckets and
+     * takes across them. Returns false if the combined quantity is still short.
+     */
+    boolean spill(Connection c, long batchId, Column col, int qty) throws SQLException {
+        if (!stripes.containsKey(batchId)) return false;
+        int onRow;
+        try (PreparedStatement ps = c.prepareStatement(
+                "SELECT " + col.sql + " FROM batches WHERE id=? FOR UPDATE")) {
+            ps.setLong(1, batchId);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) return false;
+                onRow = rs.getInt(1);
+            }
+        }
+        int[] buckets = lockBuckets(c, batchId, col);
+        long total = onRow;
+        for (int b : buckets) total += b;
+        if (total < qty) return false;
+
+        int remaining = qty;
+        int fromRow = Math.min(onRow, remaining);
+        remaining -= fromRow;
+        try (PreparedStatement ps = c.prepareStatement(
+                "UPDATE batch_stock_buckets SET " + col.sql + " = " + col.sql + " - ? WHERE batch_id=? AND bucket_no=?")) {
+            for (int i = 0; i < buckets.length && remaining > 0; i++) {
+                int part = Math.min(buckets[i], remaining);
+                if (part == 0) continue;
+                ps.setInt(1, part);
+                ps.setLong(2, batchId);
+                ps.setInt(3, i);
+                ps.addBatch();
+                remaining -= part;
+            }
+            ps.executeBatch();
+        }
+        if (fromRow > 0) {
+            try (PreparedStatement ps = c.prepareStatement(
+                    "UPDATE batches SET " + col.sql + " = " + col.sql + " - ? WHERE id=?")) {
+                ps.setInt(1, fromRow);
+                ps.setLong(2, batchId);
+                ps.executeUpdate();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Moves bucket quantities of the given items back onto their batch rows, so code that reads
+     * and locks {@code batches} directly (transfers, absolute edits) sees the full quantity.
+     */
+    void fold(Connection c, Collection<String> itemCodes) throws SQLException {
+        if (stripes.isEmpty() || itemCodes.isEmpty()) return;
+        String in = String.join(",", Collections.nCopies(itemCodes.size(), "?"));
+        String add = """
+            UPDATE batches b
+            JOIN (SELECT k.batch_id, SUM(k.qty_on_shelf) AS shelf, SUM(k.qty_in_store) AS store
+                  FROM batch_stock_buckets k JOIN batches x ON x.id = k.batch_id
+                  WHERE x.item_code IN (%s)
+                  GROUP BY k.batch_id) s ON s.batch_id = b.id
+            SET b.qty_on_shelf = b.qty_on_shelf + s.shelf, b.qty_in_store = b.qty_in_store + s.store
+            """.formatted(in);
+        String clear = """
+            UPDATE batch_stock_buckets k JOIN batches x ON x.id = k.batch_id
+            SET k.qty_on_shelf = 0, k.qty_in_store = 0
+            WHERE x.item_code IN (%s)
+            """.formatted(in);
+        try (PreparedStatement psAdd = c.prepareStatement(add);
+             PreparedStatement psClear = c.prepareStatement(clear)) {
+            int i = 1;
+            for (String code : itemCodes) {
+                psAdd.setString(i, code);
+                psClear.setString(i, code);
+                i++;
+            }
+            psAdd.executeUpdate();
+            psClear.executeUpdate();
+        }
+    }
+
+    /** {shelf, store} currently held in the batch's buckets. */
+    int[] sums(Connection c, long batchId) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement(
+                "SELECT COALESCE(SUM(qty_on_shelf),0), COALESCE(SUM(qty_in_store),0) FROM batch_stock_buckets WHERE batch_id=?")) {
+            ps.setLong(1, batchId);
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return new int[]{rs.getInt(1), rs.getInt(2)};
+            }
+        }
+    }
+
+    /** Zeroes the buckets of one batch (the caller is about to overwrite the row's quantities). */
+    void clear(Connection c, long batchId) throws SQLException {
+        if (!stripes.containsKey(batchId)) return;
+        try (PreparedStatement ps = c.prepareStatement(
+                "UPDATE batch_stock_buckets SET qty_on_shelf = 0, qty_in_store = 0 WHERE batch_id=?")) {
+            ps.setLong(1, batchId);
+            ps.executeUpdate();
+        }
+    }
+
+    /** Creates {@code k} buckets for the batch (idempotent) and spreads its current stock over them. */
+    void stripe(Connection c, long batchId, int k) throws SQLException {
+        if (k < 2) throw new IllegalArgumentException("bucket count must be >= 2");
+        try (PreparedStatement ps = c.prepareStatement(
+                "INSERT IGNORE INTO batch_stock_buckets (batch_id, bucket_no) VALUES (?,?)")) {
+            for (int i = 0; i < k; i++) {
+                ps.setLong(1, batchId);
+                ps.setInt(2, i);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+        stripes.put(batchId, k);
+        rebalance(c, batchId);
+    }
+
+    /** Folds the buckets back into the batch row and drops them. */
+    void unstripe(Connection c, long batchId) throws SQLException {
+        if (!rebalance(c, batchId, true)) return;
+        try (PreparedStatement ps = c.prepareStatement("DELETE FROM batch_stock_buckets WHERE batch_id=?")) {
+            ps.setLong(1, batchId);
+            ps.executeUpdate();
+        }
+        stripes.remove(batchId);
+    }
+
+    /** Evens out the buckets of one striped batch; the batch row ends with nothing sellable. */
+    boolean rebalance(Connection c, long batchId) throws SQLException {
+        return rebalance(c, batchId, false);
+    }
+
+    private boolean rebalance(Connection c, long batchId, boolean allOnRow) throws SQLException {
+        int rowShelf, rowStore;
+        try (PreparedStatement ps = c.prepareStatement(
+                "SELECT qty_on_shelf, qty_in_store FROM batches WHERE id=? FOR UPDATE")) {
+            ps.setLong(1, batchId);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) { stripes.remove(batchId); return false; }
+                rowShelf = rs.getInt(1);
+                rowStore = rs.getInt(2);
+            }
+        }
+        int[] shelf = lockBuckets(c, batchId, Column.SHELF);
+        int[] store = lockBuckets(c, batchId, Column.STORE);
+        if (shelf.length == 0) { stripes.remove(batchId); return false; }
+
+        int totalShelf = rowShelf, totalStore = rowStore;
+        for (int q : shelf) totalShelf += q;
+        for (int q : store) totalStore += q;
+        int[] newShelf = allOnRow ? new int[shelf.length] : split(totalShelf, shelf.length);
+        int[] newStore = allOnRow ? new int[store.length] : split(totalStore, store.length);
+
+        try (PreparedStatement ps = c.prepareStatement(
+                "UPDATE batch_stock_buckets SET qty_on_shelf=?, qty_in_store=? WHERE batch_id=? AND bucket_no=?")) {
+            for (int i = 0; i < shelf.length; i++) {
+                ps.setInt(1, newShelf[i]);
+                ps.setInt(2, newStore[i]);
+                ps.setLong(3, batchId);
+                ps.setInt(4, i);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+        try (PreparedStatement ps = c.prepareStatement(
+                "UPDATE batches SET qty_on_shelf=?, qty_in_store=? WHERE id=?")) {
+            ps.setInt(1, allOnRow ? totalShelf : 0);
+            ps.setInt(2, allOnRow ? totalStore : 0);
+            ps.setLong(3, batchId);
+            ps.executeUpdate();
+        }
+        stripes.put(batchId, shelf.length);
+        return true;
+    }
+
+    // Buckets are always locked in bucket_no order after the batch row, so lockers cannot cross
+    private static int[] lockBuckets(Connection c, long batchId, Column col) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement(
+                "SELECT " + col.sql + " FROM batch_stock_buckets WHERE batch_id=? ORDER BY bucket_no FOR UPDATE")) {
+            ps.setLong(1, batchId);
+            List<Integer> qty = new ArrayList<>();
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) qty.add(rs.getInt(1));
+            }
+            return qty.stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    /** Even split of {@code total} over {@code k} buckets; the first {@code total % k} get one extra. */
+    static int[] split(int total, int k) {
+        int[] out = new int[k];
+        int base = total / k, extra = total % k;
+        for (int i = 0; i < k; i++) out[i] = base + (i < extra ? 1 : 0);
+        return out;
+    }
+
+    /** Every bucket once, starting at {@code start} and wrapping around. */
+    static int[] probeOrder(int start, int k) {
+        int[] out = new int[k];
+        for (int i = 0; i < k; i++) out[i] = (start + i) % k;
+        return out;
+    }
+}
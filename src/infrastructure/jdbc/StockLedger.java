@@ -0,0 +1,65 @@
+package infrastructure.jdbc;
+
+import domain.inventory.InventoryReservation;
+import domain.inventory.StockMovement;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+
+/**
+ * Appends {@code stock_movements} rows on the caller's connection, so a movement commits or
+ * rolls back together with the stock change it records. Rows are batched until {@link #flush()}.
+ */
+final class StockLedger implements AutoCloseable {
+    private static final String COLUMNS =
+            "INSERT INTO stock_movements (batch_id, item_code, movement_type, delta_main, delta_store, delta_shelf, actor)";
+    private static final String INSERT = COLUMNS + " VALUES (?,?,?,?,?,?,?)";
+
+    private final PreparedStatement ps;
+    private int pending;
+
+    StockLedger(Connection c) throws SQLException {
+        this.ps = c.prepareStatement(INSERT);
+    }
+
+    void record(long batchId, String itemCode, StockMovement.Type type,
+                int deltaMain, int deltaStore, int deltaShelf, String actor) throws SQLException {
+        if (deltaMain == 0 && deltaStore == 0 && deltaShelf == 0) return;
+        ps.setLong(1, batchId);
+        ps.setString(2, itemCode);
+        ps.setString(3, type.name());
+        ps.setInt(4, deltaMain);
+        ps.setInt(5, deltaStore);
+        ps.setInt(6, deltaShelf);
+        if (actor == null) ps.setNull(7, Types.VARCHAR); else ps.setString(7, actor);
+        ps.addBatch();
+        pending++;
+    }
+
+    /** Shelf sales for a whole group commit, written with multi-row statements instead of a batch. */
+    static void recordShelfSales(Connection c, List<InventoryReservation> sold) throws SQLException {
+        MultiRowInsert.insert(c, COLUMNS, 7, sold, (ps, at, r) -> {
+            ps.setLong(at, r.batchId);
+            ps.setString(at + 1, r.itemCode);
+            ps.setString(at + 2, StockMovement.Type.SALE.name());
+            ps.setInt(at + 3, 0);
+            ps.setInt(at + 4, 0);
+            ps.setInt(at + 5, -r.quantity);
+            ps.setNull(at + 6, Types.VARCHAR);
+        });
+    }
+
+    void flush() throws SQLException {
+        if (pending == 0) return;
+        ps.executeBatch();
+        pending = 0;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        ps.close();
+    }
+}
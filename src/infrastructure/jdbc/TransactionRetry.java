@@ -0,0 +1,112 @@
+package infrastructure.jdbc;
+
+import java.sql.SQLException;
+import java.sql.SQLTransactionRollbackException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded retry of whole transactions that lost a lock race: MySQL deadlock victims (1213) and
+ * lock wait timeouts (1205). Each attempt must open its own connection and transaction; the
+ * failed one has already been rolled back by the server (deadlock) or by the caller.
+ * Backoff is exponential with full jitter so colliding tills do not retry in lockstep.
+ */
+public final class TransactionRetry {
+    static final int ER_LOCK_DEADLOCK = 1213;
+    static final int ER_LOCK_WAIT_TIMEOUT = 1205;
+
+    @FunctionalInterface
+    public interface SqlWork<T> { T run() throws SQLException; }
+
+    /** Counters since startup; {@code retriesByOperation} shows where contention is. */
+    public record RetryStats(long transactions, long retries, long deadlocks, long lockWaitTimeouts,
+                             long exhausted, long backoffMillis, Map<String, Long> retriesByOperation) {}
+
+    private final int maxAttempts;
+    private final long baseBackoffMillis;
+    private final long maxBackoffMillis;
+
+    private final LongAdder transactions = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder deadlocks = new LongAdder();
+    private final LongAdder lockWaitTimeouts = new LongAdder();
+    private final LongAdder exhausted = new LongAdder();
+    private final LongAdder backoffMillis = new LongAdder();
+    private final Map<String, LongAdder> byOperation = new ConcurrentHashMap<>();
+
+    public TransactionRetry() {
+        this(4, 10, 200);
+    }
+
+    public TransactionRetry(int maxAttempts, long baseBackoffMillis, long maxBackoffMillis) {
+        if (maxAttempts < 1) throw new IllegalArgumentException("maxAttempts must be >= 1");
+        if (baseBackoffMillis < 0 || maxBackoffMillis < baseBackoffMillis)
+            throw new IllegalArgumentException("invalid backoff bounds");
+        this.maxAttempts = maxAttempts;
+        this.baseBackoffMillis = baseBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    public <T> T run(String operation, SqlWork<T> work) throws SQLException {
+        transactions.increment();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return work.run();
+            } catch (SQLException e) {
+                if (!isLockConflict(e)) throw e;
+                if (isDeadlock(e)) deadlocks.increment(); else lockWaitTimeouts.increment();
+                if (attempt >= maxAttempts) {
+                    exhausted.increment();
+                    throw e;
+                }
+                retries.increment();
+                byOperation.computeIfAbsent(operation, k -> new LongAdder()).increment();
+                sleep(backoff(attempt));
+            }
+        }
+    }
+
+    /** Full-jitter exponential backoff: uniform in [0, min(max, base * 2^(attempt-1))]. */
+    long backoff(int attempt) {
+        long ceiling = Math.min(maxBackoffMillis, baseBackoffMillis << Math.min(attempt - 1, 20));
+        return ceiling <= 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private void sleep(long millis) throws SQLException {
+        if (millis <= 0) return;
+        backoffMillis.add(millis);
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("interrupted while backing off", ie);
+        }
+    }
+
+    static boolean isLockConflict(SQLException e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLException s) {
+                if (s.getErrorCode() == ER_LOCK_DEADLOCK || s.getErrorCode() == ER_LOCK_WAIT_TIMEOUT) return true;
+                if (s instanceof SQLTransactionRollbackException || "40001".equals(s.getSQLState())) return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isDeadlock(SQLException e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLException s && s.getErrorCode() == ER_LOCK_WAIT_TIMEOUT) return false;
+        }
+        return true;
+    }
+
+    public RetryStats stats() {
+        Map<String, Long> ops = new TreeMap<>();
+        byOperation.forEach((k, v) -> ops.put(k, v.sum()));
+        return new RetryStats(transactions.sum(), retries.sum(), deadlocks.sum(), lockWaitTimeouts.sum(),
+                exhausted.sum(), backoffMillis.sum(), ops);
+    }
+}
@@ -0,0 +1,87 @@
+package infrastructure.search;
+
+import application.inventory.ItemSearchIndex;
+import domain.common.Money;
+import domain.inventory.*;
+import ports.out.InventoryRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Proxy that answers item search from an in-memory {@link ItemSearchIndex}
+ * instead of a LIKE '%q%' table scan. The index is loaded once on construction
+ * and kept in sync on item create/rename/price/restock changes and deletes.
+ */
+public final class IndexedInventoryRepository implements InventoryRepository {
+    private final InventoryRepository inner;
+    private final ItemSearchIndex index;
+
+    public IndexedInventoryRepository(InventoryRepository inner, ItemSearchIndex index) {
+        this.inner = inner;
+        this.index = index;
+        index.rebuild(inner.listAllItems());
+    }
+
+    public ItemSearchIndex index() { return index; }
+
+    @Override public List<Item> searchItemsByNameOrCode(String query) {
+        return index.search(query, Integer.MAX_VALUE);
+    }
+
+    // ===== Item writes keep the index in sync =====
+    @Override public void createItem(String code, String name, Money price) {
+        inner.createItem(code, name, price);
+        refresh(code);
+    }
+    @Override public void renameItem(String code, String newName) {
+        inner.renameItem(code, newName);
+        refresh(code);
+    }
+    @Override public void setItemPrice(String code, Money newPrice) {
+        inner.setItemPrice(code, newPrice);
+        refresh(code);
+    }
+    @Override public void setItemRestockLevel(String itemCode, int level) {
+        inner.setItemRestockLevel(itemCode, level);
+        refresh(itemCode);
+    }
+    @Override public void deleteItem(String code) {
+        inner.deleteItem(code);
+        index.remove(code);
+    }
+
+    private void refresh(String code) {
+        inner.findItemByCode(code).ifPresentOrElse(index::put, () -> index.remove(code));
+    }
+
+    // ===== Pass-throughs =====
+    @Override public Optional<Item> findItemByCode(String itemCode) { return inner.findItemByCode(itemCode); }
+    @Override public Money priceOf(String itemCode) { return inner.priceOf(itemCode); }
+    @Override public List<Batch> findBatchesOnShelf(String itemCode) { return inner.findBatchesOnShelf(itemCode); }
+    @Override public List<Batch> findBatchesInStore(String itemCode) { return inner.findBatchesInStore(itemCode); }
+    @Override public void commitReservations(Iterable<InventoryReservation> reservations) { inner.commitReservations(reservations); }
+    @Override public void commitStoreReservations(Iterable<InventoryReservation> reservations) { inner.commitStoreReservations(reservations); }
+    @Override public int shelfQty(String itemCode) { return inner.shelfQty(itemCode); }
+    @Override public int storeQty(String itemCode) { return inner.storeQty(itemCode); }
+    @Override public int mainStoreQty(String itemCode) { return inner.mainStoreQty(itemCode); }
+    @Override public void moveStoreToShelfFEFO(String itemCode, int qty) { inner.moveStoreToShelfFEFO(itemCode, qty); }
+    @Override public void moveMainToShelfFEFO(String itemCode, int qty) { inner.moveMainToShelfFEFO(itemCode, qty); }
+    @Override public void moveMainToStoreFEFO(String itemCode, int qty) { inner.moveMainToStoreFEFO(itemCode, qty); }
+    @Override public void addBatch(String itemCode, LocalDate expiry, int qtyShelf, int qtyStore) { inner.addBatch(itemCode, expiry, qtyShelf, qtyStore); }
+    @Override public void editBatchQuantities(long batchId, int qtyShelf, int qtyStore) { inner.editBatchQuantities(batchId, qtyShelf, qtyStore); }
+    @Override public void updateBatchExpiry(long batchId, LocalDate newExpiry) { inner.updateBatchExpiry(batchId, newExpiry); }
+    @Override public void deleteBatch(long batchId) { inner.deleteBatch(batchId); }
+    @Override public int restockLevel(String itemCode) { return inner.restockLevel(itemCode); }
+    @Override public List<Item> listAllItems() { return inner.listAllItems(); }
+
+    @Override public void addBatchDiscount(long batchId, BatchDiscount.DiscountType type, Money value,
+                                          String reason, String createdBy) {
+        inner.addBatchDiscount(batchId, type, value, reason, createdBy);
+    }
+    @Override public void removeBatchDiscount(long discountId) { inner.removeBatchDiscount(discountId); }
+    @Override public Optional<BatchDiscount> findActiveBatchDiscount(long batchId) { return inner.findActiveBatchDiscount(batchId); }
+    @Override public List<BatchDiscount> findBatchDiscountsByBatch(long batchId) { return inner.findBatchDiscountsByBatch(batchId); }
+    @Override public List<BatchDiscountView> getAllBatchDiscountsWithDetails() { return inner.getAllBatchDiscountsWithDetails(); }
+}
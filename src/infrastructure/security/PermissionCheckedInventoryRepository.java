@@ -1,6 +1,7 @@
 package infrastructure.security;
 
 import ports.in.AuthService;
+import domain.auth.Permission;
 import domain.common.Money;
 import domain.inventory.*;
 import ports.out.InventoryRepository;
@@ -19,10 +20,15 @@ public final class PermissionCheckedInventoryRepository implements InventoryRepo
     }
 
     private void requireManagerOrAdmin() {
-        var u = auth.currentUser();
-        String role = (u == null) ? "" : u.role();
-        boolean ok = "INVENTORY_MANAGER".equalsIgnoreCase(role) || "ADMIN".equalsIgnoreCase(role);
-        if (!ok) throw new SecurityException("Manager/Admin required for MAIN transfers.");
+        if (!auth.hasPermission(Permission.MOVE_FROM_MAIN)) {
+            throw new SecurityException("Manager/Admin required for MAIN transfers.");
+        }
+    }
+
+    private void requireDiscountManager() {
+        if (!auth.hasPermission(Permission.MANAGE_DISCOUNTS)) {
+            throw new SecurityException("Manager/Admin required for batch discounts.");
+        }
     }
 
     @Override public void moveMainToShelfFEFO(String itemCode, int qty) {
@@ -60,12 +66,12 @@ public final class PermissionCheckedInventoryRepository implements InventoryRepo
     // ===== Batch discount management (with permission checks) =====
     @Override public void addBatchDiscount(long batchId, BatchDiscount.DiscountType type, Money value,
                                           String reason, String createdBy) {
-        requireManagerOrAdmin();
+        requireDiscountManager();
         inner.addBatchDiscount(batchId, type, value, reason, createdBy);
     }
 
     @Override public void removeBatchDiscount(long discountId) {
-        requireManagerOrAdmin();
+        requireDiscountManager();
         inner.removeBatchDiscount(discountId);
     }
 
@@ -0,0 +1,33 @@
+package infrastructure.security;
+
+import application.inventory.StockTransferRepository;
+import domain.auth.Permission;
+import domain.inventory.StockLocation;
+import domain.inventory.StockMove;
+import ports.in.AuthService;
+
+import java.util.List;
+
+/** Same MAIN-transfer guard as {@link PermissionCheckedInventoryRepository}, for the bulk path. */
+public final class PermissionCheckedStockTransferRepository implements StockTransferRepository {
+    private final StockTransferRepository inner;
+    private final AuthService auth;
+
+    public PermissionCheckedStockTransferRepository(StockTransferRepository inner, AuthService auth) {
+        this.inner = inner; this.auth = auth;
+    }
+
+    private void requireManagerOrAdmin() {
+        if (!auth.hasPermission(Permission.MOVE_FROM_MAIN)) {
+            throw new SecurityException("Manager/Admin required for MAIN transfers.");
+        }
+    }
+
+    @Override
+    public BulkTransferResult applyMoves(List<StockMove> moves, String transferredBy, int chunkSize) {
+        for (StockMove m : moves) {
+            if (m.from() == StockLocation.MAIN) { requireManagerOrAdmin(); break; }
+        }
+        return inner.applyMoves(moves, transferredBy, chunkSize);
+    }
+}
@@ -0,0 +1,185 @@
+package infrastructure.web;
+
+import domain.common.Money;
+
+import java.lang.reflect.RecordComponent;
+import java.time.temporal.TemporalAccessor;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Just enough JSON for the storefront API: records, maps, collections and scalars out, and flat
+ * objects of scalars in. {@link Money} is written as a plain decimal number.
+ */
+final class Json {
+
+    private Json() {}
+
+    static String write(Object value) {
+        StringBuilder sb = new StringBuilder(256);
+        write(sb, value);
+        return sb.toString();
+    }
+
+    static void write(StringBuilder sb, Object value) {
+        if (value == null) {
+            sb.append("null");
+        } else if (value instanceof Money m) {
+            sb.append(m.toPlainString());
+        } else if (value instanceof Number || value instanceof Boolean) {
+            sb.append(value);
+        } else if (value instanceof CharSequence || value instanceof TemporalAccessor || value instanceof Enum<?>) {
+            quote(sb, value.toString());
+        } else if (value instanceof Map<?, ?> map) {
+            sb.append('{');
+            boolean first = true;
+            for (var e : map.entrySet()) {
+                if (!first) sb.append(',');
+                first = false;
+                quote(sb, String.valueOf(e.getKey()));
+                sb.append(':');
+                write(sb, e.getValue());
+            }
+            sb.append('}');
+        } else if (value instanceof Collection<?> list) {
+            sb.append('[');
+            boolean first = true;
+            for (Object o : list) {
+                if (!first) sb.append(',');
+                first = false;
+                write(sb, o);
+            }
+            sb.append(']');
+        } else if (value instanceof Record r) {
+            sb.append('{');
+            RecordComponent[] parts = r.getClass().getRecordComponents();
+            for (int i = 0; i < parts.length; i++) {
+                if (i > 0) sb.append(',');
+                quote(sb, parts[i].getName());
+                sb.append(':');
+                try {
+                    write(sb, parts[i].getAccessor().invoke(r));
+                } catch (ReflectiveOperationException e) {
+                    throw new IllegalStateException("Cannot read " + parts[i].getName(), e);
+                }
+            }
+            sb.append('}');
+        } else {
+            quote(sb, value.toString());
+        }
+    }
+
+    static void quote(StringBuilder sb, String s) {
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                    else sb.append(c);
+                }
+            }
+        }
+        sb.append('"');
+    }
+
+    /**
+     * Parses an object whose values are strings, numbers, booleans or null; every value comes back
+     * as its text (null stays null). Nested objects and arrays are rejected.
+     */
+    static Map<String, String> parseFlatObject(String text) {
+        Parser p = new Parser(text == null ? "" : text);
+        Map<String, String> out = new LinkedHashMap<>();
+        p.skipSpace();
+        if (p.atEnd()) return out;
+        p.expect('{');
+        p.skipSpace();
+        if (p.peek() == '}') {
+            p.pos++;
+        } else {
+            while (true) {
+                p.skipSpace();
+                String key = p.string();
+                p.skipSpace();
+                p.expect(':');
+                p.skipSpace();
+                out.put(key, p.scalar());
+                p.skipSpace();
+                if (p.peek() == ',') { p.pos++; continue; }
+                p.expect('}');
+                break;
+            }
+        }
+        p.skipSpace();
+        if (!p.atEnd()) throw new IllegalArgumentException("Unexpected content after JSON object");
+        return out;
+    }
+
+    private static final class Parser {
+        final String s;
+        int pos;
+
+        Parser(String s) { this.s = s; }
+
+        boolean atEnd() { return pos >= s.length(); }
+
+        char peek() {
+            if (atEnd()) throw new IllegalArgumentException("Unexpected end of JSON");
+            return s.charAt(pos);
+        }
+
+        void skipSpace() {
+            while (!atEnd() && Character.isWhitespace(s.charAt(pos))) pos++;
+        }
+
+        void expect(char c) {
+            if (peek() != c) throw new IllegalArgumentException("Expected '" + c + "' at " + pos);
+            pos++;
+        }
+
+        String scalar() {
+            char c = peek();
+            if (c == '"') return string();
+            if (c == '{' || c == '[') throw new IllegalArgumentException("Nested values are not supported");
+            int start = pos;
+            while (!atEnd() && ",}".indexOf(s.charAt(pos)) < 0 && !Character.isWhitespace(s.charAt(pos))) pos++;
+            String word = s.substring(start, pos);
+            if (word.equals("null")) return null;
+            if (word.equals("true") || word.equals("false") || word.matches("-?\\d+(\\.\\d+)?([eE][+-]?\\d+)?")) return word;
+            throw new IllegalArgumentException("Invalid JSON value at " + start);
+        }
+
+        String string() {
+            expect('"');
+            StringBuilder sb = new StringBuilder();
+            while (true) {
+                char c = peek();
+                pos++;
+                if (c == '"') return sb.toString();
+                if (c != '\\') { sb.append(c); continue; }
+                char e = peek();
+                pos++;
+                switch (e) {
+                    case '"', '\\', '/' -> sb.append(e);
+                    case 'n' -> sb.append('\n');
+                    case 'r' -> sb.append('\r');
+                    case 't' -> sb.append('\t');
+                    case 'b' -> sb.append('\b');
+                    case 'f' -> sb.append('\f');
+                    case 'u' -> {
+                        if (pos + 4 > s.length()) throw new IllegalArgumentException("Bad \\u escape");
+                        sb.append((char) Integer.parseInt(s.substring(pos, pos + 4), 16));
+                        pos += 4;
+                    }
+                    default -> throw new IllegalArgumentException("Bad escape \\" + e);
+                }
+            }
+        }
+    }
+}
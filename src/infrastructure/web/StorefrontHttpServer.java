@@ -0,0 +1,265 @@
+package infrastructure.web;
+
+import application.auth.CustomerAuthService;
+import application.auth.CustomerAuthService.AuthenticationException;
+import application.online.StorefrontService;
+import application.online.StorefrontService.StorefrontException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import domain.auth.Customer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * HTTP/JSON front of the {@link StorefrontService} on the JDK's built-in server, one virtual thread
+ * per request. Blocking JDBC calls park the virtual thread instead of holding a platform thread, so
+ * thousands of idle or slow shoppers cost little; {@code maxInFlight} bounds how many requests reach
+ * the store (and the database) at once, and the rest wait briefly, then get 503.
+ *
+ * <pre>
+ * POST   /api/login              {"username","password"}  -> {"token","customer"}
+ * POST   /api/logout
+ * GET    /api/items?q=&amp;limit=
+ * GET    /api/items/{code}
+ * GET    /api/cart
+ * POST   /api/cart/items         {"code","qty"}
+ * DELETE /api/cart/items/{code}?qty=
+ * POST   /api/checkout           {"cardLast4"}
+ * </pre>
+ * Cart and checkout calls need {@code Authorization: Bearer <token>}. The cart belongs to the
+ * customer, not the session, so it outlives a logout until it idles out.
+ */
+public final class StorefrontHttpServer {
+
+    private static final Logger logger = Logger.getLogger(StorefrontHttpServer.class.getName());
+    private static final int MAX_BODY_BYTES = 16 * 1024;
+    private static final int DEFAULT_SEARCH_LIMIT = 20;
+    private static final int MAX_SEARCH_LIMIT = 100;
+
+    private final StorefrontService store;
+    private final CustomerAuthService customers;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore inFlight;
+    private final Duration queueWait;
+
+    public StorefrontHttpServer(StorefrontService store, CustomerAuthService customers,
+                                InetSocketAddress address, int maxInFlight, Duration queueWait) throws IOException {
+        if (maxInFlight < 1) throw new IllegalArgumentException("maxInFlight must be >= 1");
+        this.store = store;
+        this.customers = customers;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.queueWait = queueWait;
+        this.server = HttpServer.create(address, 0);
+        server.createContext("/api/", this::handle);
+        server.setExecutor(executor);
+    }
+
+    public void start() {
+        server.start();
+        logger.info("Storefront API listening on " + address());
+    }
+
+    /** Stops accepting, gives open exchanges up to {@code grace} to finish, then ends the executor. */
+    public void stop(Duration grace) {
+        server.stop((int) Math.max(0, grace.toSeconds()));
+        executor.shutdownNow();
+    }
+
+    public InetSocketAddress address() {
+        return server.getAddress();
+    }
+
+    private void handle(HttpExchange ex) {
+        try (ex) {
+            boolean admitted;
+            try {
+                admitted = inFlight.tryAcquire(queueWait.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (!admitted) {
+                ex.getResponseHeaders().set("Retry-After", "1");
+                send(ex, 503, error("Storefront is busy, try again"));
+                return;
+            }
+            try {
+                route(ex);
+            } finally {
+                inFlight.release();
+            }
+        } catch (IOException e) {
+            logger.log(Level.FINE, "Client went away", e);
+        }
+    }
+
+    private void route(HttpExchange ex) throws IOException {
+        String method = ex.getRequestMethod();
+        String path = ex.getRequestURI().getPath();
+        Map<String, String> query = query(ex.getRequestURI().getRawQuery());
+        try {
+            Object body;
+            if (path.equals("/api/login")) {
+                requireMethod(method, "POST");
+                Map<String, String> in = Json.parseFlatObject(readBody(ex));
+                var session = customers.openSession(in.get("username"), in.get("password"), source(ex));
+                var out = new LinkedHashMap<String, Object>();
+                out.put("token", session.token());
+                out.put("customer", session.principal().name());
+                body = out;
+            } else if (path.equals("/api/logout")) {
+                requireMethod(method, "POST");
+                customers.closeSession(bearer(ex));
+                body = Map.of("loggedOut", true);
+            } else if (path.equals("/api/items")) {
+                requireMethod(method, "GET");
+                int limit = Math.min(MAX_SEARCH_LIMIT, intParam(query.get("limit"), DEFAULT_SEARCH_LIMIT));
+                body = store.search(query.getOrDefault("q", ""), limit);
+            } else if (path.startsWith("/api/items/")) {
+                requireMethod(method, "GET");
+                body = store.item(tail(path, "/api/items/"));
+            } else if (path.equals("/api/cart")) {
+                requireMethod(method, "GET");
+                body = store.cart(authorized(ex).name());
+            } else if (path.equals("/api/cart/items")) {
+                requireMethod(method, "POST");
+                String cart = authorized(ex).name();
+                Map<String, String> in = Json.parseFlatObject(readBody(ex));
+                body = store.addToCart(cart, in.get("code"), intParam(in.get("qty"), 1));
+            } else if (path.startsWith("/api/cart/items/")) {
+                requireMethod(method, "DELETE");
+                String cart = authorized(ex).name();
+                body = store.removeFromCart(cart, tail(path, "/api/cart/items/"), intParam(query.get("qty"), 0));
+            } else if (path.equals("/api/checkout")) {
+                requireMethod(method, "POST");
+                String who = authorized(ex).name();
+                Map<String, String> in = Json.parseFlatObject(readBody(ex));
+                body = store.checkout(who, who, in.get("cardLast4"));
+            } else {
+                send(ex, 404, error("No such resource: " + path));
+                return;
+            }
+            send(ex, 200, body);
+        } catch (MethodNotAllowed e) {
+            ex.getResponseHeaders().set("Allow", e.getMessage());
+            send(ex, 405, error("Use " + e.getMessage()));
+        } catch (NotAuthorized | AuthenticationException e) {
+            send(ex, 401, error(e.getMessage() == null ? "Login required" : e.getMessage()));
+        } catch (NoSuchElementException e) {
+            send(ex, 404, error(e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            send(ex, 400, error(e.getMessage()));
+        } catch (StorefrontException e) {
+            send(ex, 409, error(e.getMessage()));
+        } catch (RuntimeException e) {
+            logger.log(Level.SEVERE, method + " " + path + " failed", e);
+            send(ex, 500, error("Internal error"));
+        }
+    }
+
+    // carts are keyed by customer name
+    private Customer authorized(HttpExchange ex) {
+        String token = bearer(ex);
+        if (token == null) throw new NotAuthorized();
+        return customers.customerFor(token).orElseThrow(NotAuthorized::new);
+    }
+
+    private static String bearer(HttpExchange ex) {
+        String h = ex.getRequestHeaders().getFirst("Authorization");
+        if (h == null || !h.regionMatches(true, 0, "Bearer ", 0, 7)) return null;
+        String token = h.substring(7).trim();
+        return token.isEmpty() ? null : token;
+    }
+
+    private static String source(HttpExchange ex) {
+        var remote = ex.getRemoteAddress();
+        return remote == null || remote.getAddress() == null ? "web" : remote.getAddress().getHostAddress();
+    }
+
+    private static void requireMethod(String actual, String expected) {
+        if (!expected.equalsIgnoreCase(actual)) throw new MethodNotAllowed(expected);
+    }
+
+    private static String tail(String path, String prefix) {
+        String rest = URLDecoder.decode(path.substring(prefix.length()), StandardCharsets.UTF_8);
+        if (rest.isBlank() || rest.contains("/")) throw new NoSuchElementException("No such resource: " + path);
+        return rest;
+    }
+
+    private static int intParam(String value, int def) {
+        if (value == null || value.isBlank()) return def;
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a whole number: " + value);
+        }
+    }
+
+    private static Map<String, String> query(String raw) {
+        Map<String, String> out = new LinkedHashMap<>();
+        if (raw == null || raw.isEmpty()) return out;
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            String k = eq < 0 ? pair : pair.substring(0, eq);
+            String v = eq < 0 ? "" : pair.substring(eq + 1);
+            out.putIfAbsent(URLDecoder.decode(k, StandardCharsets.UTF_8), URLDecoder.decode(v, StandardCharsets.UTF_8));
+        }
+        return out;
+    }
+
+    private static String readBody(HttpExchange ex) throws IOException {
+        try (InputStream in = ex.getRequestBody()) {
+            byte[] bytes = in.readNBytes(MAX_BODY_BYTES + 1);
+            if (bytes.length > MAX_BODY_BYTES) throw new IllegalArgumentException("Request body too large");
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static Map<String, String> error(String message) {
+        return Map.of("error", message == null ? "" : message);
+    }
+
+    private static void send(HttpExchange ex, int status, Object body) throws IOException {
+        byte[] bytes;
+        try {
+            bytes = Json.write(body).getBytes(StandardCharsets.UTF_8);
+        } catch (IllegalStateException e) {
+            logger.log(Level.SEVERE, "Cannot encode response", e);
+            status = 500;
+            bytes = "{\"error\":\"Internal error\"}".getBytes(StandardCharsets.UTF_8);
+        }
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        ex.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = ex.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static final class NotAuthorized extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        NotAuthorized() { super("Login required"); }
+    }
+
+    private static final class MethodNotAllowed extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        MethodNotAllowed(String allowed) { super(allowed); }
+    }
+}
@@ -1,16 +1,27 @@
 package ports.in;
 
+import application.auth.SessionStore;
+import application.auth.UserCredentials;
 import domain.auth.PasswordHash;
+import domain.auth.Permission;
 import domain.auth.User;
 import ports.out.UserRepository;
 
-import java.util.Optional;
+import java.time.Duration;
 
 public final class AuthService {
-    private final UserRepository users;
-    private User current = null;
+    private final UserCredentials credentials;
+    private final SessionStore<User> sessions;
+    private volatile SessionStore.Session<User> current = null;
 
-    public AuthService(UserRepository users) { this.users = users; }
+    public AuthService(UserRepository users) {
+        this(UserCredentials.of(users), new SessionStore<>(Duration.ofHours(8)));
+    }
+
+    public AuthService(UserCredentials credentials, SessionStore<User> sessions) {
+        this.credentials = credentials;
+        this.sessions = sessions;
+    }
 
     public boolean login(String username, String password) {
         if (username == null || username.trim().isEmpty()) {
@@ -20,7 +31,9 @@ public final class AuthService {
             throw new IllegalArgumentException("Invalid login credentials. You can't add numbers to login.");
         }
 
-        String stored = users.loadPasswordHash(username);
+        var found = credentials.loadCredentials(username);
+        if (found.isEmpty()) return false;
+        String stored = found.get().passwordHash();
         if (stored == null) return false;
 
 
@@ -31,14 +44,53 @@ public final class AuthService {
 
         if (!ok) return false;
 
-        Optional<User> u = users.findByUsername(username);
-        current = u.orElse(null);
-        return current != null && !"DISABLED".equalsIgnoreCase(current.status());
+        User user = found.get().user();
+        logout();
+        if ("DISABLED".equalsIgnoreCase(user.status())) return false;
+        current = sessions.open(user, Permission.grantedTo(user.role()));
+        return true;
+    }
+
+    /** Continues a session opened earlier (e.g. by another terminal) from its token. */
+    public boolean resume(String token) {
+        var s = sessions.find(token);
+        s.ifPresent(session -> current = session);
+        return s.isPresent();
+    }
+
+    public void logout() {
+        var s = current;
+        if (s != null) sessions.close(s.token());
+        current = null;
     }
 
-    public void logout() { current = null; }
-    public boolean isLoggedIn() { return current != null; }
-    public User currentUser() { return current; }
+    public boolean isLoggedIn() { return live() != null; }
+
+    public User currentUser() {
+        var s = live();
+        return s == null ? null : s.principal();
+    }
+
+    /** Opaque token of the current session, or null when logged out. */
+    public String sessionToken() {
+        var s = live();
+        return s == null ? null : s.token();
+    }
+
+    /** Bitmask test against the grants resolved at login; false when logged out or the session lapsed. */
+    public boolean hasPermission(Permission p) {
+        var s = live();
+        return s != null && s.has(p.bit());
+    }
+
+    // The current session while it is live, its idle timer pushed out by this use; a lapsed one logs out
+    private SessionStore.Session<User> live() {
+        var s = current;
+        if (s == null) return null;
+        var found = sessions.find(s.token()).orElse(null);
+        if (current == s) current = found;
+        return found;
+    }
 
     private boolean containsNumbers(String text) {
         return text.matches(".*\\d.*");
@@ -2,24 +2,54 @@ package ports.in;
 
 import application.inventory.BatchSelector;
 import application.inventory.FefoBatchSelector;
+import application.inventory.ItemSearchIndex;
 import domain.common.Money;
 import domain.inventory.Batch;
 import domain.inventory.InventoryReservation;
 import domain.inventory.Item;
 import ports.out.InventoryRepository;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public final class InventoryService {
     private final InventoryRepository repo;
     private final BatchSelector selector;
+    private final ItemSearchIndex searchIndex; // optional, null = search through the repository
+    private final Executor asyncExecutor;      // runs the *Async variants
 
     // Dependency Injection of repository and selection strategy
     public InventoryService(InventoryRepository repo, BatchSelector selector) {
+        this(repo, selector, null);
+    }
+
+    public InventoryService(InventoryRepository repo, BatchSelector selector, ItemSearchIndex searchIndex) {
+        this(repo, selector, searchIndex, AsyncDefaults.EXECUTOR);
+    }
+
+    public InventoryService(InventoryRepository repo, BatchSelector selector, ItemSearchIndex searchIndex,
+                            Executor asyncExecutor) {
         this.repo = repo;
         this.selector = selector;
+        this.searchIndex = searchIndex;
+        this.asyncExecutor = asyncExecutor;
+    }
+
+    // Shared virtual-thread executor: each async call is one blocking JDBC round trip, so threads are cheap to park
+    private static final class AsyncDefaults {
+        static final ExecutorService EXECUTOR = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("inventory-async-", 0).factory());
     }
 
     public void moveMainToStoreFEFOWithUser(String code, int qty, String transferredBy) {
@@ -202,6 +232,71 @@ public final class InventoryService {
         }
     }
 
+    // -------- Async variants (independent lines can be issued together and joined) --------
+    public CompletableFuture<List<InventoryReservation>> reserveByChannelAsync(String code, int qty, String channel) {
+        return CompletableFuture.supplyAsync(() -> reserveByChannel(code, qty, channel), asyncExecutor);
+    }
+
+    public CompletableFuture<Money> priceOfAsync(String code) {
+        return CompletableFuture.supplyAsync(() -> priceOf(code), asyncExecutor);
+    }
+
+    /** Shelf, store, main and restock level fetched concurrently. */
+    public CompletableFuture<StockSnapshot> stockSnapshotAsync(String code) {
+        var shelf = CompletableFuture.supplyAsync(() -> shelfQty(code), asyncExecutor);
+        var store = CompletableFuture.supplyAsync(() -> storeQty(code), asyncExecutor);
+        var main = CompletableFuture.supplyAsync(() -> mainStoreQty(code), asyncExecutor);
+        var level = CompletableFuture.supplyAsync(() -> restockLevel(code), asyncExecutor);
+        return CompletableFuture.allOf(shelf, store, main, level)
+                .thenApply(v -> new StockSnapshot(code, shelf.join(), store.join(), main.join(), level.join()));
+    }
+
+    public CompletableFuture<Void> commitAsync(List<InventoryReservation> r, String channel) {
+        return CompletableFuture.runAsync(() -> commitReservationByChannel(r, channel), asyncExecutor);
+    }
+
+    /**
+     * Reserves every line concurrently and returns one reservation list per line, in input order.
+     * Lines of the same item are reserved together, so two lines never plan the same batch stock.
+     * Nothing is committed. If a line cannot be reserved the future completes exceptionally with that
+     * line's exception: {@link NoSuchElementException} for an unknown item, {@link IllegalStateException}
+     * when stock is short ({@code join()} wraps either in a CompletionException).
+     */
+    public CompletableFuture<List<List<InventoryReservation>>> reserveAllByChannelAsync(
+            List<String> codes, List<Integer> qtys, String channel) {
+        if (codes.size() != qtys.size()) throw new IllegalArgumentException("codes and qtys differ in size");
+        Map<String, Integer> totals = new LinkedHashMap<>();
+        for (int i = 0; i < codes.size(); i++) totals.merge(codes.get(i), qtys.get(i), Integer::sum);
+        Map<String, CompletableFuture<List<InventoryReservation>>> byCode = new LinkedHashMap<>();
+        totals.forEach((code, qty) -> byCode.put(code, reserveByChannelAsync(code, qty, channel)));
+        return CompletableFuture.allOf(byCode.values().toArray(CompletableFuture[]::new))
+                .thenApply(v -> splitByLine(codes, qtys, byCode));
+    }
+
+    // Hands each line its share of its item's reservations, earliest expiry first
+    private static List<List<InventoryReservation>> splitByLine(
+            List<String> codes, List<Integer> qtys, Map<String, CompletableFuture<List<InventoryReservation>>> byCode) {
+        Map<String, Deque<InventoryReservation>> left = new HashMap<>();
+        byCode.forEach((code, f) -> left.put(code, new ArrayDeque<>(f.join())));
+        List<List<InventoryReservation>> lines = new ArrayList<>(codes.size());
+        for (int i = 0; i < codes.size(); i++) {
+            Deque<InventoryReservation> pool = left.get(codes.get(i));
+            List<InventoryReservation> line = new ArrayList<>();
+            int need = qtys.get(i);
+            while (need > 0 && !pool.isEmpty()) {
+                InventoryReservation r = pool.poll();
+                int take = Math.min(need, r.quantity);
+                line.add(new InventoryReservation(r.batchId, r.itemCode, take));
+                if (take < r.quantity) pool.push(new InventoryReservation(r.batchId, r.itemCode, r.quantity - take));
+                need -= take;
+            }
+            lines.add(line);
+        }
+        return lines;
+    }
+
+    public record StockSnapshot(String code, int shelf, int store, int main, int restockLevel) {}
+
     public List<Item> listAllItems() {
         return repo.listAllItems();
     }
@@ -210,6 +305,29 @@ public final class InventoryService {
         return repo.searchItemsByNameOrCode(query);
     }
 
+    /** Ranked search capped at {@code limit} results (index-backed when available). */
+    public List<Item> searchItems(String query, int limit) {
+        if (searchIndex != null) return searchIndex.search(query, limit);
+        List<Item> all = repo.searchItemsByNameOrCode(query);
+        return all.size() <= limit ? all : all.subList(0, Math.max(0, limit));
+    }
+
+    /** Typeahead: items whose code, name or a word of the name starts with {@code prefix}. */
+    public List<Item> suggestItems(String prefix, int limit) {
+        if (searchIndex != null) return searchIndex.prefixSearch(prefix, limit);
+        String p = prefix == null ? "" : prefix.trim().toLowerCase(Locale.ROOT);
+        List<Item> out = new ArrayList<>();
+        for (Item it : repo.searchItemsByNameOrCode(prefix)) {
+            if (out.size() >= limit) break;
+            String name = it.name() == null ? "" : it.name().toLowerCase(Locale.ROOT);
+            if (it.code().toLowerCase(Locale.ROOT).startsWith(p)
+                    || name.startsWith(p) || name.contains(" " + p)) {
+                out.add(it);
+            }
+        }
+        return out;
+    }
+
     // -------- Internal: FEFO selection from store (backroom) --------
     private List<InventoryReservation> selectForStore(String itemCode, int requestedQty) {
         if (requestedQty <= 0) return List.of();
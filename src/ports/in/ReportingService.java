@@ -1,18 +1,172 @@
 package ports.in;
 
+import application.reporting.BasketIndex;
 import application.reporting.ReportPrinter;
 import application.reporting.ReportRepository;
+import application.reporting.SalesAggregator;
+import application.reporting.SalesColumnStore;
+import application.reporting.StreamingReportPrinter;
+import application.reporting.TopSellersTracker;
 
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 
 public final class ReportingService {
     private final ReportRepository repo;
     private final ReportPrinter printer;
+    private final SalesAggregator live; // null: live sales come from the database
+    private final TopSellersTracker topSellers; // null: best sellers always come from the database
+    private final SalesColumnStore lines; // null: no ad-hoc queries, closed ranges use SQL
+    private final Executor fanOut;         // runs the independent queries of composite reports
+    private final Duration queryTimeout;   // per query; a late query leaves its section empty
+    private final BasketIndex baskets;     // null: no market-basket report
 
     public ReportingService(ReportRepository repo, ReportPrinter printer) {
+        this(repo, printer, null, null, null);
+    }
+
+    public ReportingService(ReportRepository repo, ReportPrinter printer, SalesAggregator live) {
+        this(repo, printer, live, null, null);
+    }
+
+    public ReportingService(ReportRepository repo, ReportPrinter printer, SalesAggregator live,
+                            TopSellersTracker topSellers) {
+        this(repo, printer, live, topSellers, null);
+    }
+
+    public ReportingService(ReportRepository repo, ReportPrinter printer, SalesAggregator live,
+                            TopSellersTracker topSellers, SalesColumnStore lines) {
+        this(repo, printer, live, topSellers, lines, FanOutDefaults.EXECUTOR, FanOutDefaults.TIMEOUT);
+    }
+
+    public ReportingService(ReportRepository repo, ReportPrinter printer, SalesAggregator live,
+                            TopSellersTracker topSellers, SalesColumnStore lines,
+                            Executor fanOut, Duration queryTimeout) {
+        this(repo, printer, live, topSellers, lines, fanOut, queryTimeout, null);
+    }
+
+    public ReportingService(ReportRepository repo, ReportPrinter printer, SalesAggregator live,
+                            TopSellersTracker topSellers, SalesColumnStore lines,
+                            Executor fanOut, Duration queryTimeout, BasketIndex baskets) {
+        if (queryTimeout == null || queryTimeout.isNegative() || queryTimeout.isZero()) {
+            throw new IllegalArgumentException("queryTimeout must be > 0");
+        }
         this.repo = repo;
         this.printer = printer;
+        this.live = live;
+        this.topSellers = topSellers;
+        this.lines = lines;
+        this.fanOut = fanOut;
+        this.queryTimeout = queryTimeout;
+        this.baskets = baskets;
+    }
+
+    // Bounded on purpose: every task holds a database connection while it runs
+    private static final class FanOutDefaults {
+        static final Duration TIMEOUT = Duration.ofSeconds(10);
+        static final ExecutorService EXECUTOR = new ThreadPoolExecutor(4, 4, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(32), Thread.ofPlatform().daemon().name("report-fanout-", 0).factory());
+    }
+
+    /** One part of a composite report: either {@code value} or the reason it is missing. */
+    public record Section<T>(String name, T value, String error) {
+        public boolean ok() { return error == null; }
+    }
+
+    public record ManagementSummary(Section<ReportRepository.DailySalesRow> dailySales,
+                                    Section<List<ReportRepository.BestSellerRow>> bestSellers,
+                                    Section<List<ReportRepository.RevenueRow>> revenue,
+                                    Section<List<ReportRepository.RestockRow>> restock) {
+        public boolean complete() {
+            return dailySales.ok() && bestSellers.ok() && revenue.ok() && restock.ok();
+        }
+    }
+
+    /**
+     * Sales of {@code day}, best sellers and revenue for {@code from..to} and the restock list,
+     * queried concurrently. Takes as long as the slowest query (capped by the per-query timeout);
+     * a query that fails or times out leaves its section empty instead of failing the summary.
+     */
+    public ManagementSummary managementSummary(LocalDate day, LocalDate from, LocalDate to, int topN) {
+        var daily = section("Daily sales", () -> repo.dailySales(day));
+        var best = section("Best sellers", () -> repo.bestSellers(from, to, topN));
+        var revenue = section("Revenue by day", () -> repo.revenueByDay(from, to));
+        var restock = section("Restock", repo::restockAtOrBelowLevel);
+        CompletableFuture.allOf(daily, best, revenue, restock).join(); // sections complete normally
+        return new ManagementSummary(daily.join(), best.join(), revenue.join(), restock.join());
+    }
+
+    public void printManagementSummary(LocalDate day, LocalDate from, LocalDate to, int topN) {
+        var summary = managementSummary(day, from, to, topN);
+        var daily = summary.dailySales();
+        if (daily.ok()) {
+            var r = daily.value();
+            printer.printDailySales(new ReportPrinter.DailySales(r.day(), r.bills(), r.revenue(), r.discounts(), r.items()));
+        } else {
+            printer.printUnavailable(daily.name(), daily.error());
+        }
+        var best = summary.bestSellers();
+        if (best.ok()) {
+            printer.printBestSellers(from, to, best.value().stream()
+                    .map(r -> new ReportPrinter.BestSeller(r.itemCode(), r.name(), r.qtySold(), r.revenue()))
+                    .toList());
+        } else {
+            printer.printUnavailable(best.name(), best.error());
+        }
+        var revenue = summary.revenue();
+        if (revenue.ok()) {
+            printer.printRevenueSeries(from, to, revenue.value().stream()
+                    .map(r -> new ReportPrinter.RevenuePoint(r.day(), r.revenue()))
+                    .toList());
+        } else {
+            printer.printUnavailable(revenue.name(), revenue.error());
+        }
+        var restock = summary.restock();
+        if (restock.ok()) {
+            printer.printRestock(restock.value().stream()
+                    .map(r -> new ReportPrinter.RestockRow(r.itemCode(), r.itemName(), r.shelfQty(),
+                            r.storeQty(), r.mainQty(), r.restockLevel()))
+                    .toList());
+        } else {
+            printer.printUnavailable(restock.name(), restock.error());
+        }
+    }
+
+    private <T> CompletableFuture<Section<T>> section(String name, Supplier<T> query) {
+        CompletableFuture<T> f;
+        try {
+            f = CompletableFuture.supplyAsync(query, fanOut);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(new Section<>(name, null, "report executor is busy"));
+        }
+        // only the wait is bounded here; the JDBC repository gives its statements the same timeout,
+        // so the server cancels the query rather than letting it hold a fan-out thread and connection
+        return f.orTimeout(queryTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                .handle((v, ex) -> ex == null ? new Section<>(name, v, null) : new Section<>(name, null, reason(ex)));
+    }
+
+    private String reason(Throwable ex) {
+        Throwable cause = ex;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof TimeoutException) return "timed out after " + queryTimeout.toMillis() + " ms";
+        return cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
     }
 
     public void printDailySales(LocalDate day) {
@@ -27,6 +181,33 @@ public final class ReportingService {
         printer.printDailySales(view);
     }
 
+    /**
+     * Current minute/hour/day from the in-memory aggregates: overall, then per channel and cashier.
+     * Without an aggregator the day is read from the database and the finer windows are skipped.
+     */
+    public void printLiveSales(SalesAggregator.Window window) {
+        if (live == null) {
+            if (window == SalesAggregator.Window.DAY) printDailySales(LocalDate.now());
+            else throw new IllegalStateException("Live sales aggregates are not enabled");
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<ReportPrinter.LiveSalesRow> rows = new ArrayList<>();
+        rows.add(liveRow("All", live.total(window, now)));
+        for (Map.Entry<String, SalesAggregator.Totals> e : live.channels(window, now).entrySet()) {
+            rows.add(liveRow(e.getKey(), e.getValue()));
+        }
+        for (Map.Entry<String, SalesAggregator.Totals> e : live.cashiers(window, now).entrySet()) {
+            rows.add(liveRow("cashier " + e.getKey(), e.getValue()));
+        }
+        printer.printLiveSales(window.name().toLowerCase(java.util.Locale.ROOT), rows);
+    }
+
+    private static ReportPrinter.LiveSalesRow liveRow(String scope, SalesAggregator.Totals t) {
+        return new ReportPrinter.LiveSalesRow(scope, t.bills(), t.revenue().toPlainString(),
+                t.averageBasket().toPlainString(), t.itemsSold());
+    }
+
     public void printReshelving(int shelfTarget) {
         var rows = repo.reshelvingSuggestions(shelfTarget);
         List<ReportPrinter.ReshelvingRow> view = rows.stream()
@@ -90,24 +271,51 @@ public final class ReportingService {
     }
 
     public void printBills(LocalDate from, LocalDate to) {
-        var rows = repo.billsBetween(from, to);
-        List<ReportPrinter.BillRow> view = rows.stream()
-                .map(r -> new ReportPrinter.BillRow(
-                        r.billNo(),
-                        r.createdAt(),
-                        r.userName(),
-                        r.channel(),
-                        r.paymentMethod(),
-                        r.subtotal(),
-                        r.discount(),
-                        r.tax(),
-                        r.total()
-                ))
-                .toList();
+        var view = repo.billsBetween(from, to).stream().map(ReportingService::billView).toList();
         printer.printBills(view, from, to);
     }
 
+    /**
+     * Writes the bills of the range to {@code out} as they come off the cursor, so the size of the
+     * export does not depend on the heap. The caller owns {@code out} and closes it.
+     */
+    public StreamingReportPrinter.ExportStats exportBills(LocalDate from, LocalDate to, StreamingReportPrinter out) {
+        var sink = out.beginBills(from, to);
+        repo.streamBills(from, to, r -> sink.accept(billView(r)));
+        return out.stats();
+    }
+
+    /** The same reports, rendered by another printer (e.g. a file export instead of the console). */
+    public ReportingService withPrinter(ReportPrinter other) {
+        return new ReportingService(repo, other, live, topSellers, lines, fanOut, queryTimeout, baskets);
+    }
+
+    private static ReportPrinter.BillRow billView(ReportRepository.BillRow r) {
+        return new ReportPrinter.BillRow(
+                r.billNo(),
+                r.createdAt(),
+                r.userName(),
+                r.channel(),
+                r.paymentMethod(),
+                r.subtotal(),
+                r.discount(),
+                r.tax(),
+                r.total()
+        );
+    }
+
+    /**
+     * Exact counts: ranges held by the in-memory line store are answered from there, the rest from
+     * the database. The approximate live sketch is only used by {@link #printTopSellers}.
+     */
     public void printBestSellers(LocalDate from, LocalDate to, int limit) {
+        if (lines != null && lines.covers(from)) {
+            var view = lines.bestSellers(from, to, limit).stream()
+                    .map(g -> new ReportPrinter.BestSeller(g.key(), g.label(), g.qty(), g.revenue().toPlainString()))
+                    .toList();
+            printer.printBestSellers(from, to, view);
+            return;
+        }
         var rows = repo.bestSellers(from, to, limit);
         var list = rows.stream()
                 .map(r -> new ReportPrinter.BestSeller(
@@ -120,6 +328,55 @@ public final class ReportingService {
         printer.printBestSellers(from, to, list);
     }
 
+    /**
+     * Best sellers of the current day/week/month so far from the live sketch, each count with its
+     * overcount bound; falls back to the exact report without a tracker.
+     */
+    public void printTopSellers(TopSellersTracker.Period period, int limit) {
+        LocalDate today = LocalDate.now();
+        if (topSellers == null) {
+            printBestSellers(period.startOf(today), today, limit);
+            return;
+        }
+        var snapshot = topSellers.top(period, limit);
+        printer.printTopSellers(period.name().toLowerCase(java.util.Locale.ROOT), snapshot.from(),
+                snapshot.errorBound(), topSellerView(snapshot));
+    }
+
+    /** Ad-hoc filter/group-by over the in-memory sold lines; never touches the database. */
+    public void printSalesBreakdown(SalesColumnStore.Query query) {
+        if (lines == null) throw new IllegalStateException("In-memory sales store is not enabled");
+        var rows = lines.query(query).stream()
+                .map(g -> new ReportPrinter.BreakdownRow(g.key(), g.label(), g.lines(), g.qty(), g.revenue().toPlainString()))
+                .toList();
+        String range = (query.from() == null ? "start" : query.from().toString())
+                + " to " + (query.to() == null ? "now" : query.to().toString());
+        printer.printBreakdown("Sales by " + query.groupBy().name().toLowerCase(java.util.Locale.ROOT) + ", " + range, rows);
+    }
+
+    /** Items most often bought together with {@code itemCode}, with support, confidence and lift. */
+    public void printCompanions(String itemCode, int limit) {
+        if (baskets == null) throw new IllegalStateException("Basket analysis is not enabled");
+        var found = baskets.companions(itemCode, limit);
+        var rows = found.stream()
+                .map(a -> new ReportPrinter.CompanionRow(a.withCode(), a.withName(), a.together(),
+                        a.support(), a.confidence(), a.lift(), a.maxUndercount()))
+                .toList();
+        printer.printCompanions(itemCode, found.isEmpty() ? itemCode : found.get(0).itemName(), rows);
+    }
+
+    private static List<ReportPrinter.TopSellerRow> topSellerView(TopSellersTracker.Snapshot snapshot) {
+        return snapshot.top().stream()
+                .map(t -> new ReportPrinter.TopSellerRow(
+                        t.itemCode(),
+                        t.itemName(),
+                        t.qty(),
+                        t.maxOvercount(),
+                        t.revenue().toPlainString()
+                ))
+                .toList();
+    }
+
     public void printRevenueSeries(LocalDate from, LocalDate to) {
         var rows = repo.revenueByDay(from, to);
         List<ReportPrinter.RevenuePoint> series = rows.stream()
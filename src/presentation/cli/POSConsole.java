@@ -2,19 +2,32 @@ package presentation.cli;
 
 import ports.in.AuthService;
 import application.auth.CustomerAuthService;
+import application.inventory.BulkReplenishmentService;
 import application.inventory.InventoryAdminService;
 import ports.in.InventoryService;
 import application.inventory.RestockService;
+import application.inventory.StockStoreStats;
+import application.pos.controllers.LineRequest;
 import application.pos.controllers.POSController;
 import ports.in.ReportingService;
+import application.reporting.ReportExports;
+import application.reporting.SalesAggregator;
+import application.reporting.SalesColumnStore;
+import application.reporting.StreamingReportPrinter;
+import application.reporting.TopSellersTracker;
 import domain.common.Money;
 import domain.inventory.Item;
 
+import java.nio.file.Path;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
 import java.util.Scanner;
 
 public final class POSConsole {
+    private static final List<String> EXPORTABLE_REPORTS = List.of("bills", "daily", "bestsellers", "revenue", "summary");
+
     private final POSController pos;
     private final ReportingService reports;
     private final RestockService restock;
@@ -22,6 +35,9 @@ public final class POSConsole {
     private final CustomerAuthService customerAuth;
     private final InventoryAdminService admin;
     private final InventoryService inv;
+    private final BulkReplenishmentService bulkRestock; // optional
+    private final ReportExports exports; // optional
+    private final StockStoreStats stockStats; // optional
 
     public POSConsole(POSController pos,
                       ReportingService reports,
@@ -30,6 +46,45 @@ public final class POSConsole {
                       CustomerAuthService customerAuth,
                       InventoryAdminService admin,
                       InventoryService inv) {
+        this(pos, reports, restock, auth, customerAuth, admin, inv, null);
+    }
+
+    public POSConsole(POSController pos,
+                      ReportingService reports,
+                      RestockService restock,
+                      AuthService auth,
+                      CustomerAuthService customerAuth,
+                      InventoryAdminService admin,
+                      InventoryService inv,
+                      BulkReplenishmentService bulkRestock) {
+        this(pos, reports, restock, auth, customerAuth, admin, inv, bulkRestock, null);
+    }
+
+    public POSConsole(POSController pos,
+                      ReportingService reports,
+                      RestockService restock,
+                      AuthService auth,
+                      CustomerAuthService customerAuth,
+                      InventoryAdminService admin,
+                      InventoryService inv,
+                      BulkReplenishmentService bulkRestock,
+                      ReportExports exports) {
+        this(pos, reports, restock, auth, customerAuth, admin, inv, bulkRestock, exports, null);
+    }
+
+    public POSConsole(POSController pos,
+                      ReportingService reports,
+                      RestockService restock,
+                      AuthService auth,
+                      CustomerAuthService customerAuth,
+                      InventoryAdminService admin,
+                      InventoryService inv,
+                      BulkReplenishmentService bulkRestock,
+                      ReportExports exports,
+                      StockStoreStats stockStats) {
+        this.bulkRestock = bulkRestock;
+        this.exports = exports;
+        this.stockStats = stockStats;
         this.pos = pos;
         this.reports = reports;
         this.restock = restock;
@@ -193,6 +248,7 @@ public final class POSConsole {
                 // Removed manual discount option - only inventory managers can apply discounts through batch management
                 System.out.println("3. Show Total");
                 System.out.println("4. Checkout");
+                System.out.println("5. Add Several Items");
                 System.out.println("0. Cancel");
                 System.out.print("Choose an option: ");
                 String choice = readLine(sc);
@@ -308,6 +364,7 @@ public final class POSConsole {
                         }
                         active = false;
                     }
+                    case "5" -> addSeveralItems(sc);
                     case "0" -> {
                         System.out.println("Cancelled.");
                         active = false;
@@ -320,6 +377,36 @@ public final class POSConsole {
         }
     }
 
+    // Whole basket in one go: either every line is added or the bill is left as it was
+    private void addSeveralItems(Scanner sc) {
+        System.out.println("Enter one line per item as CODE QTY; '0' to finish.");
+        List<LineRequest> lines = new ArrayList<>();
+        while (true) {
+            System.out.print("  > ");
+            String entry = readLine(sc);
+            if (entry.isEmpty() || "0".equals(entry)) break;
+            String[] parts = entry.split("\\s+");
+            try {
+                if (parts.length != 2) throw new NumberFormatException();
+                int qty = Integer.parseInt(parts[1]);
+                if (qty <= 0) { System.out.println(" Quantity must be greater than 0."); continue; }
+                lines.add(new LineRequest(parts[0], qty));
+            } catch (NumberFormatException e) {
+                System.out.println(" Expected CODE QTY, e.g. ITM001 3");
+            }
+        }
+        if (lines.isEmpty()) {
+            System.out.println("Nothing to add.");
+            return;
+        }
+        try {
+            pos.addItems(lines);
+            System.out.println(" " + lines.size() + " line(s) added.");
+        } catch (Exception e) {
+            System.out.println(" Nothing added: " + e.getMessage());
+        }
+    }
+
     private boolean tryAddWithMainTopUpInteractive(Scanner sc, String channel, String code, int qty) {
         try {
             pos.addItem(code, qty);
@@ -461,7 +548,7 @@ public final class POSConsole {
                 case "2" -> {
                     System.out.print("Search text: ");
                     String q = readLine(sc);
-                    var items = inv.searchItems(q);
+                    var items = inv.searchItems(q, 51); // one extra so showItems can flag truncation
                     if (items.isEmpty()) { System.out.println("No matches."); break; }
                     showItems(items, 50);
                     System.out.print("Enter item code to select (or 0 to back): ");
@@ -524,6 +611,12 @@ public final class POSConsole {
         System.out.println("6. Stock by Batch");
         System.out.println("7. Bills (range)");
         System.out.println("8. Restock (≤ max(50, restock level))");
+        System.out.println("9. Live Sales (this minute/hour/day)");
+        System.out.println("10. Top Sellers Now (this day/week/month)");
+        System.out.println("11. Sales Breakdown (in-memory, ad-hoc)");
+        System.out.println("12. Management Summary (today + range)");
+        if (exports != null) System.out.println("13. Export a Report (CSV/JSON Lines file)");
+        System.out.println("14. Bought Together (companions of an item)");
         System.out.println("0. Back");
         System.out.print("Choose: ");
         String choice = readLine(sc);
@@ -582,6 +675,102 @@ public final class POSConsole {
                     reports.printRestock();
                     System.out.println(" Printed to console.");
                 }
+                case "9" -> {
+                    System.out.print("Window (minute/hour/day) [day]: ");
+                    String w = readLine(sc);
+                    reports.printLiveSales(w.isBlank() ? SalesAggregator.Window.DAY
+                            : SalesAggregator.Window.valueOf(w.trim().toUpperCase(Locale.ROOT)));
+                    System.out.println(" Printed to console.");
+                }
+                case "10" -> {
+                    System.out.print("Period (day/week/month) [day]: ");
+                    String p = readLine(sc);
+                    reports.printTopSellers(p.isBlank() ? TopSellersTracker.Period.DAY
+                            : TopSellersTracker.Period.valueOf(p.trim().toUpperCase(Locale.ROOT)), 10);
+                    System.out.println(" Printed to console.");
+                }
+                case "11" -> {
+                    System.out.print("From date (yyyy-MM-dd, blank for all): ");
+                    String from = readLine(sc);
+                    System.out.print("To date (yyyy-MM-dd, blank for today): ");
+                    String to = readLine(sc);
+                    System.out.print("Group by (none/day/month/item/channel/cashier) [day]: ");
+                    String by = readLine(sc);
+                    System.out.print("Filter by item code (blank for all): ");
+                    String code = readLine(sc);
+                    reports.printSalesBreakdown(new SalesColumnStore.Query(
+                            from.isBlank() ? null : LocalDate.parse(from),
+                            to.isBlank() ? null : LocalDate.parse(to),
+                            code.isBlank() ? null : code.trim(), null, null,
+                            by.isBlank() ? SalesColumnStore.GroupBy.DAY
+                                    : SalesColumnStore.GroupBy.valueOf(by.trim().toUpperCase(Locale.ROOT))));
+                    System.out.println(" Printed to console.");
+                }
+                case "12" -> {
+                    System.out.print("From date (yyyy-MM-dd): ");
+                    LocalDate from = LocalDate.parse(readLine(sc));
+                    System.out.print("To date (yyyy-MM-dd): ");
+                    LocalDate to = LocalDate.parse(readLine(sc));
+                    reports.printManagementSummary(LocalDate.now(), from, to, 10);
+                    System.out.println(" Printed to console.");
+                }
+                case "13" -> {
+                    if (exports == null) {
+                        System.out.println("Invalid choice.");
+                        return;
+                    }
+                    System.out.print("Report (bills/daily/bestsellers/revenue/summary) [bills]: ");
+                    String report = readLine(sc).trim().toLowerCase(Locale.ROOT);
+                    if (report.isBlank()) report = "bills";
+                    if (!EXPORTABLE_REPORTS.contains(report)) {
+                        System.out.println("Invalid choice.");
+                        return;
+                    }
+                    LocalDate from;
+                    LocalDate to;
+                    if (report.equals("daily")) {
+                        System.out.print("Enter date (yyyy-MM-dd): ");
+                        from = to = LocalDate.parse(readLine(sc));
+                    } else {
+                        System.out.print("From date (yyyy-MM-dd): ");
+                        from = LocalDate.parse(readLine(sc));
+                        System.out.print("To date (yyyy-MM-dd): ");
+                        to = LocalDate.parse(readLine(sc));
+                    }
+                    System.out.print("Format (csv/jsonl) [csv]: ");
+                    String f = readLine(sc);
+                    ReportExports.Format format = f.isBlank() ? ReportExports.Format.CSV
+                            : ReportExports.Format.valueOf(f.trim().toUpperCase(Locale.ROOT));
+                    System.out.print("Gzip? (y/n) [n]: ");
+                    boolean gzip = readLine(sc).trim().equalsIgnoreCase("y");
+                    String suggested = "exports/" + report + "-" + from + (report.equals("daily") ? "" : "-" + to) + "."
+                            + format.name().toLowerCase(Locale.ROOT) + (gzip ? ".gz" : "");
+                    System.out.print("File [" + suggested + "]: ");
+                    String file = readLine(sc);
+                    Path path = Path.of(file.isBlank() ? suggested : file.trim());
+                    StreamingReportPrinter written;
+                    try (StreamingReportPrinter out = exports.open(path, format, gzip)) {
+                        written = out;
+                        // bills stream from the cursor; the other reports are small and reuse their print paths
+                        switch (report) {
+                            case "bills" -> reports.exportBills(from, to, out);
+                            case "daily" -> reports.withPrinter(out).printDailySales(from);
+                            case "bestsellers" -> reports.withPrinter(out).printBestSellers(from, to, 10);
+                            case "revenue" -> reports.withPrinter(out).printRevenueSeries(from, to);
+                            default -> reports.withPrinter(out).printManagementSummary(LocalDate.now(), from, to, 10);
+                        }
+                    }
+                    // read after close, so the byte count includes the flushed tail and gzip trailer
+                    var stats = written.stats();
+                    System.out.printf(" Exported %d rows to %s (%d bytes, %d rows/s).%n",
+                            stats.rows(), path, stats.bytes(), stats.rowsPerSecond());
+                }
+                case "14" -> {
+                    System.out.print("Item code: ");
+                    String code = readLine(sc).trim();
+                    reports.printCompanions(code, 10);
+                    System.out.println(" Printed to console.");
+                }
                 case "0" -> { /* back */ }
                 default -> System.out.println("Invalid choice.");
             }
@@ -615,6 +804,9 @@ public final class POSConsole {
             System.out.println("7. Move MAIN -> SHELF (FEFO)");
             System.out.println("8. Move STORE -> SHELF (FEFO)");
             System.out.println("9. Batch Discount Management"); // NEW
+            if (bulkRestock != null) System.out.println("10. Bulk Replenish from Restock Report");
+            if (bulkRestock != null && bulkRestock.supportsCatalogPlanning()) System.out.println("11. Catalog-wide Replenishment Plan");
+            if (stockStats != null) System.out.println("12. Stock Transaction & Cache Stats");
             System.out.println("0. Back");
             System.out.print("Choose: ");
             String ch = readLine(sc);
@@ -755,6 +947,18 @@ public final class POSConsole {
                         System.out.println("Moved " + q + " STORE → SHELF (FEFO).");
                     }
                     case "9" -> batchDiscountMenu(sc); // NEW
+                    case "10" -> {
+                        if (bulkRestock == null) { System.out.println("Invalid choice."); break; }
+                        bulkReplenishMenu(sc);
+                    }
+                    case "11" -> {
+                        if (bulkRestock == null || !bulkRestock.supportsCatalogPlanning()) { System.out.println("Invalid choice."); break; }
+                        catalogReplenishMenu(sc);
+                    }
+                    case "12" -> {
+                        if (stockStats == null) { System.out.println("Invalid choice."); break; }
+                        printStockStats();
+                    }
                     case "0" -> loop = false;
                     default -> System.out.println("Invalid choice.");
                 }
@@ -764,6 +968,64 @@ public final class POSConsole {
         }
     }
 
+    private void bulkReplenishMenu(Scanner sc) {
+        var rows = reports.restockAtOrBelowLevel();
+        if (rows.isEmpty()) {
+            System.out.println("Nothing at or below restock level.");
+            return;
+        }
+        var moves = bulkRestock.planFromRestockReport(rows, 100);
+        System.out.println(rows.size() + " item(s) at/below restock level, " + moves.size() + " move(s) planned.");
+        if (!promptYesNo(sc, "Apply all moves now? (y/n): ")) {
+            System.out.println("Cancelled.");
+            return;
+        }
+        String by = auth.currentUser() == null ? "system" : auth.currentUser().username();
+        var result = bulkRestock.apply(moves, by);
+        System.out.println("Moved " + result.totalMoved() + " unit(s) in " + result.chunksCommitted()
+                + " chunk(s), " + result.elapsedMillis() + " ms.");
+        for (var r : result.shortfalls()) {
+            System.out.println("  Short: " + r.move().itemCode() + " " + r.move().from() + " -> " + r.move().to()
+                    + " moved " + r.moved() + "/" + r.move().qty());
+        }
+    }
+
+    private void catalogReplenishMenu(Scanner sc) {
+        var plan = bulkRestock.planCatalog(100);
+        System.out.println("Evaluated " + plan.itemsEvaluated() + " item(s) in " + plan.elapsedMillis() + " ms.");
+        System.out.println("  Items to restock : " + plan.itemsToRestock());
+        System.out.println("  STORE -> SHELF   : " + plan.totalStoreToShelf());
+        System.out.println("  MAIN  -> STORE   : " + plan.totalMainToStore());
+        System.out.println("  Short in MAIN    : " + plan.itemsShort());
+        if (plan.moves().isEmpty()) return;
+        if (!promptYesNo(sc, "Apply plan now? (y/n): ")) {
+            System.out.println("Cancelled.");
+            return;
+        }
+        String by = auth.currentUser() == null ? "system" : auth.currentUser().username();
+        var result = bulkRestock.apply(plan.moves(), by);
+        System.out.println("Moved " + result.totalMoved() + " unit(s) in " + result.chunksCommitted()
+                + " chunk(s), " + result.elapsedMillis() + " ms.");
+    }
+
+    private void printStockStats() {
+        var r = stockStats.retries();
+        System.out.println("Stock transactions since startup: " + r.transactions());
+        System.out.println("  Retried           : " + r.retries() + " (" + r.deadlocks() + " deadlock(s), "
+                + r.lockWaitTimeouts() + " lock wait timeout(s))");
+        System.out.println("  Gave up           : " + r.exhausted());
+        System.out.println("  Backoff           : " + r.backoffMillis() + " ms");
+        r.retriesByOperation().forEach((op, n) -> System.out.println("    " + op + ": " + n + " retr" + (n == 1 ? "y" : "ies")));
+        stockStats.batchCache().ifPresentOrElse(b -> {
+            long lookups = b.hits() + b.misses();
+            System.out.println("Batch cache: " + b.cachedLists() + " list(s) held");
+            System.out.println("  Hits / misses     : " + b.hits() + " / " + b.misses()
+                    + (lookups == 0 ? "" : String.format(" (%.1f%% hit)", 100.0 * b.hits() / lookups)));
+            System.out.println("  Invalidations     : " + b.invalidations());
+            System.out.println("  Discarded loads   : " + b.rejectedLoads());
+        }, () -> System.out.println("Batch cache: off"));
+    }
+
     private void itemCatalogMenu(Scanner sc) {
         boolean loop = true;
         while (loop) {
@@ -1,5 +1,6 @@
 package application.auth;
 
+import domain.auth.Permission;
 import domain.auth.User;
 import ports.in.AuthService;
 import ports.out.UserRepository;
@@ -7,9 +8,12 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -164,6 +168,76 @@ class AuthServiceTest {
         assertEquals("admin@email.com", currentUser.email());
     }
 
+    @Test
+    @DisplayName("AuthService logs in with one credentials lookup and caches the role's permissions")
+    void single_lookup_and_permission_bits() {
+        var repo = new CredentialsUserRepository();
+        repo.addUser(new User(1L, "testuser", "USER", "test@email.com", "ACTIVE"));
+        repo.addUser(new User(2L, "admin", "ADMIN", "admin@email.com", "ACTIVE"));
+        repo.setPassword("admin", "adminpass");
+        repo.setPassword("testuser", "password123");
+        var service = new AuthService(repo, new SessionStore<>(Duration.ofHours(1)));
+
+        assertTrue(service.login("admin", "adminpass"));
+        assertEquals(List.of("loadCredentials"), repo.calls);
+        assertTrue(service.hasPermission(Permission.MOVE_FROM_MAIN));
+        String token = service.sessionToken();
+        assertNotNull(token);
+
+        assertTrue(service.login("testuser", "password123"));
+        assertFalse(service.hasPermission(Permission.MOVE_FROM_MAIN));
+        assertFalse(service.resume(token), "logging in again closes the previous session");
+
+        service.logout();
+        assertFalse(service.hasPermission(Permission.MANAGE_DISCOUNTS));
+        assertEquals(List.of("loadCredentials", "loadCredentials"), repo.calls);
+    }
+
+    @Test
+    @DisplayName("AuthService ends the terminal session after the idle timeout; each use pushes it out")
+    void current_session_idle_timeout() {
+        fakeRepository.setPassword("admin", "adminpass");
+        var now = new AtomicReference<>(Instant.parse("2026-01-01T08:00:00Z"));
+        var service = new AuthService(UserCredentials.of(fakeRepository),
+                new SessionStore<>(Duration.ofMinutes(30), now::get));
+        assertTrue(service.login("admin", "adminpass"));
+
+        now.set(now.get().plus(Duration.ofMinutes(20)));
+        assertTrue(service.hasPermission(Permission.MOVE_FROM_MAIN));
+        now.set(now.get().plus(Duration.ofMinutes(20)));
+        assertTrue(service.isLoggedIn(), "the permission check above refreshed the idle timer");
+
+        now.set(now.get().plus(Duration.ofMinutes(31)));
+        assertFalse(service.hasPermission(Permission.MOVE_FROM_MAIN));
+        assertFalse(service.isLoggedIn());
+        assertNull(service.currentUser());
+        assertNull(service.sessionToken());
+    }
+
+    // Reads profile and hash together, like JdbcUserRepository; records which lookups a login makes
+    static final class CredentialsUserRepository extends FakeUserRepository implements UserCredentials {
+        final List<String> calls = new ArrayList<>();
+
+        @Override
+        public Optional<Credentials> loadCredentials(String username) {
+            calls.add("loadCredentials");
+            String hash = super.loadPasswordHash(username);
+            return hash == null ? Optional.empty() : super.findByUsername(username).map(u -> new Credentials(u, hash));
+        }
+
+        @Override
+        public Optional<User> findByUsername(String username) {
+            calls.add("findByUsername");
+            return super.findByUsername(username);
+        }
+
+        @Override
+        public String loadPasswordHash(String username) {
+            calls.add("loadPasswordHash");
+            return super.loadPasswordHash(username);
+        }
+    }
+
     // Fake repository implementation for testing
     static class FakeUserRepository implements UserRepository {
         private final List<User> users = new ArrayList<>();
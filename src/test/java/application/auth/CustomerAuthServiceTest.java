@@ -170,6 +170,49 @@ class CustomerAuthServiceTest {
         assertNull(service.currentUser());
     }
 
+    @Test
+    @DisplayName("login attempts past the limit are refused before the repository is asked")
+    void login_throttled_before_lookup() throws AuthenticationException {
+        service.register("erin", "Password123!", "erin@example.com");
+        List<String> lookups = new ArrayList<>();
+        FakeCustomerRepository counting = new FakeCustomerRepository() {
+            @Override public Optional<Customer> findByUsername(String username) {
+                lookups.add(username);
+                return repo.findByUsername(username);
+            }
+        };
+        var limiter = new LoginRateLimiter(new LoginRateLimiter.Limit(2, java.time.Duration.ofMinutes(1)),
+                new LoginRateLimiter.Limit(100, java.time.Duration.ofSeconds(1)), 1_000);
+        var throttled = new CustomerAuthService(counting,
+                new SessionStore<>(java.time.Duration.ofMinutes(30)), limiter);
+
+        assertThrows(AuthenticationException.class, () -> throttled.login("erin", "Wrong123!x", "10.0.0.1"));
+        assertTrue(throttled.login("erin", "Password123!", "10.0.0.1"));
+        AuthenticationException ex = assertThrows(AuthenticationException.class,
+            () -> throttled.login("erin", "Password123!", "10.0.0.1"));
+        assertTrue(ex.getMessage().startsWith("Too many login attempts"), ex.getMessage());
+        assertEquals(2, lookups.size());
+        assertEquals(1, limiter.stats().rejected());
+    }
+
+    @Test
+    @DisplayName("openSession leaves the current user alone and resolves by token")
+    void open_session_is_independent() throws AuthenticationException {
+        service.register("fay", "Password123!", "fay@example.com");
+        service.register("gus", "Password123!", "gus@example.com");
+
+        var fay = service.openSession("fay", "Password123!", "10.0.0.2");
+        var gus = service.openSession("gus", "Password123!", "10.0.0.3");
+        assertFalse(service.isLoggedIn());
+        assertEquals("fay", service.customerFor(fay.token()).orElseThrow().name());
+        assertEquals("gus", service.customerFor(gus.token()).orElseThrow().name());
+
+        service.closeSession(fay.token());
+        assertTrue(service.customerFor(fay.token()).isEmpty());
+        assertTrue(service.customerFor(gus.token()).isPresent());
+        assertThrows(AuthenticationException.class, () -> service.openSession("gus", "Wrong123!x", "10.0.0.3"));
+    }
+
     // minimal fake
     static class FakeCustomerRepository implements ports.out.CustomerRepository {
         private final Map<String, Customer> byUsername = new HashMap<>();
@@ -0,0 +1,88 @@
+package application.auth;
+
+import application.auth.LoginRateLimiter.Limit;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoginRateLimiterTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+
+    private LoginRateLimiter limiter(int maxKeys) {
+        return new LoginRateLimiter(new Limit(3, Duration.ofSeconds(10)), new Limit(100, Duration.ofMillis(10)),
+                maxKeys, now::get);
+    }
+
+    @Test
+    @DisplayName("An account gets its burst, then one attempt per refill interval")
+    void burst_then_refill() {
+        var l = limiter(1_000);
+        for (int i = 0; i < 3; i++) assertEquals(0, l.tryAcquire("alice", "10.0.0.1"));
+        long wait = l.tryAcquire("Alice ", "10.0.0.2");
+        assertTrue(wait > 9_000 && wait <= 10_001, "usernames are case-insensitive: " + wait);
+
+        now.addAndGet(5_000);
+        assertTrue(l.tryAcquire("alice", "10.0.0.1") > 0, "half a token is not enough");
+        now.addAndGet(5_000);
+        assertEquals(0, l.tryAcquire("alice", "10.0.0.1"));
+        assertEquals(0, l.tryAcquire("bob", "10.0.0.1"), "other accounts are unaffected");
+
+        var stats = l.stats();
+        assertEquals(5, stats.allowed());
+        assertEquals(2, stats.rejected());
+    }
+
+    @Test
+    @DisplayName("One source spraying many accounts is stopped by the source bucket")
+    void source_limit() {
+        var l = limiter(1_000);
+        int allowed = 0;
+        for (int i = 0; i < 500; i++) if (l.tryAcquire("user" + i, "203.0.113.9") == 0) allowed++;
+        assertEquals(100, allowed);
+        assertEquals(0, l.tryAcquire("user1", "198.51.100.1"));
+    }
+
+    @Test
+    @DisplayName("Concurrent attempts never grant more than the burst")
+    void concurrent_attempts() throws InterruptedException {
+        var l = limiter(1_000);
+        AtomicInteger granted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                try { start.await(); } catch (InterruptedException e) { return; }
+                for (int i = 0; i < 50; i++) if (l.tryAcquire("carol", "src" + i) == 0) granted.incrementAndGet();
+            }));
+        }
+        start.countDown();
+        for (Thread t : threads) t.join();
+        assertEquals(3, granted.get());
+    }
+
+    @Test
+    @DisplayName("Idle buckets are evicted and distinct keys past the cap share overflow buckets")
+    void memory_stays_bounded() {
+        var l = limiter(2_000);
+        for (int i = 0; i < 200_000; i++) l.tryAcquire("name" + i, "s" + (i % 50));
+        var stats = l.stats();
+        assertTrue(stats.trackedKeys() <= 2_000 + 2 * 1024, "tracked " + stats.trackedKeys());
+        assertTrue(stats.overflowed() > 0);
+
+        now.addAndGet(60_000);
+        l.tryAcquire("late", "s0");
+        now.addAndGet(2_000);
+        for (int i = 0; i < 4096; i++) l.tryAcquire("late", "s0");
+        assertTrue(l.stats().trackedKeys() < 10, "refilled buckets dropped: " + l.stats().trackedKeys());
+        assertTrue(l.stats().evicted() > 0);
+    }
+}
@@ -0,0 +1,60 @@
+package application.auth;
+
+import domain.auth.Permission;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionStoreTest {
+
+    private final AtomicReference<Instant> now = new AtomicReference<>(Instant.parse("2024-06-01T08:00:00Z"));
+    private final SessionStore<String> store = new SessionStore<>(Duration.ofMinutes(30), now::get);
+
+    @Test
+    @DisplayName("Tokens are unique and resolve to their principal and permission bits")
+    void open_and_find() {
+        Set<String> tokens = new HashSet<>();
+        for (int i = 0; i < 1_000; i++) tokens.add(store.open("u" + i, Permission.NONE).token());
+        assertEquals(1_000, tokens.size());
+
+        var s = store.open("alice", Permission.MOVE_FROM_MAIN.bit());
+        var found = store.find(s.token()).orElseThrow();
+        assertEquals("alice", found.principal());
+        assertTrue(found.has(Permission.MOVE_FROM_MAIN.bit()));
+        assertFalse(found.has(Permission.MANAGE_DISCOUNTS.bit()));
+        assertTrue(store.find("forged").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Use keeps a session alive; idle sessions expire and closed ones are gone")
+    void idle_expiry() {
+        var s = store.open("alice", Permission.ALL);
+        now.set(now.get().plus(Duration.ofMinutes(20)));
+        assertTrue(store.find(s.token()).isPresent());
+        now.set(now.get().plus(Duration.ofMinutes(20)));
+        assertTrue(store.find(s.token()).isPresent(), "renewed by the previous lookup");
+        now.set(now.get().plus(Duration.ofMinutes(31)));
+        assertTrue(store.find(s.token()).isEmpty());
+        assertEquals(0, store.size());
+
+        var t = store.open("bob", Permission.NONE);
+        store.close(t.token());
+        assertTrue(store.find(t.token()).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Roles resolve to permission bitsets")
+    void role_grants() {
+        assertEquals(Permission.ALL, Permission.grantedTo("admin"));
+        assertEquals(Permission.ALL, Permission.grantedTo("INVENTORY_MANAGER"));
+        assertEquals(Permission.NONE, Permission.grantedTo("CASHIER"));
+        assertEquals(Permission.NONE, Permission.grantedTo(null));
+    }
+}
@@ -0,0 +1,125 @@
+package application.events;
+
+import application.events.events.BillPaid;
+import application.events.events.RestockThresholdHit;
+import application.events.events.StockAboveThreshold;
+import application.events.events.StockDepleted;
+import domain.common.Money;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoalescingEventBusTest {
+
+    private final AtomicLong now = new AtomicLong(0);
+    private final List<Object> received = Collections.synchronizedList(new ArrayList<>());
+    private CoalescingEventBus bus;
+
+    @BeforeEach
+    void setUp() {
+        bus = new CoalescingEventBus(new SimpleEventBus(), Duration.ofMinutes(10), 5, now::get);
+        bus.subscribe(RestockThresholdHit.class, received::add);
+        bus.subscribe(StockDepleted.class, received::add);
+        bus.subscribe(BillPaid.class, received::add);
+    }
+
+    @Test
+    @DisplayName("Repeated alerts in the same band are suppressed until the window passes")
+    void same_band_within_window() {
+        bus.publish(new RestockThresholdHit("A", 45, 50));
+        bus.publish(new RestockThresholdHit("A", 43, 50));
+        bus.publish(new RestockThresholdHit("A", 41, 50));
+        assertEquals(1, received.size());
+        assertEquals(new RestockThresholdHit("A", 41, 50), bus.latest("A").orElseThrow());
+
+        now.addAndGet(Duration.ofMinutes(10).toMillis());
+        bus.publish(new RestockThresholdHit("A", 40, 50));
+        assertEquals(2, received.size());
+        assertEquals(new CoalescingEventBus.Stats(2, 2, 1), bus.stats());
+    }
+
+    @Test
+    @DisplayName("Dropping into a lower band or running out is forwarded at once, once")
+    void band_crossing_and_depletion() {
+        bus.publish(new RestockThresholdHit("A", 45, 50)); // band 4
+        bus.publish(new RestockThresholdHit("A", 29, 50)); // band 2
+        bus.publish(new RestockThresholdHit("A", 25, 50)); // band 2 again
+        bus.publish(new StockDepleted("A"));
+        bus.publish(new StockDepleted("A"));
+        bus.publish(new RestockThresholdHit("B", 45, 50)); // other items are independent
+
+        assertEquals(List.of(new RestockThresholdHit("A", 45, 50), new RestockThresholdHit("A", 29, 50),
+                new StockDepleted("A"), new RestockThresholdHit("B", 45, 50)), received);
+    }
+
+    @Test
+    @DisplayName("Selling out again after a restock is forwarded again, even inside the window")
+    void depleted_restocked_depleted() {
+        bus.publish(new StockDepleted("A"));
+        now.addAndGet(1000);
+        bus.publish(new RestockThresholdHit("A", 12, 50)); // restocked, suppressed inside the window
+        bus.publish(new StockDepleted("A"));
+        assertEquals(List.of(new StockDepleted("A"), new StockDepleted("A")), received);
+
+        // a restock that raised no alert: the repeat still gets through once the window has passed
+        now.addAndGet(Duration.ofMinutes(10).toMillis());
+        bus.publish(new StockDepleted("A"));
+        assertEquals(3, received.size());
+    }
+
+    @Test
+    @DisplayName("A level seen above the threshold resets the band, so the next drop alerts inside the window")
+    void above_threshold_resets_band() {
+        bus.publish(new RestockThresholdHit("A", 5, 50));   // band 0
+        now.addAndGet(1000);
+        bus.publish(new StockAboveThreshold("A", 80, 50)); // restocked, no alert
+        bus.publish(new RestockThresholdHit("A", 45, 50));  // band 4, forwarded although the window is open
+        bus.publish(new RestockThresholdHit("A", 44, 50));  // same band again: coalesced
+        bus.publish(new StockAboveThreshold("B", 80, 50)); // an item never alerted keeps no state
+
+        assertEquals(List.of(new RestockThresholdHit("A", 5, 50), new RestockThresholdHit("A", 45, 50)), received);
+        assertEquals(1, bus.stats().itemsTracked());
+    }
+
+    @Test
+    @DisplayName("Other events pass straight through")
+    void pass_through() {
+        var paid = new BillPaid("B-1", Money.of(10.0), "POS", "alice");
+        bus.publish(paid);
+        bus.publish(paid);
+        assertEquals(List.of(paid, paid), received);
+        assertThrows(IllegalArgumentException.class, () -> new CoalescingEventBus(new SimpleEventBus(), Duration.ZERO, 0));
+    }
+
+    @Test
+    @DisplayName("Concurrent tills forward a single alert per item and window")
+    void concurrent_publishers() throws InterruptedException {
+        int threads = 8;
+        var start = new CountDownLatch(1);
+        var done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            Thread.ofPlatform().start(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < 500; i++) bus.publish(new RestockThresholdHit("HOT", 40, 50));
+                } catch (InterruptedException ignored) {
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        start.countDown();
+        done.await();
+        assertEquals(1, received.size());
+        assertEquals(threads * 500 - 1, bus.stats().suppressed());
+    }
+}
@@ -0,0 +1,96 @@
+package application.inventory;
+
+import application.reporting.ReportRepository;
+import domain.inventory.StockLocation;
+import domain.inventory.StockMove;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkReplenishmentServiceTest {
+
+    private FakeTransferRepository transfers;
+    private BulkReplenishmentService service;
+
+    @BeforeEach
+    void setUp() {
+        transfers = new FakeTransferRepository();
+        service = new BulkReplenishmentService(transfers, 2);
+    }
+
+    @Test
+    @DisplayName("Plans STORE->SHELF to the shelf target and MAIN->STORE up to the threshold")
+    void plans_moves_from_report() {
+        var rows = List.of(
+                new ReportRepository.RestockRow("A", "Item A", 10, 30, 500, 40),  // threshold 50
+                new ReportRepository.RestockRow("B", "Item B", 0, 0, 20, 80)      // threshold 80, MAIN limited
+        );
+
+        List<StockMove> moves = service.planFromRestockReport(rows, 30);
+
+        assertEquals(List.of(
+                StockMove.storeToShelf("A", 20),
+                StockMove.mainToStore("A", 40),
+                StockMove.mainToStore("B", 20)
+        ), moves);
+    }
+
+    @Test
+    @DisplayName("Rows already at target produce no moves")
+    void no_moves_when_nothing_to_do() {
+        var rows = List.of(new ReportRepository.RestockRow("A", "Item A", 100, 60, 0, 10));
+        assertTrue(service.planFromRestockReport(rows, 100).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Apply hands all moves to the repository in one call with the configured chunk size")
+    void apply_uses_single_bulk_call() {
+        var rows = List.of(new ReportRepository.RestockRow("A", "Item A", 0, 10, 100, 50));
+
+        var result = service.replenishFromReport(rows, 5, "mgr");
+
+        assertEquals(1, transfers.calls);
+        assertEquals(2, transfers.lastChunkSize);
+        assertEquals("mgr", transfers.lastBy);
+        assertEquals(5 + 45, result.totalMoved());
+        assertTrue(result.shortfalls().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Empty plan does not touch the repository")
+    void empty_plan() {
+        var result = service.apply(List.of(), "mgr");
+        assertEquals(0, transfers.calls);
+        assertEquals(0, result.totalMoved());
+    }
+
+    @Test
+    @DisplayName("Invalid configuration and moves are rejected")
+    void validation() {
+        assertThrows(IllegalArgumentException.class, () -> new BulkReplenishmentService(transfers, 0));
+        assertThrows(IllegalArgumentException.class, () -> service.planFromRestockReport(List.of(), 0));
+        assertThrows(IllegalArgumentException.class, () -> new StockMove("A", 1, StockLocation.SHELF, StockLocation.STORE));
+        assertThrows(IllegalArgumentException.class, () -> StockMove.mainToStore("A", 0));
+    }
+
+    private static final class FakeTransferRepository implements StockTransferRepository {
+        int calls;
+        int lastChunkSize;
+        String lastBy;
+
+        @Override
+        public BulkTransferResult applyMoves(List<StockMove> moves, String transferredBy, int chunkSize) {
+            calls++;
+            lastChunkSize = chunkSize;
+            lastBy = transferredBy;
+            List<MoveResult> results = new ArrayList<>();
+            for (StockMove m : moves) results.add(new MoveResult(m, m.qty()));
+            return new BulkTransferResult(results, 1, 0);
+        }
+    }
+}
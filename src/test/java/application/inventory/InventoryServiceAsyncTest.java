@@ -0,0 +1,117 @@
+package application.inventory;
+
+import domain.common.Money;
+import domain.inventory.Batch;
+import domain.inventory.InventoryReservation;
+import domain.inventory.Item;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ports.in.InventoryService;
+import ports.out.InventoryRepository;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InventoryServiceAsyncTest {
+
+    private static final long ROUND_TRIP_MS = 40;
+
+    private final List<String> committed = Collections.synchronizedList(new ArrayList<>());
+    private InventoryService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new InventoryService(slowRepository(), new FefoBatchSelector());
+    }
+
+    // Every repository call sleeps like a DB round trip; only the methods used here are answered
+    private InventoryRepository slowRepository() {
+        return (InventoryRepository) Proxy.newProxyInstance(InventoryRepository.class.getClassLoader(),
+                new Class<?>[]{InventoryRepository.class}, (proxy, method, args) -> {
+                    Thread.sleep(ROUND_TRIP_MS);
+                    String code = args != null && args.length > 0 && args[0] instanceof String s ? s : null;
+                    return switch (method.getName()) {
+                        case "findItemByCode" -> "NOPE".equals(code) ? Optional.empty()
+                                : Optional.of(new Item(1L, code, "Item " + code, Money.of(10.0)));
+                        case "priceOf" -> Money.of(12.5);
+                        case "findBatchesOnShelf", "findBatchesInStore" -> List.of(new Batch(7L, code, null, 100, 100, 500));
+                        case "shelfQty" -> 100;
+                        case "storeQty" -> 60;
+                        case "mainStoreQty" -> 500;
+                        case "restockLevel" -> 50;
+                        case "commitReservations" -> { committed.add("SHELF"); yield null; }
+                        case "commitStoreReservations" -> { committed.add("STORE"); yield null; }
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    };
+                });
+    }
+
+    @Test
+    @DisplayName("Independent line reservations run concurrently and keep input order")
+    void reserve_all_concurrently() {
+        List<String> codes = IntStream.range(0, 20).mapToObj(i -> "IT" + i).toList();
+        List<Integer> qtys = IntStream.range(0, 20).mapToObj(i -> i + 1).toList();
+
+        long start = System.nanoTime();
+        var lines = service.reserveAllByChannelAsync(codes, qtys, "WEB").join();
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(20, lines.size());
+        for (int i = 0; i < 20; i++) {
+            InventoryReservation r = lines.get(i).get(0);
+            assertEquals("IT" + i, r.itemCode);
+            assertEquals(i + 1, r.quantity);
+        }
+        // sequential would be 20 lines x 2 round trips
+        assertTrue(elapsedMs < 20 * 2 * ROUND_TRIP_MS / 2, "took " + elapsedMs + " ms");
+    }
+
+    @Test
+    @DisplayName("Lines of the same item share one reservation instead of planning the same stock twice")
+    void duplicate_codes_reserved_once() {
+        var lines = service.reserveAllByChannelAsync(List.of("A", "B", "A"), List.of(30, 1, 50), "WEB").join();
+        assertEquals(30, lines.get(0).stream().mapToInt(r -> r.quantity).sum());
+        assertEquals(1, lines.get(1).stream().mapToInt(r -> r.quantity).sum());
+        assertEquals(50, lines.get(2).stream().mapToInt(r -> r.quantity).sum());
+
+        // 60 + 60 fits each line alone but not the 100 on the shelf together
+        var f = service.reserveAllByChannelAsync(List.of("A", "A"), List.of(60, 60), "WEB");
+        var ex = assertThrows(CompletionException.class, f::join);
+        assertInstanceOf(IllegalStateException.class, ex.getCause());
+    }
+
+    @Test
+    @DisplayName("Stock snapshot combines four concurrent lookups")
+    void stock_snapshot() {
+        var snap = service.stockSnapshotAsync("A").join();
+        assertEquals(new InventoryService.StockSnapshot("A", 100, 60, 500, 50), snap);
+    }
+
+    @Test
+    @DisplayName("Price and commit variants delegate by channel")
+    void price_and_commit() {
+        assertEquals(Money.of(12.5), service.priceOfAsync("A").join());
+        var res = service.reserveByChannelAsync("A", 3, "POS").join();
+        service.commitAsync(res, "POS").join();
+        service.commitAsync(res, "WEB").join();
+        assertEquals(List.of("STORE", "SHELF"), committed);
+    }
+
+    @Test
+    @DisplayName("A failing line fails the joined future")
+    void failure_propagates() {
+        var f = service.reserveAllByChannelAsync(List.of("A", "NOPE"), List.of(1, 1), "WEB");
+        var ex = assertThrows(CompletionException.class, f::join);
+        assertInstanceOf(java.util.NoSuchElementException.class, ex.getCause());
+        assertThrows(IllegalArgumentException.class,
+                () -> service.reserveAllByChannelAsync(List.of("A"), List.of(), "WEB"));
+    }
+}
@@ -0,0 +1,97 @@
+package application.inventory;
+
+import domain.common.Money;
+import domain.inventory.Item;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ItemSearchIndexTest {
+
+    private ItemSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ItemSearchIndex();
+        index.rebuild(List.of(
+                item(1, "MILK01", "Fresh Milk 1L"),
+                item(2, "ML0001", "Milk Powder 400g"),
+                item(3, "CH0001", "Chocolate Milk Bar"),
+                item(4, "BR0001", "Bread"),
+                item(5, "SO0001", "Soap Bar")
+        ));
+    }
+
+    private static Item item(long id, String code, String name) {
+        return new Item(id, code, name, Money.of(10.0));
+    }
+
+    private static List<String> codes(List<Item> items) {
+        List<String> out = new ArrayList<>();
+        for (Item i : items) out.add(i.code());
+        return out;
+    }
+
+    @Test
+    @DisplayName("Substring search matches code or name case-insensitively")
+    void substring_search() {
+        assertEquals(List.of("MILK01", "ML0001", "CH0001"), codes(index.search("milk", 10)));
+        assertEquals(List.of("CH0001", "SO0001"), codes(index.search("BAR", 10)));
+        assertTrue(index.search("xyz", 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Exact code ranks before prefix and substring matches")
+    void ranking() {
+        index.put(item(6, "BR", "Brown Sugar"));
+        List<String> hits = codes(index.search("br", 10));
+        assertEquals("BR", hits.get(0));
+        assertEquals("BR0001", hits.get(1));
+    }
+
+    @Test
+    @DisplayName("Results are capped at the limit")
+    void limit() {
+        assertEquals(1, index.search("0", 1).size());
+        assertTrue(index.search("milk", 0).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Prefix search only returns code, name or word prefixes")
+    void prefix_search() {
+        assertEquals(List.of("MILK01", "ML0001", "CH0001"), codes(index.prefixSearch("mil", 10)));
+        assertTrue(index.prefixSearch("ilk", 10).isEmpty());
+        assertEquals(3, index.search("ilk", 10).size());
+    }
+
+    @Test
+    @DisplayName("Empty query lists items by code")
+    void empty_query() {
+        assertEquals(List.of("BR0001", "CH0001", "MILK01"), codes(index.search("  ", 3)));
+    }
+
+    @Test
+    @DisplayName("Rename and delete keep the index in sync")
+    void updates() {
+        index.put(item(4, "BR0001", "Sourdough Loaf"));
+        assertTrue(index.search("bread", 10).isEmpty());
+        assertEquals(List.of("BR0001"), codes(index.search("dough", 10)));
+
+        index.remove("br0001");
+        assertTrue(index.search("dough", 10).isEmpty());
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    @DisplayName("Many replacements compact without losing items")
+    void compaction() {
+        for (int i = 0; i < 5000; i++) index.put(item(4, "BR0001", "Bread v" + i));
+        assertEquals(5, index.size());
+        assertEquals(List.of("BR0001"), codes(index.search("v4999", 10)));
+    }
+}
@@ -0,0 +1,97 @@
+package application.inventory;
+
+import domain.inventory.StockMove;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplenishmentPlannerTest {
+
+    private ReplenishmentPlanner planner;
+
+    @BeforeEach
+    void setUp() {
+        planner = new ReplenishmentPlanner(new SimpleThresholdReorderPolicy());
+    }
+
+    @Test
+    @DisplayName("Low shelf is topped up from STORE and STORE is refilled from MAIN")
+    void plans_both_legs() {
+        var snapshot = new CatalogStockSnapshot.Builder()
+                .item("A", 40)                 // threshold 50
+                .batch("A", 10, 60, 500)
+                .build();
+
+        var plan = planner.plan(snapshot, 100);
+
+        // 60 STORE -> SHELF (all of it), then STORE 0 -> refill to 50 from MAIN
+        assertEquals(List.of(StockMove.storeToShelf("A", 60), StockMove.mainToStore("A", 50)), plan.moves());
+        assertEquals(60, plan.totalStoreToShelf());
+        assertEquals(50, plan.totalMainToStore());
+        assertEquals(1, plan.itemsToRestock());
+        assertEquals(0, plan.itemsShort());
+    }
+
+    @Test
+    @DisplayName("Items above threshold are left alone; MAIN shortfalls are counted")
+    void skips_healthy_items_and_counts_short() {
+        var snapshot = new CatalogStockSnapshot.Builder()
+                .item("OK", 10).batch("OK", 200, 200, 0)
+                .item("SHORT", 80).batch("SHORT", 100, 0, 30)
+                .build();
+
+        var plan = planner.plan(snapshot, 100);
+
+        assertEquals(List.of(StockMove.mainToStore("SHORT", 30)), plan.moves());
+        assertEquals(1, plan.itemsShort());
+        assertEquals(2, plan.itemsEvaluated());
+    }
+
+    @Test
+    @DisplayName("Batches are summed per item and unknown item codes are ignored")
+    void snapshot_builder_aggregates() {
+        var snapshot = new CatalogStockSnapshot.Builder()
+                .item("A", 50)
+                .batch("A", 1, 2, 3)
+                .batch("A", 10, 20, 30)
+                .batch("GHOST", 5, 5, 5)
+                .build();
+
+        assertEquals(1, snapshot.size());
+        assertEquals(11, snapshot.shelfQty(0));
+        assertEquals(22, snapshot.storeQty(0));
+        assertEquals(33, snapshot.mainQty(0));
+    }
+
+    @Test
+    @DisplayName("Large catalogs are planned in parallel and keep catalog order")
+    void large_catalog_parallel() {
+        var b = new CatalogStockSnapshot.Builder();
+        int n = 100_000;
+        for (int i = 0; i < n; i++) {
+            String code = String.format("IT%06d", i);
+            b.item(code, 50).batch(code, i % 2 == 0 ? 0 : 500, 100, 1000);
+        }
+
+        var plan = planner.plan(b.build(), 60);
+
+        assertEquals(n, plan.itemsEvaluated());
+        assertEquals(n / 2, plan.itemsToRestock());
+        assertEquals(60L * (n / 2), plan.totalStoreToShelf());
+        assertEquals("IT000000", plan.moves().get(0).itemCode());
+        assertEquals(String.format("IT%06d", n - 2), plan.moves().get(plan.moves().size() - 1).itemCode());
+    }
+
+    @Test
+    @DisplayName("Invalid arguments are rejected")
+    void validation() {
+        assertThrows(IllegalArgumentException.class, () -> new ReplenishmentPlanner(null));
+        var empty = new CatalogStockSnapshot.Builder().build();
+        assertThrows(IllegalArgumentException.class, () -> planner.plan(empty, 0));
+        assertTrue(planner.plan(empty, 10).moves().isEmpty());
+    }
+}
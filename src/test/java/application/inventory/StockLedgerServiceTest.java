@@ -0,0 +1,134 @@
+package application.inventory;
+
+import domain.inventory.StockMovement;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StockLedgerServiceTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2025, 1, 1, 9, 0);
+
+    private FakeLedger ledger;
+    private StockLedgerService service;
+
+    @BeforeEach
+    void setUp() {
+        ledger = new FakeLedger();
+        service = new StockLedgerService(ledger);
+        ledger.add(1, "A", StockMovement.Type.RECEIPT, 1000, 80, 20, T0);
+        ledger.add(1, "A", StockMovement.Type.SALE, 0, 0, -5, T0.plusHours(1));
+        ledger.add(1, "A", StockMovement.Type.TRANSFER, 0, -10, 10, T0.plusHours(2));
+        ledger.add(2, "B", StockMovement.Type.RECEIPT, 50, 0, 0, T0);
+    }
+
+    @Test
+    @DisplayName("Balance as of a time replays only movements up to that time")
+    void balance_as_of() {
+        var atNoon = service.balanceAsOf("A", T0.plusHours(1));
+        assertEquals(1000, atNoon.main());
+        assertEquals(80, atNoon.store());
+        assertEquals(15, atNoon.shelf());
+
+        var later = service.balanceAsOf(" A ", T0.plusHours(3));
+        assertEquals(70, later.store());
+        assertEquals(25, later.shelf());
+        assertEquals(95, later.sellable());
+    }
+
+    @Test
+    @DisplayName("History is filtered by item and time range")
+    void history() {
+        var moves = service.history("A", T0.plusMinutes(30), T0.plusHours(5));
+        assertEquals(2, moves.size());
+        assertEquals(StockMovement.Type.SALE, moves.get(0).type());
+        assertEquals(0, moves.get(1).netChange());
+    }
+
+    @Test
+    @DisplayName("Invalid queries are rejected")
+    void validation() {
+        assertThrows(IllegalArgumentException.class, () -> new StockLedgerService(null));
+        assertThrows(IllegalArgumentException.class, () -> service.balanceAsOf(" ", T0));
+        assertThrows(IllegalArgumentException.class, () -> service.balanceAsOf("A", null));
+        assertThrows(IllegalArgumentException.class, () -> service.history("A", T0, T0.minusDays(1)));
+        assertThrows(IllegalArgumentException.class,
+                () -> new StockMovement(0, 1, "A", null, 0, 0, 0, null, T0));
+    }
+
+    @Test
+    @DisplayName("Scheduled snapshots seed opening balances and survive a failing run")
+    void scheduled_snapshots() throws Exception {
+        ledger.failNextSnapshot = true;
+        var scheduler = Executors.newSingleThreadScheduledExecutor();
+        try {
+            service.scheduleSnapshots(scheduler, Duration.ofMillis(5));
+            long deadline = System.currentTimeMillis() + 2000;
+            while (ledger.snapshots < 2 && System.currentTimeMillis() < deadline) Thread.sleep(5);
+        } finally {
+            scheduler.shutdownNow();
+            scheduler.awaitTermination(1, TimeUnit.SECONDS);
+        }
+        assertTrue(ledger.snapshots >= 2);
+        assertTrue(ledger.seeds >= 2);
+        assertThrows(IllegalArgumentException.class, () -> service.scheduleSnapshots(scheduler, Duration.ZERO));
+    }
+
+    private static final class FakeLedger implements StockLedgerRepository {
+        final List<StockMovement> movements = new ArrayList<>();
+        volatile int snapshots, seeds;
+        volatile boolean failNextSnapshot;
+
+        void add(long batchId, String code, StockMovement.Type type, int main, int store, int shelf, LocalDateTime at) {
+            movements.add(new StockMovement(movements.size() + 1, batchId, code, type, main, store, shelf, "test", at));
+        }
+
+        @Override
+        public List<StockMovement> movements(String itemCode, LocalDateTime from, LocalDateTime to) {
+            return movements.stream()
+                    .filter(m -> m.itemCode().equals(itemCode))
+                    .filter(m -> !m.recordedAt().isBefore(from) && !m.recordedAt().isAfter(to))
+                    .toList();
+        }
+
+        @Override
+        public StockBalance balanceAsOf(String itemCode, LocalDateTime at) {
+            int main = 0, store = 0, shelf = 0;
+            for (StockMovement m : movements(itemCode, LocalDateTime.MIN, at)) {
+                main += m.deltaMain(); store += m.deltaStore(); shelf += m.deltaShelf();
+            }
+            return new StockBalance(itemCode, at, main, store, shelf);
+        }
+
+        @Override
+        public Optional<SnapshotInfo> takeSnapshot() {
+            snapshots++;
+            if (failNextSnapshot) {
+                failNextSnapshot = false;
+                throw new IllegalStateException("db down");
+            }
+            return Optional.of(new SnapshotInfo(snapshots, LocalDateTime.now(), movements.size(), 2));
+        }
+
+        @Override
+        public int seedOpeningBalances() {
+            seeds++;
+            return 0;
+        }
+
+        @Override
+        public List<LedgerDiscrepancy> verifyAgainstBatches() {
+            return List.of();
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package application.online;
+
+import application.online.CartSnapshotStore.CartSnapshot;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CartServiceTest {
+
+    private static final Duration TTL = Duration.ofMinutes(30);
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+
+    private CartService carts(int max, CartSnapshotStore store) {
+        return new CartService(max, TTL, store, now::get);
+    }
+
+    private void advance(Duration d) {
+        now.addAndGet(d.toMillis());
+    }
+
+    @Test
+    @DisplayName("Lines keep their order, add up to the limit and shrink; an emptied cart is dropped")
+    void add_and_remove() {
+        var carts = carts(10, null);
+        assertTrue(carts.add("ann", "TEA", 2, 5));
+        assertTrue(carts.add("ann", "MUG", 1, 5));
+        assertTrue(carts.add("ann", "TEA", 3, 5));
+        assertFalse(carts.add("ann", "TEA", 1, 5));
+        assertEquals(Map.of("TEA", 5, "MUG", 1), carts.get("ann").orElseThrow().lines());
+        assertEquals(List.of("TEA", "MUG"), List.copyOf(carts.get("ann").orElseThrow().lines().keySet()));
+
+        carts.remove("ann", "TEA", 4);
+        assertEquals(1, carts.quantity("ann", "TEA"));
+        carts.remove("ann", "TEA", 0);
+        carts.remove("ann", "MUG", 1);
+        assertTrue(carts.get("ann").isEmpty());
+        assertEquals(0, carts.size());
+
+        assertFalse(carts.add("bob", "TEA", 6, 5));
+        assertEquals(0, carts.size(), "a refused first line leaves no cart behind");
+    }
+
+    @Test
+    @DisplayName("A cart idle past the TTL is gone, even before the wheel reaches it; use keeps it alive")
+    void idle_carts_expire() {
+        var carts = carts(10, null);
+        carts.add("ann", "TEA", 1, 9);
+        carts.add("bob", "TEA", 1, 9);
+        advance(TTL.minusMinutes(1));
+        assertTrue(carts.get("bob").isPresent());
+        advance(Duration.ofMinutes(1));
+        assertTrue(carts.get("ann").isEmpty());
+        assertTrue(carts.get("bob").isPresent());
+
+        advance(TTL.plusMinutes(1));
+        carts.expireIdle();
+        assertEquals(0, carts.size());
+        assertEquals(2, carts.stats().expired());
+    }
+
+    @Test
+    @DisplayName("The wheel expires idle carts lazily as requests pass, without touching them")
+    void wheel_expires_lazily() {
+        var carts = carts(1_000, null);
+        for (int i = 0; i < 500; i++) carts.add("idle" + i, "TEA", 1, 9);
+        advance(Duration.ofMinutes(20));
+        carts.add("active", "TEA", 1, 9);
+        advance(Duration.ofMinutes(11));
+        carts.add("other", "MUG", 1, 9); // any request advances the wheel
+        assertEquals(2, carts.size());
+        assertEquals(500, carts.stats().expired());
+    }
+
+    @Test
+    @DisplayName("Past the size bound the idlest cart makes room")
+    void size_bound_evicts_idlest() {
+        var carts = carts(3, null);
+        carts.add("a", "TEA", 1, 9);
+        advance(Duration.ofMinutes(1));
+        carts.add("b", "TEA", 1, 9);
+        advance(Duration.ofMinutes(1));
+        carts.add("c", "TEA", 1, 9);
+        advance(Duration.ofMinutes(1));
+        carts.get("a"); // used, so b is now the idlest
+        carts.add("d", "TEA", 1, 9);
+
+        assertEquals(3, carts.size());
+        assertTrue(carts.get("a").isPresent());
+        assertTrue(carts.get("b").isEmpty());
+        assertEquals(1, carts.stats().evicted());
+    }
+
+    @Test
+    @DisplayName("clear only drops the cart when it has not changed since it was read")
+    void clear_by_version() {
+        var carts = carts(10, null);
+        carts.add("ann", "TEA", 1, 9);
+        var seen = carts.get("ann").orElseThrow();
+        carts.add("ann", "MUG", 1, 9);
+        assertFalse(carts.clear("ann", seen.version()));
+        assertTrue(carts.clear("ann", carts.get("ann").orElseThrow().version()));
+        assertTrue(carts.get("ann").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Concurrent adds to one cart are all counted, and the per-item limit holds")
+    void concurrent_adds() throws Exception {
+        var carts = carts(10, null);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch go = new CountDownLatch(1);
+        try {
+            for (int t = 0; t < 8; t++) {
+                pool.execute(() -> {
+                    try { go.await(); } catch (InterruptedException e) { return; }
+                    for (int i = 0; i < 500; i++) {
+                        carts.add("ann", "TEA", 1, 3_000);
+                        carts.add("ann", "MUG", 1, 1_000_000);
+                    }
+                });
+            }
+            go.countDown();
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(3_000, carts.quantity("ann", "TEA"));
+        assertEquals(4_000, carts.quantity("ann", "MUG"));
+    }
+
+    @Test
+    @DisplayName("Changed carts are written on flush, gone ones deleted, and live ones restored")
+    void snapshots_flush_and_restore() {
+        var store = new MemoryStore();
+        var carts = carts(10, store);
+        carts.add("ann", "TEA", 2, 9);
+        carts.add("bob", "MUG", 1, 9);
+        assertEquals(2, carts.flush());
+        assertEquals(0, carts.flush(), "nothing changed since");
+
+        carts.remove("bob", "MUG", 0);
+        assertEquals(1, carts.flush());
+        assertEquals(List.of("ann"), List.copyOf(store.saved.keySet()));
+
+        store.saved.put("old", new CartSnapshot("old", now.get() - TTL.toMillis(), Map.of("TEA", 1)));
+        var restarted = carts(10, store);
+        assertEquals(1, restarted.restore());
+        assertEquals(Map.of("TEA", 2), restarted.get("ann").orElseThrow().lines());
+        assertFalse(store.saved.containsKey("old"), "expired snapshots are deleted");
+    }
+
+    private static final class MemoryStore implements CartSnapshotStore {
+        final Map<String, CartSnapshot> saved = new LinkedHashMap<>();
+
+        @Override public synchronized void save(CartSnapshot snapshot) { saved.put(snapshot.cartId(), snapshot); }
+        @Override public synchronized void delete(String cartId) { saved.remove(cartId); }
+        @Override public synchronized void loadAll(java.util.function.Consumer<CartSnapshot> sink) {
+            new ArrayList<>(saved.values()).forEach(sink);
+        }
+    }
+}
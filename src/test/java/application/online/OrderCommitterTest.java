@@ -0,0 +1,192 @@
+package application.online;
+
+import application.online.StorefrontService.StorefrontException;
+import domain.billing.Bill;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderCommitterTest {
+
+    private OrderCommitter committer;
+
+    @AfterEach
+    void tearDown() {
+        if (committer != null) committer.close();
+    }
+
+    @Test
+    @DisplayName("Orders that arrive while a group is being written go out together in the next one")
+    void groups_waiting_orders() throws Exception {
+        var orders = new GatedOrders();
+        committer = new OrderCommitter(orders, Duration.ofMillis(1), 10, 100);
+
+        var first = committer.submit(new Bill("W-1"));
+        assertTrue(orders.entered.await(5, TimeUnit.SECONDS));
+        var rest = List.of(committer.submit(new Bill("W-2")), committer.submit(new Bill("W-3")),
+                committer.submit(new Bill("W-4")));
+        orders.release.countDown();
+
+        first.get(5, TimeUnit.SECONDS);
+        for (var f : rest) f.get(5, TimeUnit.SECONDS);
+        assertEquals(List.of(List.of("W-1"), List.of("W-2", "W-3", "W-4")), orders.groups);
+        var stats = committer.stats();
+        assertEquals(4, stats.orders());
+        assertEquals(2, stats.groups());
+        assertEquals(3, stats.largestGroup());
+    }
+
+    @Test
+    @DisplayName("An order short of stock fails on its own future; the rest of its group commits")
+    void refused_order_fails_alone() throws Exception {
+        var orders = new GatedOrders();
+        orders.refuse = Set.of("W-3");
+        committer = new OrderCommitter(orders, Duration.ofMillis(1), 10, 100);
+
+        var first = committer.submit(new Bill("W-1"));
+        assertTrue(orders.entered.await(5, TimeUnit.SECONDS));
+        var ok = committer.submit(new Bill("W-2"));
+        var shorted = committer.submit(new Bill("W-3"));
+        orders.release.countDown();
+
+        first.get(5, TimeUnit.SECONDS);
+        assertEquals(Map.of(), ok.get(5, TimeUnit.SECONDS));
+        var ex = assertThrows(ExecutionException.class, () -> shorted.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(StorefrontException.class, ex.getCause());
+        assertTrue(ex.getCause().getMessage().contains("Not enough stock"), ex.getCause().getMessage());
+        assertEquals(1, committer.stats().refused());
+    }
+
+    @Test
+    @DisplayName("A group that cannot be written is retried order by order, isolating the bad one")
+    void failed_group_retried_one_by_one() throws Exception {
+        var orders = new GatedOrders();
+        orders.poison = Set.of("W-2");
+        committer = new OrderCommitter(orders, Duration.ofMillis(1), 10, 100);
+
+        var first = committer.submit(new Bill("W-1"));
+        assertTrue(orders.entered.await(5, TimeUnit.SECONDS));
+        var bad = committer.submit(new Bill("W-2"));
+        var good = committer.submit(new Bill("W-3"));
+        orders.release.countDown();
+
+        first.get(5, TimeUnit.SECONDS);
+        good.get(5, TimeUnit.SECONDS);
+        var ex = assertThrows(ExecutionException.class, () -> bad.get(5, TimeUnit.SECONDS));
+        assertEquals("commitOrders failed", ex.getCause().getMessage());
+        assertEquals(List.of(List.of("W-1"), List.of("W-2", "W-3"), List.of("W-2"), List.of("W-3")), orders.groups);
+    }
+
+    @Test
+    @DisplayName("An Error while writing fails that order but leaves the committer running")
+    void error_does_not_kill_committer() throws Exception {
+        var calls = new AtomicInteger();
+        OrderBatchRepository orders = bills -> {
+            if (calls.incrementAndGet() == 1) throw new StackOverflowError("boom");
+            return bills.stream().map(b -> OrderBatchRepository.Outcome.committed(Map.of())).toList();
+        };
+        committer = new OrderCommitter(orders, Duration.ofMillis(1), 10, 100);
+
+        var failed = committer.submit(new Bill("W-1"));
+        var ex = assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(StackOverflowError.class, ex.getCause());
+        assertEquals(Map.of(), committer.submit(new Bill("W-2")).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("An order still queued when its caller's wait runs out is withdrawn and never written")
+    void queued_order_times_out_unwritten() throws Exception {
+        var orders = new GatedOrders();
+        committer = new OrderCommitter(orders, Duration.ofMillis(1), 10, 100);
+
+        var first = committer.submit(new Bill("W-1"));
+        assertTrue(orders.entered.await(5, TimeUnit.SECONDS));
+        var ex = assertThrows(StorefrontException.class, () -> committer.commit(new Bill("W-2"), Duration.ofMillis(20)));
+        assertTrue(ex.getMessage().contains("not placed"), ex.getMessage());
+        var kept = committer.submit(new Bill("W-3"));
+        orders.release.countDown();
+
+        first.get(5, TimeUnit.SECONDS);
+        kept.get(5, TimeUnit.SECONDS);
+        assertEquals(List.of(List.of("W-1"), List.of("W-3")), orders.groups);
+    }
+
+    @Test
+    @DisplayName("A caller whose wait runs out while its group is being written waits for that write")
+    void timeout_during_write_waits_for_outcome() throws Exception {
+        var orders = new GatedOrders();
+        committer = new OrderCommitter(orders, Duration.ofMillis(1), 10, 100);
+
+        var result = CompletableFuture.supplyAsync(() -> committer.commit(new Bill("W-1"), Duration.ofMillis(20)));
+        assertTrue(orders.entered.await(5, TimeUnit.SECONDS));
+        // well past the caller's timeout, the group is still being written
+        Thread.sleep(100);
+        assertFalse(result.isDone());
+        orders.release.countDown();
+
+        assertEquals(Map.of(), result.get(5, TimeUnit.SECONDS));
+        assertEquals(List.of(List.of("W-1")), orders.groups);
+        assertEquals(1, committer.stats().orders());
+    }
+
+    @Test
+    @DisplayName("Closing commits what is queued and refuses later orders; a full queue refuses at once")
+    void close_and_full_queue() throws Exception {
+        var orders = new GatedOrders();
+        committer = new OrderCommitter(orders, Duration.ofMillis(1), 10, 1);
+
+        var first = committer.submit(new Bill("W-1"));
+        assertTrue(orders.entered.await(5, TimeUnit.SECONDS));
+        var queued = committer.submit(new Bill("W-2"));
+        var overflow = committer.submit(new Bill("W-3"));
+        assertTrue(overflow.isCompletedExceptionally());
+
+        orders.release.countDown();
+        committer.close();
+        first.get(5, TimeUnit.SECONDS);
+        queued.get(5, TimeUnit.SECONDS);
+        CompletableFuture<?> late = committer.submit(new Bill("W-4"));
+        var ex = assertThrows(ExecutionException.class, () -> late.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(StorefrontException.class, ex.getCause());
+    }
+
+    // Holds the first group until released, so later orders pile up behind it
+    static final class GatedOrders implements OrderBatchRepository {
+        final List<List<String>> groups = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        volatile Set<String> refuse = Set.of();
+        volatile Set<String> poison = Set.of();
+
+        @Override
+        public List<Outcome> commitOrders(List<Bill> bills) {
+            List<String> numbers = bills.stream().map(Bill::number).toList();
+            groups.add(numbers);
+            entered.countDown();
+            try {
+                if (!release.await(5, TimeUnit.SECONDS)) throw new IllegalStateException("never released");
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            if (numbers.stream().anyMatch(poison::contains)) throw new RuntimeException("commitOrders failed");
+            return numbers.stream()
+                    .map(n -> refuse.contains(n) ? Outcome.refused("Not enough stock left for TEA")
+                                                 : Outcome.committed(Map.of()))
+                    .toList();
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package application.online;
+
+import application.events.events.BillPaid;
+import application.inventory.FefoBatchSelector;
+import application.online.OnlineStoreControllerTest.CapturingEvents;
+import application.online.OnlineStoreControllerTest.FakeBillNoGen;
+import application.online.OnlineStoreControllerTest.FakeBillRepo;
+import application.online.OnlineStoreControllerTest.FakeBillWriter;
+import application.online.OnlineStoreControllerTest.FakeInventoryRepo;
+import application.online.StorefrontService.StorefrontException;
+import application.pos.controllers.CheckoutService;
+import application.pos.controllers.InventoryManager;
+import application.pricing.PricingService;
+import domain.billing.Bill;
+import domain.common.Money;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ports.in.InventoryService;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StorefrontServiceTest {
+
+    private FakeInventoryRepo invRepo;
+    private FakeBillRepo bills;
+    private CapturingEvents events;
+    private StorefrontService store;
+
+    @BeforeEach
+    void setup() {
+        invRepo = new FakeInventoryRepo();
+        invRepo.setItem("TEA", "Green Tea", 10.0);
+        invRepo.setQuantities("TEA", 5, 20, 0, 1);
+        invRepo.setItem("MUG", "Mug", 4.0);
+        invRepo.setQuantities("MUG", 3, 0, 0, 1);
+        var inventory = new InventoryService(invRepo, new FefoBatchSelector());
+        var pricing = new PricingService(10.0, inventory);
+        var stock = new InventoryManager(inventory, null);
+        bills = new FakeBillRepo();
+        events = new CapturingEvents();
+        store = new StorefrontService(inventory, stock, pricing,
+                new CheckoutService(bills, new FakeBillWriter(), events, stock), new FakeBillNoGen());
+    }
+
+    @Test
+    @DisplayName("Item detail shows the online price with tax and what is on the shelf")
+    void item_detail() {
+        var tea = store.item("TEA");
+        assertEquals(Money.of(10.0), tea.unitPrice());
+        assertEquals(Money.of(11.0), tea.price());
+        assertEquals(5, tea.available());
+        assertThrows(NoSuchElementException.class, () -> store.item("NOPE"));
+    }
+
+    @Test
+    @DisplayName("Cart lines add up, shrink and disappear; carts are kept apart")
+    void cart_add_and_remove() {
+        store.addToCart("a", "TEA", 2);
+        store.addToCart("a", "MUG", 1);
+        var cart = store.addToCart("a", "TEA", 1);
+        assertEquals(2, cart.lines().size());
+        assertEquals(3, cart.lines().get(0).qty());
+        assertEquals(Money.of(34.0), cart.subtotal());
+        assertEquals(Money.of(37.4), cart.total());
+
+        cart = store.removeFromCart("a", "TEA", 2);
+        assertEquals(1, cart.lines().get(0).qty());
+        cart = store.removeFromCart("a", "MUG", 0);
+        assertEquals(1, cart.lines().size());
+        assertTrue(store.cart("b").lines().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Adding more than the shelf holds is refused and leaves the cart as it was")
+    void add_beyond_shelf() {
+        store.addToCart("a", "MUG", 2);
+        var ex = assertThrows(StorefrontException.class, () -> store.addToCart("a", "MUG", 2));
+        assertTrue(ex.getMessage().contains("Not enough stock"), ex.getMessage());
+        assertEquals(2, store.cart("a").lines().get(0).qty());
+        assertThrows(IllegalArgumentException.class, () -> store.addToCart("a", "MUG", 0));
+    }
+
+    @Test
+    @DisplayName("Checkout bills the WEB channel, takes shelf stock and empties the cart")
+    void checkout_commits_from_shelf() {
+        store.addToCart("a", "TEA", 2);
+        var order = store.checkout("a", "alice", "4242");
+
+        assertEquals(order.billNo(), bills.saved.number());
+        assertEquals("WEB", bills.saved.channel());
+        assertEquals("alice", bills.saved.userName());
+        assertEquals(Money.of(22.0), order.total());
+        assertEquals("4242", order.cardLast4());
+        assertTrue(invRepo.committedShelf);
+        assertFalse(invRepo.committedStore);
+        assertEquals(3, invRepo.shelfQty("TEA"));
+        assertTrue(events.published.stream().anyMatch(e -> e instanceof BillPaid p && p.channel().equals("WEB")));
+        assertEquals(0, store.openCarts());
+    }
+
+    @Test
+    @DisplayName("With group commit the order is stored by the committer, then receipted and announced")
+    void checkout_through_group_commit() {
+        var inventory = new InventoryService(invRepo, new FefoBatchSelector());
+        var stock = new InventoryManager(inventory, null);
+        var writer = new FakeBillWriter();
+        List<Bill> grouped = new ArrayList<>();
+        OrderBatchRepository orders = group -> {
+            grouped.addAll(group);
+            return group.stream().map(b -> OrderBatchRepository.Outcome.committed(Map.of())).toList();
+        };
+        try (var committer = new OrderCommitter(orders, Duration.ofMillis(1), 10, 10)) {
+            var grouping = new StorefrontService(inventory, stock, new PricingService(10.0, inventory),
+                    new CheckoutService(bills, writer, events, stock), new FakeBillNoGen(),
+                    new CartService(10, Duration.ofMinutes(5), null), committer);
+            grouping.addToCart("a", "TEA", 2);
+            var order = grouping.checkout("a", "alice", "4242");
+
+            assertEquals(1, grouped.size());
+            assertEquals(order.billNo(), grouped.get(0).number());
+            assertEquals("WEB", grouped.get(0).channel());
+            assertFalse(grouped.get(0).lines().get(0).reservations().isEmpty());
+            assertNull(bills.saved);
+            assertFalse(invRepo.committedShelf);
+            assertEquals(List.of(grouped.get(0)), writer.written);
+            assertTrue(events.published.stream().anyMatch(e -> e instanceof BillPaid p && p.user().equals("alice")));
+            assertEquals(0, grouping.openCarts());
+        }
+    }
+
+    @Test
+    @DisplayName("A committer whose store cannot group orders is bypassed: the order commits on its own")
+    void unsupported_group_commit_falls_back() {
+        var inventory = new InventoryService(invRepo, new FefoBatchSelector());
+        var stock = new InventoryManager(inventory, null);
+        OrderBatchRepository striped = new OrderBatchRepository() {
+            @Override public boolean supportsGroupCommit() { return false; }
+            @Override public List<Outcome> commitOrders(List<Bill> group) { throw new IllegalStateException("not here"); }
+        };
+        try (var committer = new OrderCommitter(striped, Duration.ofMillis(1), 10, 10)) {
+            var fallback = new StorefrontService(inventory, stock, new PricingService(10.0, inventory),
+                    new CheckoutService(bills, new FakeBillWriter(), events, stock), new FakeBillNoGen(),
+                    new CartService(10, Duration.ofMinutes(5), null), committer);
+            fallback.addToCart("a", "TEA", 1);
+            var order = fallback.checkout("a", "alice", "4242");
+
+            assertEquals(order.billNo(), bills.saved.number());
+            assertTrue(invRepo.committedShelf);
+        }
+    }
+
+    @Test
+    @DisplayName("A declined card or an empty cart takes nothing and keeps the cart")
+    void checkout_failures() {
+        assertThrows(StorefrontException.class, () -> store.checkout("a", "alice", "4242"));
+
+        store.addToCart("a", "TEA", 1);
+        assertThrows(StorefrontException.class, () -> store.checkout("a", "alice", "42"));
+        assertNull(bills.saved);
+        assertFalse(invRepo.committedShelf);
+        assertEquals(1, store.cart("a").lines().size());
+    }
+
+    @Test
+    @DisplayName("A failure of the system itself is not passed off as the shop refusing the order")
+    void infrastructure_failure_is_not_a_refusal() {
+        var inventory = new InventoryService(invRepo, new FefoBatchSelector());
+        var stock = new InventoryManager(inventory, null);
+        var broken = new StorefrontService(inventory, stock, new PricingService(10.0, inventory),
+                new CheckoutService(bills, bill -> { throw new RuntimeException("disk full"); }, events, stock),
+                new FakeBillNoGen());
+        broken.addToCart("a", "TEA", 1);
+
+        var ex = assertThrows(RuntimeException.class, () -> broken.checkout("a", "alice", "4242"));
+        assertFalse(ex instanceof StorefrontException, ex.toString());
+        assertEquals(1, broken.cart("a").lines().size());
+    }
+}
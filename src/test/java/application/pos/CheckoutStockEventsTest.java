@@ -0,0 +1,106 @@
+package application.pos;
+
+import application.events.EventBus;
+import application.events.events.BillPaid;
+import application.events.events.RestockThresholdHit;
+import application.events.events.StockAboveThreshold;
+import application.events.events.StockDepleted;
+import application.inventory.FefoBatchSelector;
+import application.inventory.StockCommitRepository;
+import application.pos.controllers.CheckoutService;
+import application.pos.controllers.InventoryManager;
+import domain.billing.Bill;
+import domain.billing.BillLine;
+import domain.common.Money;
+import domain.inventory.InventoryReservation;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ports.in.InventoryService;
+import ports.out.BillRepository;
+import ports.out.InventoryRepository;
+
+import java.lang.reflect.Proxy;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CheckoutStockEventsTest {
+
+    private final List<String> repoCalls = new ArrayList<>();
+    private final List<Object> published = new ArrayList<>();
+
+    private final EventBus events = new EventBus() {
+        @Override public void publish(Object event) { published.add(event); }
+        @Override public <T> void subscribe(Class<T> type, java.util.function.Consumer<T> handler) { }
+    };
+
+    // Answers the legacy per-item stock queries (shelf 5 + store 5, restock 10) and records every call
+    private InventoryService recordingInventory() {
+        var repo = (InventoryRepository) Proxy.newProxyInstance(InventoryRepository.class.getClassLoader(),
+                new Class<?>[]{InventoryRepository.class}, (proxy, method, args) -> {
+                    repoCalls.add(method.getName());
+                    return switch (method.getName()) {
+                        case "shelfQty", "storeQty" -> 5;
+                        case "restockLevel" -> 10;
+                        default -> null;
+                    };
+                });
+        return new InventoryService(repo, new FefoBatchSelector());
+    }
+
+    private static BillRepository noopBills() {
+        return (BillRepository) Proxy.newProxyInstance(BillRepository.class.getClassLoader(),
+                new Class<?>[]{BillRepository.class}, (proxy, method, args) -> null);
+    }
+
+    private static Bill bill(String... codes) {
+        Bill b = new Bill("B-1");
+        for (String code : codes) b.addLine(new BillLine(code, code, Money.of(1.0), 1, List.of()));
+        b.setPricing(Money.of(1.0), Money.ZERO, Money.ZERO, Money.of(1.0));
+        return b;
+    }
+
+    @Test
+    @DisplayName("Stock events come from the levels the commit read; no stock re-queries")
+    void events_from_committed_levels() {
+        var commits = new StockCommitRepository() {
+            @Override
+            public Map<String, ItemStockLevel> commitShelfWithLevels(Iterable<InventoryReservation> reservations) {
+                return Map.of("A", new ItemStockLevel("A", 0, 40, 60));
+            }
+
+            @Override
+            public Map<String, ItemStockLevel> commitStoreWithLevels(Iterable<InventoryReservation> reservations) {
+                return Map.of("A", new ItemStockLevel("A", 0, 30, 60),
+                              "B", new ItemStockLevel("B", 0, 0, 10),
+                              "C", new ItemStockLevel("C", 100, 100, 10));
+            }
+        };
+        var manager = new InventoryManager(recordingInventory(), null, null, commits);
+        var checkout = new CheckoutService(noopBills(), bill -> { }, events, manager);
+
+        checkout.completeCheckout(bill("A", "B", "C"),
+                List.of(new InventoryReservation(1, "A", 1)),
+                List.of(new InventoryReservation(2, "A", 1), new InventoryReservation(3, "B", 1),
+                        new InventoryReservation(4, "C", 1)),
+                "alice", "POS");
+
+        assertTrue(repoCalls.isEmpty(), "unexpected repository calls: " + repoCalls);
+        assertInstanceOf(BillPaid.class, published.get(0));
+        assertEquals(List.of(new RestockThresholdHit("A", 30, 60), new StockDepleted("B"),
+                        new StockAboveThreshold("C", 200, 50)),
+                published.subList(1, published.size()));
+    }
+
+    @Test
+    @DisplayName("Without a reporting commit the per-item stock queries are still used")
+    void falls_back_to_queries() {
+        var manager = new InventoryManager(recordingInventory(), null);
+        var checkout = new CheckoutService(noopBills(), bill -> { }, events, manager);
+
+        checkout.completeCheckout(bill("A"), List.of(), List.of(new InventoryReservation(2, "A", 1)), "alice", "POS");
+
+        assertTrue(repoCalls.containsAll(List.of("commitStoreReservations", "shelfQty", "storeQty", "restockLevel")));
+        assertEquals(new RestockThresholdHit("A", 10, 50), published.get(1));
+    }
+}
@@ -0,0 +1,140 @@
+package application.pos;
+
+import application.events.NoopEventBus;
+import application.inventory.BasketLookupRepository;
+import application.inventory.FefoBatchSelector;
+import application.pos.controllers.LineRequest;
+import application.pos.controllers.POSController;
+import application.pricing.PricingService;
+import domain.billing.Bill;
+import domain.billing.BillLine;
+import domain.common.Money;
+import domain.inventory.Batch;
+import domain.inventory.BatchDiscount;
+import domain.inventory.InventoryReservation;
+import domain.inventory.Item;
+import domain.inventory.StockLocation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ports.in.InventoryService;
+import ports.out.BillRepository;
+import ports.out.InventoryRepository;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class POSControllerBulkAddTest {
+
+    private final Map<String, Item> items = new HashMap<>();
+    private final Map<String, List<Batch>> batches = new HashMap<>();
+    private final Map<Long, BatchDiscount> discounts = new HashMap<>();
+    private final List<String> repoCalls = new ArrayList<>();
+    private int lookups;
+    private StockLocation lastSource;
+
+    private POSController pos;
+
+    @BeforeEach
+    void setUp() {
+        items.put("A", new Item(1, "A", "Apple", Money.of(100.0)));
+        items.put("B", new Item(2, "B", "Bread", Money.of(50.0)));
+        batches.put("A", List.of(
+                new Batch(10, "A", LocalDate.of(2025, 1, 1), 0, 3),
+                new Batch(11, "A", LocalDate.of(2025, 2, 1), 0, 10)));
+        batches.put("B", List.of(new Batch(20, "B", null, 0, 4)));
+        discounts.put(11L, new BatchDiscount(1, 11, BatchDiscount.DiscountType.PERCENTAGE, Money.of(10.0),
+                "near expiry", LocalDateTime.now().minusDays(1), null, "mgr", LocalDateTime.now(), true));
+
+        BasketLookupRepository lookup = (codes, source) -> {
+            lookups++;
+            lastSource = source;
+            Map<String, Item> i = new HashMap<>();
+            Map<String, List<Batch>> b = new HashMap<>();
+            for (String code : codes) {
+                if (items.containsKey(code)) i.put(code, items.get(code));
+                if (batches.containsKey(code)) b.put(code, batches.get(code));
+            }
+            return new BasketLookupRepository.BasketLookup(i, b, discounts);
+        };
+        var inv = new InventoryService(recordingRepository(), new FefoBatchSelector());
+        pos = new POSController(inv, null, new PricingService(0.0, inv), () -> "B-1", billRepository(),
+                bill -> { }, new NoopEventBus(), lookup);
+        pos.newBill();
+    }
+
+    // Per-line lookups must not happen on the bulk path; they are only recorded
+    private InventoryRepository recordingRepository() {
+        return (InventoryRepository) Proxy.newProxyInstance(InventoryRepository.class.getClassLoader(),
+                new Class<?>[]{InventoryRepository.class}, (proxy, method, args) -> {
+                    repoCalls.add(method.getName());
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static BillRepository billRepository() {
+        return (BillRepository) Proxy.newProxyInstance(BillRepository.class.getClassLoader(),
+                new Class<?>[]{BillRepository.class}, (proxy, method, args) -> null);
+    }
+
+    @Test
+    @DisplayName("A basket is reserved and priced from one lookup; repeated items share FEFO batches")
+    void bulk_add_plans_in_memory() {
+        pos.addItems(List.of(new LineRequest("A", 2), new LineRequest("B", 4), new LineRequest("A", 3)));
+
+        assertEquals(1, lookups);
+        assertEquals(StockLocation.STORE, lastSource);
+        assertTrue(repoCalls.isEmpty(), "unexpected per-line calls: " + repoCalls);
+
+        List<BillLine> lines = bill().lines();
+        assertEquals(3, lines.size());
+        assertEquals(Money.of(100.0), lines.get(0).unitPrice());
+        assertEquals(Money.of(200.0), lines.get(1).lineTotal());
+
+        // second A line takes the last unit of batch 10, then batch 11 which carries 10% off
+        List<InventoryReservation> res = lines.get(2).reservations();
+        assertEquals(2, res.size());
+        assertEquals(10L, res.get(0).batchId);
+        assertEquals(1, res.get(0).quantity);
+        assertEquals(11L, res.get(1).batchId);
+        assertEquals(2, res.get(1).quantity);
+        assertEquals(Money.of(90.0), lines.get(2).unitPrice());
+    }
+
+    @Test
+    @DisplayName("Batch discounts are skipped and shelf stock is used off the POS channel")
+    void bulk_add_web_channel() {
+        batches.put("A", List.of(new Batch(11, "A", null, 5, 0)));
+        pos.setChannel("web");
+        pos.addItems(List.of(new LineRequest("A", 5)));
+
+        assertEquals(StockLocation.SHELF, lastSource);
+        assertEquals(Money.of(100.0), bill().lines().get(0).unitPrice());
+    }
+
+    @Test
+    @DisplayName("A line that cannot be planned leaves the bill untouched")
+    void bulk_add_all_or_nothing() {
+        var ex = assertThrows(POSController.POSOperationException.class,
+                () -> pos.addItems(List.of(new LineRequest("A", 2), new LineRequest("B", 5))));
+        assertTrue(ex.getMessage().contains("Not enough stock available for item B"));
+        assertTrue(bill().lines().isEmpty());
+
+        assertThrows(POSController.POSOperationException.class,
+                () -> pos.addItems(List.of(new LineRequest("A", 1), new LineRequest("ZZ", 1))));
+        assertThrows(POSController.POSOperationException.class,
+                () -> pos.addItems(List.of(new LineRequest("A", 0))));
+        assertTrue(bill().lines().isEmpty());
+
+        pos.addItems(List.of());
+        assertTrue(bill().lines().isEmpty());
+    }
+
+    private Bill bill() {
+        return pos.getActiveBill();
+    }
+}
@@ -0,0 +1,162 @@
+package application.pricing;
+
+import domain.pricing.MarkdownRule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MarkdownSweeperTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 3, 10);
+
+    private FakeRepo repo;
+    private LocalDate today;
+    private MarkdownSweeper sweeper;
+
+    @BeforeEach
+    void setUp() {
+        repo = new FakeRepo();
+        today = DAY;
+        sweeper = new MarkdownSweeper(repo, MarkdownRule.parse("1:50, 3:30"), () -> today);
+    }
+
+    @Test
+    @DisplayName("First run marks down everything inside the widest window, deepest tier wins")
+    void first_run() {
+        repo.batch(1, DAY.minusDays(1));   // already expired
+        repo.batch(2, DAY);                // 0 days left -> 50%
+        repo.batch(3, DAY.plusDays(1));    // 1 day -> 50%
+        repo.batch(4, DAY.plusDays(3));    // 3 days -> 30%
+        repo.batch(5, DAY.plusDays(4));    // outside
+
+        var result = sweeper.sweep();
+
+        assertEquals(3, result.created());
+        assertEquals(Map.of(2L, 50, 3L, 50, 4L, 30), repo.percents());
+        assertEquals(new MarkdownRepository.SweepState(DAY), repo.state);
+    }
+
+    @Test
+    @DisplayName("Each run reads the near-expiry window once and only rewrites markdowns that changed")
+    void reruns_touch_only_changes() {
+        repo.batch(4, DAY.plusDays(3));
+        repo.batch(6, DAY.plusDays(4));
+        sweeper.sweep();
+        repo.ranges.clear();
+
+        today = DAY.plusDays(1);
+        var result = sweeper.sweep();
+
+        assertEquals(List.of(List.of(DAY, DAY.plusDays(4))), repo.ranges);
+        assertEquals(1, result.created(), "batch 4 keeps its markdown, batch 6 gets one");
+        assertEquals(Map.of(4L, 30, 6L, 30), repo.percents());
+
+        today = DAY.plusDays(2);
+        sweeper.sweep();
+        assertEquals(50, repo.percents().get(4L), "batch 4 moved into the 1-day tier");
+        assertEquals(30, repo.percents().get(6L));
+
+        assertEquals(0, sweeper.sweep().created(), "same day again: nothing changed");
+    }
+
+    @Test
+    @DisplayName("Batches received after a window was swept are still picked up")
+    void late_receipts() {
+        sweeper.sweep();
+        repo.batch(7, DAY.plusDays(2));
+        today = DAY.plusDays(1);
+
+        var result = sweeper.sweep();
+        assertEquals(1, result.created());
+        assertEquals(50, repo.percents().get(7L));
+
+        // a lower id that committed after a higher one is not skipped
+        repo.batch(5, DAY.plusDays(2));
+        sweeper.sweep();
+        assertEquals(50, repo.percents().get(5L));
+    }
+
+    @Test
+    @DisplayName("Expiry edits are followed: into a swept window it is marked down, out of it the markdown goes")
+    void expiry_edits() {
+        repo.batch(1, DAY.plusDays(10));
+        repo.batch(2, DAY.plusDays(2));
+        sweeper.sweep();
+        today = DAY.plusDays(1);
+        sweeper.sweep();
+        assertEquals(Map.of(2L, 50), repo.percents());
+
+        repo.batch(1, DAY.plusDays(2));  // moved into a window both runs already covered
+        repo.batch(2, DAY.plusDays(20)); // pushed well out
+        var result = sweeper.sweep();
+
+        assertEquals(Map.of(1L, 50), repo.percents());
+        assertEquals(1, result.deactivated());
+    }
+
+    @Test
+    @DisplayName("Stale sweeper markdowns are deactivated and rules are validated")
+    void stale_and_validation() {
+        repo.batch(2, DAY.plusDays(1));
+        sweeper.sweep();
+        today = DAY.plusDays(2);
+        assertEquals(1, sweeper.sweep().deactivated());
+        assertTrue(repo.active.isEmpty());
+
+        assertThrows(IllegalArgumentException.class, () -> MarkdownRule.parse("3-30"));
+        assertThrows(IllegalArgumentException.class, () -> MarkdownRule.parse("3:0"));
+        assertThrows(IllegalArgumentException.class, () -> new MarkdownSweeper(repo, List.of()));
+        assertEquals(List.of(new MarkdownRule(3, 30), new MarkdownRule(1, 50)), MarkdownRule.parse("1:50,3:30"));
+    }
+
+    private static final class FakeRepo implements MarkdownRepository {
+        final Map<Long, LocalDate> batches = new TreeMap<>();
+        final Map<Long, Markdown> active = new TreeMap<>();
+        final List<List<LocalDate>> ranges = new ArrayList<>();
+        SweepState state;
+
+        void batch(long id, LocalDate expiry) { batches.put(id, expiry); }
+
+        Map<Long, Integer> percents() {
+            Map<Long, Integer> out = new TreeMap<>();
+            active.forEach((id, m) -> out.put(id, m.percentOff()));
+            return out;
+        }
+
+        @Override
+        public List<ExpiringBatch> expiringBetween(LocalDate afterExclusive, LocalDate toInclusive) {
+            ranges.add(List.of(afterExclusive, toInclusive));
+            return batches.entrySet().stream()
+                    .filter(e -> e.getValue().isAfter(afterExclusive) && !e.getValue().isAfter(toInclusive))
+                    .map(e -> new ExpiringBatch(e.getKey(), "I" + e.getKey(), e.getValue()))
+                    .toList();
+        }
+
+        @Override
+        public List<ActiveMarkdown> activeMarkdowns(String createdBy) {
+            return active.values().stream()
+                    .map(m -> new ActiveMarkdown(m.batchId(), m.percentOff(), m.expiry()))
+                    .toList();
+        }
+
+        @Override
+        public int applyMarkdowns(List<Markdown> markdowns, String createdBy, SweepState state) {
+            assertEquals(MarkdownSweeper.CREATED_BY, createdBy);
+            markdowns.forEach(m -> active.put(m.batchId(), m));
+            this.state = state;
+            return markdowns.size();
+        }
+
+        @Override
+        public int deactivate(Collection<Long> batchIds, String createdBy) {
+            int before = active.size();
+            active.keySet().removeAll(List.copyOf(batchIds));
+            return before - active.size();
+        }
+    }
+}
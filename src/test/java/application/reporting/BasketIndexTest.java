@@ -0,0 +1,139 @@
+package application.reporting;
+
+import application.events.events.BillPaid;
+import domain.common.Money;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BasketIndexTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 6, 3);
+
+    private static BillPaid bill(String... codes) {
+        List<BillPaid.Line> lines = new ArrayList<>();
+        for (String c : codes) lines.add(new BillPaid.Line(c, "Name " + c, 1, Money.of(1.0)));
+        return new BillPaid("B", Money.ZERO, "POS", "alice", Money.ZERO, DAY.atTime(10, 0), lines);
+    }
+
+    @Test
+    @DisplayName("Support, confidence and lift follow from basket counts; repeated lines count once")
+    void association_measures() {
+        var index = new BasketIndex(1_000);
+        index.onBillPaid(bill("BREAD", "BUTTER"));
+        index.onBillPaid(bill("BREAD", "BUTTER", "BREAD"));
+        index.onBillPaid(bill("BREAD", "MILK"));
+        index.onBillPaid(bill("MILK"));
+
+        var a = index.association("BUTTER", "BREAD").orElseThrow();
+        assertEquals(2, a.together());
+        assertEquals(0.5, a.support(), 1e-9);
+        assertEquals(1.0, a.confidence(), 1e-9);
+        assertEquals(4.0 / 3, a.lift(), 1e-9);
+        assertEquals(2.0 / 3, index.association("BREAD", "BUTTER").orElseThrow().confidence(), 1e-9);
+        assertEquals(0, index.association("BUTTER", "MILK").orElseThrow().together());
+        assertTrue(index.association("BUTTER", "JAM").isEmpty());
+        assertEquals(new BasketIndex.Stats(4, 3, 2, 0), index.stats());
+    }
+
+    @Test
+    @DisplayName("Companions are ranked by shared baskets, then lift")
+    void companions_ranked() {
+        var index = new BasketIndex(1_000);
+        for (int i = 0; i < 3; i++) index.onBillPaid(bill("CHIPS", "SALSA"));
+        index.onBillPaid(bill("CHIPS", "COLA"));
+        index.onBillPaid(bill("CHIPS", "WATER"));
+        for (int i = 0; i < 5; i++) index.onBillPaid(bill("WATER"));
+
+        var top = index.companions("CHIPS", 2);
+        assertEquals(List.of("SALSA", "COLA"), top.stream().map(BasketIndex.Association::withCode).toList());
+        assertEquals("Name CHIPS", top.get(0).itemName());
+        assertTrue(index.companions("NOPE", 5).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Rare pairs are pruned past the budget; kept counts are low by at most the floor")
+    void pruning_bounds_undercount() {
+        var index = new BasketIndex(200);
+        Map<String, Long> exact = new HashMap<>();
+        Random rnd = new Random(7);
+        for (int i = 0; i < 5_000; i++) {
+            String a = rnd.nextInt(3) == 0 ? "HOT" : "T" + rnd.nextInt(300);
+            String b = "T" + rnd.nextInt(300);
+            if (a.equals(b)) continue;
+            index.onBillPaid(bill(a, b));
+            exact.merge(a.compareTo(b) < 0 ? a + "|" + b : b + "|" + a, 1L, Long::sum);
+        }
+
+        var stats = index.stats();
+        assertTrue(stats.pairs() <= 200);
+        assertTrue(stats.maxUndercount() > 0);
+        for (var c : index.companions("HOT", 20)) {
+            long truth = exact.get(c.withCode().compareTo("HOT") < 0 ? c.withCode() + "|HOT" : "HOT|" + c.withCode());
+            assertTrue(c.together() <= truth && c.together() >= truth - c.maxUndercount(), c + " vs " + truth);
+            assertTrue(c.maxUndercount() <= stats.maxUndercount(), c.toString());
+            // both items hold the pair, and agree on it
+            assertEquals(c.together(), index.association(c.withCode(), "HOT").orElseThrow().together());
+        }
+    }
+
+    @Test
+    @DisplayName("A pair dropped more than once carries what it lost as slack when it comes back")
+    void repeated_drops_stay_bounded() {
+        var index = new BasketIndex(2);
+        index.onBillPaid(bill("A", "B"));
+        index.onBillPaid(bill("C", "D"));
+        index.onBillPaid(bill("E", "F")); // over budget: floor 1, everything seen once goes
+        index.onBillPaid(bill("A", "B"));
+        index.onBillPaid(bill("G", "H"));
+        index.onBillPaid(bill("I", "J")); // floor 2: A|B (1 counted + 1 slack) goes again
+        index.onBillPaid(bill("A", "B"));
+
+        var ab = index.association("A", "B").orElseThrow();
+        assertEquals(1, ab.together());
+        assertEquals(2, ab.maxUndercount());
+        assertTrue(ab.together() + ab.maxUndercount() >= 3);
+        assertEquals(List.of("B"), index.companions("A", 5).stream().map(BasketIndex.Association::withCode).toList());
+        assertTrue(index.companions("C", 5).isEmpty());
+        assertEquals(new BasketIndex.Stats(7, 10, 1, 2), index.stats());
+    }
+
+    @Test
+    @DisplayName("A parallel backfill gives the same counts as replaying bills one by one")
+    void parallel_backfill_matches_live() {
+        List<BillPaid> history = new ArrayList<>();
+        Random rnd = new Random(11);
+        for (int i = 0; i < 10_000; i++) {
+            String[] codes = new String[1 + rnd.nextInt(5)];
+            for (int j = 0; j < codes.length; j++) codes[j] = "I" + rnd.nextInt(40);
+            history.add(bill(codes));
+        }
+        PaidBillFeed feed = (LocalDateTime since, java.util.function.Consumer<BillPaid> sink) -> {
+            history.forEach(sink);
+            return history.size();
+        };
+
+        var live = new BasketIndex(100_000);
+        history.forEach(live::onBillPaid);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            var rebuilt = new BasketIndex(100_000);
+            assertEquals(10_000, rebuilt.rebuild(feed, DAY, pool));
+            assertEquals(live.stats(), rebuilt.stats());
+            assertEquals(live.companions("I7", 40), rebuilt.companions("I7", 40));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package application.reporting;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachingReportRepositoryTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 3, 10);
+
+    private final AtomicReference<LocalDateTime> now = new AtomicReference<>(TODAY.atTime(15, 0));
+    private final FakeDelegate delegate = new FakeDelegate();
+    private final MemoryStore store = new MemoryStore();
+
+    private CachingReportRepository cache(ReportResultStore s) {
+        return new CachingReportRepository(delegate, s, Duration.ofMinutes(60), 100, now::get);
+    }
+
+    @Test
+    @DisplayName("Closed days are fetched once; reruns only query the open tail")
+    void reruns_only_query_today() {
+        var repo = cache(store);
+        LocalDate from = TODAY.minusDays(9);
+
+        List<ReportRepository.RevenueRow> first = repo.revenueByDay(from, TODAY);
+        assertEquals(delegate.revenueByDay(from, TODAY), first);
+        delegate.calls.clear();
+
+        assertEquals(first, repo.revenueByDay(from, TODAY));
+        assertEquals(List.of("revenueByDay " + TODAY + ".." + TODAY), delegate.calls);
+        assertEquals(9, repo.stats().loadedDays());
+    }
+
+    @Test
+    @DisplayName("Only the missing closed days are loaded, in one call spanning them")
+    void loads_missing_span() {
+        var repo = cache(store);
+        repo.revenueByDay(TODAY.minusDays(3), TODAY.minusDays(2));
+        delegate.calls.clear();
+
+        repo.revenueByDay(TODAY.minusDays(6), TODAY.minusDays(1));
+        assertEquals(List.of("revenueByDay " + TODAY.minusDays(6) + ".." + TODAY.minusDays(1)), delegate.calls);
+        delegate.calls.clear();
+        repo.revenueByDay(TODAY.minusDays(6), TODAY.minusDays(1));
+        assertTrue(delegate.calls.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Yesterday stays open until the grace period after midnight has passed")
+    void grace_after_midnight() {
+        now.set(TODAY.atTime(0, 30));
+        var repo = cache(store);
+        assertEquals(TODAY.minusDays(2), repo.lastClosedDay());
+        repo.dailySales(TODAY.minusDays(1));
+        repo.dailySales(TODAY.minusDays(1));
+        assertEquals(2, delegate.calls.size(), "not cached while open");
+
+        now.set(TODAY.atTime(1, 0));
+        assertEquals(TODAY.minusDays(1), repo.lastClosedDay());
+    }
+
+    @Test
+    @DisplayName("Persisted days survive a restart and bills keep newest-first order")
+    void persisted_across_instances() {
+        LocalDate from = TODAY.minusDays(4);
+        List<ReportRepository.BillRow> expected = delegate.billsBetween(from, TODAY);
+        assertEquals(expected, cache(store).billsBetween(from, TODAY));
+        delegate.calls.clear();
+
+        var restarted = cache(store);
+        assertEquals(expected, restarted.billsBetween(from, TODAY));
+        assertEquals(List.of("billsBetween " + TODAY + ".." + TODAY), delegate.calls);
+        assertNull(restarted.billsBetween(from, TODAY).get(4).userName(), "nulls round-trip");
+    }
+
+    @Test
+    @DisplayName("Bills of closed days are read back from the store, never held in memory")
+    void bills_not_held_in_memory() {
+        var repo = cache(store);
+        LocalDate from = TODAY.minusDays(3);
+        List<ReportRepository.BillRow> expected = repo.billsBetween(from, TODAY);
+        store.files.clear();
+        delegate.calls.clear();
+
+        assertEquals(expected, repo.billsBetween(from, TODAY));
+        assertEquals(List.of("billsBetween " + TODAY + ".." + TODAY, "billsBetween " + from + ".." + TODAY.minusDays(1)),
+                delegate.calls);
+
+        delegate.calls.clear();
+        cache(null).billsBetween(from, TODAY);
+        assertEquals(List.of("billsBetween " + from + ".." + TODAY), delegate.calls, "no store, no caching");
+    }
+
+    @Test
+    @DisplayName("Best sellers are summed from cached per-day item totals plus today")
+    void best_sellers_stitched() {
+        var repo = cache(store);
+        var top = repo.bestSellers(TODAY.minusDays(2), TODAY, 2);
+        assertEquals(List.of(
+                new ReportRepository.BestSellerRow("B", "Bread\tloaf", 6, "7.50"),
+                new ReportRepository.BestSellerRow("A", "Apple", 3, "3.00")), top);
+
+        delegate.calls.clear();
+        assertEquals(top, cache(store).bestSellers(TODAY.minusDays(2), TODAY, 2));
+        assertEquals(List.of("itemSalesByDay " + TODAY + ".." + TODAY), delegate.calls);
+    }
+
+    @Test
+    @DisplayName("A failing store degrades to memory caching and is counted")
+    void store_failures_are_tolerated() {
+        ReportResultStore broken = new ReportResultStore() {
+            public Optional<List<String>> load(String report, LocalDate day) { throw new IllegalStateException("disk"); }
+            public void save(String report, LocalDate day, List<String> lines) { throw new IllegalStateException("disk"); }
+        };
+        var repo = cache(broken);
+        repo.revenueByDay(TODAY.minusDays(2), TODAY.minusDays(1));
+        delegate.calls.clear();
+        repo.revenueByDay(TODAY.minusDays(2), TODAY.minusDays(1));
+        assertTrue(delegate.calls.isEmpty());
+        assertTrue(repo.stats().storeErrors() >= 2);
+    }
+
+    @Test
+    @DisplayName("Field encoding round-trips separators and nulls")
+    void encoding_round_trip() {
+        String line = CachingReportRepository.join("a\tb", null, "c\\d\ne", "");
+        assertArrayEquals(new String[]{"a\tb", null, "c\\d\ne", ""}, CachingReportRepository.split(line));
+    }
+
+    private static final class MemoryStore implements ReportResultStore {
+        final Map<String, List<String>> files = new HashMap<>();
+
+        public Optional<List<String>> load(String report, LocalDate day) {
+            return Optional.ofNullable(files.get(report + "/" + day));
+        }
+
+        public void save(String report, LocalDate day, List<String> lines) {
+            files.put(report + "/" + day, List.copyOf(lines));
+        }
+    }
+
+    // Revenue rows on even days only; two bills and two items on every day
+    private static final class FakeDelegate implements ReportRepository {
+        final List<String> calls = new ArrayList<>();
+
+        @Override
+        public DailySalesRow dailySales(LocalDate day) {
+            calls.add("dailySales " + day);
+            return new DailySalesRow(day, 1, "10.00", "0.00", 2);
+        }
+
+        @Override
+        public List<RevenueRow> revenueByDay(LocalDate from, LocalDate to) {
+            calls.add("revenueByDay " + from + ".." + to);
+            List<RevenueRow> out = new ArrayList<>();
+            for (LocalDate d = from; !d.isAfter(to); d = d.plusDays(1)) {
+                if (d.getDayOfMonth() % 2 == 0) out.add(new RevenueRow(d, d.getDayOfMonth() + ".00"));
+            }
+            return out;
+        }
+
+        @Override
+        public List<BillRow> billsBetween(LocalDate from, LocalDate to) {
+            calls.add("billsBetween " + from + ".." + to);
+            List<BillRow> out = new ArrayList<>();
+            for (LocalDate d = to; !d.isBefore(from); d = d.minusDays(1)) {
+                out.add(new BillRow("N" + d + "-2", d.atTime(18, 0), d.getDayOfMonth() % 2 == 0 ? null : "bob",
+                        "POS", "CASH", "5.00", "0.00", "0.00", "5.00"));
+                out.add(new BillRow("N" + d + "-1", d.atTime(9, 0), "alice", "POS", "CARD", "5.00", "0.00", "0.00", "5.00"));
+            }
+            return out;
+        }
+
+        @Override
+        public List<ItemDayRow> itemSalesByDay(LocalDate from, LocalDate to) {
+            calls.add("itemSalesByDay " + from + ".." + to);
+            List<ItemDayRow> out = new ArrayList<>();
+            for (LocalDate d = from; !d.isAfter(to); d = d.plusDays(1)) {
+                out.add(new ItemDayRow(d, "A", "Apple", 1, "1.00"));
+                out.add(new ItemDayRow(d, "B", "Bread\tloaf", 2, "2.50"));
+            }
+            return out;
+        }
+
+        @Override public List<BestSellerRow> bestSellers(LocalDate from, LocalDate to, int limit) { return List.of(); }
+        @Override public List<ReshelvingRow> reshelvingSuggestions(int shelfTarget) { return List.of(); }
+        @Override public List<ReorderRow> reorderBelow(int threshold) { return List.of(); }
+        @Override public List<StockBatchRow> stockByBatch(String itemCodeOrNull) { return List.of(); }
+        @Override public List<RestockRow> restockAtOrBelowLevel() { return List.of(); }
+    }
+}
@@ -0,0 +1,115 @@
+package application.reporting;
+
+import application.events.events.BillPaid;
+import domain.common.Money;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ports.in.ReportingService;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReportingServiceExportTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 5, 1);
+
+    @Test
+    @DisplayName("Bills are exported through the repository cursor, never as a list")
+    void export_streams_bills() {
+        var repo = new StreamingOnlyRepository();
+        var out = new CollectingPrinter();
+        var service = new ReportingService(repo, null);
+
+        var stats = service.exportBills(DAY, DAY, out);
+
+        assertEquals(3, stats.rows());
+        assertEquals(List.of("N3", "N2", "N1"), out.billNos);
+    }
+
+    @Test
+    @DisplayName("Other reports reach the export printer through withPrinter; the console printer is left alone")
+    void with_printer_routes_reports_to_export() {
+        var repo = new StreamingOnlyRepository();
+        var console = new CollectingPrinter();
+        var out = new CollectingPrinter();
+        var exporting = new ReportingService(repo, console).withPrinter(out);
+
+        exporting.printDailySales(DAY);
+        exporting.printBestSellers(DAY, DAY, 10);
+        exporting.printRevenueSeries(DAY, DAY);
+
+        assertEquals(List.of("dailySales", "bestSellers", "revenueSeries"), out.reports);
+        assertTrue(console.reports.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Best sellers stay exact with a live tracker; top sellers now show each count's overcount bound")
+    void best_sellers_exact_top_sellers_bounded() {
+        var repo = new StreamingOnlyRepository();
+        var out = new CollectingPrinter();
+        var tracker = new TopSellersTracker(10);
+        LocalDate today = LocalDate.now();
+        tracker.onBillPaid(new BillPaid("B-1", Money.of(6.0), "POS", "alice", Money.of(0.0), today.atTime(9, 0),
+                List.of(new BillPaid.Line("TEA", "Tea", 3, Money.of(6.0)))));
+        var service = new ReportingService(repo, out, null, tracker);
+
+        service.printBestSellers(today, today, 5);
+        assertEquals(1, repo.bestSellerQueries, "the open day is still answered exactly");
+
+        service.printTopSellers(TopSellersTracker.Period.DAY, 5);
+        assertEquals(List.of("bestSellers", "topSellers"), out.reports);
+        assertEquals(new ReportPrinter.TopSellerRow("TEA", "Tea", 3, 0, "6.00"), out.topSellers.get(0));
+    }
+
+    private static final class CollectingPrinter implements StreamingReportPrinter {
+        final List<String> billNos = new ArrayList<>();
+        final List<String> reports = new ArrayList<>();
+        final List<TopSellerRow> topSellers = new ArrayList<>();
+
+        @Override public Consumer<BillRow> beginBills(LocalDate from, LocalDate to) { return r -> billNos.add(r.billNo()); }
+        @Override public ExportStats stats() { return new ExportStats(billNos.size(), 0, 0); }
+        @Override public void close() {}
+        @Override public void printDailySales(DailySales s) { reports.add("dailySales"); }
+        @Override public void printBestSellers(LocalDate from, LocalDate to, List<BestSeller> list) { reports.add("bestSellers"); }
+        @Override public void printTopSellers(String period, LocalDate from, long errorBound, List<TopSellerRow> rows) {
+            reports.add("topSellers");
+            topSellers.addAll(rows);
+        }
+        @Override public void printRevenueSeries(LocalDate from, LocalDate to, List<RevenuePoint> series) { reports.add("revenueSeries"); }
+        @Override public void printRestock(List<RestockRow> rows) {}
+        @Override public void printReshelving(List<ReshelvingRow> rows, int shelfTarget) {}
+        @Override public void printReorder(List<ReorderRow> rows, int threshold) {}
+        @Override public void printStock(List<StockBatchRow> rows, String itemCodeOrNull) {}
+        @Override public void printBills(List<BillRow> rows, LocalDate from, LocalDate to) { fail("collected export"); }
+        @Override public void printLiveSales(String window, List<LiveSalesRow> rows) {}
+        @Override public void printBreakdown(String title, List<BreakdownRow> rows) {}
+        @Override public void printCompanions(String itemCode, String itemName, List<CompanionRow> rows) {}
+        @Override public void printUnavailable(String section, String reason) {}
+    }
+
+    private static final class StreamingOnlyRepository implements ReportRepository {
+        @Override
+        public long streamBills(LocalDate from, LocalDate to, Consumer<BillRow> sink) {
+            for (int i = 3; i >= 1; i--) {
+                sink.accept(new BillRow("N" + i, from.atTime(8 + i, 0), "alice", "POS", "CASH",
+                        "1.00", "0.00", "0.00", "1.00"));
+            }
+            return 3;
+        }
+
+        @Override public List<BillRow> billsBetween(LocalDate from, LocalDate to) { throw new AssertionError("not streamed"); }
+        @Override public DailySalesRow dailySales(LocalDate day) { return new DailySalesRow(day, 3, "3.00", "0.00", 3); }
+        int bestSellerQueries;
+
+        @Override public List<BestSellerRow> bestSellers(LocalDate from, LocalDate to, int limit) { bestSellerQueries++; return List.of(); }
+        @Override public List<RevenueRow> revenueByDay(LocalDate from, LocalDate to) { return List.of(); }
+        @Override public List<ReshelvingRow> reshelvingSuggestions(int shelfTarget) { return List.of(); }
+        @Override public List<ReorderRow> reorderBelow(int threshold) { return List.of(); }
+        @Override public List<StockBatchRow> stockByBatch(String itemCodeOrNull) { return List.of(); }
+        @Override public List<RestockRow> restockAtOrBelowLevel() { return List.of(); }
+    }
+}
@@ -0,0 +1,160 @@
+package application.reporting;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ports.in.ReportingService;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReportingServiceFanOutTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 4, 2);
+
+    private final ExecutorService pool = Executors.newFixedThreadPool(4);
+    private final SlowRepository repo = new SlowRepository();
+    private final List<String> printed = Collections.synchronizedList(new ArrayList<>());
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    private ReportingService service(java.util.concurrent.Executor executor, Duration timeout) {
+        return new ReportingService(repo, new RecordingPrinter(), null, null, null, executor, timeout);
+    }
+
+    @Test
+    @DisplayName("Independent queries overlap, so the summary takes about as long as the slowest")
+    void runs_concurrently() {
+        // every query waits until all four have started; run one after another they never would
+        repo.together = new CountDownLatch(4);
+        var summary = service(pool, Duration.ofSeconds(5)).managementSummary(DAY, DAY.minusDays(6), DAY, 5);
+
+        assertTrue(summary.complete(), summary.toString());
+        assertEquals(3, summary.dailySales().value().bills());
+        assertEquals("A", summary.bestSellers().value().get(0).itemCode());
+    }
+
+    @Test
+    @DisplayName("A slow or failing query leaves only its own section empty")
+    void partial_results() {
+        repo.revenueGate = new CountDownLatch(1);
+        repo.restockFails = true;
+        var service = service(pool, Duration.ofMillis(100));
+
+        var summary = service.managementSummary(DAY, DAY.minusDays(6), DAY, 5);
+        assertEquals(1, repo.revenueGate.getCount(), "returned while the revenue query was still held");
+
+        assertFalse(summary.complete());
+        assertTrue(summary.dailySales().ok());
+        assertTrue(summary.bestSellers().ok());
+        assertTrue(summary.revenue().error().startsWith("timed out"), summary.revenue().error());
+        assertEquals("restock query failed", summary.restock().error());
+
+        service.printManagementSummary(DAY, DAY.minusDays(6), DAY, 5);
+        assertEquals(List.of("daily", "best", "unavailable Revenue by day", "unavailable Restock"), printed);
+        repo.revenueGate.countDown();
+    }
+
+    @Test
+    @DisplayName("A saturated executor degrades to empty sections instead of throwing")
+    void rejected_when_busy() {
+        // the one thread is held by the daily query and the queue holds best sellers, so the rest bounce
+        repo.dailyGate = new CountDownLatch(1);
+        var tiny = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1));
+        try {
+            var summary = service(tiny, Duration.ofMillis(100)).managementSummary(DAY, DAY, DAY, 5);
+            assertEquals("report executor is busy", summary.revenue().error());
+            assertEquals("report executor is busy", summary.restock().error());
+            assertTrue(summary.dailySales().error().startsWith("timed out"), summary.dailySales().error());
+        } finally {
+            repo.dailyGate.countDown();
+            tiny.shutdownNow();
+        }
+    }
+
+    private final class RecordingPrinter implements ReportPrinter {
+        @Override public void printDailySales(DailySales s) { printed.add("daily"); }
+        @Override public void printBestSellers(LocalDate from, LocalDate to, List<BestSeller> list) { printed.add("best"); }
+        @Override public void printTopSellers(String period, LocalDate from, long errorBound, List<TopSellerRow> rows) {}
+        @Override public void printRevenueSeries(LocalDate from, LocalDate to, List<RevenuePoint> series) { printed.add("revenue"); }
+        @Override public void printRestock(List<RestockRow> rows) { printed.add("restock"); }
+        @Override public void printReshelving(List<ReshelvingRow> rows, int shelfTarget) {}
+        @Override public void printReorder(List<ReorderRow> rows, int threshold) {}
+        @Override public void printStock(List<StockBatchRow> rows, String itemCodeOrNull) {}
+        @Override public void printBills(List<BillRow> rows, LocalDate from, LocalDate to) {}
+        @Override public void printLiveSales(String window, List<LiveSalesRow> rows) {}
+        @Override public void printBreakdown(String title, List<BreakdownRow> rows) {}
+        @Override public void printCompanions(String itemCode, String itemName, List<CompanionRow> rows) {}
+        @Override public void printUnavailable(String section, String reason) { printed.add("unavailable " + section); }
+    }
+
+    // Queries can be made to wait for each other, or the daily or revenue one held until released
+    private static final class SlowRepository implements ReportRepository {
+        volatile CountDownLatch together;
+        volatile CountDownLatch revenueGate;
+        volatile CountDownLatch dailyGate;
+        volatile boolean restockFails;
+
+        private void meet() {
+            CountDownLatch l = together;
+            if (l == null) return;
+            l.countDown();
+            await(l);
+        }
+
+        private static void await(CountDownLatch l) {
+            try {
+                if (!l.await(5, TimeUnit.SECONDS)) throw new IllegalStateException("queries did not overlap");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public DailySalesRow dailySales(LocalDate day) {
+            meet();
+            if (dailyGate != null) await(dailyGate);
+            return new DailySalesRow(day, 3, "30.00", "0.00", 7);
+        }
+
+        @Override
+        public List<BestSellerRow> bestSellers(LocalDate from, LocalDate to, int limit) {
+            meet();
+            return List.of(new BestSellerRow("A", "Apple", 9, "9.00"));
+        }
+
+        @Override
+        public List<RevenueRow> revenueByDay(LocalDate from, LocalDate to) {
+            meet();
+            if (revenueGate != null) await(revenueGate);
+            return List.of(new RevenueRow(to, "30.00"));
+        }
+
+        @Override
+        public List<RestockRow> restockAtOrBelowLevel() {
+            meet();
+            if (restockFails) throw new RuntimeException("restock query failed");
+            return List.of();
+        }
+
+        @Override public List<ReshelvingRow> reshelvingSuggestions(int shelfTarget) { return List.of(); }
+        @Override public List<ReorderRow> reorderBelow(int threshold) { return List.of(); }
+        @Override public List<StockBatchRow> stockByBatch(String itemCodeOrNull) { return List.of(); }
+        @Override public List<BillRow> billsBetween(LocalDate from, LocalDate to) { return List.of(); }
+    }
+}
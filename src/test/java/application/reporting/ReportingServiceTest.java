@@ -177,5 +177,30 @@ class ReportingServiceTest {
             // Mock implementation for missing method
             assertNotNull(bills);
         }
+
+        @Override
+        public void printLiveSales(String window, List<ReportPrinter.LiveSalesRow> rows) {
+            assertNotNull(rows);
+        }
+
+        @Override
+        public void printTopSellers(String period, LocalDate from, long errorBound, List<ReportPrinter.TopSellerRow> rows) {
+            assertNotNull(rows);
+        }
+
+        @Override
+        public void printBreakdown(String title, List<ReportPrinter.BreakdownRow> rows) {
+            assertNotNull(rows);
+        }
+
+        @Override
+        public void printCompanions(String itemCode, String itemName, List<ReportPrinter.CompanionRow> rows) {
+            assertNotNull(rows);
+        }
+
+        @Override
+        public void printUnavailable(String section, String reason) {
+            assertNotNull(reason);
+        }
     }
 }
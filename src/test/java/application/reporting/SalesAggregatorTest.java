@@ -0,0 +1,101 @@
+package application.reporting;
+
+import application.events.SimpleEventBus;
+import application.events.events.BillPaid;
+import application.reporting.SalesAggregator.Totals;
+import application.reporting.SalesAggregator.Window;
+import domain.common.Money;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SalesAggregatorTest {
+
+    private final AtomicReference<LocalDateTime> now = new AtomicReference<>(LocalDateTime.of(2024, 5, 10, 14, 30, 15));
+    private final SalesAggregator agg = new SalesAggregator(60, 24, 7, now::get);
+
+    private static BillPaid bill(String no, double total, String channel, String user, LocalDateTime at, int... qtys) {
+        List<BillPaid.Line> lines = new ArrayList<>();
+        for (int q : qtys) lines.add(new BillPaid.Line("IT" + lines.size(), "Item", q, Money.of(1.0)));
+        return new BillPaid(no, Money.of(total), channel, user, Money.of(0.5), at, lines);
+    }
+
+    @Test
+    @DisplayName("A bill counts once in its minute, hour and day, overall, per channel and per till cashier")
+    void buckets_and_scopes() {
+        agg.onBillPaid(bill("B1", 10.0, "POS", "alice", now.get(), 2, 3));
+        agg.onBillPaid(bill("B2", 5.25, "ONLINE", "bob", now.get().plusMinutes(1), 1));
+
+        Totals day = agg.current(Window.DAY);
+        assertEquals(new Totals(2, Money.of(15.25), Money.of(1.0), 6), day);
+        assertEquals(Money.of(7.63), day.averageBasket());
+
+        assertEquals(1, agg.current(Window.MINUTE).bills());
+        assertEquals(2, agg.current(Window.HOUR).bills());
+        assertEquals(Money.of(10.0), agg.byChannel("POS", Window.DAY, now.get()).revenue());
+        assertEquals(1, agg.byCashier("alice", Window.MINUTE, now.get()).bills());
+        assertEquals(Totals.EMPTY, agg.byCashier("bob", Window.DAY, now.get()), "online customers are not cashiers");
+        assertEquals(List.of("alice"), List.copyOf(agg.cashiers(Window.DAY, now.get()).keySet()));
+        assertEquals(List.of("ONLINE", "POS"), List.copyOf(agg.channels(Window.DAY, now.get()).keySet()));
+        assertEquals(1, agg.last(Window.MINUTE, 5).bills(), "the next minute is not reached yet");
+    }
+
+    @Test
+    @DisplayName("Rolled-over slots start empty and stale events are not counted")
+    void ring_rolls_over() {
+        agg.onBillPaid(bill("B1", 10.0, "POS", "alice", now.get(), 1));
+        now.set(now.get().plusDays(7));
+        assertEquals(Totals.EMPTY, agg.current(Window.DAY), "same ring slot, different day");
+
+        agg.onBillPaid(bill("B2", 4.0, "POS", "alice", now.get(), 1));
+        agg.onBillPaid(bill("B3", 99.0, "POS", "alice", now.get().minusDays(7), 1));
+        assertEquals(Money.of(4.0), agg.current(Window.DAY).revenue());
+        assertEquals(Totals.EMPTY, agg.total(Window.DAY, now.get().minusDays(7)));
+    }
+
+    @Test
+    @DisplayName("Rebuild replays bills from the start of the day ring and attach keeps it live")
+    void rebuild_then_attach() {
+        List<LocalDateTime> asked = new ArrayList<>();
+        PaidBillFeed feed = (since, sink) -> {
+            asked.add(since);
+            sink.accept(bill("OLD", 8.0, "POS", "alice", now.get().minusHours(3), 4));
+            return 1;
+        };
+        agg.onBillPaid(bill("GONE", 100.0, "POS", "alice", now.get(), 1));
+
+        assertEquals(1, agg.rebuild(feed));
+        assertEquals(LocalDateTime.of(2024, 5, 4, 0, 0), asked.get(0));
+        assertEquals(new Totals(1, Money.of(8.0), Money.of(0.5), 4), agg.current(Window.DAY));
+
+        var bus = new SimpleEventBus();
+        agg.attach(bus);
+        bus.publish(bill("NEW", 2.0, "POS", "alice", now.get(), 1));
+        assertEquals(2, agg.current(Window.DAY).bills());
+    }
+
+    @Test
+    @DisplayName("Concurrent tills lose no updates")
+    void concurrent_updates() {
+        IntStream.range(0, 8_000).parallel()
+                .forEach(i -> agg.onBillPaid(bill("B" + i, 1.25, i % 2 == 0 ? "POS" : "ONLINE", "u" + (i % 4), now.get(), 1)));
+        Totals day = agg.current(Window.DAY);
+        assertEquals(8_000, day.bills());
+        assertEquals(Money.of(10_000.0), day.revenue());
+        assertEquals(2_000, agg.byCashier("u2", Window.DAY, now.get()).bills());
+    }
+
+    @Test
+    @DisplayName("Events without lines still count bills and revenue")
+    void short_form_event() {
+        agg.onBillPaid(new BillPaid("B1", Money.of(3.0), "POS", "alice"));
+        assertEquals(new Totals(1, Money.of(3.0), Money.ZERO, 0), agg.current(Window.DAY), "stamped with the clock");
+    }
+}
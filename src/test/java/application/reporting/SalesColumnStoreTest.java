@@ -0,0 +1,127 @@
+package application.reporting;
+
+import application.events.events.BillPaid;
+import application.reporting.SalesColumnStore.GroupBy;
+import application.reporting.SalesColumnStore.Group;
+import application.reporting.SalesColumnStore.Query;
+import domain.common.Money;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SalesColumnStoreTest {
+
+    private static final LocalDate D1 = LocalDate.of(2024, 1, 31);
+    private static final LocalDate D2 = LocalDate.of(2024, 2, 1);
+
+    // tiny chunks so every query spans many of them
+    private final SalesColumnStore store = new SalesColumnStore(4);
+
+    private static BillPaid bill(LocalDate day, String channel, String user, Object... codeQtyPrice) {
+        List<BillPaid.Line> lines = new ArrayList<>();
+        for (int i = 0; i < codeQtyPrice.length; i += 3) {
+            int qty = (Integer) codeQtyPrice[i + 1];
+            lines.add(new BillPaid.Line((String) codeQtyPrice[i], "Name " + codeQtyPrice[i], qty,
+                    Money.of((Double) codeQtyPrice[i + 2]).multiply(qty)));
+        }
+        return new BillPaid("B", Money.ZERO, channel, user, Money.ZERO, day.atTime(10, 0), lines);
+    }
+
+    private void seed() {
+        store.onBillPaid(bill(D1, "POS", "alice", "A", 2, 1.5, "B", 1, 4.0));
+        store.onBillPaid(bill(D1, "ONLINE", "web", "A", 1, 1.5));
+        store.onBillPaid(bill(D2, "POS", "bob", "C", 5, 1.0, "A", 3, 1.5, "B", 2, 4.0));
+    }
+
+    @Test
+    @DisplayName("Group-by sums span chunks and respect every filter")
+    void group_and_filter() {
+        seed();
+        assertEquals(6, store.rows());
+
+        List<Group> byDay = store.query(new Query(null, null, null, null, null, GroupBy.DAY));
+        assertEquals(List.of("2024-01-31", "2024-02-01"), byDay.stream().map(Group::key).toList());
+        assertEquals(new Group("2024-02-01", "2024-02-01", 3, 10, Money.of(17.5)), byDay.get(1));
+
+        List<Group> byMonth = store.query(new Query(null, null, null, null, null, GroupBy.MONTH));
+        assertEquals(List.of("2024-01", "2024-02"), byMonth.stream().map(Group::key).toList());
+
+        List<Group> aOnPos = store.query(new Query(null, null, "A", "POS", null, GroupBy.NONE));
+        assertEquals(new Group("all", "all", 2, 5, Money.of(7.5)), aOnPos.get(0));
+
+        List<Group> items = store.query(new Query(D2, D2, null, null, "bob", GroupBy.ITEM));
+        assertEquals("Name C", items.get(2).label());
+        assertTrue(store.query(new Query(null, null, "NOPE", null, null, GroupBy.NONE)).isEmpty());
+        assertTrue(store.query(new Query(D2.plusDays(1), null, null, null, null, GroupBy.NONE)).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Best sellers rank by quantity then revenue")
+    void best_sellers() {
+        seed();
+        List<Group> top = store.bestSellers(D1, D2, 2);
+        assertEquals(List.of("A", "C"), top.stream().map(Group::key).toList());
+        assertEquals(6, top.get(0).qty());
+    }
+
+    @Test
+    @DisplayName("Rebuild replaces contents and marks the covered range")
+    void rebuild_covers_range() {
+        seed();
+        assertFalse(store.covers(D1), "live appends alone do not cover history");
+        store.rebuild((since, sink) -> {
+            sink.accept(bill(D2, "POS", "bob", "X", 1, 2.0));
+            return 1;
+        }, D1);
+        assertEquals(1, store.rows());
+        assertTrue(store.covers(D1));
+        assertFalse(store.covers(D1.minusDays(1)));
+    }
+
+    @Test
+    @DisplayName("Chunks older than the retention are dropped when a new chunk starts")
+    void old_chunks_age_out() {
+        LocalDate[] today = {D1};
+        var kept = new SalesColumnStore(2, 3, () -> today[0]);
+        kept.rebuild((since, sink) -> 0, D1.minusDays(3));
+        kept.onBillPaid(bill(D1, "POS", "alice", "A", 1, 1.0, "B", 1, 1.0)); // fills the first chunk
+        assertTrue(kept.covers(D1.minusDays(3)));
+
+        today[0] = D1.plusDays(5);
+        kept.onBillPaid(bill(today[0], "POS", "alice", "C", 1, 1.0));
+        assertEquals(1, kept.rows());
+        assertEquals(List.of("C"), kept.bestSellers(null, null, 10).stream().map(Group::key).toList());
+        assertFalse(kept.covers(D1));
+        assertTrue(kept.covers(today[0].minusDays(3)));
+    }
+
+    @Test
+    @DisplayName("Parallel scans match a brute-force sum while tills keep appending")
+    void concurrent_appends_and_scans() {
+        var big = new SalesColumnStore(64);
+        Random rnd = new Random(7);
+        List<BillPaid> bills = IntStream.range(0, 4_000)
+                .mapToObj(i -> bill(D1.plusDays(rnd.nextInt(30)), i % 3 == 0 ? "ONLINE" : "POS", "u" + (i % 5),
+                        "I" + rnd.nextInt(50), 1 + rnd.nextInt(4), 2.0))
+                .toList();
+        bills.parallelStream().forEach(b -> {
+            big.onBillPaid(b);
+            big.query(new Query(null, null, null, null, null, GroupBy.CHANNEL)); // reads racing appends
+        });
+
+        long expectedQty = bills.stream().mapToLong(BillPaid::itemsSold).sum();
+        List<Group> all = big.query(new Query(null, null, null, null, null, GroupBy.NONE));
+        assertEquals(4_000, all.get(0).lines());
+        assertEquals(expectedQty, all.get(0).qty());
+        assertEquals(Money.of(2.0).multiply((int) expectedQty), all.get(0).revenue());
+        assertEquals(expectedQty, big.query(new Query(null, null, null, null, null, GroupBy.CASHIER))
+                .stream().mapToLong(Group::qty).sum());
+    }
+}
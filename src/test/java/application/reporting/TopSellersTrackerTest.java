@@ -0,0 +1,114 @@
+package application.reporting;
+
+import application.events.events.BillPaid;
+import application.reporting.TopSellersTracker.Period;
+import domain.common.Money;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopSellersTrackerTest {
+
+    // Wednesday
+    private final AtomicReference<LocalDate> today = new AtomicReference<>(LocalDate.of(2024, 5, 15));
+
+    private BillPaid sale(LocalDate day, Object... codeQty) {
+        List<BillPaid.Line> lines = new ArrayList<>();
+        for (int i = 0; i < codeQty.length; i += 2) {
+            int qty = (Integer) codeQty[i + 1];
+            lines.add(new BillPaid.Line((String) codeQty[i], "Name " + codeQty[i], qty, Money.of(2.0).multiply(qty)));
+        }
+        return new BillPaid("B", Money.ZERO, "POS", "alice", Money.ZERO, day.atTime(12, 0), lines);
+    }
+
+    @Test
+    @DisplayName("Space-Saving keeps every heavy hitter and bounds each overcount by its error")
+    void sketch_error_bounds() {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(50);
+        Map<String, Long> exact = new HashMap<>();
+        Random rnd = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            // a few hot codes over a long tail
+            String code = rnd.nextInt(4) == 0 ? "HOT" + rnd.nextInt(5) : "T" + rnd.nextInt(2_000);
+            int qty = 1 + rnd.nextInt(3);
+            sketch.add(code, null, qty, BigDecimal.ONE);
+            exact.merge(code, (long) qty, Long::sum);
+        }
+
+        List<SpaceSavingSketch.Entry> top = sketch.top(5);
+        for (int i = 0; i < 5; i++) assertTrue(top.get(i).itemCode().startsWith("HOT"), top.toString());
+        for (SpaceSavingSketch.Entry e : sketch.top(50)) {
+            long truth = exact.get(e.itemCode());
+            assertTrue(e.count() >= truth && e.guaranteed() <= truth, e + " vs " + truth);
+            assertTrue(e.error() <= sketch.total() / sketch.capacity());
+        }
+    }
+
+    @Test
+    @DisplayName("Day, week and month accumulate independently and restart on a new period")
+    void periods_roll_over() {
+        var tracker = new TopSellersTracker(10, today::get);
+        tracker.onBillPaid(sale(today.get(), "A", 5, "B", 1));
+        tracker.onBillPaid(sale(today.get().minusDays(1), "B", 7)); // Tuesday: same week and month
+
+        assertEquals(List.of("A"), codes(tracker.top(Period.DAY, 1)));
+        assertEquals(List.of("B", "A"), codes(tracker.top(Period.WEEK, 5)));
+        assertEquals(13, tracker.top(Period.MONTH, 5).unitsSold());
+
+        today.set(LocalDate.of(2024, 5, 20)); // next Monday
+        assertTrue(tracker.top(Period.WEEK, 5).top().isEmpty(), "no sales yet this week");
+        tracker.onBillPaid(sale(today.get(), "C", 2));
+        tracker.onBillPaid(sale(LocalDate.of(2024, 5, 15), "A", 50)); // late event for a closed week
+        assertEquals(List.of("C"), codes(tracker.top(Period.WEEK, 5)));
+        assertEquals(List.of("A", "B", "C"), codes(tracker.top(Period.MONTH, 5)));
+        assertEquals(Money.of(110.0), tracker.top(Period.MONTH, 1).top().get(0).revenue());
+    }
+
+    @Test
+    @DisplayName("Only ranges matching an open period are served from the sketch")
+    void covering_ranges() {
+        var tracker = new TopSellersTracker(10, today::get);
+        tracker.onBillPaid(sale(today.get(), "A", 1));
+        LocalDate t = today.get();
+
+        assertEquals(Period.DAY, tracker.covering(t, t, 5).orElseThrow().period());
+        assertEquals(Period.WEEK, tracker.covering(LocalDate.of(2024, 5, 13), t, 5).orElseThrow().period());
+        assertEquals(Period.MONTH, tracker.covering(LocalDate.of(2024, 5, 1), t.plusDays(3), 5).orElseThrow().period());
+        assertTrue(tracker.covering(LocalDate.of(2024, 5, 1), t.minusDays(1), 5).isEmpty(), "closed range");
+        assertTrue(tracker.covering(LocalDate.of(2024, 5, 2), t, 5).isEmpty(), "not a period start");
+        assertTrue(tracker.covering(t, t, 11).isEmpty(), "limit beyond capacity");
+    }
+
+    @Test
+    @DisplayName("Rebuild replays from the earlier of week and month start")
+    void rebuild_from_feed() {
+        today.set(LocalDate.of(2024, 6, 2)); // Sunday; week started in May
+        var tracker = new TopSellersTracker(10, today::get);
+        List<LocalDate> asked = new ArrayList<>();
+        tracker.rebuild((since, sink) -> {
+            asked.add(since.toLocalDate());
+            sink.accept(sale(LocalDate.of(2024, 5, 30), "A", 3));
+            sink.accept(sale(LocalDate.of(2024, 6, 1), "B", 2));
+            return 2;
+        });
+
+        assertEquals(List.of(LocalDate.of(2024, 5, 27)), asked);
+        assertEquals(List.of("A", "B"), codes(tracker.top(Period.WEEK, 5)));
+        assertEquals(List.of("B"), codes(tracker.top(Period.MONTH, 5)));
+        assertTrue(tracker.top(Period.DAY, 5).top().isEmpty());
+    }
+
+    private static List<String> codes(TopSellersTracker.Snapshot s) {
+        return s.top().stream().map(TopSellersTracker.TopSeller::itemCode).toList();
+    }
+}
@@ -0,0 +1,91 @@
+package infrastructure.files;
+
+import application.reporting.ReportExports;
+import application.reporting.ReportPrinter;
+import application.reporting.StreamingReportPrinter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExportReportPrinterTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 5, 1);
+
+    @TempDir
+    Path tempDir;
+
+    private static ReportPrinter.BillRow bill(String no, String user) {
+        return new ReportPrinter.BillRow(no, DAY.atTime(9, 30), user, "POS", "CASH", "10.00", "0.00", "0.00", "10.00");
+    }
+
+    @Test
+    @DisplayName("CSV quotes separators, doubles quotes and leaves nulls empty")
+    void csv_escaping() {
+        var bytes = new ByteArrayOutputStream();
+        try (var out = new CsvReportPrinter(bytes)) {
+            Consumer<ReportPrinter.BillRow> sink = out.beginBills(DAY, DAY);
+            sink.accept(bill("B-1", "o'neil, \"jr\""));
+            sink.accept(bill("B-2", null));
+            out.printReorder(List.of(new ReportPrinter.ReorderRow("A", "Line\nbreak", 3)), 5);
+        }
+        assertEquals(String.join("\r\n",
+                "billNo,createdAt,userName,channel,paymentMethod,subtotal,discount,tax,total",
+                "B-1,2024-05-01T09:30,\"o'neil, \"\"jr\"\"\",POS,CASH,10.00,0.00,0.00,10.00",
+                "B-2,2024-05-01T09:30,,POS,CASH,10.00,0.00,0.00,10.00",
+                "",
+                "itemCode,itemName,totalQty",
+                "A,\"Line\nbreak\",3",
+                ""), bytes.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("JSON Lines writes one tagged object per row with escaped strings")
+    void jsonl_rows() {
+        var bytes = new ByteArrayOutputStream();
+        try (var out = new JsonLinesReportPrinter(bytes)) {
+            out.printBestSellers(DAY, DAY, List.of(new ReportPrinter.BestSeller("A", "Tab\there \"q\"", 4, "8.00")));
+            out.beginBills(DAY, DAY).accept(bill("B-1", null));
+        }
+        String[] lines = bytes.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("{\"report\":\"bestSellers\",\"itemCode\":\"A\",\"itemName\":\"Tab\\there \\\"q\\\"\","
+                + "\"qtySold\":4,\"revenue\":\"8.00\"}", lines[0]);
+        assertTrue(lines[1].contains("\"userName\":null"), lines[1]);
+    }
+
+    @Test
+    @DisplayName("Gzip files read back and count compressed bytes and written rows")
+    void gzip_round_trip_with_stats() throws IOException {
+        Path file = tempDir.resolve("out").resolve("bills.csv.gz");
+        StreamingReportPrinter written;
+        try (var out = new FileReportExports().open(file, ReportExports.Format.CSV, true)) {
+            written = out;
+            var sink = out.beginBills(DAY, DAY);
+            for (int i = 0; i < 10_000; i++) sink.accept(bill("B-" + i, "alice"));
+        }
+        var stats = written.stats();
+        assertEquals(10_000, stats.rows());
+        assertEquals(Files.size(file), stats.bytes());
+
+        String text;
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+            text = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        assertEquals(10_001, text.split("\r\n").length);
+        assertTrue(stats.bytes() < text.length() / 5, "compressed");
+    }
+}
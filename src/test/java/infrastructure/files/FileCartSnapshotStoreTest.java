@@ -0,0 +1,60 @@
+package infrastructure.files;
+
+import application.online.CartSnapshotStore.CartSnapshot;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileCartSnapshotStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    private List<CartSnapshot> loadAll(FileCartSnapshotStore store) {
+        List<CartSnapshot> out = new ArrayList<>();
+        store.loadAll(out::add);
+        return out;
+    }
+
+    @Test
+    @DisplayName("Saved carts load back in line order, replaced by later saves and gone after delete")
+    void save_replace_delete() {
+        var store = new FileCartSnapshotStore(tempDir);
+        Map<String, Integer> lines = new LinkedHashMap<>();
+        lines.put("TEA", 2);
+        lines.put("MUG", 1);
+        store.save(new CartSnapshot("zoë/../x", 1_000L, lines));
+        store.save(new CartSnapshot("bob", 5L, Map.of("A", 1)));
+        store.save(new CartSnapshot("bob", 7L, Map.of("B", 3)));
+
+        var loaded = loadAll(new FileCartSnapshotStore(tempDir));
+        assertEquals(2, loaded.size());
+        var zoe = loaded.stream().filter(s -> s.cartId().equals("zoë/../x")).findFirst().orElseThrow();
+        assertEquals(1_000L, zoe.touchedAtMillis());
+        assertEquals(List.of("TEA", "MUG"), List.copyOf(zoe.lines().keySet()));
+        var bob = loaded.stream().filter(s -> s.cartId().equals("bob")).findFirst().orElseThrow();
+        assertEquals(new CartSnapshot("bob", 7L, Map.of("B", 3)), bob);
+
+        store.delete("bob");
+        store.delete("nobody");
+        assertEquals(1, loadAll(store).size());
+    }
+
+    @Test
+    @DisplayName("An unreadable snapshot is skipped")
+    void skips_unreadable() throws Exception {
+        var store = new FileCartSnapshotStore(tempDir);
+        store.save(new CartSnapshot("ann", 1L, Map.of("A", 1)));
+        Files.writeString(tempDir.resolve("Ym9i.cart"), "not a time\nA\t1\n");
+        assertEquals(List.of("ann"), loadAll(store).stream().map(CartSnapshot::cartId).toList());
+    }
+}
@@ -0,0 +1,40 @@
+package infrastructure.files;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileReportResultStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Saved days load back; unknown days are empty")
+    void save_and_load() {
+        var store = new FileReportResultStore(tempDir);
+        LocalDate day = LocalDate.of(2024, 3, 1);
+        store.save("revenueByDay.v1", day, List.of("2024-03-01\t10.00", "ünïcode"));
+
+        assertEquals(Optional.of(List.of("2024-03-01\t10.00", "ünïcode")), new FileReportResultStore(tempDir).load("revenueByDay.v1", day));
+        assertEquals(Optional.empty(), store.load("revenueByDay.v1", day.plusDays(1)));
+        assertTrue(Files.isRegularFile(tempDir.resolve("revenueByDay.v1").resolve("2024-03-01.tsv")));
+    }
+
+    @Test
+    @DisplayName("An empty day is stored as an empty file, not as a miss")
+    void empty_day() {
+        var store = new FileReportResultStore(tempDir);
+        LocalDate day = LocalDate.of(2024, 3, 2);
+        store.save("billsBetween.v1", day, List.of());
+        assertEquals(Optional.of(List.of()), store.load("billsBetween.v1", day));
+    }
+}
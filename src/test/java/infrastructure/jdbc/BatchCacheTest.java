@@ -0,0 +1,81 @@
+package infrastructure.jdbc;
+
+import domain.inventory.Batch;
+import domain.inventory.StockLocation;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchCacheTest {
+
+    private final AtomicLong now = new AtomicLong(0);
+    private final AtomicInteger loads = new AtomicInteger();
+    private final BatchCache cache = new BatchCache(1000, now::get);
+
+    private List<Batch> load(String code) {
+        loads.incrementAndGet();
+        return List.of(new Batch(1, code, null, 5, 7));
+    }
+
+    @Test
+    @DisplayName("Repeated lookups are served from the cache as copies")
+    void hit_returns_copies() {
+        List<Batch> first = cache.get("A", StockLocation.SHELF, this::load);
+        first.get(0).takeFromShelf(5);
+
+        List<Batch> second = cache.get("A", StockLocation.SHELF, this::load);
+        assertEquals(1, loads.get());
+        assertEquals(5, second.get(0).qtyOnShelf(), "caller mutation must not leak into the cache");
+        assertEquals(1, cache.stats().hits());
+
+        cache.get("A", StockLocation.STORE, this::load);
+        assertEquals(2, loads.get(), "shelf and store lists are cached separately");
+    }
+
+    @Test
+    @DisplayName("A bump invalidates the item only")
+    void bump_invalidates_item() {
+        cache.get("A", StockLocation.SHELF, this::load);
+        cache.get("B", StockLocation.SHELF, this::load);
+        cache.bump("A");
+        assertEquals(1, cache.version("A"));
+
+        cache.get("A", StockLocation.SHELF, this::load);
+        cache.get("B", StockLocation.SHELF, this::load);
+        assertEquals(3, loads.get());
+        cache.bump(null); // unknown batch: nothing to do
+        assertEquals(1, cache.stats().invalidations());
+    }
+
+    @Test
+    @DisplayName("A load that raced a write is returned but not cached")
+    void racing_load_not_cached() {
+        cache.get("A", StockLocation.SHELF, code -> {
+            cache.bump(code); // a commit lands while the query runs
+            return load(code);
+        });
+        assertEquals(1, cache.stats().rejectedLoads());
+        assertEquals(0, cache.stats().cachedLists());
+
+        cache.get("A", StockLocation.SHELF, this::load);
+        cache.get("A", StockLocation.SHELF, this::load);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    @DisplayName("Entries past their max age are reloaded")
+    void max_age() {
+        cache.get("A", StockLocation.SHELF, this::load);
+        now.addAndGet(999);
+        cache.get("A", StockLocation.SHELF, this::load);
+        now.addAndGet(1);
+        cache.get("A", StockLocation.SHELF, this::load);
+        assertEquals(2, loads.get());
+        assertThrows(IllegalArgumentException.class, () -> new BatchCache(0));
+    }
+}
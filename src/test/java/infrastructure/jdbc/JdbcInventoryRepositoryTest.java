@@ -2,10 +2,20 @@ package infrastructure.jdbc;
 
 import domain.common.Money;
 import domain.inventory.BatchDiscount;
+import domain.inventory.InventoryReservation;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class JdbcInventoryRepositoryTest {
@@ -122,4 +132,75 @@ class JdbcInventoryRepositoryTest {
             }
         });
     }
+
+    @Test
+    @DisplayName("Group commit: orders sharing a batch are fitted in turn; the one that no longer fits is refused alone")
+    void take_order_shares_batches() {
+        var shelf = Map.of(1L, new JdbcInventoryRepository.ShelfRow("TEA", 5),
+                2L, new JdbcInventoryRepository.ShelfRow("MUG", 2));
+        Map<Long, Integer> taken = new TreeMap<>();
+
+        assertNull(JdbcInventoryRepository.takeOrder(
+                List.of(new InventoryReservation(1, "TEA", 3), new InventoryReservation(2, "MUG", 1)), shelf, taken));
+        String refusal = JdbcInventoryRepository.takeOrder(
+                List.of(new InventoryReservation(2, "MUG", 1), new InventoryReservation(1, "TEA", 3)), shelf, taken);
+        assertEquals("Not enough stock left for TEA", refusal);
+        // the refused order took nothing, not even its MUG that would have fit
+        assertEquals(Map.of(1L, 3, 2L, 1), taken);
+        assertNull(JdbcInventoryRepository.takeOrder(List.of(new InventoryReservation(1, "TEA", 2)), shelf, taken));
+        assertEquals(Map.of(1L, 5, 2L, 1), taken);
+    }
+
+    @Test
+    @DisplayName("Group commit: two reservations of one order on the same batch count together")
+    void take_order_sums_within_order() {
+        var shelf = Map.of(1L, new JdbcInventoryRepository.ShelfRow("TEA", 5));
+        Map<Long, Integer> taken = new TreeMap<>();
+        assertNotNull(JdbcInventoryRepository.takeOrder(
+                List.of(new InventoryReservation(1, "TEA", 3), new InventoryReservation(1, "TEA", 3)), shelf, taken));
+        assertTrue(taken.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Group commit: a reservation for a missing row or another item's batch is refused")
+    void take_order_missing_or_mismatched_batch() {
+        var shelf = Map.of(1L, new JdbcInventoryRepository.ShelfRow("TEA", 5));
+        Map<Long, Integer> taken = new TreeMap<>();
+        assertEquals("Not enough stock left for MUG", JdbcInventoryRepository.takeOrder(
+                List.of(new InventoryReservation(1, "MUG", 1)), shelf, taken));
+        assertEquals("Not enough stock left for TEA", JdbcInventoryRepository.takeOrder(
+                List.of(new InventoryReservation(9, "TEA", 1)), shelf, taken));
+        assertTrue(taken.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Group commit: one CASE update binds each batch id with its quantity, then the id list")
+    void decrement_shelf_binds_case_pairs() throws SQLException {
+        List<String> sql = new ArrayList<>();
+        Map<Integer, Object> params = new TreeMap<>();
+        PreparedStatement ps = (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "setLong", "setInt" -> { params.put((Integer) args[0], args[1]); yield null; }
+                    case "executeUpdate" -> 2;
+                    default -> null;
+                });
+        Connection c = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("prepareStatement")) {
+                        sql.add((String) args[0]);
+                        return ps;
+                    }
+                    return null;
+                });
+
+        var taken = new TreeMap<Long, Integer>(Map.of(7L, 3, 4L, 1));
+        JdbcInventoryRepository.decrementShelf(c, taken);
+
+        assertEquals(List.of("UPDATE batches SET qty_on_shelf = qty_on_shelf - CASE id WHEN ? THEN ? WHEN ? THEN ? "
+                + "END WHERE id IN (?,?)"), sql);
+        assertEquals(List.of(4L, 1, 7L, 3, 4L, 7L), List.copyOf(params.values()));
+
+        JdbcInventoryRepository.decrementShelf(c, new TreeMap<>());
+        assertEquals(1, sql.size());
+    }
 }
@@ -0,0 +1,115 @@
+package infrastructure.jdbc;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.OptionalLong;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadWriteRouterTest {
+
+    private final Connection primaryConn = stubConnection("primary");
+    private final Connection replicaConn = stubConnection("replica");
+    private final AtomicLong now = new AtomicLong(0);
+    private final AtomicInteger probes = new AtomicInteger();
+
+    private volatile OptionalLong lag;
+    private volatile boolean replicaDown;
+
+    @BeforeEach
+    void setUp() {
+        lag = OptionalLong.of(0);
+        replicaDown = false;
+    }
+
+    private static Connection stubConnection(String name) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "toString" -> name;
+                    case "hashCode" -> name.hashCode();
+                    case "equals" -> proxy == args[0];
+                    default -> null;
+                });
+    }
+
+    private ReadWriteRouter router(boolean withReplica, long maxLag) {
+        return new ReadWriteRouter(
+                () -> primaryConn,
+                withReplica ? () -> {
+                    if (replicaDown) throw new SQLException("Connection refused");
+                    return replicaConn;
+                } : null,
+                c -> { probes.incrementAndGet(); return lag; },
+                maxLag, 1000, now::get);
+    }
+
+    @Test
+    @DisplayName("Writes use the primary; reads use a fresh replica")
+    void routes_reads_to_replica() throws SQLException {
+        var r = router(true, 5);
+        assertSame(primaryConn, r.write());
+        assertSame(replicaConn, r.read());
+        assertSame(replicaConn, r.read());
+        assertEquals(1, probes.get(), "lag is probed once per interval");
+        assertEquals(2, r.status().readsOnReplica());
+    }
+
+    @Test
+    @DisplayName("Without a replica every read goes to the primary")
+    void no_replica() throws SQLException {
+        var r = router(false, 5);
+        assertSame(primaryConn, r.read());
+        assertFalse(r.status().replicaConfigured());
+        assertEquals(0, r.status().fallbacks());
+    }
+
+    @Test
+    @DisplayName("A lagging replica is skipped until a later probe finds it caught up")
+    void stale_replica_falls_back() throws SQLException {
+        var r = router(true, 5);
+        lag = OptionalLong.of(30);
+        assertSame(primaryConn, r.read());
+        assertEquals(30, r.status().lastLagSeconds());
+        assertFalse(r.status().replicaHealthy());
+
+        lag = OptionalLong.of(1);
+        assertSame(primaryConn, r.read(), "no re-probe inside the interval");
+        now.addAndGet(1000);
+        assertSame(replicaConn, r.read());
+        assertEquals(2, r.status().fallbacks());
+    }
+
+    @Test
+    @DisplayName("Stopped replication and connection failures fall back to the primary")
+    void broken_replica_falls_back() throws SQLException {
+        var r = router(true, 5);
+        lag = OptionalLong.empty();
+        assertSame(primaryConn, r.read());
+
+        now.addAndGet(1000);
+        lag = OptionalLong.of(0);
+        replicaDown = true;
+        assertSame(primaryConn, r.read());
+        assertFalse(r.status().replicaHealthy());
+
+        now.addAndGet(1000);
+        replicaDown = false;
+        assertSame(replicaConn, r.read());
+    }
+
+    @Test
+    @DisplayName("Negative max lag skips the lag check (plain stand-in instance)")
+    void lag_check_disabled() throws SQLException {
+        var r = router(true, -1);
+        lag = OptionalLong.empty();
+        assertSame(replicaConn, r.read());
+        assertEquals(0, probes.get());
+    }
+}
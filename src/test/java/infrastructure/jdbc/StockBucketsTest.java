@@ -0,0 +1,36 @@
+package infrastructure.jdbc;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StockBucketsTest {
+
+    @Test
+    @DisplayName("Split spreads the total evenly and keeps every unit")
+    void split_is_even_and_lossless() {
+        assertArrayEquals(new int[]{4, 3, 3}, StockBuckets.split(10, 3));
+        assertArrayEquals(new int[]{0, 0, 0, 0}, StockBuckets.split(0, 4));
+        assertArrayEquals(new int[]{1, 1, 0, 0}, StockBuckets.split(2, 4));
+        assertEquals(1000, Arrays.stream(StockBuckets.split(1000, 7)).sum());
+    }
+
+    @Test
+    @DisplayName("Probe order visits every bucket once starting at the random pick")
+    void probe_order_wraps() {
+        assertArrayEquals(new int[]{2, 3, 0, 1}, StockBuckets.probeOrder(2, 4));
+        assertArrayEquals(new int[]{0, 1, 2}, StockBuckets.probeOrder(0, 3));
+    }
+
+    @Test
+    @DisplayName("A fresh tracker knows no striped batches")
+    void tracker_starts_empty() {
+        var buckets = new StockBuckets();
+        assertFalse(buckets.isStriped(1L));
+        assertTrue(buckets.stripedBatchIds().isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> buckets.stripe(null, 1L, 1));
+    }
+}
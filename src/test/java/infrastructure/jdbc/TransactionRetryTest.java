@@ -0,0 +1,94 @@
+package infrastructure.jdbc;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionRetryTest {
+
+    private static SQLException deadlock() {
+        return new SQLException("Deadlock found when trying to get lock", "40001", 1213);
+    }
+
+    private static SQLException lockWaitTimeout() {
+        return new SQLException("Lock wait timeout exceeded", "HY000", 1205);
+    }
+
+    @Test
+    @DisplayName("Deadlock victims are re-run until the transaction succeeds")
+    void retries_deadlocks() throws SQLException {
+        var retry = new TransactionRetry(4, 0, 0);
+        var calls = new AtomicInteger();
+
+        String out = retry.run("commit", () -> {
+            if (calls.incrementAndGet() < 3) throw deadlock();
+            return "ok";
+        });
+
+        assertEquals("ok", out);
+        assertEquals(3, calls.get());
+        var stats = retry.stats();
+        assertEquals(1, stats.transactions());
+        assertEquals(2, stats.retries());
+        assertEquals(2, stats.deadlocks());
+        assertEquals(2L, stats.retriesByOperation().get("commit"));
+    }
+
+    @Test
+    @DisplayName("Gives up after the attempt limit and rethrows the last error")
+    void bounded_attempts() {
+        var retry = new TransactionRetry(3, 0, 0);
+        var calls = new AtomicInteger();
+
+        SQLException e = assertThrows(SQLException.class, () -> retry.run("move", () -> {
+            calls.incrementAndGet();
+            throw lockWaitTimeout();
+        }));
+
+        assertEquals(1205, e.getErrorCode());
+        assertEquals(3, calls.get());
+        assertEquals(3, retry.stats().lockWaitTimeouts());
+        assertEquals(1, retry.stats().exhausted());
+    }
+
+    @Test
+    @DisplayName("Other SQL errors and business errors are not retried")
+    void non_lock_errors_pass_through() {
+        var retry = new TransactionRetry();
+        var calls = new AtomicInteger();
+
+        assertThrows(SQLException.class, () -> retry.run("x", () -> {
+            calls.incrementAndGet();
+            throw new SQLException("Duplicate entry", "23000", 1062);
+        }));
+        assertThrows(IllegalStateException.class, () -> retry.run("x", () -> {
+            calls.incrementAndGet();
+            throw new IllegalStateException("insufficient");
+        }));
+        assertEquals(2, calls.get());
+        assertEquals(0, retry.stats().retries());
+    }
+
+    @Test
+    @DisplayName("Lock conflicts are recognised through wrapped causes")
+    void detects_wrapped_conflicts() {
+        assertTrue(TransactionRetry.isLockConflict(new SQLException("batch failed", deadlock())));
+        assertFalse(TransactionRetry.isLockConflict(new SQLException("syntax", "42000", 1064)));
+    }
+
+    @Test
+    @DisplayName("Backoff stays within the exponential ceiling and the cap")
+    void backoff_bounds() {
+        var retry = new TransactionRetry(5, 10, 50);
+        for (int i = 0; i < 200; i++) {
+            assertTrue(retry.backoff(1) <= 10);
+            assertTrue(retry.backoff(2) <= 20);
+            assertTrue(retry.backoff(10) <= 50);
+        }
+        assertThrows(IllegalArgumentException.class, () -> new TransactionRetry(0, 1, 1));
+    }
+}
@@ -0,0 +1,49 @@
+package infrastructure.web;
+
+import domain.common.Money;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonTest {
+
+    record Line(String code, int qty, Money price) {}
+
+    @Test
+    @DisplayName("Records, maps and lists are written with money as plain numbers and strings escaped")
+    void writes_nested_values() {
+        var m = new LinkedHashMap<String, Object>();
+        m.put("lines", List.of(new Line("A\"1", 2, Money.of(3.5))));
+        m.put("note", "a\nb");
+        m.put("none", null);
+        assertEquals("{\"lines\":[{\"code\":\"A\\\"1\",\"qty\":2,\"price\":3.50}],\"note\":\"a\\nb\",\"none\":null}",
+                Json.write(m));
+    }
+
+    @Test
+    @DisplayName("A flat object parses to the text of each value")
+    void parses_flat_object() {
+        Map<String, String> in = Json.parseFlatObject(" {\"code\": \"T\\u0045A\", \"qty\": 3, \"gift\": true, \"note\": null} ");
+        assertEquals("TEA", in.get("code"));
+        assertEquals("3", in.get("qty"));
+        assertEquals("true", in.get("gift"));
+        assertTrue(in.containsKey("note"));
+        assertNull(in.get("note"));
+        assertTrue(Json.parseFlatObject("").isEmpty());
+        assertTrue(Json.parseFlatObject("{}").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Nested, truncated or trailing input is rejected")
+    void rejects_bad_input() {
+        assertThrows(IllegalArgumentException.class, () -> Json.parseFlatObject("{\"a\":{\"b\":1}}"));
+        assertThrows(IllegalArgumentException.class, () -> Json.parseFlatObject("{\"a\":\"x"));
+        assertThrows(IllegalArgumentException.class, () -> Json.parseFlatObject("{\"a\":1} x"));
+        assertThrows(IllegalArgumentException.class, () -> Json.parseFlatObject("{\"a\":nope}"));
+    }
+}
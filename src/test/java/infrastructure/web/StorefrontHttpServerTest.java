@@ -0,0 +1,107 @@
+package infrastructure.web;
+
+import application.auth.CustomerAuthService;
+import application.auth.SessionStore;
+import application.inventory.FefoBatchSelector;
+import application.online.StorefrontService;
+import application.pricing.PricingService;
+import domain.auth.Customer;
+import domain.auth.PasswordHash;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ports.in.InventoryService;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StorefrontHttpServerTest {
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private StorefrontHttpServer server;
+    private String base;
+
+    @BeforeEach
+    void start() throws Exception {
+        var repo = new FakeCustomerRepository();
+        repo.save(new Customer(1L, "alice", "a@example.com", PasswordHash.sha256("Password123!"), "", "ACTIVE"));
+        var customers = new CustomerAuthService(repo, new SessionStore<>(Duration.ofMinutes(5)));
+        var inventory = new InventoryService(null, new FefoBatchSelector());
+        var store = new StorefrontService(inventory, null, new PricingService(0.0), null, null);
+        server = new StorefrontHttpServer(store, customers, new InetSocketAddress("127.0.0.1", 0), 4, Duration.ofSeconds(1));
+        server.start();
+        base = "http://127.0.0.1:" + server.address().getPort();
+    }
+
+    @AfterEach
+    void stop() {
+        server.stop(Duration.ZERO);
+    }
+
+    private HttpResponse<String> send(String method, String path, String body, String token) throws Exception {
+        var b = HttpRequest.newBuilder(URI.create(base + path))
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body));
+        if (token != null) b.header("Authorization", "Bearer " + token);
+        return client.send(b.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    @DisplayName("Login returns a bearer token that opens the session's cart until logout")
+    void login_cart_logout() throws Exception {
+        var login = send("POST", "/api/login", "{\"username\":\"alice\",\"password\":\"Password123!\"}", null);
+        assertEquals(200, login.statusCode(), login.body());
+        String token = Json.parseFlatObject(login.body()).get("token");
+        assertNotNull(token);
+        assertEquals("application/json; charset=utf-8", login.headers().firstValue("Content-Type").orElse(""));
+
+        var cart = send("GET", "/api/cart", null, token);
+        assertEquals(200, cart.statusCode(), cart.body());
+        assertTrue(cart.body().startsWith("{\"lines\":[]"), cart.body());
+
+        assertEquals(200, send("POST", "/api/logout", null, token).statusCode());
+        assertEquals(401, send("GET", "/api/cart", null, token).statusCode());
+    }
+
+    @Test
+    @DisplayName("Bad credentials, missing tokens, wrong methods and unknown paths get their own status")
+    void error_statuses() throws Exception {
+        var bad = send("POST", "/api/login", "{\"username\":\"alice\",\"password\":\"Wrong123!x\"}", null);
+        assertEquals(401, bad.statusCode());
+        assertTrue(bad.body().contains("Invalid username or password"), bad.body());
+
+        assertEquals(401, send("POST", "/api/checkout", "{\"cardLast4\":\"4242\"}", null).statusCode());
+        assertEquals(401, send("GET", "/api/cart", null, "not-a-token").statusCode());
+        assertEquals(400, send("POST", "/api/login", "{not json", null).statusCode());
+
+        var wrongMethod = send("GET", "/api/login", null, null);
+        assertEquals(405, wrongMethod.statusCode());
+        assertEquals("POST", wrongMethod.headers().firstValue("Allow").orElse(""));
+        assertEquals(404, send("GET", "/api/nothing", null, null).statusCode());
+    }
+
+    static final class FakeCustomerRepository implements ports.out.CustomerRepository {
+        private final Map<String, Customer> byUsername = new HashMap<>();
+
+        @Override public void save(Customer customer) { byUsername.put(customer.name(), customer); }
+        @Override public void save(String username, String passwordHash, String email) {
+            save(new Customer(byUsername.size() + 1, username, email, passwordHash, "", "ACTIVE"));
+        }
+        @Override public Optional<Customer> findByUsername(String username) { return Optional.ofNullable(byUsername.get(username)); }
+        @Override public Optional<Customer> findByEmail(String email) {
+            return byUsername.values().stream().filter(c -> c.email().equals(email)).findFirst();
+        }
+        @Override public String loadPasswordHash(String username) {
+            return findByUsername(username).map(Customer::passwordHash).orElse(null);
+        }
+    }
+}